@@ -0,0 +1,11 @@
+package eu.efti.apemulator;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class ApEmulatorApplication {
+    public static void main(final String[] args) {
+        SpringApplication.run(ApEmulatorApplication.class, args);
+    }
+}
@@ -0,0 +1,22 @@
+package eu.efti.apemulator.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.efti.apemulator.service.ApEmulator;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class EmulatorConfiguration {
+
+    @Bean
+    @ConfigurationProperties(prefix = "emulator")
+    public EmulatorProperties emulatorProperties() {
+        return new EmulatorProperties();
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ApEmulator apEmulator(final EmulatorProperties emulatorProperties, final ObjectMapper objectMapper) {
+        return new ApEmulator(emulatorProperties, objectMapper);
+    }
+}
@@ -0,0 +1,38 @@
+package eu.efti.apemulator.config;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+public class EmulatorProperties {
+    // port of the WS plugin, 0 for any free port
+    private int port = 8081;
+    private String path = "/domibus/services/wsplugin";
+    // threads serving the WS plugin calls
+    private int serverThreads = 32;
+    // threads delivering the submitted messages and pushing the notifications
+    private int deliveryThreads = 8;
+    // milliseconds before submitMessage answers, plus a random jitter up to latency-jitter
+    private long submitLatency;
+    // milliseconds between the submission of a message and its delivery, plus a random jitter up to latency-jitter
+    private long deliveryLatency;
+    private long latencyJitter;
+    // share of the submissions refused with a SubmitMessageFault
+    private double submitFailureRate;
+    // share of the submitted messages not delivered, notified to their sender as send failures
+    private double deliveryFailureRate;
+    // milliseconds to wait for a party to answer a notification
+    private long notificationTimeout = 10000;
+    // parties by party id
+    private Map<String, Party> parties = new HashMap<>();
+
+    @Data
+    public static class Party {
+        // /ws/notification url of the gate or platform, messages stay pending for pull mode when absent
+        private String notificationUrl;
+        // WS plugin user of the party, listing its pending messages only
+        private String username;
+    }
+}
@@ -0,0 +1,21 @@
+package eu.efti.apemulator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmulatedMessage {
+    private String messageId;
+    private String conversationId;
+    private String action;
+    private String fromPartyId;
+    private String toPartyId;
+    private String payloadId;
+    private String contentType;
+    private byte[] payload;
+}
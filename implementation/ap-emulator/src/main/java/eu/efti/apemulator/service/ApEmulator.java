@@ -0,0 +1,74 @@
+package eu.efti.apemulator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import eu.efti.apemulator.config.EmulatorProperties;
+import jakarta.xml.ws.Endpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access point emulator: the WS plugin of a Domibus shared by several gates and platforms, published on the HTTP
+ * server of the JDK so that it can be embedded in a test or run next to them on the same host. The gates call it with
+ * the bundled WSDL, and are notified on their /ws/notification url.
+ */
+@Slf4j
+public class ApEmulator {
+
+    private final EmulatorProperties properties;
+    private final MessageRouter messageRouter;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private Endpoint endpoint;
+
+    public ApEmulator(final EmulatorProperties properties, final ObjectMapper objectMapper) {
+        this(properties, new MessageRouter(properties, new NotificationSender(objectMapper, properties.getNotificationTimeout())));
+    }
+
+    public ApEmulator(final EmulatorProperties properties, final MessageRouter messageRouter) {
+        this.properties = properties;
+        this.messageRouter = messageRouter;
+    }
+
+    public synchronized void start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress(properties.getPort()), 0);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("error while starting the access point emulator on port " + properties.getPort(), e);
+        }
+        serverExecutor = Executors.newFixedThreadPool(properties.getServerThreads(), new CustomizableThreadFactory("ap-emulator-"));
+        server.setExecutor(serverExecutor);
+        endpoint = Endpoint.create(new WsPluginEndpoint(messageRouter));
+        endpoint.publish(server.createContext(properties.getPath()));
+        server.start();
+        log.info("access point emulator listening on {} for parties {}", getUrl(), properties.getParties().keySet());
+    }
+
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        endpoint.stop();
+        server.stop(0);
+        serverExecutor.shutdown();
+        messageRouter.shutdown();
+        server = null;
+    }
+
+    /**
+     * Url of the WS plugin, for gate.ap.url.
+     */
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + properties.getPath();
+    }
+
+    public MessageRouter getMessageRouter() {
+        return messageRouter;
+    }
+}
@@ -0,0 +1,152 @@
+package eu.efti.apemulator.service;
+
+import eu.efti.apemulator.config.EmulatorProperties;
+import eu.efti.apemulator.dto.EmulatedMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Routes the submitted messages to their receiver by party id, as two access points exchanging them would. After the
+ * delivery latency, a message is kept pending for its receiver and pushed to its notification url, then its sender is
+ * notified of the success; a message to an unknown party, or failed by the delivery failure rate, is notified to its
+ * sender as a send failure instead. Messages pushed to their receiver are done with, the others stay pending until
+ * they are marked as downloaded.
+ */
+@Slf4j
+public class MessageRouter {
+
+    private final EmulatorProperties properties;
+    private final NotificationSender notificationSender;
+    private final ScheduledExecutorService deliveryExecutor;
+    private final Map<String, EmulatedMessage> pendingMessages = new ConcurrentHashMap<>();
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder deliveredCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    public MessageRouter(final EmulatorProperties properties, final NotificationSender notificationSender) {
+        this(properties, notificationSender,
+                Executors.newScheduledThreadPool(properties.getDeliveryThreads(), new CustomizableThreadFactory("ap-emulator-delivery-")));
+    }
+
+    public MessageRouter(final EmulatorProperties properties, final NotificationSender notificationSender,
+                         final ScheduledExecutorService deliveryExecutor) {
+        this.properties = properties;
+        this.notificationSender = notificationSender;
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    /**
+     * Waits for the submit latency, then tells whether the submission is refused by the submit failure rate.
+     */
+    public boolean acceptSubmission() {
+        sleep(withJitter(properties.getSubmitLatency()));
+        return !fails(properties.getSubmitFailureRate());
+    }
+
+    /**
+     * Schedules the delivery of a submitted message after the delivery latency.
+     */
+    public void route(final EmulatedMessage message) {
+        submittedCount.increment();
+        deliveryExecutor.schedule(() -> deliver(message), withJitter(properties.getDeliveryLatency()), TimeUnit.MILLISECONDS);
+    }
+
+    private void deliver(final EmulatedMessage message) {
+        final EmulatorProperties.Party receiver = properties.getParties().get(message.getToPartyId());
+        final String senderUrl = notificationUrl(message.getFromPartyId());
+        if (receiver == null || fails(properties.getDeliveryFailureRate())) {
+            log.info("message {} from {} to {} not delivered", message.getMessageId(), message.getFromPartyId(), message.getToPartyId());
+            failedCount.increment();
+            if (senderUrl != null) {
+                notificationSender.sendSendFailure(senderUrl, message.getMessageId());
+            }
+            return;
+        }
+        pendingMessages.put(message.getMessageId(), message);
+        deliveredCount.increment();
+        if (receiver.getNotificationUrl() != null && notificationSender.sendSubmitRequest(receiver.getNotificationUrl(), message)) {
+            pendingMessages.remove(message.getMessageId());
+        }
+        if (senderUrl != null) {
+            notificationSender.sendSendSuccess(senderUrl, message.getMessageId());
+        }
+    }
+
+    /**
+     * @param username WS plugin user calling, listing the messages of its party, or all the pending messages when
+     *                 no party has this user
+     */
+    public List<String> listPendingMessages(final String username) {
+        final Set<String> partyIds = properties.getParties().entrySet().stream()
+                .filter(party -> username != null && username.equals(party.getValue().getUsername()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+        return pendingMessages.values().stream()
+                .filter(message -> partyIds.isEmpty() || partyIds.contains(message.getToPartyId()))
+                .map(EmulatedMessage::getMessageId)
+                .toList();
+    }
+
+    public EmulatedMessage getPendingMessage(final String messageId) {
+        return pendingMessages.get(messageId);
+    }
+
+    /**
+     * @return false when the message is not pending
+     */
+    public boolean markAsDownloaded(final String messageId) {
+        return pendingMessages.remove(messageId) != null;
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.sum();
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public void shutdown() {
+        deliveryExecutor.shutdown();
+    }
+
+    private String notificationUrl(final String partyId) {
+        final EmulatorProperties.Party party = properties.getParties().get(partyId);
+        return party != null ? party.getNotificationUrl() : null;
+    }
+
+    private long withJitter(final long latency) {
+        final long jitter = properties.getLatencyJitter();
+        return latency + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+    }
+
+    private static boolean fails(final double rate) {
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    private static void sleep(final long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package eu.efti.apemulator.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.efti.apemulator.dto.EmulatedMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+
+import static eu.efti.edeliveryapconnector.dto.ReceivedNotificationDto.MESSAGE_ID;
+import static eu.efti.edeliveryapconnector.dto.ReceivedNotificationDto.MESSAGING;
+import static eu.efti.edeliveryapconnector.dto.ReceivedNotificationDto.PAYLOAD;
+import static eu.efti.edeliveryapconnector.dto.ReceivedNotificationDto.SENT_FAILURE;
+import static eu.efti.edeliveryapconnector.dto.ReceivedNotificationDto.SENT_SUCCESS;
+import static eu.efti.edeliveryapconnector.dto.ReceivedNotificationDto.SUBMIT_MESSAGE;
+
+/**
+ * Pushes the notifications of the WS plugin to the /ws/notification endpoint of a gate or platform, in the JSON form
+ * read into a ReceivedNotificationDto.
+ */
+@Slf4j
+public class NotificationSender {
+
+    private static final String HEADER = "Header";
+    private static final String BODY = "Body";
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Duration timeout;
+
+    public NotificationSender(final ObjectMapper objectMapper, final long timeoutMillis) {
+        this(HttpClient.newBuilder().connectTimeout(Duration.ofMillis(timeoutMillis)).build(), objectMapper, timeoutMillis);
+    }
+
+    public NotificationSender(final HttpClient httpClient, final ObjectMapper objectMapper, final long timeoutMillis) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.timeout = Duration.ofMillis(timeoutMillis);
+    }
+
+    /**
+     * Notifies the receiver of a message, with its payload.
+     *
+     * @return true when the receiver accepted the notification
+     */
+    public boolean sendSubmitRequest(final String url, final EmulatedMessage message) {
+        final Map<String, Object> userMessage = Map.of(
+                "PartyInfo", Map.of("From", Map.of("PartyId", Map.of("", message.getFromPartyId()))),
+                "CollaborationInfo", Map.of("Action", message.getAction(), "ConversationId", message.getConversationId()),
+                "MessageInfo", Map.of("MessageId", message.getMessageId()));
+        final Map<String, Object> payload = Map.of(
+                "value", Base64.getEncoder().encodeToString(message.getPayload()),
+                "payloadId", message.getPayloadId(),
+                "mimeType", message.getContentType());
+        return post(url, Map.of(
+                HEADER, Map.of(MESSAGING, Map.of("UserMessage", userMessage)),
+                BODY, Map.of(SUBMIT_MESSAGE, Map.of(PAYLOAD, payload))));
+    }
+
+    public boolean sendSendSuccess(final String url, final String messageId) {
+        return post(url, Map.of(BODY, Map.of(SENT_SUCCESS, Map.of(MESSAGE_ID, messageId))));
+    }
+
+    public boolean sendSendFailure(final String url, final String messageId) {
+        return post(url, Map.of(BODY, Map.of(SENT_FAILURE, Map.of(MESSAGE_ID, messageId))));
+    }
+
+    private boolean post(final String url, final Map<String, Object> notification) {
+        try {
+            final HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(notification)))
+                    .build();
+            final HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 != 2) {
+                log.warn("notification to {} refused with status {}", url, response.statusCode());
+                return false;
+            }
+            return true;
+        } catch (final JsonProcessingException e) {
+            throw new IllegalStateException("error while writing notification", e);
+        } catch (final IOException e) {
+            log.warn("error while notifying {}: {}", url, e.getMessage());
+            return false;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
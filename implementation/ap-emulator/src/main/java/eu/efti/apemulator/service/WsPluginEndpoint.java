@@ -0,0 +1,263 @@
+package eu.efti.apemulator.service;
+
+import eu.efti.apemulator.dto.EmulatedMessage;
+import eu.efti.plugin.ws.generated.GetMessageErrorsFault;
+import eu.efti.plugin.ws.generated.ListPendingMessagesFault;
+import eu.efti.plugin.ws.generated.ListPushFailedMessagesFault;
+import eu.efti.plugin.ws.generated.MarkMessageAsDownloadedFault;
+import eu.efti.plugin.ws.generated.RePushFailedMessagesFault;
+import eu.efti.plugin.ws.generated.RetrieveMessageFault;
+import eu.efti.plugin.ws.generated.StatusFault;
+import eu.efti.plugin.ws.generated.SubmitMessageFault;
+import eu.efti.plugin.ws.generated.WebServicePluginInterface;
+import eu.efti.plugin.ws.generated.body.ErrorResultImplArray;
+import eu.efti.plugin.ws.generated.body.FaultDetail;
+import eu.efti.plugin.ws.generated.body.GetErrorsRequest;
+import eu.efti.plugin.ws.generated.body.GetErrorsRequestWithAccessPointRole;
+import eu.efti.plugin.ws.generated.body.LargePayloadType;
+import eu.efti.plugin.ws.generated.body.ListPendingMessagesRequest;
+import eu.efti.plugin.ws.generated.body.ListPendingMessagesResponse;
+import eu.efti.plugin.ws.generated.body.ListPushFailedMessagesRequest;
+import eu.efti.plugin.ws.generated.body.ListPushFailedMessagesResponse;
+import eu.efti.plugin.ws.generated.body.MarkMessageAsDownloadedRequest;
+import eu.efti.plugin.ws.generated.body.MarkMessageAsDownloadedResponse;
+import eu.efti.plugin.ws.generated.body.MessageStatus;
+import eu.efti.plugin.ws.generated.body.RePushFailedMessagesRequest;
+import eu.efti.plugin.ws.generated.body.RetrieveMessageRequest;
+import eu.efti.plugin.ws.generated.body.RetrieveMessageResponse;
+import eu.efti.plugin.ws.generated.body.StatusRequest;
+import eu.efti.plugin.ws.generated.body.StatusRequestWithAccessPointRole;
+import eu.efti.plugin.ws.generated.body.SubmitRequest;
+import eu.efti.plugin.ws.generated.body.SubmitResponse;
+import eu.efti.plugin.ws.generated.header.common.model.org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.CollaborationInfo;
+import eu.efti.plugin.ws.generated.header.common.model.org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.From;
+import eu.efti.plugin.ws.generated.header.common.model.org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.MessageInfo;
+import eu.efti.plugin.ws.generated.header.common.model.org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.Messaging;
+import eu.efti.plugin.ws.generated.header.common.model.org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.PartyId;
+import eu.efti.plugin.ws.generated.header.common.model.org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.PartyInfo;
+import eu.efti.plugin.ws.generated.header.common.model.org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.To;
+import eu.efti.plugin.ws.generated.header.common.model.org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.UserMessage;
+import jakarta.activation.DataHandler;
+import jakarta.annotation.Resource;
+import jakarta.jws.WebService;
+import jakarta.mail.util.ByteArrayDataSource;
+import jakarta.xml.ws.BindingType;
+import jakarta.xml.ws.Holder;
+import jakarta.xml.ws.WebServiceContext;
+import jakarta.xml.ws.WebServiceException;
+import jakarta.xml.ws.handler.MessageContext;
+import jakarta.xml.ws.soap.SOAPBinding;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * WS plugin operations used by the gate: messages are submitted and routed to their receiver, and pending ones are
+ * listed, retrieved and marked as downloaded by the pull mode. The other operations are not emulated.
+ */
+@Slf4j
+@WebService(serviceName = "WebServicePlugin", portName = "WEBSERVICEPLUGIN_PORT", targetNamespace = "http://eu.domibus.wsplugin/",
+        endpointInterface = "eu.efti.plugin.ws.generated.WebServicePluginInterface", wsdlLocation = "schemas/WebServicePlugin.wsdl")
+@BindingType(SOAPBinding.SOAP12HTTP_MTOM_BINDING)
+public class WsPluginEndpoint implements WebServicePluginInterface {
+
+    private static final String EBMS_ERROR = "EBMS:0004";
+    private static final String MESSAGE_ID_SUFFIX = "@ap-emulator";
+
+    private final MessageRouter messageRouter;
+
+    @Resource
+    private WebServiceContext webServiceContext;
+
+    public WsPluginEndpoint(final MessageRouter messageRouter) {
+        this.messageRouter = messageRouter;
+    }
+
+    @Override
+    public SubmitResponse submitMessage(final SubmitRequest submitRequest, final Messaging ebMSHeaderInfo) throws SubmitMessageFault {
+        if (!messageRouter.acceptSubmission()) {
+            throw new SubmitMessageFault("submission refused", faultDetail("submission refused by the failure injection"));
+        }
+        final UserMessage userMessage = ebMSHeaderInfo != null ? ebMSHeaderInfo.getUserMessage() : null;
+        final PartyInfo partyInfo = userMessage != null ? userMessage.getPartyInfo() : null;
+        final String from = partyInfo != null && partyInfo.getFrom() != null ? value(partyInfo.getFrom().getPartyId()) : null;
+        final String to = partyInfo != null && partyInfo.getTo() != null ? value(partyInfo.getTo().getPartyId()) : null;
+        if (from == null || to == null || submitRequest.getPayload().isEmpty()) {
+            throw new SubmitMessageFault("invalid submission", faultDetail("sender, receiver and payload are mandatory"));
+        }
+        final String messageId = userMessage.getMessageInfo() != null && StringUtils.isNotBlank(userMessage.getMessageInfo().getMessageId())
+                ? userMessage.getMessageInfo().getMessageId()
+                : UUID.randomUUID() + MESSAGE_ID_SUFFIX;
+        final LargePayloadType payload = submitRequest.getPayload().get(0);
+        final CollaborationInfo collaborationInfo = userMessage.getCollaborationInfo();
+        messageRouter.route(EmulatedMessage.builder()
+                .messageId(messageId)
+                .conversationId(collaborationInfo != null ? Objects.toString(collaborationInfo.getConversationId(), "") : "")
+                .action(collaborationInfo != null ? Objects.toString(collaborationInfo.getAction(), "") : "")
+                .fromPartyId(from)
+                .toPartyId(to)
+                .payloadId(Objects.toString(payload.getPayloadId(), ""))
+                .contentType(Objects.toString(payload.getContentType(), "text/xml"))
+                .payload(readPayload(messageId, payload))
+                .build());
+        final SubmitResponse submitResponse = new SubmitResponse();
+        submitResponse.getMessageID().add(messageId);
+        return submitResponse;
+    }
+
+    @Override
+    public ListPendingMessagesResponse listPendingMessages(final ListPendingMessagesRequest listPendingMessagesRequest) throws ListPendingMessagesFault {
+        final ListPendingMessagesResponse response = new ListPendingMessagesResponse();
+        response.getMessageID().addAll(messageRouter.listPendingMessages(username()));
+        return response;
+    }
+
+    @Override
+    public void retrieveMessage(final RetrieveMessageRequest retrieveMessageRequest, final Holder<RetrieveMessageResponse> retrieveMessageResponse,
+                                final Holder<Messaging> ebMSHeaderInfo) throws RetrieveMessageFault {
+        final String messageId = retrieveMessageRequest.getMessageID();
+        final EmulatedMessage message = messageRouter.getPendingMessage(messageId);
+        if (message == null) {
+            throw new RetrieveMessageFault("message not found", faultDetail("no pending message " + messageId));
+        }
+        final LargePayloadType payload = new LargePayloadType();
+        payload.setPayloadId(message.getPayloadId());
+        payload.setContentType(message.getContentType());
+        payload.setValue(new DataHandler(new ByteArrayDataSource(message.getPayload(), message.getContentType())));
+        final RetrieveMessageResponse response = new RetrieveMessageResponse();
+        response.getPayload().add(payload);
+        retrieveMessageResponse.value = response;
+        ebMSHeaderInfo.value = messaging(message);
+        if (Boolean.parseBoolean(retrieveMessageRequest.getMarkAsDownloaded())) {
+            messageRouter.markAsDownloaded(messageId);
+        }
+    }
+
+    @Override
+    public void markMessageAsDownloaded(final MarkMessageAsDownloadedRequest markMessageAsDownloadedRequest,
+                                        final Holder<MarkMessageAsDownloadedResponse> markMessageAsDownloadedResponse,
+                                        final Holder<Messaging> ebMSHeaderInfo) throws MarkMessageAsDownloadedFault {
+        final String messageId = markMessageAsDownloadedRequest.getMessageID();
+        final EmulatedMessage message = messageRouter.getPendingMessage(messageId);
+        if (message == null || !messageRouter.markAsDownloaded(messageId)) {
+            throw new MarkMessageAsDownloadedFault("message not found", faultDetail("no pending message " + messageId));
+        }
+        final MarkMessageAsDownloadedResponse response = new MarkMessageAsDownloadedResponse();
+        response.setMessageID(messageId);
+        markMessageAsDownloadedResponse.value = response;
+        ebMSHeaderInfo.value = messaging(message);
+    }
+
+    @Override
+    public MessageStatus getStatus(final StatusRequest statusRequest) throws StatusFault {
+        throw notEmulated("getStatus");
+    }
+
+    @Override
+    public MessageStatus getStatusWithAccessPointRole(final StatusRequestWithAccessPointRole statusRequestWithAccessPointRole) throws StatusFault {
+        throw notEmulated("getStatusWithAccessPointRole");
+    }
+
+    @Override
+    public ErrorResultImplArray getMessageErrors(final GetErrorsRequest getErrorsRequest) throws GetMessageErrorsFault {
+        throw notEmulated("getMessageErrors");
+    }
+
+    @Override
+    public ErrorResultImplArray getMessageErrorsWithAccessPointRole(final GetErrorsRequestWithAccessPointRole getErrorsRequestWithAccessPointRole)
+            throws GetMessageErrorsFault {
+        throw notEmulated("getMessageErrorsWithAccessPointRole");
+    }
+
+    @Override
+    public ListPushFailedMessagesResponse listPushFailedMessages(final ListPushFailedMessagesRequest listPushFailedMessagesRequest)
+            throws ListPushFailedMessagesFault {
+        throw notEmulated("listPushFailedMessages");
+    }
+
+    @Override
+    public void rePushFailedMessages(final RePushFailedMessagesRequest rePushFailedMessagesRequest) throws RePushFailedMessagesFault {
+        throw notEmulated("rePushFailedMessages");
+    }
+
+    private static byte[] readPayload(final String messageId, final LargePayloadType payload) {
+        try (final InputStream inputStream = payload.getValue().getInputStream()) {
+            return inputStream.readAllBytes();
+        } catch (final IOException e) {
+            throw new WebServiceException("error while reading payload of message " + messageId, e);
+        }
+    }
+
+    private static String value(final PartyId partyId) {
+        return partyId != null ? partyId.getValue() : null;
+    }
+
+    private static Messaging messaging(final EmulatedMessage message) {
+        final From from = new From();
+        from.setPartyId(partyId(message.getFromPartyId()));
+        final To to = new To();
+        to.setPartyId(partyId(message.getToPartyId()));
+        final PartyInfo partyInfo = new PartyInfo();
+        partyInfo.setFrom(from);
+        partyInfo.setTo(to);
+        final CollaborationInfo collaborationInfo = new CollaborationInfo();
+        collaborationInfo.setAction(message.getAction());
+        collaborationInfo.setConversationId(message.getConversationId());
+        final MessageInfo messageInfo = new MessageInfo();
+        messageInfo.setMessageId(message.getMessageId());
+        final UserMessage userMessage = new UserMessage();
+        userMessage.setPartyInfo(partyInfo);
+        userMessage.setCollaborationInfo(collaborationInfo);
+        userMessage.setMessageInfo(messageInfo);
+        final Messaging messaging = new Messaging();
+        messaging.setUserMessage(userMessage);
+        return messaging;
+    }
+
+    private static PartyId partyId(final String value) {
+        final PartyId partyId = new PartyId();
+        partyId.setValue(value);
+        return partyId;
+    }
+
+    private static FaultDetail faultDetail(final String message) {
+        final FaultDetail faultDetail = new FaultDetail();
+        faultDetail.setCode(EBMS_ERROR);
+        faultDetail.setMessage(message);
+        return faultDetail;
+    }
+
+    private static WebServiceException notEmulated(final String operation) {
+        return new WebServiceException(operation + " is not emulated");
+    }
+
+    /**
+     * WS plugin user of the call, from its basic authentication.
+     */
+    private String username() {
+        if (webServiceContext == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        final Map<String, List<String>> headers = (Map<String, List<String>>) webServiceContext.getMessageContext().get(MessageContext.HTTP_REQUEST_HEADERS);
+        if (headers == null) {
+            return null;
+        }
+        return headers.entrySet().stream()
+                .filter(header -> "Authorization".equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty())
+                .map(header -> header.getValue().get(0))
+                .filter(authorization -> StringUtils.startsWithIgnoreCase(authorization, "Basic "))
+                .map(authorization -> new String(Base64.getDecoder().decode(authorization.substring(6).trim()), StandardCharsets.UTF_8))
+                .map(credentials -> StringUtils.substringBefore(credentials, ":"))
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,194 @@
+package eu.efti.apemulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import eu.efti.apemulator.config.EmulatorProperties;
+import eu.efti.apemulator.service.ApEmulator;
+import eu.efti.edeliveryapconnector.dto.ApConfigDto;
+import eu.efti.edeliveryapconnector.dto.ApRequestDto;
+import eu.efti.edeliveryapconnector.dto.NotificationDto;
+import eu.efti.edeliveryapconnector.dto.NotificationType;
+import eu.efti.edeliveryapconnector.dto.ReceivedNotificationDto;
+import eu.efti.edeliveryapconnector.exception.SendRequestException;
+import eu.efti.edeliveryapconnector.service.MessageRetrievalService;
+import eu.efti.edeliveryapconnector.service.NotificationService;
+import eu.efti.edeliveryapconnector.service.RequestSendingService;
+import eu.efti.edeliveryapconnector.service.RequestUpdaterService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class ApEmulatorTest {
+
+    private static final String BORDURIA_NOTIFICATION = "/borduria/ws/notification";
+    private static final String SYLDAVIA_NOTIFICATION = "/syldavia/ws/notification";
+    private static final String BODY = "<uilQuery>hello</uilQuery>";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RequestSendingService requestSendingService = new RequestSendingService();
+    private final MessageRetrievalService messageRetrievalService = new MessageRetrievalService();
+    private final RequestUpdaterService requestUpdaterService = new RequestUpdaterService();
+    private WireMockServer gates;
+    private EmulatorProperties properties;
+    private ApEmulator emulator;
+
+    @BeforeEach
+    void init() {
+        gates = new WireMockServer(WireMockConfiguration.wireMockConfig().dynamicPort());
+        gates.start();
+        gates.stubFor(post(urlEqualTo(BORDURIA_NOTIFICATION)).willReturn(aResponse().withStatus(200)));
+        gates.stubFor(post(urlEqualTo(SYLDAVIA_NOTIFICATION)).willReturn(aResponse().withStatus(200)));
+        properties = new EmulatorProperties();
+        properties.setPort(0);
+        properties.getParties().put("borduria", party(gates.baseUrl() + BORDURIA_NOTIFICATION, "borduria_user"));
+        properties.getParties().put("syldavia", party(gates.baseUrl() + SYLDAVIA_NOTIFICATION, "syldavia_user"));
+        properties.getParties().put("acme", party(null, "acme_user"));
+    }
+
+    @AfterEach
+    void after() {
+        if (emulator != null) {
+            emulator.stop();
+        }
+        gates.stop();
+        requestSendingService.shutdown();
+    }
+
+    @Test
+    void shouldPushSubmittedMessageToReceiverAndNotifySender() throws Exception {
+        start();
+
+        final String messageId = requestSendingService.sendRequest(request("borduria", "syldavia"));
+
+        final LoggedRequest received = awaitNotification(SYLDAVIA_NOTIFICATION);
+        final NotificationDto notificationDto = new NotificationService(objectMapper)
+                .consume(objectMapper.readValue(received.getBodyAsString(), ReceivedNotificationDto.class)).orElseThrow();
+        assertEquals(NotificationType.RECEIVED, notificationDto.getNotificationType());
+        assertEquals(messageId, notificationDto.getMessageId());
+        assertEquals("borduria", notificationDto.getContent().getFromPartyId());
+        assertEquals("conversation-1", notificationDto.getContent().getConversationId());
+        assertEquals(BODY, notificationDto.getContent().getBodyAsString());
+        awaitNotification(BORDURIA_NOTIFICATION);
+        gates.verify(postRequestedFor(urlEqualTo(BORDURIA_NOTIFICATION)).withRequestBody(containing("\"sendSuccess\":{\"messageID\":\"" + messageId + "\"}")));
+        assertEquals(List.of(), emulator.getMessageRouter().listPendingMessages(null));
+    }
+
+    @Test
+    void shouldKeepMessageToPartyWithoutNotificationUrlPendingUntilDownloaded() throws Exception {
+        start();
+        final ApConfigDto acme = apConfig("acme_user");
+
+        final String messageId = requestSendingService.sendRequest(request("borduria", "acme"));
+        awaitNotification(BORDURIA_NOTIFICATION);
+
+        assertEquals(List.of(messageId), messageRetrievalService.listPendingMessages(acme));
+        assertEquals(List.of(), messageRetrievalService.listPendingMessages(apConfig("syldavia_user")));
+        final NotificationDto notificationDto = messageRetrievalService.retrieveMessage(acme, messageId);
+        assertEquals("borduria", notificationDto.getContent().getFromPartyId());
+        assertEquals(BODY, notificationDto.getContent().getBodyAsString());
+        assertEquals(List.of(messageId), messageRetrievalService.listPendingMessages(acme));
+        assertEquals(List.of(), List.copyOf(requestUpdaterService.setAllMarkedAsDownload(acme, List.of(messageId))));
+        assertEquals(List.of(), messageRetrievalService.listPendingMessages(acme));
+    }
+
+    @Test
+    void shouldNotifySendFailure_whenReceiverIsUnknown() throws Exception {
+        start();
+
+        final String messageId = requestSendingService.sendRequest(request("borduria", "unknown"));
+
+        awaitNotification(BORDURIA_NOTIFICATION);
+        gates.verify(postRequestedFor(urlEqualTo(BORDURIA_NOTIFICATION)).withRequestBody(containing("\"sendFailure\":{\"messageID\":\"" + messageId + "\"}")));
+        assertEquals(1, emulator.getMessageRouter().getFailedCount());
+    }
+
+    @Test
+    void shouldNotifySendFailure_whenDeliveryFails() throws Exception {
+        properties.setDeliveryFailureRate(1);
+        start();
+
+        requestSendingService.sendRequest(request("borduria", "syldavia"));
+
+        awaitNotification(BORDURIA_NOTIFICATION);
+        gates.verify(postRequestedFor(urlEqualTo(BORDURIA_NOTIFICATION)).withRequestBody(containing("sendFailure")));
+        gates.verify(0, postRequestedFor(urlEqualTo(SYLDAVIA_NOTIFICATION)));
+    }
+
+    @Test
+    void shouldRefuseSubmission_whenSubmitFails() {
+        properties.setSubmitFailureRate(1);
+        start();
+
+        assertThrows(SendRequestException.class, () -> requestSendingService.sendRequest(request("borduria", "syldavia")));
+        assertEquals(0, emulator.getMessageRouter().getSubmittedCount());
+    }
+
+    @Test
+    void shouldDelayDelivery() throws Exception {
+        properties.setDeliveryLatency(300);
+        start();
+
+        final long start = System.currentTimeMillis();
+        requestSendingService.sendRequest(request("borduria", "syldavia"));
+
+        awaitNotification(SYLDAVIA_NOTIFICATION);
+        assertTrue(System.currentTimeMillis() - start >= 300);
+    }
+
+    private void start() {
+        emulator = new ApEmulator(properties, objectMapper);
+        emulator.start();
+    }
+
+    private LoggedRequest awaitNotification(final String url) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            final List<LoggedRequest> requests = gates.findAll(postRequestedFor(urlEqualTo(url)));
+            if (!requests.isEmpty()) {
+                return requests.get(0);
+            }
+            Thread.sleep(20);
+        }
+        return fail("no notification to " + url);
+    }
+
+    private ApRequestDto request(final String sender, final String receiver) {
+        return ApRequestDto.builder()
+                .requestId("conversation-1")
+                .sender(sender)
+                .receiver(receiver)
+                .body(BODY)
+                .apConfig(apConfig(sender + "_user"))
+                .build();
+    }
+
+    private ApConfigDto apConfig(final String username) {
+        return ApConfigDto.builder()
+                .url(emulator.getUrl())
+                .username(username)
+                .password("password")
+                .bundledWsdl(true)
+                .build();
+    }
+
+    private static EmulatorProperties.Party party(final String notificationUrl, final String username) {
+        final EmulatorProperties.Party party = new EmulatorProperties.Party();
+        party.setNotificationUrl(notificationUrl);
+        party.setUsername(username);
+        return party;
+    }
+}
@@ -0,0 +1,6 @@
+package eu.efti.commons.enums;
+
+public enum DeadLetterSourceEnum {
+    SEND,
+    RECEIVE
+}
@@ -0,0 +1,49 @@
+package eu.efti.commons.utils;
+
+import eu.efti.commons.exception.TechnicalException;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process wide cache of {@link JAXBContext}. A context is thread safe and expensive to build, so each one is
+ * created once per bound class (or ObjectFactory) and shared by every marshalling path.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class JaxbContextRegistry {
+
+    /**
+     * Contexts built at startup: eDelivery messages, common consignment and identifier consignment.
+     */
+    public static final List<Class<?>> PRELOADED_CONTEXTS = List.of(
+            eu.efti.v1.edelivery.ObjectFactory.class,
+            eu.efti.v1.consignment.common.ObjectFactory.class,
+            eu.efti.v1.consignment.identifier.ObjectFactory.class);
+
+    private static final Map<Class<?>, JAXBContext> CONTEXTS = new ConcurrentHashMap<>();
+
+    public static JAXBContext getContext(final Class<?> boundClass) {
+        final JAXBContext context = CONTEXTS.get(boundClass);
+        return context != null ? context : CONTEXTS.computeIfAbsent(boundClass, JaxbContextRegistry::newContext);
+    }
+
+    public static void preload() {
+        PRELOADED_CONTEXTS.forEach(JaxbContextRegistry::getContext);
+        log.info("{} JAXB contexts preloaded", PRELOADED_CONTEXTS.size());
+    }
+
+    private static JAXBContext newContext(final Class<?> boundClass) {
+        try {
+            return JAXBContext.newInstance(boundClass);
+        } catch (final JAXBException e) {
+            throw new TechnicalException("Could not create JAXB context for " + boundClass.getName(), e);
+        }
+    }
+}
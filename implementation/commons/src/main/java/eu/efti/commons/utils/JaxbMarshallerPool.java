@@ -0,0 +1,156 @@
+package eu.efti.commons.utils;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.validation.Schema;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pools of {@link Marshaller} and {@link Unmarshaller}, one pool per bound class. Instances are not thread
+ * safe, so a caller borrows one for the duration of a call and gives it back, reset, once done. When a pool is empty a
+ * new instance is created (a miss); when it is full the returned instance is dropped, so at most {@code maxSize} idle
+ * instances are kept per bound class.
+ */
+@Slf4j
+public class JaxbMarshallerPool {
+
+    public static final int DEFAULT_MAX_SIZE = 16;
+    /**
+     * Thread local output buffers above this capacity are not kept after use.
+     */
+    static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private final int maxSize;
+    private final Map<Class<?>, BlockingQueue<Marshaller>> marshallers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, BlockingQueue<Unmarshaller>> unmarshallers = new ConcurrentHashMap<>();
+    private final ThreadLocal<StringWriter> writers = ThreadLocal.withInitial(StringWriter::new);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder creations = new LongAdder();
+
+    @FunctionalInterface
+    public interface JaxbCallback<T, R> {
+        R apply(T t) throws JAXBException;
+    }
+
+    public JaxbMarshallerPool(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("pool max size must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    public <R> R withMarshaller(final Class<?> boundClass, final JaxbCallback<Marshaller, R> action) throws JAXBException {
+        final BlockingQueue<Marshaller> pool = marshallers.computeIfAbsent(boundClass, k -> new ArrayBlockingQueue<>(maxSize));
+        Marshaller marshaller = pool.poll();
+        if (marshaller != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            marshaller = JaxbContextRegistry.getContext(boundClass).createMarshaller();
+            creations.increment();
+        }
+        try {
+            return action.apply(marshaller);
+        } finally {
+            if (reset(marshaller)) {
+                pool.offer(marshaller);
+            }
+        }
+    }
+
+    public <R> R withUnmarshaller(final Class<?> boundClass, final Schema schema, final JaxbCallback<Unmarshaller, R> action) throws JAXBException {
+        final BlockingQueue<Unmarshaller> pool = unmarshallers.computeIfAbsent(boundClass, k -> new ArrayBlockingQueue<>(maxSize));
+        Unmarshaller unmarshaller = pool.poll();
+        if (unmarshaller != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            unmarshaller = JaxbContextRegistry.getContext(boundClass).createUnmarshaller();
+            creations.increment();
+        }
+        try {
+            unmarshaller.setSchema(schema);
+            return action.apply(unmarshaller);
+        } finally {
+            if (reset(unmarshaller)) {
+                pool.offer(unmarshaller);
+            }
+        }
+    }
+
+    /**
+     * Marshal into the calling thread's reusable buffer and return the result as a string.
+     */
+    public String marshalToString(final Class<?> boundClass, final Object content) throws JAXBException {
+        final StringWriter writer = writers.get();
+        try {
+            withMarshaller(boundClass, marshaller -> {
+                marshaller.marshal(content, writer);
+                return null;
+            });
+            return writer.toString();
+        } finally {
+            final StringBuffer buffer = writer.getBuffer();
+            if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                writers.remove();
+            } else {
+                buffer.setLength(0);
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getCreations() {
+        return creations.sum();
+    }
+
+    public int getIdleCount() {
+        return marshallers.values().stream().mapToInt(BlockingQueue::size).sum()
+                + unmarshallers.values().stream().mapToInt(BlockingQueue::size).sum();
+    }
+
+    private static boolean reset(final Marshaller marshaller) {
+        try {
+            marshaller.setSchema(null);
+            marshaller.setEventHandler(null);
+            marshaller.setListener(null);
+            marshaller.setAttachmentMarshaller(null);
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, false);
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, false);
+            return true;
+        } catch (final JAXBException e) {
+            log.warn("Could not reset marshaller, dropping it", e);
+            return false;
+        }
+    }
+
+    private static boolean reset(final Unmarshaller unmarshaller) {
+        try {
+            unmarshaller.setSchema(null);
+            unmarshaller.setEventHandler(null);
+            unmarshaller.setListener(null);
+            unmarshaller.setAttachmentUnmarshaller(null);
+            return true;
+        } catch (final JAXBException e) {
+            log.warn("Could not reset unmarshaller, dropping it", e);
+            return false;
+        }
+    }
+}
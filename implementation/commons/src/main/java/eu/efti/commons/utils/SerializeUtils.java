@@ -8,34 +8,67 @@ import eu.efti.v1.edelivery.ObjectFactory;
 import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBElement;
 import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Marshaller;
 import jakarta.xml.bind.UnmarshalException;
 import jakarta.xml.bind.Unmarshaller;
 import jakarta.xml.bind.ValidationException;
-import lombok.RequiredArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.w3c.dom.Document;
 import org.w3c.dom.bootstrap.DOMImplementationRegistry;
 import org.w3c.dom.ls.DOMImplementationLS;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
 
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
-import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class SerializeUtils {
     private static final String ERROR_WHILE_WRITING_CONTENT = "error while writing content";
     private final ObjectMapper objectMapper;
+    @Getter
+    private final JaxbMarshallerPool marshallerPool;
+    @Getter
+    private final ValidatorHandlerPool validatorPool;
+
+    @Autowired
+    public SerializeUtils(final ObjectMapper objectMapper, @Value("${efti.jaxb.pool.max-size:16}") final int poolMaxSize,
+                          @Value("${efti.validation.pool.max-size:16}") final int validatorPoolMaxSize) {
+        this.objectMapper = objectMapper;
+        this.marshallerPool = new JaxbMarshallerPool(poolMaxSize);
+        this.validatorPool = new ValidatorHandlerPool(validatorPoolMaxSize);
+    }
+
+    public SerializeUtils(final ObjectMapper objectMapper) {
+        this(objectMapper, JaxbMarshallerPool.DEFAULT_MAX_SIZE, ValidatorHandlerPool.DEFAULT_MAX_SIZE);
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void preloadJaxbContexts() {
+        JaxbContextRegistry.preload();
+    }
 
     public <T> T mapJsonStringToClass(final String message, final Class<T> className) {
         try {
@@ -49,15 +82,35 @@ public class SerializeUtils {
 
     public <T, U> String mapJaxbObjectToXmlString(final T content, final Class<U> className) {
         try {
-            final Marshaller marshaller = JAXBContext.newInstance(className).createMarshaller();
-            final StringWriter sw = new StringWriter();
-            marshaller.marshal(content, sw);
-            return sw.toString();
+            return marshallerPool.marshalToString(className, content);
         } catch (final JAXBException e) {
             throw new TechnicalException(ERROR_WHILE_WRITING_CONTENT, e);
         }
     }
 
+    /**
+     * Marshal straight into the given stream, as UTF-8, without building an intermediate string.
+     */
+    public <T, U> void marshal(final T content, final Class<U> className, final OutputStream outputStream) {
+        try {
+            marshallerPool.withMarshaller(className, marshaller -> {
+                marshaller.marshal(content, outputStream);
+                return null;
+            });
+        } catch (final JAXBException e) {
+            throw new TechnicalException(ERROR_WHILE_WRITING_CONTENT, e);
+        }
+    }
+
+    /**
+     * Marshal to UTF-8 bytes, for content stored as binary, without building an intermediate string.
+     */
+    public <T, U> byte[] mapJaxbObjectToXmlBytes(final T content, final Class<U> className) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        marshal(content, className, outputStream);
+        return outputStream.toByteArray();
+    }
+
     /**
      * Serialize a jakarta.xml.bind annotated pojo that may be missing the {@link jakarta.xml.bind.annotation.XmlRootElement}
      * annotation. Will set root element name and namespace according to the given parameters.
@@ -65,13 +118,16 @@ public class SerializeUtils {
     public <U> Document mapJaxbObjectToDoc(U object, Class<U> clazz, String rootName, String rootNamespace) {
         try {
             var doc = documentBuilderFactory.newDocumentBuilder().newDocument();
-            JAXBContext.newInstance(clazz).createMarshaller().marshal(new JAXBElement<>(
-                            new QName(rootNamespace, rootName),
-                            clazz,
-                            null,
-                            object
-                    ),
-                    doc);
+            marshallerPool.withMarshaller(clazz, marshaller -> {
+                marshaller.marshal(new JAXBElement<>(
+                                new QName(rootNamespace, rootName),
+                                clazz,
+                                null,
+                                object
+                        ),
+                        doc);
+                return null;
+            });
 
             return doc;
         } catch (Exception e) {
@@ -107,15 +163,37 @@ public class SerializeUtils {
     @SuppressWarnings("unchecked")
     public <U> U mapXmlStringToJaxbObject(final String content) {
         try {
-            final Unmarshaller unmarshaller = JAXBContext.newInstance(ObjectFactory.class).createUnmarshaller();
-            final StringReader reader = new StringReader(content);
-            final JAXBElement<U> jaxbElement = (JAXBElement<U>) unmarshaller.unmarshal(reader);
+            final JAXBElement<U> jaxbElement = marshallerPool.withUnmarshaller(ObjectFactory.class, null,
+                    unmarshaller -> (JAXBElement<U>) unmarshaller.unmarshal(new StringReader(content)));
             return jaxbElement.getValue();
         } catch (final JAXBException e) {
             throw new TechnicalException(ERROR_WHILE_WRITING_CONTENT, e);
         }
     }
 
+    /**
+     * Unmarshal an eDelivery message read from the given stream, without building an intermediate string.
+     */
+    @SuppressWarnings("unchecked")
+    public <U> U unmarshal(final InputStream inputStream) {
+        try {
+            final JAXBElement<U> jaxbElement = marshallerPool.withUnmarshaller(ObjectFactory.class, null,
+                    unmarshaller -> (JAXBElement<U>) unmarshaller.unmarshal(inputStream));
+            return jaxbElement.getValue();
+        } catch (final JAXBException e) {
+            throw new TechnicalException(ERROR_WHILE_WRITING_CONTENT, e);
+        }
+    }
+
+    public <U> U unmarshal(final InputStream inputStream, final Class<U> clazz) {
+        try {
+            return marshallerPool.withUnmarshaller(clazz, null,
+                    unmarshaller -> unmarshaller.unmarshal(new StreamSource(inputStream), clazz)).getValue();
+        } catch (final JAXBException e) {
+            throw new TechnicalException("Could not unmarshal", e);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public <U> U mapXmlStringToJaxbObject(final String content, JAXBContext jaxbContext) {
         try {
@@ -130,10 +208,9 @@ public class SerializeUtils {
 
     public <U> U mapXmlStringToJaxbObject(final String content, Class<U> clazz) {
         try {
-            final JAXBContext jaxbContext = JAXBContext.newInstance(clazz);
-            final Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-            final StreamSource source = new StreamSource(new ByteArrayInputStream(content.getBytes()));
-            final JAXBElement<U> jaxbElement = unmarshaller.unmarshal(source, clazz);
+            final StreamSource source = new StreamSource(new StringReader(content));
+            final JAXBElement<U> jaxbElement = marshallerPool.withUnmarshaller(clazz, null,
+                    unmarshaller -> unmarshaller.unmarshal(source, clazz));
             return jaxbElement.getValue();
         } catch (final JAXBException e) {
             throw new TechnicalException("Could not unmarshal", e);
@@ -145,12 +222,10 @@ public class SerializeUtils {
      */
     public <U> U mapXmlStringToJaxbObject(final String content, Class<U> clazz, Schema schema) throws MappingException {
         try {
-            final JAXBContext jaxbContext = JAXBContext.newInstance(clazz);
-            final Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-            // Set schema to enable validation
-            unmarshaller.setSchema(schema);
-            final StreamSource source = new StreamSource(new ByteArrayInputStream(content.getBytes()));
-            final JAXBElement<U> jaxbElement = unmarshaller.unmarshal(source, clazz);
+            final StreamSource source = new StreamSource(new StringReader(content));
+            // Pass schema to enable validation
+            final JAXBElement<U> jaxbElement = marshallerPool.withUnmarshaller(clazz, schema,
+                    unmarshaller -> unmarshaller.unmarshal(source, clazz));
             return jaxbElement.getValue();
         } catch (final ValidationException | UnmarshalException e) {
             throw new MappingException("Invalid content: " + e.getMessage(), e);
@@ -159,7 +234,86 @@ public class SerializeUtils {
         }
     }
 
+    /**
+     * Map an eDelivery message to Jaxb object validating it against the given schema in the same parsing pass.
+     * All validation errors are collected instead of failing on the first one. The validator is borrowed from
+     * {@link #validatorPool}, so concurrent validations against a schema are bounded by its size.
+     */
+    public <U> XmlMappingResult<U> validateAndMapXmlStringToJaxbObject(final String content, final Schema schema) {
+        return validateAndMap(new InputSource(new StringReader(content)), schema);
+    }
+
+    /**
+     * Same as {@link #validateAndMapXmlStringToJaxbObject(String, Schema)} for a type that may not be an eDelivery root element.
+     */
+    public <U> XmlMappingResult<U> validateAndMapXmlStringToJaxbObject(final String content, final Class<U> clazz, final Schema schema) {
+        return validateAndMap(clazz, schema, new InputSource(new StringReader(content)),
+                (unmarshaller, source) -> unmarshaller.unmarshal(source, clazz).getValue());
+    }
+
+    /**
+     * Same as {@link #validateAndMapXmlStringToJaxbObject(String, Schema)} reading the raw payload, so the parser
+     * decodes it once (UTF-8 unless the xml declaration says otherwise) without an intermediate string.
+     */
+    public <U> XmlMappingResult<U> validateAndMapXmlBytesToJaxbObject(final byte[] content, final Schema schema) {
+        return validateAndMap(new InputSource(new ByteArrayInputStream(content)), schema);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <U> XmlMappingResult<U> validateAndMap(final InputSource inputSource, final Schema schema) {
+        return validateAndMap(ObjectFactory.class, schema, inputSource,
+                (unmarshaller, source) -> ((JAXBElement<U>) unmarshaller.unmarshal(source)).getValue());
+    }
+
+    private <U> XmlMappingResult<U> validateAndMap(final Class<?> boundClass, final Schema schema, final InputSource inputSource,
+                                                   final SourceUnmarshalling<U> unmarshalling) {
+        try {
+            return validatorPool.withValidatorHandler(schema, validatorHandler -> {
+                final ValidatingXmlFilter filter = newValidatingFilter(validatorHandler);
+                final SAXSource source = new SAXSource(filter, inputSource);
+                try {
+                    final U value = marshallerPool.withUnmarshaller(boundClass, null, unmarshaller -> unmarshalling.apply(unmarshaller, source));
+                    final List<String> errors = filter.getErrors();
+                    return errors.isEmpty() ? XmlMappingResult.valid(value) : XmlMappingResult.invalid(errors);
+                } catch (final UnmarshalException e) {
+                    final List<String> errors = new ArrayList<>(filter.getErrors());
+                    errors.add(messageOf(e));
+                    return XmlMappingResult.invalid(errors);
+                }
+            });
+        } catch (final JAXBException e) {
+            throw new TechnicalException("Could not unmarshal", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SourceUnmarshalling<U> {
+        U apply(Unmarshaller unmarshaller, SAXSource source) throws JAXBException;
+    }
+
+    private static ValidatingXmlFilter newValidatingFilter(final ValidatorHandler validatorHandler) {
+        try {
+            return new ValidatingXmlFilter(saxParserFactory.newSAXParser().getXMLReader(), validatorHandler);
+        } catch (final ParserConfigurationException | SAXException e) {
+            throw new TechnicalException("Could not create xml reader", e);
+        }
+    }
+
+    private static String messageOf(final JAXBException e) {
+        if (e.getMessage() != null) {
+            return e.getMessage();
+        }
+        return e.getLinkedException() != null ? e.getLinkedException().getMessage() : e.toString();
+    }
+
     private static final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+    private static final SAXParserFactory saxParserFactory = newSaxParserFactory();
+
+    private static SAXParserFactory newSaxParserFactory() {
+        final SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory;
+    }
 
     public <T> String mapObjectToJsonString(final T content) {
         try {
@@ -169,6 +323,22 @@ public class SerializeUtils {
         }
     }
 
+    public <T> byte[] mapObjectToJsonBytes(final T content) {
+        try {
+            return objectMapper.writeValueAsBytes(content);
+        } catch (final JsonProcessingException e) {
+            throw new TechnicalException(ERROR_WHILE_WRITING_CONTENT, e);
+        }
+    }
+
+    public <T> void writeObjectAsJson(final T content, final OutputStream outputStream) {
+        try {
+            objectMapper.writeValue(outputStream, content);
+        } catch (final IOException e) {
+            throw new TechnicalException(ERROR_WHILE_WRITING_CONTENT, e);
+        }
+    }
+
     public <T> String mapObjectToBase64String(final T content) {
         return new String(Base64.getEncoder().encode(this.mapObjectToJsonString(content).getBytes()), StandardCharsets.UTF_8);
     }
@@ -0,0 +1,62 @@
+package eu.efti.commons.utils;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import javax.xml.validation.ValidatorHandler;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SAX filter validating the events flowing through it against a schema before handing them to the downstream
+ * content handler (typically a JAXB unmarshaller). Validation errors are collected instead of thrown, so a single
+ * parse both reports every error of the document and builds the object. Without validator handler, events are passed
+ * as is.
+ */
+public class ValidatingXmlFilter extends XMLFilterImpl {
+
+    private final ValidatorHandler validatorHandler;
+    private final List<String> errors = new ArrayList<>();
+
+    public ValidatingXmlFilter(final XMLReader parent, final ValidatorHandler validatorHandler) {
+        super(parent);
+        this.validatorHandler = validatorHandler;
+        if (validatorHandler != null) {
+            validatorHandler.setErrorHandler(new CollectingErrorHandler());
+        }
+    }
+
+    @Override
+    public void setContentHandler(final ContentHandler handler) {
+        if (validatorHandler != null) {
+            validatorHandler.setContentHandler(handler);
+            super.setContentHandler(validatorHandler);
+        } else {
+            super.setContentHandler(handler);
+        }
+    }
+
+    public List<String> getErrors() {
+        return List.copyOf(errors);
+    }
+
+    private class CollectingErrorHandler implements ErrorHandler {
+        @Override
+        public void warning(final SAXParseException exception) {
+            // warnings do not make a document invalid
+        }
+
+        @Override
+        public void error(final SAXParseException exception) {
+            errors.add(exception.getMessage());
+        }
+
+        @Override
+        public void fatalError(final SAXParseException exception) throws SAXParseException {
+            throw exception;
+        }
+    }
+}
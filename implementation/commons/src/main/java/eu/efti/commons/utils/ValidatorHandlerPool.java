@@ -0,0 +1,145 @@
+package eu.efti.commons.utils;
+
+import eu.efti.commons.exception.TechnicalException;
+import jakarta.xml.bind.JAXBException;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pools of {@link ValidatorHandler}, one pool per compiled {@link Schema}. Handlers are not thread safe, so a
+ * caller borrows one for the duration of a validation and gives it back once done. At most {@code maxSize} handlers
+ * are created per schema; when all of them are in use, callers wait for one to be given back.
+ */
+@Slf4j
+public class ValidatorHandlerPool {
+
+    public static final int DEFAULT_MAX_SIZE = 16;
+
+    private final int maxSize;
+    private final Map<Schema, SchemaPool> pools = new ConcurrentHashMap<>();
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+    private final LongAdder validationCount = new LongAdder();
+    private final LongAdder validationNanos = new LongAdder();
+
+    public ValidatorHandlerPool(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("pool max size must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Run the action with a handler validating against the given schema. Without schema, the action gets no handler.
+     */
+    public <R> R withValidatorHandler(final Schema schema, final JaxbMarshallerPool.JaxbCallback<ValidatorHandler, R> action) throws JAXBException {
+        if (schema == null) {
+            return action.apply(null);
+        }
+        final SchemaPool pool = pools.computeIfAbsent(schema, SchemaPool::new);
+        final ValidatorHandler handler = pool.borrow();
+        final long start = System.nanoTime();
+        boolean reusable = false;
+        try {
+            final R result = action.apply(handler);
+            reusable = true;
+            return result;
+        } finally {
+            validationNanos.add(System.nanoTime() - start);
+            validationCount.increment();
+            pool.giveBack(handler, reusable);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    public double getBorrowWaitNanos() {
+        return borrowWaitNanos.sum();
+    }
+
+    public long getValidationCount() {
+        return validationCount.sum();
+    }
+
+    public double getValidationNanos() {
+        return validationNanos.sum();
+    }
+
+    public int getIdleCount() {
+        return pools.values().stream().mapToInt(pool -> pool.idle.size()).sum();
+    }
+
+    public int getCreatedCount() {
+        return pools.values().stream().mapToInt(pool -> pool.created.get()).sum();
+    }
+
+    private class SchemaPool {
+        private final Schema schema;
+        private final BlockingQueue<ValidatorHandler> idle = new ArrayBlockingQueue<>(maxSize);
+        private final AtomicInteger created = new AtomicInteger();
+
+        SchemaPool(final Schema schema) {
+            this.schema = schema;
+        }
+
+        ValidatorHandler borrow() {
+            final long start = System.nanoTime();
+            try {
+                ValidatorHandler handler = idle.poll();
+                if (handler == null) {
+                    handler = tryCreate();
+                }
+                if (handler == null) {
+                    handler = idle.take();
+                }
+                return handler;
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TechnicalException("interrupted while waiting for a validator", e);
+            } finally {
+                borrowWaitNanos.add(System.nanoTime() - start);
+                borrowCount.increment();
+            }
+        }
+
+        private ValidatorHandler tryCreate() {
+            int current = created.get();
+            while (current < maxSize) {
+                if (created.compareAndSet(current, current + 1)) {
+                    return schema.newValidatorHandler();
+                }
+                current = created.get();
+            }
+            return null;
+        }
+
+        /**
+         * A handler whose validation did not complete may be left mid-document, it is replaced by a new one.
+         */
+        void giveBack(final ValidatorHandler handler, final boolean reusable) {
+            handler.setContentHandler(null);
+            handler.setErrorHandler(null);
+            if (reusable) {
+                idle.offer(handler);
+            } else {
+                log.debug("discarding validator handler of an interrupted validation");
+                idle.offer(schema.newValidatorHandler());
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package eu.efti.commons.utils;
+
+import java.util.List;
+
+/**
+ * Outcome of a validating unmarshal: either the mapped object or the validation errors found in the document.
+ */
+public record XmlMappingResult<U>(U value, List<String> errors) {
+
+    public static <U> XmlMappingResult<U> valid(final U value) {
+        return new XmlMappingResult<>(value, List.of());
+    }
+
+    public static <U> XmlMappingResult<U> invalid(final List<String> errors) {
+        return new XmlMappingResult<>(null, List.copyOf(errors));
+    }
+
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+
+    public String getErrorMessage() {
+        return String.join("; ", errors);
+    }
+}
@@ -0,0 +1,93 @@
+package eu.efti.commons.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Optional;
+
+/**
+ * Reads the name of the root element of an xml document. Parsing stops at the first start element, so the cost does
+ * not depend on the size of the payload and element names appearing in the data are never matched.
+ */
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class XmlRootElementSniffer {
+
+    public static final String EDELIVERY_NAMESPACE = "http://efti.eu/v1/edelivery";
+    public static final QName UIL_QUERY = new QName(EDELIVERY_NAMESPACE, "uilQuery");
+    public static final QName UIL_RESPONSE = new QName(EDELIVERY_NAMESPACE, "uilResponse");
+    public static final QName IDENTIFIER_QUERY = new QName(EDELIVERY_NAMESPACE, "identifierQuery");
+    public static final QName IDENTIFIER_RESPONSE = new QName(EDELIVERY_NAMESPACE, "identifierResponse");
+    public static final QName SAVE_IDENTIFIERS_REQUEST = new QName(EDELIVERY_NAMESPACE, "saveIdentifiersRequest");
+    public static final QName POST_FOLLOW_UP_REQUEST = new QName(EDELIVERY_NAMESPACE, "postFollowUpRequest");
+
+    private static final XMLInputFactory INPUT_FACTORY = newInputFactory();
+
+    /**
+     * @param xml the document
+     * @return the qualified name of the root element, empty if the document is blank or malformed before its root
+     */
+    public static Optional<QName> sniff(final String xml) {
+        if (xml == null || xml.isBlank()) {
+            return Optional.empty();
+        }
+        return sniff(new StringReader(xml), null);
+    }
+
+    /**
+     * @param xml the raw document, decoded according to its xml declaration (UTF-8 by default)
+     * @return the qualified name of the root element, empty if the document is empty or malformed before its root
+     */
+    public static Optional<QName> sniff(final byte[] xml) {
+        if (xml == null || xml.length == 0) {
+            return Optional.empty();
+        }
+        return sniff(null, new ByteArrayInputStream(xml));
+    }
+
+    private static Optional<QName> sniff(final Reader characters, final InputStream bytes) {
+        XMLStreamReader reader = null;
+        try {
+            reader = characters != null ? INPUT_FACTORY.createXMLStreamReader(characters) : INPUT_FACTORY.createXMLStreamReader(bytes);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    return Optional.of(reader.getName());
+                }
+            }
+            return Optional.empty();
+        } catch (final XMLStreamException e) {
+            log.warn("could not read root element: {}", e.getMessage());
+            return Optional.empty();
+        } finally {
+            close(reader);
+        }
+    }
+
+    private static void close(final XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (final XMLStreamException e) {
+                log.debug("could not close xml reader", e);
+            }
+        }
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
@@ -0,0 +1,71 @@
+package eu.efti.commons.utils;
+
+import eu.efti.v1.edelivery.ObjectFactory;
+import eu.efti.v1.edelivery.UIL;
+import eu.efti.v1.edelivery.UILQuery;
+import jakarta.xml.bind.Unmarshaller;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.XMLConstants;
+import javax.xml.validation.SchemaFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JaxbMarshallerPoolTest {
+
+    @Test
+    void shouldReuseMarshallerAndCountHitsAndMisses() throws Exception {
+        final JaxbMarshallerPool pool = new JaxbMarshallerPool(2);
+
+        final String first = pool.marshalToString(UILQuery.class, new ObjectFactory().createUilQuery(uilQuery()));
+        final String second = pool.marshalToString(UILQuery.class, new ObjectFactory().createUilQuery(uilQuery()));
+
+        assertEquals(first, second);
+        assertTrue(first.contains("datasetId"));
+        assertEquals(1, pool.getMisses());
+        assertEquals(1, pool.getCreations());
+        assertEquals(1, pool.getHits());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    void shouldResetSchemaBeforeReturningUnmarshallerToPool() throws Exception {
+        final JaxbMarshallerPool pool = new JaxbMarshallerPool(1);
+        final var schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema();
+
+        final Unmarshaller borrowed = pool.withUnmarshaller(ObjectFactory.class, schema, unmarshaller -> {
+            assertSame(schema, unmarshaller.getSchema());
+            return unmarshaller;
+        });
+
+        final Unmarshaller reused = pool.withUnmarshaller(ObjectFactory.class, null, unmarshaller -> {
+            assertNull(unmarshaller.getSchema());
+            return unmarshaller;
+        });
+        assertSame(borrowed, reused);
+    }
+
+    @Test
+    void shouldNotKeepMoreIdleInstancesThanMaxSize() throws Exception {
+        final JaxbMarshallerPool pool = new JaxbMarshallerPool(1);
+
+        pool.withMarshaller(UILQuery.class, outer -> pool.withMarshaller(UILQuery.class, inner -> null));
+
+        assertEquals(2, pool.getCreations());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    private static UILQuery uilQuery() {
+        final UIL uil = new UIL();
+        uil.setGateId("borduria");
+        uil.setPlatformId("acme");
+        uil.setDatasetId("12345678-ab12-4ab6-8999-123456789abc");
+        final UILQuery query = new UILQuery();
+        query.setUil(uil);
+        query.setRequestId("requestId");
+        return query;
+    }
+}
@@ -0,0 +1,109 @@
+package eu.efti.commons.utils;
+
+import org.junit.jupiter.api.Test;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.ValidatorHandler;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ValidatorHandlerPoolTest {
+
+    private static final String XSD = """
+            <xs:schema xmlns:xs="http://www.w3.org/2001/XMLSchema">
+              <xs:element name="note" type="xs:string"/>
+            </xs:schema>""";
+
+    @Test
+    void shouldBoundConcurrentBorrowersAndRecordMeters() throws Exception {
+        final ValidatorHandlerPool pool = new ValidatorHandlerPool(2);
+        final Schema schema = schema();
+        final AtomicInteger inUse = new AtomicInteger();
+        final AtomicInteger maxInUse = new AtomicInteger();
+        final Set<ValidatorHandler> handlers = ConcurrentHashMap.newKeySet();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Callable<Boolean>> tasks = IntStream.range(0, 200)
+                    .<Callable<Boolean>>mapToObj(i -> () -> pool.withValidatorHandler(schema, handler -> {
+                        maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                        handlers.add(handler);
+                        LockSupport.parkNanos(1_000_000);
+                        inUse.decrementAndGet();
+                        return true;
+                    }))
+                    .toList();
+            for (final Future<Boolean> future : executor.invokeAll(tasks)) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(maxInUse.get() <= 2);
+        assertEquals(2, handlers.size());
+        assertEquals(2, pool.getCreatedCount());
+        assertEquals(2, pool.getIdleCount());
+        assertEquals(200, pool.getBorrowCount());
+        assertEquals(200, pool.getValidationCount());
+        assertTrue(pool.getValidationNanos() > 0);
+        assertTrue(pool.getBorrowWaitNanos() > 0);
+    }
+
+    @Test
+    void shouldReplaceHandlerWhenValidationFails() throws Exception {
+        final ValidatorHandlerPool pool = new ValidatorHandlerPool(1);
+        final Schema schema = schema();
+        final ValidatorHandler failed = pool.withValidatorHandler(schema, handler -> handler);
+
+        assertThrows(IllegalStateException.class, () -> pool.withValidatorHandler(schema, handler -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        final ValidatorHandler next = pool.withValidatorHandler(schema, handler -> handler);
+        assertNotSame(failed, next);
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    void shouldRunWithoutHandlerWhenNoSchema() throws Exception {
+        final ValidatorHandlerPool pool = new ValidatorHandlerPool(1);
+
+        assertNull(pool.withValidatorHandler(null, handler -> handler));
+        assertEquals(0, pool.getBorrowCount());
+    }
+
+    @Test
+    void shouldReuseHandlerForSameSchema() throws Exception {
+        final ValidatorHandlerPool pool = new ValidatorHandlerPool(1);
+        final Schema schema = schema();
+
+        final ValidatorHandler first = pool.withValidatorHandler(schema, handler -> handler);
+        final ValidatorHandler second = pool.withValidatorHandler(schema, handler -> handler);
+
+        assertSame(first, second);
+    }
+
+    private static Schema schema() throws Exception {
+        return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(new StreamSource(new StringReader(XSD)));
+    }
+}
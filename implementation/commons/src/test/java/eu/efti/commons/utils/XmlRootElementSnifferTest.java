@@ -0,0 +1,52 @@
+package eu.efti.commons.utils;
+
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.QName;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class XmlRootElementSnifferTest {
+
+    @Test
+    void shouldReturnRootElementIgnoringPrologAndData() {
+        final String xml = """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <!-- identifierQuery -->
+                <ed:uilResponse xmlns:ed="http://efti.eu/v1/edelivery" status="200">
+                  <description>identifierQuery postFollowUpRequest</description>
+                </ed:uilResponse>""";
+
+        assertEquals(Optional.of(XmlRootElementSniffer.UIL_RESPONSE), XmlRootElementSniffer.sniff(xml));
+    }
+
+    @Test
+    void shouldStopAtRootElementOfTruncatedDocument() {
+        assertEquals(Optional.of(XmlRootElementSniffer.UIL_QUERY),
+                XmlRootElementSniffer.sniff("<uilQuery xmlns=\"http://efti.eu/v1/edelivery\"><uil><gateId>"));
+    }
+
+    @Test
+    void shouldReadRootElementFromRawBytes() {
+        final byte[] xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><identifierQuery xmlns=\"http://efti.eu/v1/edelivery\"/>"
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(Optional.of(XmlRootElementSniffer.IDENTIFIER_QUERY), XmlRootElementSniffer.sniff(xml));
+    }
+
+    @Test
+    void shouldKeepNamespaceOfRootElement() {
+        assertEquals(Optional.of(new QName("uilQuery")), XmlRootElementSniffer.sniff("<uilQuery/>"));
+    }
+
+    @Test
+    void shouldReturnEmptyForBlankOrMalformedDocument() {
+        assertTrue(XmlRootElementSniffer.sniff((String) null).isEmpty());
+        assertTrue(XmlRootElementSniffer.sniff(new byte[0]).isEmpty());
+        assertTrue(XmlRootElementSniffer.sniff("  ").isEmpty());
+        assertTrue(XmlRootElementSniffer.sniff("not xml").isEmpty());
+    }
+}
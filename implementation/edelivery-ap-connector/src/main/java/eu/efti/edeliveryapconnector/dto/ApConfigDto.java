@@ -1,5 +1,6 @@
 package eu.efti.edeliveryapconnector.dto;
 
+import eu.efti.plugin.ws.client.MessageLoggingPolicy;
 import lombok.Builder;
 import lombok.Data;
 
@@ -9,5 +10,11 @@ public class ApConfigDto {
     final String url;
     final String username;
     final String password;
+    final boolean bundledWsdl;
+    final int connectTimeout;
+    final int readTimeout;
+    final int requestTimeout;
+    final int maxConnections;
+    final int maxInFlight;
+    final MessageLoggingPolicy messageLogging;
 }
-
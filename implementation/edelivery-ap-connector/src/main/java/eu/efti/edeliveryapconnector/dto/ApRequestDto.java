@@ -3,6 +3,9 @@ package eu.efti.edeliveryapconnector.dto;
 import lombok.Builder;
 import lombok.Data;
 
+import java.io.InputStream;
+import java.util.function.Supplier;
+
 @Data
 @Builder
 public class ApRequestDto {
@@ -10,6 +13,8 @@ public class ApRequestDto {
     private String sender;
     private String receiver;
     private String body;
+    //when set, the payload is streamed from it instead of the body, for the payloads too large to be held in memory
+    private Supplier<InputStream> bodySource;
     private String eDeliveryMessageId;
     private ApConfigDto apConfig;
 }
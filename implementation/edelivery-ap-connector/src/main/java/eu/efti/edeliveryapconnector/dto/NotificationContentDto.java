@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.nio.charset.StandardCharsets;
+
 @Data
 @Builder
 @AllArgsConstructor
@@ -13,6 +15,30 @@ public class NotificationContentDto {
     private String messageId;
     private String contentType;
     private String fromPartyId;
-    private String body;
+    /**
+     * Payload as decoded from the access point notification, UTF-8 encoded xml.
+     */
+    private byte[] body;
     private String conversationId;
+
+    /**
+     * Decodes the payload, for logging purposes. Parsing should read {@link #getBody()} directly.
+     */
+    public String getBodyAsString() {
+        return body == null ? null : new String(body, StandardCharsets.UTF_8);
+    }
+
+    public static class NotificationContentDtoBuilder {
+        private byte[] body;
+
+        public NotificationContentDtoBuilder body(final byte[] body) {
+            this.body = body;
+            return this;
+        }
+
+        public NotificationContentDtoBuilder body(final String body) {
+            this.body = body == null ? null : body.getBytes(StandardCharsets.UTF_8);
+            return this;
+        }
+    }
 }
@@ -1,15 +1,60 @@
 package eu.efti.edeliveryapconnector.service;
 
 import eu.efti.edeliveryapconnector.dto.ApConfigDto;
+import eu.efti.plugin.ws.client.MessageLoggingPolicy;
 import eu.efti.plugin.ws.client.WebserviceClient;
-import eu.efti.plugin.ws.generated.WebServicePluginInterface;
+import eu.efti.plugin.ws.client.WebservicePortPool;
+import eu.efti.plugin.ws.client.WebservicePortPool.PortCall;
 
 import java.net.MalformedURLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
 
 public abstract class AbstractApService {
 
-    protected WebServicePluginInterface initApWebService(final ApConfigDto apConfigDto) throws MalformedURLException {
-        final WebserviceClient webService = new WebserviceClient(apConfigDto.getUrl(), true);
-        return webService.getPort(apConfigDto.getUsername(), apConfigDto.getPassword());
+    private final Map<ApConfigDto, WebservicePortPool> portPools = new ConcurrentHashMap<>();
+
+    /**
+     * Calls the access point with a port configured for it, reused from previous calls with the same configuration.
+     */
+    protected <T, E extends Exception> T callApWebService(final ApConfigDto apConfigDto, final PortCall<T, E> call) throws E, MalformedURLException {
+        return portPools.computeIfAbsent(apConfigDto, this::createPortPool).execute(call);
+    }
+
+    private WebservicePortPool createPortPool(final ApConfigDto apConfigDto) {
+        final MessageLoggingPolicy loggingPolicy = apConfigDto.getMessageLogging() != null ? apConfigDto.getMessageLogging() : MessageLoggingPolicy.OFF;
+        final WebserviceClient webService = new WebserviceClient(apConfigDto.getUrl(), loggingPolicy, apConfigDto.isBundledWsdl(),
+                apConfigDto.getConnectTimeout(), apConfigDto.getReadTimeout());
+        return new WebservicePortPool(webService, apConfigDto.getUsername(), apConfigDto.getPassword(),
+                apConfigDto.getMaxConnections(), apConfigDto.getRequestTimeout());
+    }
+
+    public long getLeaseCount() {
+        return sum(WebservicePortPool::getLeaseCount);
+    }
+
+    public long getLeaseWaitNanos() {
+        return sum(WebservicePortPool::getLeaseWaitNanos);
+    }
+
+    public long getLeaseTimeoutCount() {
+        return sum(WebservicePortPool::getLeaseTimeoutCount);
+    }
+
+    public long getLeasedCount() {
+        return sum(WebservicePortPool::getLeasedCount);
+    }
+
+    public long getCallCount() {
+        return sum(WebservicePortPool::getCallCount);
+    }
+
+    public long getCallNanos() {
+        return sum(WebservicePortPool::getCallNanos);
+    }
+
+    private long sum(final ToLongFunction<WebservicePortPool> statistic) {
+        return portPools.values().stream().mapToLong(statistic).sum();
     }
 }
@@ -0,0 +1,82 @@
+package eu.efti.edeliveryapconnector.service;
+
+import eu.efti.edeliveryapconnector.dto.ApConfigDto;
+import eu.efti.edeliveryapconnector.dto.NotificationContentDto;
+import eu.efti.edeliveryapconnector.dto.NotificationDto;
+import eu.efti.edeliveryapconnector.dto.NotificationType;
+import eu.efti.edeliveryapconnector.exception.RetrieveMessageException;
+import eu.efti.plugin.ws.generated.ListPendingMessagesFault;
+import eu.efti.plugin.ws.generated.RetrieveMessageFault;
+import eu.efti.plugin.ws.generated.body.LargePayloadType;
+import eu.efti.plugin.ws.generated.body.ListPendingMessagesRequest;
+import eu.efti.plugin.ws.generated.body.RetrieveMessageRequest;
+import eu.efti.plugin.ws.generated.body.RetrieveMessageResponse;
+import eu.efti.plugin.ws.generated.header.common.model.org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.Messaging;
+import eu.efti.plugin.ws.generated.header.common.model.org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.UserMessage;
+import jakarta.xml.ws.Holder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.util.List;
+
+/**
+ * Pulls the messages received by the access point, as an alternative to its push notifications. Messages are
+ * retrieved without being marked as downloaded, so that they stay pending until they are handled.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageRetrievalService extends AbstractApService {
+
+    public List<String> listPendingMessages(final ApConfigDto apConfigDto) {
+        try {
+            return callApWebService(apConfigDto, port -> port.listPendingMessages(new ListPendingMessagesRequest()).getMessageID());
+        } catch (final ListPendingMessagesFault | MalformedURLException e) {
+            throw new RetrieveMessageException("error while listing pending messages", e);
+        }
+    }
+
+    public NotificationDto retrieveMessage(final ApConfigDto apConfigDto, final String messageId) {
+        final RetrieveMessageRequest retrieveMessageRequest = new RetrieveMessageRequest();
+        retrieveMessageRequest.setMessageID(messageId);
+        retrieveMessageRequest.setMarkAsDownloaded(Boolean.FALSE.toString());
+        final Holder<RetrieveMessageResponse> holderResponse = new Holder<>(new RetrieveMessageResponse());
+        final Holder<Messaging> holderMessaging = new Holder<>(new Messaging());
+        try {
+            callApWebService(apConfigDto, port -> {
+                port.retrieveMessage(retrieveMessageRequest, holderResponse, holderMessaging);
+                return null;
+            });
+        } catch (final RetrieveMessageFault | MalformedURLException e) {
+            throw new RetrieveMessageException("error while retrieving message " + messageId, e);
+        }
+        if (holderResponse.value.getPayload().isEmpty()) {
+            throw new RetrieveMessageException("no payload in message " + messageId);
+        }
+        final LargePayloadType payload = holderResponse.value.getPayload().get(0);
+        final UserMessage userMessage = holderMessaging.value.getUserMessage();
+        return NotificationDto.builder()
+                .messageId(messageId)
+                .notificationType(NotificationType.RECEIVED)
+                .content(NotificationContentDto.builder()
+                        .messageId(messageId)
+                        .body(readPayload(messageId, payload))
+                        .contentType(payload.getContentType())
+                        .fromPartyId(userMessage.getPartyInfo().getFrom().getPartyId().getValue())
+                        .conversationId(userMessage.getCollaborationInfo().getConversationId())
+                        .build())
+                .build();
+    }
+
+    private static byte[] readPayload(final String messageId, final LargePayloadType payload) {
+        try (final InputStream inputStream = payload.getValue().getInputStream()) {
+            return inputStream.readAllBytes();
+        } catch (final IOException e) {
+            throw new RetrieveMessageException("error while reading payload of message " + messageId, e);
+        }
+    }
+}
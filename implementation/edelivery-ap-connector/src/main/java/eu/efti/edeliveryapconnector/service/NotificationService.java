@@ -56,7 +56,7 @@ public class NotificationService {
         final PayloadDto payloadDto = objectMapper.convertValue(receivedNotificationDto.getPayload(), PayloadDto.class);
 
         final NotificationContentDto notificationContentDto = NotificationContentDto.builder()
-                .body(new String(Base64.getDecoder().decode(payloadDto.getValue())))
+                .body(Base64.getDecoder().decode(payloadDto.getValue()))
                 .contentType(payloadDto.getMimeType())
                 .fromPartyId(messagingDto.getUserMessage().getPartyInfo().getFrom().getPartyId().get(""))
                 .messageId(messagingDto.getUserMessage().getMessageInfo().getMessageId())
@@ -22,16 +22,34 @@ import eu.efti.plugin.ws.generated.header.common.model.org.oasis_open.docs.ebxml
 import eu.efti.plugin.ws.generated.header.common.model.org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.Service;
 import eu.efti.plugin.ws.generated.header.common.model.org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.To;
 import eu.efti.plugin.ws.generated.header.common.model.org.oasis_open.docs.ebxml_msg.ebms.v3_0.ns.core._200704.UserMessage;
+import eu.efti.edeliveryapconnector.dto.ApConfigDto;
 import jakarta.activation.DataHandler;
 import jakarta.activation.DataSource;
+import jakarta.annotation.PreDestroy;
 import jakarta.mail.util.ByteArrayDataSource;
+import jakarta.xml.ws.WebServiceException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static org.springframework.util.MimeTypeUtils.TEXT_XML_VALUE;
 
@@ -42,6 +60,12 @@ public class RequestSendingService extends AbstractApService {
 
     private static final String ACTION = "eftiGateAction";
 
+    // send threads per access point when its connections are not limited
+    private static final int DEFAULT_SEND_THREADS = 10;
+
+    private final Map<ApConfigDto, SendLane> sendLanes = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlightCount = new AtomicInteger();
+
     public String sendRequest(final ApRequestDto requestDto) throws SendRequestException {
         final Messaging messaging = createMessaging(requestDto);
         final SubmitRequest submitRequest = createSubmitRequest(requestDto);
@@ -55,10 +79,54 @@ public class RequestSendingService extends AbstractApService {
         return submitResponse.getMessageID().get(0);
     }
 
+    /**
+     * Sends the request from a thread dedicated to its access point, so that the caller can go on while the access
+     * point acknowledges it. At most max-in-flight sends per access point are pending; beyond that, the caller waits
+     * up to the request timeout for one to complete, and the send fails if none does.
+     *
+     * @return the eDelivery message id, or a future failed with the send error
+     */
+    public CompletableFuture<String> sendRequestAsync(final ApRequestDto requestDto) {
+        final SendLane lane = sendLanes.computeIfAbsent(requestDto.getApConfig(), SendLane::new);
+        try {
+            if (!lane.acquire()) {
+                return CompletableFuture.failedFuture(new SendRequestException("too many sends in flight, request " + requestDto.getRequestId() + " not sent"));
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new SendRequestException("interrupted while waiting to send request " + requestDto.getRequestId(), e));
+        }
+        inFlightCount.incrementAndGet();
+        try {
+            return CompletableFuture.supplyAsync(() -> sendRequest(requestDto), lane.executor)
+                    .whenComplete((messageId, e) -> {
+                        inFlightCount.decrementAndGet();
+                        lane.window.release();
+                    });
+        } catch (final RejectedExecutionException e) {
+            inFlightCount.decrementAndGet();
+            lane.window.release();
+            return CompletableFuture.failedFuture(new SendRequestException("error while sending request", e));
+        }
+    }
+
+    public int getInFlightCount() {
+        return inFlightCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendLanes.values().forEach(lane -> lane.executor.shutdown());
+    }
+
+    /**
+     * Transport failures, such as a read timeout or no connection available in time, are reported as send errors, so
+     * that the request is retried like any other failed send.
+     */
     private SubmitResponse sendRequestToAPOrThrow(final ApRequestDto requestDto, final SubmitRequest submitRequest, final Messaging messaging) throws SendRequestException {
         try {
-            return initApWebService(requestDto.getApConfig()).submitMessage(submitRequest, messaging);
-        } catch (SubmitMessageFault | MalformedURLException e) {
+            return callApWebService(requestDto.getApConfig(), port -> port.submitMessage(submitRequest, messaging));
+        } catch (SubmitMessageFault | MalformedURLException | WebServiceException e) {
             throw new SendRequestException("error while sending request", e);
         }
     }
@@ -70,7 +138,9 @@ public class RequestSendingService extends AbstractApService {
         largePayloadType.setContentType(TEXT_XML_VALUE);
         largePayloadType.setPayloadId(ApConstant.PAYLOAD_HREF);
 
-        final DataSource ds = new ByteArrayDataSource(requestDto.getBody().getBytes(StandardCharsets.UTF_8), ApConstant.TEXT_PLAIN);
+        final DataSource ds = requestDto.getBodySource() != null
+                ? new StreamingDataSource(requestDto.getBodySource(), ApConstant.TEXT_PLAIN)
+                : new ByteArrayDataSource(requestDto.getBody().getBytes(StandardCharsets.UTF_8), ApConstant.TEXT_PLAIN);
 
         largePayloadType.setValue(new DataHandler(ds));
 
@@ -158,4 +228,64 @@ public class RequestSendingService extends AbstractApService {
         partyId.setValue(value);
         return partyId;
     }
+
+    /**
+     * Asynchronous sends to one access point. There are as many threads as connections to the access point, so that a
+     * started send does not wait for a connection; the other sends wait in the queue, bounded by the max-in-flight window.
+     */
+    private static final class SendLane {
+
+        private final Semaphore window;
+        private final long windowTimeout;
+        private final ThreadPoolExecutor executor;
+
+        private SendLane(final ApConfigDto apConfig) {
+            final int maxInFlight = apConfig.getMaxInFlight() > 0 ? apConfig.getMaxInFlight() : Integer.MAX_VALUE;
+            final int threads = apConfig.getMaxConnections() > 0 ? apConfig.getMaxConnections() : DEFAULT_SEND_THREADS;
+            this.window = new Semaphore(maxInFlight);
+            this.windowTimeout = apConfig.getRequestTimeout();
+            this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(maxInFlight),
+                    new CustomizableThreadFactory("ap-send-"));
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+
+        private boolean acquire() throws InterruptedException {
+            if (windowTimeout <= 0) {
+                window.acquire();
+                return true;
+            }
+            return window.tryAcquire(windowTimeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Payload read from its source when the attachment is written, so that MTOM sends it in chunks without holding it
+     * in memory.
+     */
+    private record StreamingDataSource(Supplier<InputStream> source, String contentType) implements DataSource {
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            try {
+                return source.get();
+            } catch (final UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            throw new IOException("payload is read only");
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public String getName() {
+            return "";
+        }
+    }
 }
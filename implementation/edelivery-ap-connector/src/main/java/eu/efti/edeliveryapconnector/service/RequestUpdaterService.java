@@ -11,6 +11,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.net.MalformedURLException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 @Slf4j
 @Component
@@ -24,9 +27,30 @@ public class RequestUpdaterService extends AbstractApService {
         final Holder<Messaging> holderMessaging = new Holder<>(new Messaging());
 
         try {
-            initApWebService(apConfigDto).markMessageAsDownloaded(markMessageAsDownloadedRequest, holderResponse, holderMessaging);
+            callApWebService(apConfigDto, port -> {
+                port.markMessageAsDownloaded(markMessageAsDownloadedRequest, holderResponse, holderMessaging);
+                return null;
+            });
         } catch (final MarkMessageAsDownloadedFault | MalformedURLException e) {
             throw new MalformedURLException("Error while try to set message marked as downloaded");
         }
     }
+
+    /**
+     * Marks the messages as downloaded, the WS plugin acknowledging one message per call.
+     *
+     * @return ids of the messages that could not be marked
+     */
+    public Set<String> setAllMarkedAsDownload(final ApConfigDto apConfigDto, final Collection<String> messageIds) {
+        final Set<String> failed = new HashSet<>();
+        for (final String messageId : messageIds) {
+            try {
+                setMarkedAsDownload(apConfigDto, messageId);
+            } catch (final MalformedURLException | RuntimeException e) {
+                log.error("error while marking message {} as downloaded", messageId, e);
+                failed.add(messageId);
+            }
+        }
+        return failed;
+    }
 }
@@ -0,0 +1,87 @@
+package eu.efti.edeliveryapconnector;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import eu.efti.edeliveryapconnector.dto.ApConfigDto;
+import eu.efti.edeliveryapconnector.dto.NotificationDto;
+import eu.efti.edeliveryapconnector.dto.NotificationType;
+import eu.efti.edeliveryapconnector.exception.RetrieveMessageException;
+import eu.efti.edeliveryapconnector.service.MessageRetrievalService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageRetrievalServiceTest {
+
+    private static final String FOLDER = "src/test/resources/wiremock";
+    private static final String MESSAGE_ID = "9992596f-9a6a-11ee-90b4-0242ac13000e@domibus.eu";
+
+    private MessageRetrievalService service;
+    private WireMockServer wireMockServer;
+    private ApConfigDto apConfigDto;
+
+    @BeforeEach
+    void init() {
+        service = new MessageRetrievalService();
+        wireMockServer = new WireMockServer(WireMockConfiguration
+                .wireMockConfig().withRootDirectory(FOLDER).dynamicPort()
+                .notifier(new ConsoleNotifier(true)));
+        wireMockServer.start();
+        apConfigDto = ApConfigDto.builder()
+                .url(String.format("http://localhost:%s/domibus/services/wsplugin", wireMockServer.port()))
+                .username("username")
+                .password("password")
+                .bundledWsdl(true)
+                .build();
+    }
+
+    @AfterEach
+    void after() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    void shouldListPendingMessages() {
+        wireMockServer.stubFor(post(urlEqualTo("/domibus/services/wsplugin"))
+                .willReturn(aResponse().withBodyFile("list-pending-response.xml")));
+
+        assertEquals(List.of(MESSAGE_ID, "a1b2c3d4-9a6a-11ee-90b4-0242ac13000e@domibus.eu"), service.listPendingMessages(apConfigDto));
+    }
+
+    @Test
+    void shouldRetrieveMessageWithoutMarkingItAsDownloaded() {
+        wireMockServer.stubFor(post(urlEqualTo("/domibus/services/wsplugin"))
+                .willReturn(aResponse().withBodyFile("retrieve-response.xml")));
+
+        final NotificationDto notificationDto = service.retrieveMessage(apConfigDto, MESSAGE_ID);
+
+        assertEquals(NotificationType.RECEIVED, notificationDto.getNotificationType());
+        assertEquals(MESSAGE_ID, notificationDto.getMessageId());
+        assertEquals("borduria", notificationDto.getContent().getFromPartyId());
+        assertEquals("99928080-9a6a-11ee-90b4-0242ac13000e@domibus.eu", notificationDto.getContent().getConversationId());
+        assertTrue(notificationDto.getContent().getBodyAsString().startsWith("{\"requestUuid\""));
+        wireMockServer.verify(postRequestedFor(urlEqualTo("/domibus/services/wsplugin"))
+                .withRequestBody(containing("markAsDownloaded=\"false\"")));
+    }
+
+    @Test
+    void shouldThrowWhenMessageHasNoPayload() {
+        wireMockServer.stubFor(post(urlEqualTo("/domibus/services/wsplugin"))
+                .willReturn(aResponse().withBody("<soap:Envelope xmlns:soap=\"http://www.w3.org/2003/05/soap-envelope\"><soap:Body>"
+                        + "<ns2:retrieveMessageResponse xmlns:ns2=\"http://eu.domibus.wsplugin/\"/></soap:Body></soap:Envelope>")));
+
+        assertThrows(RetrieveMessageException.class, () -> service.retrieveMessage(apConfigDto, MESSAGE_ID));
+    }
+}
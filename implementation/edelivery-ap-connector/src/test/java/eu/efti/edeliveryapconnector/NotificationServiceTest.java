@@ -77,7 +77,7 @@ class NotificationServiceTest {
         assertEquals("application/json", notificationDto.get().getContent().getContentType());
         assertEquals("f58599a1-0889-11ef-a5ee-0242ac120019@domibus.eu", notificationDto.get().getContent().getMessageId());
         assertEquals("http://efti.platform.acme.com", notificationDto.get().getContent().getFromPartyId());
-        assertEquals("youpi", notificationDto.get().getContent().getBody());
+        assertEquals("youpi", notificationDto.get().getContent().getBodyAsString());
     }
 
     @Test
@@ -1,5 +1,8 @@
 package eu.efti.edeliveryapconnector;
 
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
@@ -8,26 +11,47 @@ import eu.efti.edeliveryapconnector.dto.ApConfigDto;
 import eu.efti.edeliveryapconnector.dto.ApRequestDto;
 import eu.efti.edeliveryapconnector.exception.SendRequestException;
 import eu.efti.edeliveryapconnector.service.RequestSendingService;
+import eu.efti.plugin.ws.client.MessageLoggingPolicy;
+import jakarta.xml.ws.WebServiceException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.LoggerFactory;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
+@Slf4j
 @ExtendWith(SpringExtension.class)
 class RequestSendingServiceTest {
 
     private RequestSendingService service;
     private static final String FOLDER = "src/test/resources/wiremock";
+    private static final String SOAP_LOGGER = "eu.efti.plugin.ws.soap";
     private WireMockServer wireMockServer;
+    private ListAppender<ILoggingEvent> soapLogAppender;
     private final String requestId = UUID.randomUUID().toString();
 
 
@@ -41,6 +65,16 @@ class RequestSendingServiceTest {
         wireMockServer.start();
     }
 
+    @AfterEach
+    void tearDown() {
+        wireMockServer.stop();
+        service.shutdown();
+        if (soapLogAppender != null) {
+            ((Logger) LoggerFactory.getLogger(SOAP_LOGGER)).detachAppender(soapLogAppender);
+            soapLogAppender.stop();
+        }
+    }
+
     @Test
     void shouldBuildRequest() throws SendRequestException {
         wireMockServer.stubFor(get(urlEqualTo("/domibus/services/wsplugin?wsdl"))
@@ -87,4 +121,260 @@ class RequestSendingServiceTest {
         assertEquals(String.format("no messageId for request %s", requestId), exception.getMessage());
 
     }
+
+    @Test
+    void shouldReusePortAcrossSends() throws SendRequestException {
+        wireMockServer.stubFor(get(urlEqualTo("/domibus/services/wsplugin?wsdl"))
+                .willReturn(aResponse().withBodyFile("WebServicePlugin.wsdl")));
+        wireMockServer.stubFor(post(urlEqualTo("/domibus/services/wsplugin?wsdl"))
+                .willReturn(aResponse().withBodyFile("response.xml")));
+        final ApRequestDto requestDto = ApRequestDto.builder()
+                .sender("syldavia")
+                .receiver("borduria")
+                .body("PD94bWwgdmVyc2lvbj0iMS4wIiBlbmNvZGluZz0iVVRGLTgiPz4KPGhlbGxvPndvcmxkPC9oZWxsbz4=")
+                .apConfig(ApConfigDto.builder()
+                        .url(String.format("http://localhost:%s/domibus/services/wsplugin?wsdl", wireMockServer.port()))
+                        .username("username")
+                        .password("password")
+                        .build()).build();
+
+        final long start = System.nanoTime();
+        service.sendRequest(requestDto);
+        final long firstSend = System.nanoTime() - start;
+        final int sends = 20;
+        for (int i = 0; i < sends; i++) {
+            service.sendRequest(requestDto);
+        }
+        final long cachedSend = (System.nanoTime() - start - firstSend) / sends;
+        log.info("first send {} us, following sends {} us on average", firstSend / 1000, cachedSend / 1000);
+
+        wireMockServer.verify(1, getRequestedFor(urlEqualTo("/domibus/services/wsplugin?wsdl")));
+        wireMockServer.verify(sends + 1, postRequestedFor(urlEqualTo("/domibus/services/wsplugin?wsdl")));
+    }
+
+    @Test
+    void shouldSendWithBundledWsdl() throws SendRequestException {
+        wireMockServer.stubFor(post(urlEqualTo("/domibus/services/wsplugin"))
+                .willReturn(aResponse().withBodyFile("response.xml")));
+        final ApRequestDto requestDto = ApRequestDto.builder()
+                .sender("syldavia")
+                .receiver("borduria")
+                .body("PD94bWwgdmVyc2lvbj0iMS4wIiBlbmNvZGluZz0iVVRGLTgiPz4KPGhlbGxvPndvcmxkPC9oZWxsbz4=")
+                .apConfig(ApConfigDto.builder()
+                        .url(String.format("http://localhost:%s/domibus/services/wsplugin", wireMockServer.port()))
+                        .username("username")
+                        .password("password")
+                        .bundledWsdl(true)
+                        .build()).build();
+
+        assertEquals("fc0e70cf-8d57-11ee-a62e-0242ac13000d@domibus.eu", service.sendRequest(requestDto));
+        wireMockServer.verify(0, getRequestedFor(urlEqualTo("/domibus/services/wsplugin?wsdl")));
+    }
+
+    @Test
+    void shouldStreamBodySource() throws SendRequestException {
+        wireMockServer.stubFor(post(urlEqualTo("/domibus/services/wsplugin"))
+                .willReturn(aResponse().withBodyFile("response.xml")));
+        final byte[] payload = ("<payload>" + "<hello>world</hello>".repeat(1000) + "</payload>").getBytes(StandardCharsets.UTF_8);
+        final AtomicInteger opened = new AtomicInteger();
+        final ApRequestDto requestDto = ApRequestDto.builder()
+                .sender("syldavia")
+                .receiver("borduria")
+                .bodySource(() -> {
+                    opened.incrementAndGet();
+                    return new ByteArrayInputStream(payload);
+                })
+                .apConfig(ApConfigDto.builder()
+                        .url(String.format("http://localhost:%s/domibus/services/wsplugin", wireMockServer.port()))
+                        .bundledWsdl(true)
+                        .build()).build();
+
+        assertEquals("fc0e70cf-8d57-11ee-a62e-0242ac13000d@domibus.eu", service.sendRequest(requestDto));
+        assertEquals(1, opened.get());
+        wireMockServer.verify(postRequestedFor(urlEqualTo("/domibus/services/wsplugin"))
+                .withRequestBody(containing("<hello>world</hello></payload>")));
+    }
+
+    @Test
+    void shouldLogMessagesWithoutReadingAttachments() throws SendRequestException {
+        wireMockServer.stubFor(post(urlEqualTo("/domibus/services/wsplugin"))
+                .willReturn(aResponse().withBodyFile("response.xml")));
+        final AtomicInteger opened = new AtomicInteger();
+        final ListAppender<ILoggingEvent> soapLog = soapLogAppender();
+
+        service.sendRequest(loggedRequest(opened, new MessageLoggingPolicy(MessageLoggingPolicy.Mode.BODY, 0, 1)));
+
+        assertEquals(1, opened.get());
+        assertEquals(2, soapLog.list.size());
+        assertTrue(soapLog.list.get(0).getFormattedMessage().contains("[attachment text/plain; charset=UTF-8]"));
+        assertTrue(soapLog.list.get(1).getFormattedMessage().contains("fc0e70cf-8d57-11ee-a62e-0242ac13000d@domibus.eu"));
+    }
+
+    @Test
+    void shouldLogSampledHeadersTruncated() throws SendRequestException {
+        wireMockServer.stubFor(post(urlEqualTo("/domibus/services/wsplugin"))
+                .willReturn(aResponse().withBodyFile("response.xml")));
+        final ListAppender<ILoggingEvent> soapLog = soapLogAppender();
+        final ApRequestDto requestDto = loggedRequest(new AtomicInteger(), new MessageLoggingPolicy(MessageLoggingPolicy.Mode.HEADERS, 100, 3));
+
+        for (int i = 0; i < 3; i++) {
+            service.sendRequest(requestDto);
+        }
+
+        // one exchange in 3 logged: the request and the response of the first send
+        assertEquals(2, soapLog.list.size());
+        assertTrue(soapLog.list.get(0).getFormattedMessage().contains("======== Request ========"));
+        assertTrue(soapLog.list.get(0).getFormattedMessage().contains(":Messaging "));
+        assertTrue(soapLog.list.get(0).getFormattedMessage().endsWith("... (truncated)"));
+        assertTrue(soapLog.list.get(1).getFormattedMessage().contains("======== Response ========"));
+        assertFalse(soapLog.list.get(1).getFormattedMessage().contains("submitResponse"));
+    }
+
+    private ListAppender<ILoggingEvent> soapLogAppender() {
+        soapLogAppender = new ListAppender<>();
+        soapLogAppender.start();
+        ((Logger) LoggerFactory.getLogger(SOAP_LOGGER)).addAppender(soapLogAppender);
+        return soapLogAppender;
+    }
+
+    private ApRequestDto loggedRequest(final AtomicInteger opened, final MessageLoggingPolicy messageLogging) {
+        return ApRequestDto.builder()
+                .sender("syldavia")
+                .receiver("borduria")
+                .bodySource(() -> {
+                    opened.incrementAndGet();
+                    return new ByteArrayInputStream("<hello>world</hello>".getBytes(StandardCharsets.UTF_8));
+                })
+                .apConfig(ApConfigDto.builder()
+                        .url(String.format("http://localhost:%s/domibus/services/wsplugin", wireMockServer.port()))
+                        .bundledWsdl(true)
+                        .messageLogging(messageLogging)
+                        .build()).build();
+    }
+
+    @Test
+    void shouldTimeOutWhenAccessPointIsSlow() {
+        wireMockServer.stubFor(post(urlEqualTo("/domibus/services/wsplugin"))
+                .willReturn(aResponse().withFixedDelay(2000).withBodyFile("response.xml")));
+        final ApRequestDto requestDto = ApRequestDto.builder()
+                .sender("syldavia")
+                .receiver("borduria")
+                .body("PD94bWwgdmVyc2lvbj0iMS4wIiBlbmNvZGluZz0iVVRGLTgiPz4KPGhlbGxvPndvcmxkPC9oZWxsbz4=")
+                .apConfig(ApConfigDto.builder()
+                        .url(String.format("http://localhost:%s/domibus/services/wsplugin", wireMockServer.port()))
+                        .bundledWsdl(true)
+                        .readTimeout(200)
+                        .maxConnections(1)
+                        .build()).build();
+
+        final SendRequestException exception = assertThrows(SendRequestException.class, () -> service.sendRequest(requestDto));
+        assertInstanceOf(WebServiceException.class, exception.getCause());
+        assertEquals(1, service.getCallCount());
+        assertEquals(1, service.getLeaseCount());
+        assertEquals(0, service.getLeasedCount());
+    }
+
+    @Test
+    void shouldFailSendWhenNoConnectionIsAvailableInTime() throws Exception {
+        wireMockServer.stubFor(post(urlEqualTo("/domibus/services/wsplugin"))
+                .willReturn(aResponse().withFixedDelay(1000).withBodyFile("response.xml")));
+        final ApRequestDto requestDto = ApRequestDto.builder()
+                .sender("syldavia")
+                .receiver("borduria")
+                .body("PD94bWwgdmVyc2lvbj0iMS4wIiBlbmNvZGluZz0iVVRGLTgiPz4KPGhlbGxvPndvcmxkPC9oZWxsbz4=")
+                .apConfig(ApConfigDto.builder()
+                        .url(String.format("http://localhost:%s/domibus/services/wsplugin", wireMockServer.port()))
+                        .bundledWsdl(true)
+                        .maxConnections(1)
+                        .requestTimeout(100)
+                        .build()).build();
+        final CompletableFuture<String> slowSend = CompletableFuture.supplyAsync(() -> service.sendRequest(requestDto));
+        awaitLeasedConnection();
+
+        final SendRequestException exception = assertThrows(SendRequestException.class, () -> service.sendRequest(requestDto));
+        assertInstanceOf(WebServiceException.class, exception.getCause());
+        assertEquals(1, service.getLeaseTimeoutCount());
+        assertEquals("fc0e70cf-8d57-11ee-a62e-0242ac13000d@domibus.eu", slowSend.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldSendAsynchronously() throws Exception {
+        wireMockServer.stubFor(post(urlEqualTo("/domibus/services/wsplugin"))
+                .willReturn(aResponse().withFixedDelay(200).withBodyFile("response.xml")));
+        final ApRequestDto requestDto = bundledWsdlRequest(2);
+
+        final CompletableFuture<String> first = service.sendRequestAsync(requestDto);
+        final CompletableFuture<String> second = service.sendRequestAsync(requestDto);
+
+        assertEquals("fc0e70cf-8d57-11ee-a62e-0242ac13000d@domibus.eu", first.get(5, TimeUnit.SECONDS));
+        assertEquals("fc0e70cf-8d57-11ee-a62e-0242ac13000d@domibus.eu", second.get(5, TimeUnit.SECONDS));
+        assertEquals(0, service.getInFlightCount());
+    }
+
+    @Test
+    void shouldFailFutureWhenAsynchronousSendFails() {
+        wireMockServer.stubFor(post(urlEqualTo("/domibus/services/wsplugin"))
+                .willReturn(aResponse().withBodyFile("emptyresponse.xml")));
+
+        final CompletableFuture<String> send = service.sendRequestAsync(bundledWsdlRequest(1));
+
+        final ExecutionException exception = assertThrows(ExecutionException.class, () -> send.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SendRequestException.class, exception.getCause());
+        assertEquals(0, service.getInFlightCount());
+    }
+
+    @Test
+    void shouldQueueAsynchronousSendsBeyondMaxConnections() throws Exception {
+        wireMockServer.stubFor(post(urlEqualTo("/domibus/services/wsplugin"))
+                .willReturn(aResponse().withFixedDelay(300).withBodyFile("response.xml")));
+        final ApRequestDto requestDto = bundledWsdlRequest(ApConfigDto.builder().maxConnections(1).maxInFlight(2).requestTimeout(100));
+
+        final CompletableFuture<String> first = service.sendRequestAsync(requestDto);
+        final CompletableFuture<String> second = service.sendRequestAsync(requestDto);
+
+        assertEquals("fc0e70cf-8d57-11ee-a62e-0242ac13000d@domibus.eu", first.get(5, TimeUnit.SECONDS));
+        assertEquals("fc0e70cf-8d57-11ee-a62e-0242ac13000d@domibus.eu", second.get(5, TimeUnit.SECONDS));
+        assertEquals(0, service.getLeaseTimeoutCount());
+    }
+
+    @Test
+    void shouldFailAsynchronousSendWhenWindowStaysFull() throws Exception {
+        wireMockServer.stubFor(post(urlEqualTo("/domibus/services/wsplugin"))
+                .willReturn(aResponse().withFixedDelay(1000).withBodyFile("response.xml")));
+        final ApRequestDto requestDto = bundledWsdlRequest(ApConfigDto.builder().maxInFlight(1).requestTimeout(100));
+
+        final CompletableFuture<String> first = service.sendRequestAsync(requestDto);
+        final CompletableFuture<String> second = service.sendRequestAsync(requestDto);
+
+        final ExecutionException exception = assertThrows(ExecutionException.class, () -> second.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(SendRequestException.class, exception.getCause());
+        assertEquals("fc0e70cf-8d57-11ee-a62e-0242ac13000d@domibus.eu", first.get(5, TimeUnit.SECONDS));
+        wireMockServer.verify(1, postRequestedFor(urlEqualTo("/domibus/services/wsplugin")));
+    }
+
+    private ApRequestDto bundledWsdlRequest(final int maxInFlight) {
+        return bundledWsdlRequest(ApConfigDto.builder().maxInFlight(maxInFlight));
+    }
+
+    private ApRequestDto bundledWsdlRequest(final ApConfigDto.ApConfigDtoBuilder apConfig) {
+        return ApRequestDto.builder()
+                .sender("syldavia")
+                .receiver("borduria")
+                .requestId(requestId)
+                .body("PD94bWwgdmVyc2lvbj0iMS4wIiBlbmNvZGluZz0iVVRGLTgiPz4KPGhlbGxvPndvcmxkPC9oZWxsbz4=")
+                .apConfig(apConfig
+                        .url(String.format("http://localhost:%s/domibus/services/wsplugin", wireMockServer.port()))
+                        .bundledWsdl(true)
+                        .build()).build();
+    }
+
+    private void awaitLeasedConnection() throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.getLeasedCount() == 0) {
+            if (System.nanoTime() - deadline > 0) {
+                fail("the first send did not lease a connection within 5 seconds");
+            }
+            Thread.sleep(10);
+        }
+    }
 }
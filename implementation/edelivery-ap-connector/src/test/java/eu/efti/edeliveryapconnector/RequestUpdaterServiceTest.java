@@ -12,12 +12,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.net.MalformedURLException;
+import java.util.List;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
 import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(SpringExtension.class)
 class RequestUpdaterServiceTest {
@@ -53,4 +55,19 @@ class RequestUpdaterServiceTest {
 
         wireMockServer.verify(new CountMatchingStrategy(CountMatchingStrategy.EQUAL_TO,1), postRequestedFor(urlEqualTo("/domibus/services/wsplugin?wsdl")));
     }
+
+    @Test
+    void setMarkedAsDownloadBatchTest() {
+        wireMockServer.stubFor(post(urlEqualTo("/domibus/services/wsplugin"))
+                .willReturn(aResponse().withBodyFile("retrieve-response.xml")));
+
+        final ApConfigDto apConfigDto = ApConfigDto.builder()
+                .url(String.format("http://localhost:%s/domibus/services/wsplugin", wireMockServer.port()))
+                .bundledWsdl(true)
+                .build();
+
+        assertTrue(service.setAllMarkedAsDownload(apConfigDto, List.of("messageId1", "messageId2")).isEmpty());
+
+        wireMockServer.verify(new CountMatchingStrategy(CountMatchingStrategy.EQUAL_TO, 2), postRequestedFor(urlEqualTo("/domibus/services/wsplugin")));
+    }
 }
@@ -1,5 +1,7 @@
 package eu.efti.eftilogger.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import eu.efti.eftilogger.model.ComponentType;
 import lombok.Data;
 import lombok.experimental.SuperBuilder;
@@ -20,6 +22,15 @@ public class LogCommonDto {
     private String respondingComponentId;
     private String respondingComponentCountry;
     private String messageContent;
+    // written Base64-encoded as messageContent by the audit encoder, without building the intermediate string: either
+    // an immutable value serialized by the encoder, or the json bytes of a mutable object serialized before queueing
+    @JsonIgnore
+    private Object messagePayload;
+    // size in bytes of the whole message, and whether messageContent only holds its first bytes, when it may be cut
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long messageSize;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean messageTruncated;
     private String statusMessage;
     private String errorCodeMessage;
     private String errorDescriptionMessage;
@@ -0,0 +1,215 @@
+package eu.efti.eftilogger.service;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import eu.efti.commons.exception.TechnicalException;
+import eu.efti.commons.utils.SerializeUtils;
+import eu.efti.eftilogger.dto.LogCommonDto;
+import eu.efti.eftilogger.dto.LogRegistryDto;
+import eu.efti.eftilogger.dto.LogRequestDto;
+import eu.efti.eftilogger.model.ComponentType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Encodes audit records to json field by field, in the same shape as the ObjectMapper serialization of the dtos.
+ * Field names are pre-encoded and each thread reuses its own output buffer; a message payload is serialized to json
+ * and Base64-encoded straight into the output.
+ */
+public class AuditLogEncoder {
+
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final SerializableString MESSAGE_DATE = new SerializedString("messageDate");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString COMPONENT_TYPE = new SerializedString("componentType");
+    private static final SerializableString COMPONENT_ID = new SerializedString("componentId");
+    private static final SerializableString COMPONENT_COUNTRY = new SerializedString("componentCountry");
+    private static final SerializableString REQUESTING_COMPONENT_TYPE = new SerializedString("requestingComponentType");
+    private static final SerializableString REQUESTING_COMPONENT_ID = new SerializedString("requestingComponentId");
+    private static final SerializableString REQUESTING_COMPONENT_COUNTRY = new SerializedString("requestingComponentCountry");
+    private static final SerializableString RESPONDING_COMPONENT_TYPE = new SerializedString("respondingComponentType");
+    private static final SerializableString RESPONDING_COMPONENT_ID = new SerializedString("respondingComponentId");
+    private static final SerializableString RESPONDING_COMPONENT_COUNTRY = new SerializedString("respondingComponentCountry");
+    private static final SerializableString MESSAGE_CONTENT = new SerializedString("messageContent");
+    private static final SerializableString MESSAGE_SIZE = new SerializedString("messageSize");
+    private static final SerializableString MESSAGE_TRUNCATED = new SerializedString("messageTruncated");
+    private static final SerializableString STATUS_MESSAGE = new SerializedString("statusMessage");
+    private static final SerializableString ERROR_CODE_MESSAGE = new SerializedString("errorCodeMessage");
+    private static final SerializableString ERROR_DESCRIPTION_MESSAGE = new SerializedString("errorDescriptionMessage");
+    private static final SerializableString REQUEST_ID = new SerializedString("requestId");
+    private static final SerializableString SUBSET_IDS = new SerializedString("subsetIds");
+    private static final SerializableString REQUEST_TYPE = new SerializedString("requestType");
+    private static final SerializableString EFTI_DATA_ID = new SerializedString("eFTIDataId");
+    private static final SerializableString IDENTIFIERS_ID = new SerializedString("identifiersId");
+    private static final SerializableString INTERFACE_TYPE = new SerializedString("interfaceType");
+    // LogRegistryDto exposes its eFTIDataId field and its getter, so the mapper writes it twice
+    private static final SerializableString EFTI_DATA_ID_GETTER = new SerializedString("eftidataId");
+
+    private final SerializeUtils serializeUtils;
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    public AuditLogEncoder(final SerializeUtils serializeUtils) {
+        this.serializeUtils = serializeUtils;
+    }
+
+    public String encode(final LogCommonDto logDto) {
+        final Buffers local = buffers.get();
+        local.reset();
+        // serialized before opening the generator so that both take their buffers from the thread's recycler
+        final boolean hasPayload = logDto.getMessagePayload() != null;
+        if (logDto.getMessagePayload() instanceof byte[] json) {
+            local.payload.write(json, 0, json.length);
+        } else if (hasPayload) {
+            serializeUtils.writeObjectAsJson(logDto.getMessagePayload(), local.payload);
+        }
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(local.output)) {
+            generator.writeStartObject();
+            writeCommonFields(generator, logDto, hasPayload ? local.payload : null);
+            if (logDto instanceof LogRequestDto requestDto) {
+                writeRequestFields(generator, requestDto);
+            } else if (logDto instanceof LogRegistryDto registryDto) {
+                writeRegistryFields(generator, registryDto);
+            }
+            generator.writeEndObject();
+        } catch (final IOException e) {
+            throw new TechnicalException("could not encode audit log " + logDto.getName(), e);
+        }
+        return local.output.builder.toString();
+    }
+
+    private static void writeCommonFields(final JsonGenerator generator, final LogCommonDto logDto, final PayloadBuffer payload) throws IOException {
+        writeString(generator, MESSAGE_DATE, logDto.getMessageDate());
+        writeString(generator, NAME, logDto.getName());
+        writeEnum(generator, COMPONENT_TYPE, logDto.getComponentType());
+        writeString(generator, COMPONENT_ID, logDto.getComponentId());
+        writeString(generator, COMPONENT_COUNTRY, logDto.getComponentCountry());
+        writeEnum(generator, REQUESTING_COMPONENT_TYPE, logDto.getRequestingComponentType());
+        writeString(generator, REQUESTING_COMPONENT_ID, logDto.getRequestingComponentId());
+        writeString(generator, REQUESTING_COMPONENT_COUNTRY, logDto.getRequestingComponentCountry());
+        writeEnum(generator, RESPONDING_COMPONENT_TYPE, logDto.getRespondingComponentType());
+        writeString(generator, RESPONDING_COMPONENT_ID, logDto.getRespondingComponentId());
+        writeString(generator, RESPONDING_COMPONENT_COUNTRY, logDto.getRespondingComponentCountry());
+        if (payload != null) {
+            generator.writeFieldName(MESSAGE_CONTENT);
+            generator.writeBinary(Base64Variants.MIME_NO_LINEFEEDS, payload.buffer(), 0, payload.size());
+        } else {
+            writeString(generator, MESSAGE_CONTENT, logDto.getMessageContent());
+        }
+        if (logDto.getMessageSize() != null) {
+            generator.writeFieldName(MESSAGE_SIZE);
+            generator.writeNumber(logDto.getMessageSize());
+        }
+        if (logDto.getMessageTruncated() != null) {
+            generator.writeFieldName(MESSAGE_TRUNCATED);
+            generator.writeBoolean(logDto.getMessageTruncated());
+        }
+        writeString(generator, STATUS_MESSAGE, logDto.getStatusMessage());
+        writeString(generator, ERROR_CODE_MESSAGE, logDto.getErrorCodeMessage());
+        writeString(generator, ERROR_DESCRIPTION_MESSAGE, logDto.getErrorDescriptionMessage());
+    }
+
+    private static void writeRequestFields(final JsonGenerator generator, final LogRequestDto requestDto) throws IOException {
+        writeString(generator, REQUEST_ID, requestDto.getRequestId());
+        writeStrings(generator, requestDto.getSubsetIds());
+        writeString(generator, REQUEST_TYPE, requestDto.getRequestType());
+        writeString(generator, EFTI_DATA_ID, requestDto.getEftidataId());
+    }
+
+    private static void writeRegistryFields(final JsonGenerator generator, final LogRegistryDto registryDto) throws IOException {
+        writeString(generator, IDENTIFIERS_ID, registryDto.getIdentifiersId());
+        writeString(generator, EFTI_DATA_ID, registryDto.getEFTIDataId());
+        writeString(generator, INTERFACE_TYPE, registryDto.getInterfaceType());
+        writeString(generator, EFTI_DATA_ID_GETTER, registryDto.getEFTIDataId());
+    }
+
+    private static void writeString(final JsonGenerator generator, final SerializableString fieldName, final String value) throws IOException {
+        generator.writeFieldName(fieldName);
+        if (value != null) {
+            generator.writeString(value);
+        } else {
+            generator.writeNull();
+        }
+    }
+
+    private static void writeEnum(final JsonGenerator generator, final SerializableString fieldName, final ComponentType value) throws IOException {
+        writeString(generator, fieldName, value != null ? value.name() : null);
+    }
+
+    private static void writeStrings(final JsonGenerator generator, final List<String> values) throws IOException {
+        generator.writeFieldName(SUBSET_IDS);
+        if (values == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartArray();
+        for (final String value : values) {
+            if (value != null) {
+                generator.writeString(value);
+            } else {
+                generator.writeNull();
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Output and payload buffers of one thread, dropped when an unusually large record made them grow too much.
+     */
+    private static final class Buffers {
+        private StringBuilderWriter output = new StringBuilderWriter();
+        private PayloadBuffer payload = new PayloadBuffer();
+
+        void reset() {
+            if (output.builder.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                output = new StringBuilderWriter();
+            }
+            if (payload.buffer().length > MAX_RETAINED_BUFFER_SIZE) {
+                payload = new PayloadBuffer();
+            }
+            output.builder.setLength(0);
+            payload.reset();
+        }
+    }
+
+    private static final class StringBuilderWriter extends Writer {
+        private final StringBuilder builder = new StringBuilder(1024);
+
+        @Override
+        public void write(final char[] chars, final int offset, final int length) {
+            builder.append(chars, offset, length);
+        }
+
+        @Override
+        public void write(final String string, final int offset, final int length) {
+            builder.append(string, offset, offset + length);
+        }
+
+        @Override
+        public void flush() {
+            // nothing buffered
+        }
+
+        @Override
+        public void close() {
+            // kept open to be reused
+        }
+    }
+
+    private static final class PayloadBuffer extends ByteArrayOutputStream {
+        PayloadBuffer() {
+            super(1024);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
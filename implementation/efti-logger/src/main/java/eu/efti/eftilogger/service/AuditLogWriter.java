@@ -0,0 +1,164 @@
+package eu.efti.eftilogger.service;
+
+import eu.efti.commons.utils.SerializeUtils;
+import eu.efti.eftilogger.LogMarkerEnum;
+import eu.efti.eftilogger.dto.LogCommonDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MarkerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Writes audit events to the REQUEST/REGISTRY appenders. Callers only enqueue the event; a dedicated writer thread
+ * completes it (lookups) and encodes it to json, payload included. As the event is read later on another thread, it
+ * must not share mutable state with the caller: mutable payloads are handed over as their json bytes. When the buffer is full
+ * the caller either waits for room or the event is dropped and counted, depending on the overflow policy. Buffered events
+ * are flushed on shutdown.
+ * Built with a buffer size of 0 the writer is synchronous and writes on the calling thread.
+ */
+@Slf4j
+@Service
+public class AuditLogWriter {
+
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP
+    }
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private final AuditLogEncoder encoder;
+    private final AuditRingBuffer<AuditEvent> buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    private volatile boolean running;
+    private volatile boolean writerParked;
+    private Thread writerThread;
+
+    public AuditLogWriter(final SerializeUtils serializeUtils,
+                          @Value("${efti.audit.async.buffer-size:8192}") final int bufferSize,
+                          @Value("${efti.audit.async.overflow-policy:BLOCK}") final OverflowPolicy overflowPolicy) {
+        this.encoder = new AuditLogEncoder(serializeUtils);
+        this.buffer = bufferSize > 0 ? new AuditRingBuffer<>(bufferSize) : null;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (buffer == null || running) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::drain, "efti-audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stops accepting asynchronous events and waits for the buffered ones to be written.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            log.warn("audit writer did not flush {} buffered events in time", buffer.size());
+            return;
+        }
+        // events offered while the writer was exiting
+        AuditEvent event;
+        while ((event = buffer.poll()) != null) {
+            write(event);
+        }
+    }
+
+    /**
+     * @param marker     appender to write to
+     * @param logDto     event with the fields known by the caller, not modified by the caller once submitted
+     * @param completion run on the writer thread before serialization to fill the remaining fields, may be null; it
+     *                   must only capture immutable values
+     */
+    public void submit(final LogMarkerEnum marker, final LogCommonDto logDto, final Consumer<LogCommonDto> completion) {
+        final AuditEvent event = new AuditEvent(marker, logDto, completion);
+        if (!running) {
+            write(event);
+            return;
+        }
+        while (!buffer.offer(event)) {
+            if (overflowPolicy == OverflowPolicy.DROP) {
+                dropped.increment();
+                return;
+            }
+            if (!running) {
+                write(event);
+                return;
+            }
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        if (writerParked) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public int getPendingCount() {
+        return buffer != null ? buffer.size() : 0;
+    }
+
+    private void drain() {
+        while (running || !buffer.isEmpty()) {
+            final AuditEvent event = buffer.poll();
+            if (event != null) {
+                write(event);
+            } else if (running) {
+                writerParked = true;
+                if (buffer.isEmpty() && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                writerParked = false;
+            }
+        }
+    }
+
+    private void write(final AuditEvent event) {
+        try {
+            if (event.completion() != null) {
+                event.completion().accept(event.logDto());
+            }
+            final String content = encoder.encode(event.logDto());
+            LogService.logger.info(MarkerFactory.getMarker(event.marker().name()), content);
+            written.increment();
+        } catch (final RuntimeException e) {
+            log.error("could not write {} audit event {}", event.marker(), event.logDto().getName(), e);
+        }
+    }
+
+    private record AuditEvent(LogMarkerEnum marker, LogCommonDto logDto, Consumer<LogCommonDto> completion) {
+    }
+}
@@ -4,16 +4,15 @@ import eu.efti.commons.dto.ControlDto;
 import eu.efti.commons.dto.SaveIdentifiersRequestWrapper;
 import eu.efti.commons.enums.ErrorCodesEnum;
 import eu.efti.commons.enums.StatusEnum;
-import eu.efti.commons.utils.SerializeUtils;
 import eu.efti.eftilogger.LogMarkerEnum;
+import eu.efti.eftilogger.dto.LogCommonDto;
 import eu.efti.eftilogger.dto.LogRegistryDto;
 import eu.efti.eftilogger.model.ComponentType;
 import lombok.RequiredArgsConstructor;
-import org.slf4j.MarkerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -21,7 +20,7 @@ public class AuditRegistryLogService implements LogService<LogRegistryDto> {
 
     private static final LogMarkerEnum MARKER = LogMarkerEnum.REGISTRY;
     private static final String EDELIVERY = "EDELIVERY";
-    private final SerializeUtils serializeUtils;
+    private final AuditLogWriter auditLogWriter;
 
     public void logByControlDto(final ControlDto controlDto,
                                 final String currentGateId,
@@ -31,9 +30,25 @@ public class AuditRegistryLogService implements LogService<LogRegistryDto> {
                                 final String body,
                                 final String errorCode,
                                 final String name) {
+        logByControlDto(controlDto, currentGateId, currentGateCountry, requestedComponentType, respondingComponentType, body, errorCode, name, null);
+    }
+
+    /**
+     * Same as {@link #logByControlDto(ControlDto, String, String, ComponentType, ComponentType, String, String, String)},
+     * the completion being run by the audit writer thread to fill costly fields such as the encoded message content.
+     */
+    public void logByControlDto(final ControlDto controlDto,
+                                final String currentGateId,
+                                final String currentGateCountry,
+                                final ComponentType requestedComponentType,
+                                final ComponentType respondingComponentType,
+                                final String body,
+                                final String errorCode,
+                                final String name,
+                                final Consumer<LogCommonDto> completion) {
         final boolean isError = errorCode != null;
-        this.log(LogRegistryDto.builder()
-                .messageDate(DateTimeFormatter.ofPattern(DATE_FORMAT).format(LocalDateTime.now()))
+        auditLogWriter.submit(MARKER, LogRegistryDto.builder()
+                .messageDate(DATE_FORMATTER.format(LocalDateTime.now()))
                 .name(name)
                 .componentType(ComponentType.GATE)
                 .componentId(currentGateId)
@@ -50,7 +65,7 @@ public class AuditRegistryLogService implements LogService<LogRegistryDto> {
                 .errorDescriptionMessage(isError ? ErrorCodesEnum.valueOf(errorCode).getMessage() : "")
                 .eFTIDataId(controlDto.getDatasetId())
                 .interfaceType(EDELIVERY)
-                .build());
+                .build(), completion);
     }
 
     public void log(final SaveIdentifiersRequestWrapper requestWrapper,
@@ -64,7 +79,7 @@ public class AuditRegistryLogService implements LogService<LogRegistryDto> {
                     final String name) {
         String datasetId = requestWrapper.getSaveIdentifiersRequest().getDatasetId();
         this.log(LogRegistryDto.builder()
-                .messageDate(DateTimeFormatter.ofPattern(DATE_FORMAT).format(LocalDateTime.now()))
+                .messageDate(DATE_FORMATTER.format(LocalDateTime.now()))
                 .name(name)
                 .componentType(ComponentType.GATE)
                 .componentId(currentGateId)
@@ -87,7 +102,6 @@ public class AuditRegistryLogService implements LogService<LogRegistryDto> {
 
     @Override
     public void log(final LogRegistryDto data) {
-        final String content = serializeUtils.mapObjectToJsonString(data);
-        logger.info(MarkerFactory.getMarker(MARKER.name()), content);
+        auditLogWriter.submit(MARKER, data, null);
     }
 }
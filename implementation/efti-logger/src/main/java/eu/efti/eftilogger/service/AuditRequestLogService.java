@@ -2,17 +2,17 @@ package eu.efti.eftilogger.service;
 
 import eu.efti.commons.dto.ControlDto;
 import eu.efti.commons.enums.StatusEnum;
-import eu.efti.commons.utils.SerializeUtils;
 import eu.efti.eftilogger.LogMarkerEnum;
+import eu.efti.eftilogger.dto.LogCommonDto;
 import eu.efti.eftilogger.dto.LogRequestDto;
 import eu.efti.eftilogger.dto.MessagePartiesDto;
 import eu.efti.eftilogger.model.RequestTypeLog;
 import lombok.RequiredArgsConstructor;
-import org.slf4j.MarkerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.function.Consumer;
 
 import static eu.efti.commons.constant.EftiGateConstants.IDENTIFIERS_TYPES;
 import static eu.efti.commons.constant.EftiGateConstants.NOTES_TYPES;
@@ -25,7 +25,7 @@ public class AuditRequestLogService implements LogService<LogRequestDto> {
 
     private static final LogMarkerEnum MARKER = LogMarkerEnum.REQUEST;
 
-    private final SerializeUtils serializeUtils;
+    private final AuditLogWriter auditLogWriter;
 
     public void log(final ControlDto control,
                     final MessagePartiesDto messagePartiesDto,
@@ -35,6 +35,22 @@ public class AuditRequestLogService implements LogService<LogRequestDto> {
                     final StatusEnum status,
                     final boolean isAck,
                     final String name) {
+        log(control, messagePartiesDto, currentGateId, currentGateCountry, body, status, isAck, name, null);
+    }
+
+    /**
+     * Same as {@link #log(ControlDto, MessagePartiesDto, String, String, String, StatusEnum, boolean, String)}, the
+     * completion being run by the audit writer thread to fill costly fields such as the encoded message content.
+     */
+    public void log(final ControlDto control,
+                    final MessagePartiesDto messagePartiesDto,
+                    final String currentGateId,
+                    final String currentGateCountry,
+                    final String body,
+                    final StatusEnum status,
+                    final boolean isAck,
+                    final String name,
+                    final Consumer<LogCommonDto> completion) {
 
         final LogRequestDto logRequestDto = LogRequestDto.builder()
                 .name(name)
@@ -45,9 +61,9 @@ public class AuditRequestLogService implements LogService<LogRequestDto> {
                 .respondingComponentId(messagePartiesDto.getRespondingComponentId())
                 .respondingComponentCountry(messagePartiesDto.getRespondingComponentCountry())
                 .requestId(control.getRequestId())
-                .subsetIds(control.getSubsetIds())
+                .subsetIds(control.getSubsetIds() != null ? new ArrayList<>(control.getSubsetIds()) : null)
                 .eftidataId(control.getDatasetId())
-                .messageDate(DateTimeFormatter.ofPattern(DATE_FORMAT).format(LocalDateTime.now()))
+                .messageDate(DATE_FORMATTER.format(LocalDateTime.now()))
                 .messageContent(body)
                 .statusMessage(status.name())
                 .componentType(GATE)
@@ -57,7 +73,7 @@ public class AuditRequestLogService implements LogService<LogRequestDto> {
                 .errorCodeMessage(control.getError() != null ? control.getError().getErrorCode() : null)
                 .errorDescriptionMessage(control.getError() != null ? control.getError().getErrorDescription() : null)
                 .build();
-        this.log(logRequestDto);
+        auditLogWriter.submit(MARKER, logRequestDto, completion);
     }
 
     private String getRequestTypeFromControl(final ControlDto control, final boolean isAck) {
@@ -74,7 +90,6 @@ public class AuditRequestLogService implements LogService<LogRequestDto> {
 
     @Override
     public void log(final LogRequestDto data) {
-        final String content = serializeUtils.mapObjectToJsonString(data);
-        logger.info(MarkerFactory.getMarker(MARKER.name()), content);
+        auditLogWriter.submit(MARKER, data, null);
     }
 }
@@ -3,11 +3,15 @@ package eu.efti.eftilogger.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.format.DateTimeFormatter;
+
 public interface LogService<T> {
 
     Logger logger = LoggerFactory.getLogger(LogService.class);
 
     String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS";
 
+    DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(DATE_FORMAT);
+
     void log(final T data);
 }
@@ -0,0 +1,90 @@
+package eu.efti.eftilogger.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.efti.commons.utils.SerializeUtils;
+import eu.efti.eftilogger.dto.LogRequestDto;
+import eu.efti.eftilogger.model.ComponentType;
+import eu.efti.eftilogger.service.AuditLogEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the audit encoder with the ObjectMapper serialization of a request log carrying a payload.
+ * Run from the test classpath with {@link #main(String[])}; the gc profiler reports the allocation rate per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditLogEncoderBenchmark {
+
+    private SerializeUtils serializeUtils;
+    private AuditLogEncoder encoder;
+    private Map<String, List<String>> payload;
+
+    @Setup
+    public void setUp() {
+        serializeUtils = new SerializeUtils(new ObjectMapper());
+        encoder = new AuditLogEncoder(serializeUtils);
+        payload = Map.of("identifiers", List.of("AA123VV", "BB456ZZ", "CC789XX"), "countries", List.of("FR", "BE", "LU"));
+    }
+
+    @Benchmark
+    public String objectMapper() {
+        return serializeUtils.mapObjectToJsonString(logRequest()
+                .messageContent(serializeUtils.mapObjectToBase64String(payload))
+                .build());
+    }
+
+    @Benchmark
+    public String encoder() {
+        return encoder.encode(logRequest()
+                .messagePayload(payload)
+                .build());
+    }
+
+    private static LogRequestDto.LogRequestDtoBuilder<?, ?> logRequest() {
+        return LogRequestDto.builder()
+                .messageDate("2024-01-01 10:00:00.000")
+                .name("fti010")
+                .componentType(ComponentType.GATE)
+                .componentId("borduria")
+                .componentCountry("BO")
+                .requestingComponentType(ComponentType.PLATFORM)
+                .requestingComponentId("acme")
+                .requestingComponentCountry("BO")
+                .respondingComponentType(ComponentType.GATE)
+                .respondingComponentId("borduria")
+                .respondingComponentCountry("BO")
+                .statusMessage("COMPLETE")
+                .requestId("24414689-1abf-4a9f-b4df-de3a491a44c9")
+                .subsetIds(List.of("full"))
+                .requestType("UIL")
+                .eftidataId("12345678-ab12-4ab6-8999-123456789abc");
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AuditLogEncoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
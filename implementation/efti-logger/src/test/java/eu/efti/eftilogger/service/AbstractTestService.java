@@ -14,6 +14,11 @@ public class AbstractTestService {
     static final String GATE_COUNTRY = "gateCountry";
     static final String BODY = "body";
 
+    // without buffer, events are written on the calling thread
+    public AuditLogWriter synchronousAuditLogWriter() {
+        return new AuditLogWriter(serializeUtils, 0, AuditLogWriter.OverflowPolicy.BLOCK);
+    }
+
     public ObjectMapper objectMapper() {
         final ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
@@ -0,0 +1,100 @@
+package eu.efti.eftilogger.service;
+
+import eu.efti.eftilogger.dto.LogCommonDto;
+import eu.efti.eftilogger.dto.LogRegistryDto;
+import eu.efti.eftilogger.dto.LogRequestDto;
+import eu.efti.eftilogger.model.ComponentType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditLogEncoderTest extends AbstractTestService {
+
+    private final AuditLogEncoder encoder = new AuditLogEncoder(serializeUtils);
+
+    @Test
+    void shouldEncodeRequestLogAsObjectMapperDoes() {
+        final LogRequestDto logRequestDto = LogRequestDto.builder()
+                .messageDate("2024-01-01 10:00:00.000")
+                .name("fti010")
+                .componentType(ComponentType.GATE)
+                .componentId(GATE_ID)
+                .componentCountry(GATE_COUNTRY)
+                .requestingComponentType(ComponentType.PLATFORM)
+                .requestingComponentId("platform \"acme\"")
+                .respondingComponentType(ComponentType.GATE)
+                .respondingComponentCountry("éà\n\t")
+                .messageContent(BODY)
+                .statusMessage("COMPLETE")
+                .requestId("requestId")
+                .subsetIds(Arrays.asList("full", null))
+                .requestType("UIL")
+                .eftidataId("datasetId")
+                .build();
+
+        assertEquals(serializeUtils.mapObjectToJsonString(logRequestDto), encoder.encode(logRequestDto));
+    }
+
+    @Test
+    void shouldEncodeRegistryLogAsObjectMapperDoes() {
+        final LogRegistryDto logRegistryDto = LogRegistryDto.builder()
+                .messageDate("2024-01-01 10:00:00.000")
+                .name("fti015")
+                .componentType(ComponentType.GATE)
+                .errorCodeMessage("code")
+                .errorDescriptionMessage("description")
+                .identifiersId("identifiersId")
+                .eFTIDataId("datasetId")
+                .interfaceType("EDELIVERY")
+                .build();
+
+        assertEquals(serializeUtils.mapObjectToJsonString(logRegistryDto), encoder.encode(logRegistryDto));
+    }
+
+    @Test
+    void shouldEncodeMessageSizeAndTruncationAsObjectMapperDoes() {
+        final LogRequestDto logRequestDto = LogRequestDto.builder()
+                .name("fti020")
+                .messageContent(BODY)
+                .messageSize(123456L)
+                .messageTruncated(true)
+                .build();
+
+        final String encoded = encoder.encode(logRequestDto);
+
+        assertEquals(serializeUtils.mapObjectToJsonString(logRequestDto), encoded);
+        assertTrue(encoded.contains("\"messageSize\":123456,\"messageTruncated\":true"));
+    }
+
+    @Test
+    void shouldEncodeEmptyLogsAsObjectMapperDoes() {
+        assertEquals(serializeUtils.mapObjectToJsonString(LogRequestDto.builder().build()), encoder.encode(LogRequestDto.builder().build()));
+        assertEquals(serializeUtils.mapObjectToJsonString(LogRegistryDto.builder().build()), encoder.encode(LogRegistryDto.builder().build()));
+        assertEquals(serializeUtils.mapObjectToJsonString(LogCommonDto.builder().build()), encoder.encode(LogCommonDto.builder().build()));
+    }
+
+    @Test
+    void shouldEncodeMessagePayloadAsBase64Json() {
+        final Map<String, List<String>> payload = Map.of("identifiers", List.of("AA123VV", "BB456ZZ"));
+        final LogRequestDto withPayload = LogRequestDto.builder().name("fti016").messagePayload(payload).build();
+        final LogRequestDto withContent = LogRequestDto.builder().name("fti016").messageContent(serializeUtils.mapObjectToBase64String(payload)).build();
+
+        assertEquals(serializeUtils.mapObjectToJsonString(withContent), encoder.encode(withPayload));
+        // buffers are reused by the next record of the thread
+        assertEquals(serializeUtils.mapObjectToJsonString(withContent), encoder.encode(withPayload));
+    }
+
+    @Test
+    void shouldEncodeSerializedPayloadAsItsBase64() {
+        final Map<String, List<String>> payload = Map.of("identifiers", List.of("AA123VV", "BB456ZZ"));
+        final LogRequestDto withJson = LogRequestDto.builder().name("fti016").messagePayload(serializeUtils.mapObjectToJsonBytes(payload)).build();
+        final LogRequestDto withContent = LogRequestDto.builder().name("fti016").messageContent(serializeUtils.mapObjectToBase64String(payload)).build();
+
+        assertEquals(serializeUtils.mapObjectToJsonString(withContent), encoder.encode(withJson));
+    }
+}
@@ -0,0 +1,98 @@
+package eu.efti.eftilogger.service;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import eu.efti.eftilogger.LogMarkerEnum;
+import eu.efti.eftilogger.dto.LogCommonDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditLogWriterTest extends AbstractTestService {
+
+    private ListAppender<ILoggingEvent> logWatcher;
+    private AuditLogWriter auditLogWriter;
+
+    @BeforeEach
+    public void init() {
+        logWatcher = new ListAppender<>();
+        logWatcher.start();
+        ((Logger) LoggerFactory.getLogger(LogService.class)).addAppender(logWatcher);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        auditLogWriter.stop();
+        ((Logger) LoggerFactory.getLogger(LogService.class)).detachAppender(logWatcher);
+    }
+
+    @Test
+    void shouldCompleteAndWriteEventsOnWriterThreadAndFlushOnStop() {
+        auditLogWriter = new AuditLogWriter(serializeUtils, 16, AuditLogWriter.OverflowPolicy.BLOCK);
+        auditLogWriter.start();
+        final String callerThread = Thread.currentThread().getName();
+        final String[] completionThread = new String[1];
+
+        IntStream.range(0, 100).forEach(i -> auditLogWriter.submit(LogMarkerEnum.REQUEST, LogCommonDto.builder().name("event" + i).build(),
+                logDto -> {
+                    completionThread[0] = Thread.currentThread().getName();
+                    logDto.setMessageContent(serializeUtils.mapObjectToBase64String(BODY));
+                }));
+        auditLogWriter.stop();
+
+        assertEquals(100, logWatcher.list.size());
+        assertEquals(100, auditLogWriter.getWrittenCount());
+        assertTrue(logWatcher.list.get(0).getFormattedMessage().contains("\"name\":\"event0\""));
+        assertTrue(logWatcher.list.get(99).getFormattedMessage().contains(serializeUtils.mapObjectToBase64String(BODY)));
+        assertEquals(LogMarkerEnum.REQUEST.name(), logWatcher.list.get(0).getMarkerList().get(0).getName());
+        assertNotEquals(callerThread, completionThread[0]);
+    }
+
+    @Test
+    void shouldDropAndCountEventsWhenBufferIsFull() throws InterruptedException {
+        auditLogWriter = new AuditLogWriter(serializeUtils, 2, AuditLogWriter.OverflowPolicy.DROP);
+        auditLogWriter.start();
+        final CountDownLatch release = new CountDownLatch(1);
+        auditLogWriter.submit(LogMarkerEnum.REGISTRY, LogCommonDto.builder().name("blocking").build(), logDto -> await(release));
+        // let the writer take the blocking event, leaving two free slots
+        while (auditLogWriter.getPendingCount() > 0) {
+            Thread.onSpinWait();
+        }
+
+        IntStream.range(0, 5).forEach(i -> auditLogWriter.submit(LogMarkerEnum.REGISTRY, LogCommonDto.builder().name("event" + i).build(), null));
+        release.countDown();
+        auditLogWriter.stop();
+
+        assertEquals(3, auditLogWriter.getDroppedCount());
+        assertEquals(3, logWatcher.list.size());
+    }
+
+    @Test
+    void shouldWriteOnCallingThreadWhenSynchronous() {
+        auditLogWriter = synchronousAuditLogWriter();
+        auditLogWriter.start();
+
+        auditLogWriter.submit(LogMarkerEnum.REQUEST, LogCommonDto.builder().name("sync").build(), null);
+
+        assertEquals(1, logWatcher.list.size());
+        assertEquals(0, auditLogWriter.getPendingCount());
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -26,7 +26,7 @@ class AuditRegistryLogServiceTest extends AbstractTestService {
         logWatcher.start();
         ((Logger) LoggerFactory.getLogger(LogService.class)).addAppender(logWatcher);
 
-        auditRegistryLogService = new AuditRegistryLogService(serializeUtils);
+        auditRegistryLogService = new AuditRegistryLogService(synchronousAuditLogWriter());
 
         controlDto = ControlDto.builder()
                 .datasetId("eftiDataUuid").build();
@@ -9,11 +9,15 @@ import eu.efti.commons.dto.ErrorDto;
 import eu.efti.commons.enums.ErrorCodesEnum;
 import eu.efti.commons.enums.RequestTypeEnum;
 import eu.efti.commons.enums.StatusEnum;
+import eu.efti.eftilogger.LogMarkerEnum;
+import eu.efti.eftilogger.dto.LogCommonDto;
+import eu.efti.eftilogger.dto.LogRequestDto;
 import eu.efti.eftilogger.dto.MessagePartiesDto;
 import org.json.JSONException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.skyscreamer.jsonassert.Customization;
 import org.skyscreamer.jsonassert.JSONAssert;
@@ -21,9 +25,15 @@ import org.skyscreamer.jsonassert.JSONCompareMode;
 import org.skyscreamer.jsonassert.comparator.CustomComparator;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static eu.efti.eftilogger.model.ComponentType.GATE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class AuditRequestLogServiceTest extends AbstractTestService {
@@ -60,7 +70,7 @@ class AuditRequestLogServiceTest extends AbstractTestService {
                 .respondingComponentId("receiver")
                 .respondingComponentType(GATE)
                 .respondingComponentCountry("receiverCountry").build();
-        auditRequestLogService = new AuditRequestLogService(serializeUtils);
+        auditRequestLogService = new AuditRequestLogService(synchronousAuditLogWriter());
     }
 
     @Test
@@ -80,4 +90,17 @@ class AuditRequestLogServiceTest extends AbstractTestService {
                 new CustomComparator(JSONCompareMode.LENIENT,
                         new Customization("messageDate", (o1, o2) -> true)));
     }
+
+    @Test
+    void shouldNotShareSubsetIdsWithControl() {
+        final AuditLogWriter auditLogWriter = mock(AuditLogWriter.class);
+        final ArgumentCaptor<LogCommonDto> logCaptor = ArgumentCaptor.forClass(LogCommonDto.class);
+        controlDto.setSubsetIds(new ArrayList<>(List.of("full")));
+
+        new AuditRequestLogService(auditLogWriter).log(controlDto, messagePartiesDto, GATE_ID, GATE_COUNTRY, BODY, status, false, "name");
+        controlDto.getSubsetIds().add("other");
+
+        verify(auditLogWriter).submit(eq(LogMarkerEnum.REQUEST), logCaptor.capture(), isNull());
+        assertEquals(List.of("full"), ((LogRequestDto) logCaptor.getValue()).getSubsetIds());
+    }
 }
@@ -1,47 +1,74 @@
 package eu.efti.plugin.ws.client;
 
-import jakarta.xml.soap.SOAPException;
-import jakarta.xml.soap.SOAPMessage;
+import com.sun.xml.ws.api.handler.MessageHandler;
+import com.sun.xml.ws.api.handler.MessageHandlerContext;
+import com.sun.xml.ws.api.message.Header;
+import com.sun.xml.ws.api.message.Message;
+import com.sun.xml.ws.util.xml.XMLStreamWriterFilter;
+import jakarta.activation.DataHandler;
 import jakarta.xml.ws.handler.MessageContext;
-import jakarta.xml.ws.handler.soap.SOAPHandler;
-import jakarta.xml.ws.handler.soap.SOAPMessageContext;
 import lombok.extern.slf4j.Slf4j;
+import org.jvnet.staxex.NamespaceContextEx;
+import org.jvnet.staxex.XMLStreamWriterEx;
 
+import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
-@Slf4j
-public class MessageLoggingHandler implements SOAPHandler<SOAPMessageContext> {
+/**
+ * Logs the SOAP messages exchanged with the access point according to the logging policy, to the dedicated
+ * eu.efti.plugin.ws.soap logger, meant to be written asynchronously. Messages are read from the JAX-WS messages rather
+ * than converted to SAAJ: a copy is written into a buffer that stops the writing at max bytes, and MTOM attachments are
+ * replaced by their content type, so a large payload is never read to be logged. Sampling applies to exchanges: it is
+ * decided on the request, and the response or fault of a sampled request is logged with it.
+ */
+@Slf4j(topic = "eu.efti.plugin.ws.soap")
+public class MessageLoggingHandler implements MessageHandler<MessageHandlerContext> {
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
+
+    private static final String SAMPLED_PROPERTY = MessageLoggingHandler.class.getName() + ".sampled";
+
+    private final MessageLoggingPolicy policy;
+    private final AtomicLong messageCount = new AtomicLong();
+
+    public MessageLoggingHandler() {
+        this(MessageLoggingPolicy.FULL);
+    }
+
+    public MessageLoggingHandler(MessageLoggingPolicy policy) {
+        this.policy = policy;
+    }
 
     @Override
     public Set<QName> getHeaders() {
-        return new HashSet<>();
+        return Set.of();
     }
 
     @Override
-    public boolean handleMessage(SOAPMessageContext context) {
+    public boolean handleMessage(MessageHandlerContext context) {
         boolean isRequest = (boolean) context.get(MessageContext.MESSAGE_OUTBOUND_PROPERTY);
-
-        if (isRequest) {
-            log.info("======== Logging Request ========");
-            logSOAPMessage(context.getMessage(), false);
-        } else {
-            log.debug("======== Logging Response ========");
-            logSOAPMessage(context.getMessage(), true);
+        if (isSampled(context, isRequest)) {
+            logMessage(isRequest ? "Request" : "Response", context.getMessage());
         }
-
         //continue with message processing
         return true;
     }
 
     @Override
-    public boolean handleFault(SOAPMessageContext context) {
-        log.info("======== Logging SOAPFault ========");
-        logSOAPMessage(context.getMessage(), false);
+    public boolean handleFault(MessageHandlerContext context) {
+        if (isSampled(context, false)) {
+            logMessage("SOAPFault", context.getMessage());
+        }
         return true;
     }
 
@@ -50,25 +77,147 @@ public class MessageLoggingHandler implements SOAPHandler<SOAPMessageContext> {
         //do nothing
     }
 
-    private void logSOAPMessage(SOAPMessage message, boolean debug) {
-        String output = null;
-        try {
-            output = convertToString(message);
-        } catch (IOException | SOAPException e) {
-            log.error("", e);
+    /**
+     * Decides on the request whether the exchange is logged, and keeps the decision in the context for its response.
+     */
+    private boolean isSampled(MessageHandlerContext context, boolean isRequest) {
+        if (!policy.isEnabled() || !log.isInfoEnabled()) {
+            return false;
+        }
+        Object sampled = context.get(SAMPLED_PROPERTY);
+        if (isRequest || sampled == null) {
+            sampled = messageCount.getAndIncrement() % policy.sampleRate() == 0;
+            context.put(SAMPLED_PROPERTY, sampled);
         }
-        if (output != null) {
-            if (debug) {
-                log.debug(output);
+        return (boolean) sampled;
+    }
+
+    private void logMessage(String kind, Message message) {
+        if (message == null) {
+            return;
+        }
+        CappedOutputStream output = new CappedOutputStream(policy.maxBytes());
+        try {
+            XMLStreamWriter writer = new AttachmentSkippingWriter(XML_OUTPUT_FACTORY.createXMLStreamWriter(output, StandardCharsets.UTF_8.name()));
+            if (policy.mode() == MessageLoggingPolicy.Mode.HEADERS) {
+                for (Header header : message.getHeaders().asList()) {
+                    header.writeTo(writer);
+                }
             } else {
-                log.info(output);
+                message.copy().writeTo(writer);
+            }
+            writer.flush();
+        } catch (XMLStreamException | RuntimeException e) {
+            if (!output.isCapped()) {
+                log.warn("could not log SOAP {}", kind, e);
+                return;
+            }
+        }
+        log.info("======== {} ========\n{}{}", kind, output.toString(StandardCharsets.UTF_8), output.isCapped() ? "... (truncated)" : "");
+    }
+
+    /**
+     * Writer that writes attachments as their content type, without reading them. JAXB hands attachments to a
+     * {@link XMLStreamWriterEx} as they are, and marshals straight into the underlying stream when the writer exposes
+     * it, so the stream is hidden.
+     */
+    private static final class AttachmentSkippingWriter extends XMLStreamWriterFilter implements XMLStreamWriterEx {
+
+        private AttachmentSkippingWriter(XMLStreamWriter writer) {
+            super(writer);
+        }
+
+        @Override
+        public void writeBinary(byte[] data, int start, int len, String contentType) throws XMLStreamException {
+            writeAttachment(contentType);
+        }
+
+        @Override
+        public void writeBinary(DataHandler dataHandler) throws XMLStreamException {
+            writeAttachment(dataHandler.getContentType());
+        }
+
+        @Override
+        public OutputStream writeBinary(String contentType) throws XMLStreamException {
+            writeAttachment(contentType);
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public void writePCDATA(CharSequence text) throws XMLStreamException {
+            writeCharacters(text.toString());
+        }
+
+        @Override
+        public NamespaceContextEx getNamespaceContext() {
+            NamespaceContext context = writer.getNamespaceContext();
+            return new NamespaceContextEx() {
+                @Override
+                public String getNamespaceURI(String prefix) {
+                    return context.getNamespaceURI(prefix);
+                }
+
+                @Override
+                public String getPrefix(String namespaceURI) {
+                    return context.getPrefix(namespaceURI);
+                }
+
+                @Override
+                public Iterator<String> getPrefixes(String namespaceURI) {
+                    return context.getPrefixes(namespaceURI);
+                }
+
+                @Override
+                public Iterator<Binding> iterator() {
+                    return Collections.emptyIterator();
+                }
+            };
+        }
+
+        @Override
+        public Object getProperty(String name) {
+            return null;
+        }
+
+        private void writeAttachment(String contentType) throws XMLStreamException {
+            writeCharacters("[attachment " + contentType + "]");
+        }
+    }
+
+    /**
+     * Buffer keeping the first max bytes written, failing the writes beyond them so that the writing stops.
+     */
+    private static final class CappedOutputStream extends ByteArrayOutputStream {
+        private final int maxBytes;
+        private boolean capped;
+
+        private CappedOutputStream(int maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            if (maxBytes > 0 && count + len > maxBytes) {
+                super.write(b, off, maxBytes - count);
+                capped = true;
+                throw new CapReachedException();
             }
+            super.write(b, off, len);
+        }
+
+        private boolean isCapped() {
+            return capped;
         }
     }
 
-    private String convertToString(SOAPMessage message) throws IOException, SOAPException {
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        message.writeTo(stream);
-        return stream.toString(StandardCharsets.UTF_8);
+    private static final class CapReachedException extends RuntimeException {
+        private CapReachedException() {
+            super("maximum logged size reached", null, false, false);
+        }
     }
 }
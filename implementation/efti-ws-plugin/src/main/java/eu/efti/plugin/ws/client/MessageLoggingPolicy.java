@@ -0,0 +1,30 @@
+package eu.efti.plugin.ws.client;
+
+/**
+ * What is logged of the SOAP messages exchanged with the access point: nothing, their headers, or the whole messages,
+ * MTOM attachments excepted.
+ *
+ * @param maxBytes   bytes logged of each message at most, 0 for no limit
+ * @param sampleRate one message logged every sample rate messages, 1 to log them all
+ */
+public record MessageLoggingPolicy(Mode mode, int maxBytes, int sampleRate) {
+
+    public static final MessageLoggingPolicy OFF = new MessageLoggingPolicy(Mode.OFF, 0, 1);
+    public static final MessageLoggingPolicy FULL = new MessageLoggingPolicy(Mode.BODY, 0, 1);
+
+    public MessageLoggingPolicy {
+        mode = mode != null ? mode : Mode.OFF;
+        maxBytes = Math.max(maxBytes, 0);
+        sampleRate = Math.max(sampleRate, 1);
+    }
+
+    public boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    public enum Mode {
+        OFF,
+        HEADERS,
+        BODY
+    }
+}
@@ -1,5 +1,6 @@
 package eu.efti.plugin.ws.client;
 
+import com.sun.xml.ws.developer.JAXWSProperties;
 import eu.efti.plugin.ws.generated.WebServicePlugin;
 import eu.efti.plugin.ws.generated.WebServicePluginInterface;
 import jakarta.xml.ws.BindingProvider;
@@ -17,13 +18,52 @@ import java.util.Map;
 @Slf4j
 public class WebserviceClient {
 
+    public static final String BUNDLED_WSDL = "/schemas/WebServicePlugin.wsdl";
+
+    private static final QName SERVICE_NAME = new QName("http://eu.domibus.wsplugin/", "WebServicePlugin");
+
     private final String wsdl;
 
-    private final boolean logMessages;
+    private final MessageLoggingHandler loggingHandler;
+
+    private final boolean bundledWsdl;
+
+    private final int connectTimeout;
+
+    private final int readTimeout;
+
+    private volatile WebServicePlugin backendService;
 
     public WebserviceClient(String webserviceLocation, boolean logMessages) {
+        this(webserviceLocation, logMessages, false);
+    }
+
+    /**
+     * @param bundledWsdl when true, the service is described by the WSDL bundled in this module instead of the one
+     *                    published by the access point, which is then never downloaded
+     */
+    public WebserviceClient(String webserviceLocation, boolean logMessages, boolean bundledWsdl) {
+        this(webserviceLocation, logMessages, bundledWsdl, 0, 0);
+    }
+
+    /**
+     * @param connectTimeout milliseconds to wait for the connection to the access point, 0 to wait indefinitely
+     * @param readTimeout    milliseconds to wait for the response of the access point, 0 to wait indefinitely
+     */
+    public WebserviceClient(String webserviceLocation, boolean logMessages, boolean bundledWsdl, int connectTimeout, int readTimeout) {
+        this(webserviceLocation, logMessages ? MessageLoggingPolicy.FULL : MessageLoggingPolicy.OFF, bundledWsdl, connectTimeout, readTimeout);
+    }
+
+    /**
+     * @param loggingPolicy what is logged of the messages exchanged with the access point, no logging handler is
+     *                      installed when it is off
+     */
+    public WebserviceClient(String webserviceLocation, MessageLoggingPolicy loggingPolicy, boolean bundledWsdl, int connectTimeout, int readTimeout) {
         this.wsdl = webserviceLocation;
-        this.logMessages = logMessages;
+        this.loggingHandler = loggingPolicy.isEnabled() ? new MessageLoggingHandler(loggingPolicy) : null;
+        this.bundledWsdl = bundledWsdl;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
     }
 
     public WebServicePluginInterface getPort() throws MalformedURLException {
@@ -35,8 +75,7 @@ public class WebserviceClient {
             throw new IllegalArgumentException("No webservice location specified");
         }
 
-        WebServicePlugin backendService = new WebServicePlugin(new URL(wsdl), new QName("http://eu.domibus.wsplugin/", "WebServicePlugin"));
-        WebServicePluginInterface backendPort = backendService.getWEBSERVICEPLUGINPORT();
+        WebServicePluginInterface backendPort = getService().getWEBSERVICEPLUGINPORT();
 
         //enable chunking
         BindingProvider bindingProvider = (BindingProvider) backendPort;
@@ -52,17 +91,41 @@ public class WebserviceClient {
         }
 
         Map<String, Object> ctxt = bindingProvider.getRequestContext();
-        ctxt.put("com.sun.xml.ws.transport.http.client.streaming.chunk.size", 8192);
+        ctxt.put(JAXWSProperties.HTTP_CLIENT_STREAMING_CHUNK_SIZE, 8192);
+        if (connectTimeout > 0) {
+            ctxt.put(JAXWSProperties.CONNECT_TIMEOUT, connectTimeout);
+        }
+        if (readTimeout > 0) {
+            ctxt.put(JAXWSProperties.REQUEST_TIMEOUT, readTimeout);
+        }
         //enable MTOM
         SOAPBinding binding = (SOAPBinding) bindingProvider.getBinding();
         binding.setMTOMEnabled(true);
 
-        if (logMessages) {
+        if (loggingHandler != null) {
             List<Handler> handlers = bindingProvider.getBinding().getHandlerChain();
-            handlers.add(new MessageLoggingHandler());
+            handlers.add(loggingHandler);
             bindingProvider.getBinding().setHandlerChain(handlers);
         }
 
         return backendPort;
     }
+
+    /**
+     * The service is built once per client, parsing the WSDL is the costly part of creating a port.
+     */
+    private WebServicePlugin getService() throws MalformedURLException {
+        WebServicePlugin service = backendService;
+        if (service == null) {
+            synchronized (this) {
+                service = backendService;
+                if (service == null) {
+                    URL wsdlLocation = bundledWsdl ? WebserviceClient.class.getResource(BUNDLED_WSDL) : new URL(wsdl);
+                    service = new WebServicePlugin(wsdlLocation, SERVICE_NAME);
+                    backendService = service;
+                }
+            }
+        }
+        return service;
+    }
 }
@@ -0,0 +1,126 @@
+package eu.efti.plugin.ws.client;
+
+import eu.efti.plugin.ws.generated.WebServicePluginInterface;
+import jakarta.xml.ws.WebServiceException;
+
+import java.net.MalformedURLException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of ports to one access point with one set of credentials. JAX-WS ports are not guaranteed to be thread-safe,
+ * so each call leases a port for its own use; ports are created on demand from the client, configured once, and kept
+ * for the next calls. A port holds at most one connection at a time, kept alive by the JDK between calls, so bounding
+ * the leased ports bounds the connections to the access point: when max connections are in use, callers wait up to
+ * the request timeout for a port to be released.
+ */
+public class WebservicePortPool {
+
+    private final WebserviceClient client;
+    private final String username;
+    private final String password;
+    private final Semaphore leases;
+    private final int maxConnections;
+    private final long requestTimeout;
+    private final Queue<WebServicePluginInterface> idlePorts = new ConcurrentLinkedQueue<>();
+    private final LongAdder leaseCount = new LongAdder();
+    private final LongAdder leaseWaitNanos = new LongAdder();
+    private final LongAdder leaseTimeoutCount = new LongAdder();
+    private final LongAdder callCount = new LongAdder();
+    private final LongAdder callNanos = new LongAdder();
+
+    public WebservicePortPool(WebserviceClient client, String username, String password) {
+        this(client, username, password, 0, 0);
+    }
+
+    /**
+     * @param maxConnections maximum number of concurrent calls to the access point, 0 for no limit
+     * @param requestTimeout milliseconds to wait for a connection when max connections are in use, 0 to wait indefinitely
+     */
+    public WebservicePortPool(WebserviceClient client, String username, String password, int maxConnections, long requestTimeout) {
+        this.client = client;
+        this.username = username;
+        this.password = password;
+        this.maxConnections = maxConnections;
+        this.requestTimeout = requestTimeout;
+        this.leases = maxConnections > 0 ? new Semaphore(maxConnections, true) : null;
+    }
+
+    public <T, E extends Exception> T execute(PortCall<T, E> call) throws E, MalformedURLException {
+        lease();
+        try {
+            WebServicePluginInterface port = idlePorts.poll();
+            if (port == null) {
+                port = client.getPort(username, password);
+            }
+            final long start = System.nanoTime();
+            try {
+                return call.apply(port);
+            } finally {
+                callNanos.add(System.nanoTime() - start);
+                callCount.increment();
+                idlePorts.offer(port);
+            }
+        } finally {
+            if (leases != null) {
+                leases.release();
+            }
+        }
+    }
+
+    private void lease() {
+        if (leases != null) {
+            final long start = System.nanoTime();
+            try {
+                if (requestTimeout <= 0) {
+                    leases.acquire();
+                } else if (!leases.tryAcquire(requestTimeout, TimeUnit.MILLISECONDS)) {
+                    leaseTimeoutCount.increment();
+                    throw new WebServiceException("no connection to the access point available after " + requestTimeout + " ms");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WebServiceException("interrupted while waiting for a connection to the access point", e);
+            } finally {
+                leaseWaitNanos.add(System.nanoTime() - start);
+            }
+        }
+        leaseCount.increment();
+    }
+
+    public int getIdleCount() {
+        return idlePorts.size();
+    }
+
+    public int getLeasedCount() {
+        return leases != null ? maxConnections - leases.availablePermits() : 0;
+    }
+
+    public long getLeaseCount() {
+        return leaseCount.sum();
+    }
+
+    public long getLeaseWaitNanos() {
+        return leaseWaitNanos.sum();
+    }
+
+    public long getLeaseTimeoutCount() {
+        return leaseTimeoutCount.sum();
+    }
+
+    public long getCallCount() {
+        return callCount.sum();
+    }
+
+    public long getCallNanos() {
+        return callNanos.sum();
+    }
+
+    @FunctionalInterface
+    public interface PortCall<T, E extends Exception> {
+        T apply(WebServicePluginInterface port) throws E;
+    }
+}
@@ -0,0 +1,105 @@
+package eu.efti.plugin.ws.benchmark;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import eu.efti.plugin.ws.client.MessageLoggingPolicy;
+import eu.efti.plugin.ws.client.WebserviceClient;
+import eu.efti.plugin.ws.client.WebservicePortPool;
+import eu.efti.plugin.ws.generated.WebServicePluginInterface;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+
+/**
+ * Compares a port leased from a {@link WebservicePortPool} with a port built by a new {@link WebserviceClient} for
+ * each call, the WSDL being downloaded from a local WireMock access point or read from the bundled copy.
+ * Run from the test classpath with {@link #main(String[])}; the gc profiler reports the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebservicePortBenchmark {
+
+    private static final String USERNAME = "username";
+    private static final String PASSWORD = "password";
+    private static final List<String> SCHEMAS = List.of("xml.xsd", "xmlmime.xsd", "envelope.xsd", "webservicePlugin-body.xsd",
+            "webservicePlugin-header.xsd");
+
+    private WireMockServer wireMockServer;
+    private String url;
+    private WebservicePortPool portPool;
+
+    @Setup
+    public void setUp() throws IOException {
+        wireMockServer = new WireMockServer(WireMockConfiguration.wireMockConfig().dynamicPort());
+        wireMockServer.start();
+        wireMockServer.stubFor(get(urlEqualTo("/domibus/services/wsplugin?wsdl"))
+                .willReturn(aResponse().withBody(readSchema("WebServicePlugin.wsdl"))));
+        for (final String schema : SCHEMAS) {
+            wireMockServer.stubFor(get(urlEqualTo("/domibus/services/" + schema)).willReturn(aResponse().withBody(readSchema(schema))));
+        }
+        url = String.format("http://localhost:%s/domibus/services/wsplugin?wsdl", wireMockServer.port());
+        portPool = new WebservicePortPool(new WebserviceClient(url, false), USERNAME, PASSWORD, 4, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        wireMockServer.stop();
+    }
+
+    @Benchmark
+    public WebServicePluginInterface pooledPort() throws MalformedURLException {
+        return portPool.execute(port -> port);
+    }
+
+    @Benchmark
+    public WebServicePluginInterface rebuiltPort() throws MalformedURLException {
+        return new WebserviceClient(url, false).getPort(USERNAME, PASSWORD);
+    }
+
+    @Benchmark
+    public WebServicePluginInterface rebuiltPortWithBundledWsdl() throws MalformedURLException {
+        return new WebserviceClient(url, MessageLoggingPolicy.OFF, true, 0, 0).getPort(USERNAME, PASSWORD);
+    }
+
+    private static byte[] readSchema(final String name) throws IOException {
+        try (InputStream inputStream = WebservicePortBenchmark.class.getResourceAsStream("/schemas/" + name)) {
+            if (inputStream == null) {
+                throw new IOException("schema " + name + " not found");
+            }
+            return inputStream.readAllBytes();
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(WebservicePortBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
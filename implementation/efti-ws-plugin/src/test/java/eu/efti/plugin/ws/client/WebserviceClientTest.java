@@ -3,6 +3,8 @@ package eu.efti.plugin.ws.client;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.common.ConsoleNotifier;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.sun.xml.ws.developer.JAXWSProperties;
+import jakarta.xml.ws.BindingProvider;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,9 +13,15 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Slf4j
 @ExtendWith(SpringExtension.class)
@@ -38,4 +46,46 @@ class WebserviceClientTest {
         assertNotNull(webserviceClient.getPort());
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldDownloadWsdlOnceForAllPorts() throws Exception {
+        wireMockServer.stubFor(get(urlEqualTo("/domibus/services/wsplugin?wsdl"))
+                .willReturn(aResponse().withBodyFile("WebServicePlugin.wsdl")));
+        WebserviceClient webserviceClient = new WebserviceClient(String.format("http://localhost:%s/domibus/services/wsplugin?wsdl", wireMockServer.port()), false);
+
+        assertNotSame(webserviceClient.getPort("username", "password"), webserviceClient.getPort("username", "password"));
+
+        wireMockServer.verify(1, getRequestedFor(urlEqualTo("/domibus/services/wsplugin?wsdl")));
+    }
+
+    @Test
+    void shouldNotDownloadWsdlWhenBundled() throws Exception {
+        WebserviceClient webserviceClient = new WebserviceClient(String.format("http://localhost:%s/domibus/services/wsplugin", wireMockServer.port()), false, true);
+
+        assertNotNull(webserviceClient.getPort());
+
+        wireMockServer.verify(0, getRequestedFor(urlEqualTo("/domibus/services/wsplugin?wsdl")));
+    }
+
+    @Test
+    void shouldSetTimeoutsOnPort() throws Exception {
+        WebserviceClient webserviceClient = new WebserviceClient(String.format("http://localhost:%s/domibus/services/wsplugin", wireMockServer.port()), false, true, 1000, 2000);
+
+        BindingProvider port = (BindingProvider) webserviceClient.getPort();
+
+        assertEquals(1000, port.getRequestContext().get(JAXWSProperties.CONNECT_TIMEOUT));
+        assertEquals(2000, port.getRequestContext().get(JAXWSProperties.REQUEST_TIMEOUT));
+        assertFalse(((BindingProvider) new WebserviceClient(String.format("http://localhost:%s/domibus/services/wsplugin", wireMockServer.port()), false, true)
+                .getPort()).getRequestContext().containsKey(JAXWSProperties.REQUEST_TIMEOUT));
+    }
+
+    @Test
+    void shouldInstallLoggingHandlerOnlyWhenLoggingIsEnabled() throws Exception {
+        String location = String.format("http://localhost:%s/domibus/services/wsplugin", wireMockServer.port());
+
+        BindingProvider loggedPort = (BindingProvider) new WebserviceClient(location, new MessageLoggingPolicy(MessageLoggingPolicy.Mode.HEADERS, 0, 1), true, 0, 0).getPort();
+        BindingProvider silentPort = (BindingProvider) new WebserviceClient(location, MessageLoggingPolicy.OFF, true, 0, 0).getPort();
+
+        assertInstanceOf(MessageLoggingHandler.class, loggedPort.getBinding().getHandlerChain().get(0));
+        assertTrue(silentPort.getBinding().getHandlerChain().isEmpty());
+    }
+}
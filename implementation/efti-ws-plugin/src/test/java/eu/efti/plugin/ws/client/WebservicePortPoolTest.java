@@ -0,0 +1,91 @@
+package eu.efti.plugin.ws.client;
+
+import eu.efti.plugin.ws.generated.WebServicePluginInterface;
+import jakarta.xml.ws.WebServiceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WebservicePortPoolTest {
+
+    @Mock
+    private WebserviceClient client;
+
+    private WebservicePortPool pool;
+
+    @BeforeEach
+    void before() {
+        pool = new WebservicePortPool(client, "username", "password");
+    }
+
+    @Test
+    void shouldReuseReleasedPort() throws Exception {
+        final WebServicePluginInterface port = mock(WebServicePluginInterface.class);
+        when(client.getPort("username", "password")).thenReturn(port);
+
+        final WebServicePluginInterface first = pool.execute(p -> p);
+        final WebServicePluginInterface second = pool.execute(p -> p);
+
+        assertSame(port, first);
+        assertSame(port, second);
+        verify(client).getPort("username", "password");
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    void shouldCreatePortForConcurrentCall() throws Exception {
+        when(client.getPort("username", "password")).thenReturn(mock(WebServicePluginInterface.class), mock(WebServicePluginInterface.class));
+
+        final WebServicePluginInterface inner = pool.execute(outer -> {
+            final WebServicePluginInterface other = pool.execute(p -> p);
+            assertNotSame(outer, other);
+            return other;
+        });
+
+        verify(client, times(2)).getPort("username", "password");
+        assertEquals(2, pool.getIdleCount());
+        assertSame(inner, pool.execute(p -> p));
+    }
+
+    @Test
+    void shouldReleasePortWhenCallFails() throws Exception {
+        when(client.getPort("username", "password")).thenReturn(mock(WebServicePluginInterface.class));
+
+        assertThrows(IllegalStateException.class, () -> pool.execute(p -> {
+            throw new IllegalStateException("fault");
+        }));
+
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    void shouldTimeOutWhenMaxConnectionsAreLeased() throws Exception {
+        pool = new WebservicePortPool(client, "username", "password", 1, 50);
+        when(client.getPort("username", "password")).thenReturn(mock(WebServicePluginInterface.class));
+
+        pool.execute(outer -> {
+            assertEquals(1, pool.getLeasedCount());
+            return assertThrows(WebServiceException.class, () -> pool.execute(p -> p));
+        });
+
+        assertEquals(0, pool.getLeasedCount());
+        assertEquals(1, pool.getLeaseCount());
+        assertEquals(1, pool.getLeaseTimeoutCount());
+        assertTrue(pool.getLeaseWaitNanos() >= 50_000_000L);
+        assertEquals(1, pool.getCallCount());
+        verify(client).getPort("username", "password");
+    }
+}
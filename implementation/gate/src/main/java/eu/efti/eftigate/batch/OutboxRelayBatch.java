@@ -0,0 +1,36 @@
+package eu.efti.eftigate.batch;
+
+import eu.efti.eftigate.config.OutboxProperties;
+import eu.efti.eftigate.entity.OutboxEntity;
+import eu.efti.eftigate.service.OutboxService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes the messages of the outbox. Several gate instances can run it at the same time: each leases different
+ * messages, or different shards when efti.outbox.shard-count is set.
+ */
+@Component
+@Slf4j
+@AllArgsConstructor
+public class OutboxRelayBatch {
+    OutboxService outboxService;
+    OutboxProperties outboxProperties;
+
+    @Scheduled(fixedDelayString = "${efti.outbox.relay.fixed-delay:200}")
+    public void relayOutbox() {
+        if (!outboxService.isEnabled()) {
+            return;
+        }
+        List<OutboxEntity> claimed;
+        do {
+            claimed = outboxService.claimForRelay();
+            final int relayed = outboxService.relay(claimed);
+            log.debug("Batch of outbox relayed {} messages", relayed);
+        } while (claimed.size() == outboxProperties.getBatchSize());
+    }
+}
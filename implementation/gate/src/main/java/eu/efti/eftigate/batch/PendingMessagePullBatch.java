@@ -0,0 +1,36 @@
+package eu.efti.eftigate.batch;
+
+import eu.efti.eftigate.config.PullProperties;
+import eu.efti.eftigate.service.PendingMessagePuller;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pulls the messages pending in the access point until it has no more, one gate instance at a time since they all
+ * see the same pending messages. A run that could not mark all its messages as downloaded ends the loop, the next
+ * schedule pulls them again.
+ */
+@Component
+@Slf4j
+@AllArgsConstructor
+public class PendingMessagePullBatch {
+    PendingMessagePuller pendingMessagePuller;
+    PullProperties pullProperties;
+
+    @Scheduled(fixedDelayString = "${efti.pull.fixed-delay:5000}")
+    @SchedulerLock(name = "TaskScheduler_pendingMessagePull",
+            lockAtLeastFor = "PT1S", lockAtMostFor = "PT10M")
+    public void pullPendingMessages() {
+        if (!pendingMessagePuller.isEnabled()) {
+            return;
+        }
+        int handled;
+        do {
+            handled = pendingMessagePuller.pull();
+            log.debug("Batch of pending messages pull handled {} messages", handled);
+        } while (handled == pullProperties.getMaxMessages());
+    }
+}
@@ -0,0 +1,31 @@
+package eu.efti.eftigate.batch;
+
+import eu.efti.eftigate.service.ReceivedMessageDeduplicator;
+import lombok.extern.slf4j.Slf4j;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+@Slf4j
+public class ReceivedMessagePurgeBatch {
+    private final ReceivedMessageDeduplicator receivedMessageDeduplicator;
+    private final int retentionDays;
+
+    public ReceivedMessagePurgeBatch(final ReceivedMessageDeduplicator receivedMessageDeduplicator,
+                                     @Value("${efti.dedupe.retention:7}") final int retentionDays) {
+        this.receivedMessageDeduplicator = receivedMessageDeduplicator;
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(cron = "${efti.dedupe.purge.cron:0 0 3 * * *}")
+    @SchedulerLock(name = "TaskScheduler_receivedMessagePurge",
+            lockAtLeastFor = "PT1M", lockAtMostFor = "PT1H")
+    public void purgeReceivedMessages() {
+        final int purged = receivedMessageDeduplicator.purge(LocalDateTime.now().minusDays(retentionDays));
+        log.info("Batch of received messages purge finished with {} messages purged", purged);
+    }
+}
@@ -0,0 +1,36 @@
+package eu.efti.eftigate.batch;
+
+import eu.efti.commons.dto.RequestDto;
+import eu.efti.eftigate.config.RequestRetryProperties;
+import eu.efti.eftigate.service.RequestRetryService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes again the requests whose retry is due, or whose send was deferred by the bulkhead of their receiver.
+ * Several gate instances can run it at the same time: each claims different requests, or different shards when
+ * efti.retry.shard-count is set.
+ */
+@Component
+@Slf4j
+@AllArgsConstructor
+public class RequestRetryBatch {
+    RequestRetryService requestRetryService;
+    RequestRetryProperties requestRetryProperties;
+
+    @Scheduled(fixedDelayString = "${efti.retry.scheduler.fixed-delay:5000}")
+    public void retryDueRequests() {
+        List<RequestDto> claimed;
+        do {
+            claimed = requestRetryService.claimDueRequests();
+            if (!claimed.isEmpty()) {
+                log.info("Batch of retry publishing {} requests", claimed.size());
+                requestRetryService.republish(claimed);
+            }
+        } while (claimed.size() == requestRetryProperties.getBatchSize());
+    }
+}
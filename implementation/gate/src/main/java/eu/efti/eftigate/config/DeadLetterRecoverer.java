@@ -0,0 +1,60 @@
+package eu.efti.eftigate.config;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.retry.MessageRecoverer;
+import org.springframework.amqp.rabbit.retry.RejectAndDontRequeueRecoverer;
+import org.springframework.amqp.rabbit.retry.RepublishMessageRecoverer;
+import org.springframework.core.NestedExceptionUtils;
+
+import java.util.Map;
+
+/**
+ * Called when the listener retries of a message are exhausted. Messages of the send and receive queues are published
+ * to the dead letter exchange of their queue with the exception message and class and the original exchange and
+ * routing key as headers, so that the parking lot knows why they failed and where to replay them. Messages of other
+ * queues are rejected as before.
+ */
+public class DeadLetterRecoverer implements MessageRecoverer {
+
+    public static final String X_EXCEPTION_CLASS = "x-exception-class";
+
+    private final String receiveQueue;
+    private final String sendQueuePrefix;
+    private final MessageRecoverer receiveRecoverer;
+    private final MessageRecoverer sendRecoverer;
+    private final MessageRecoverer rejectRecoverer = new RejectAndDontRequeueRecoverer();
+
+    public DeadLetterRecoverer(final AmqpTemplate amqpTemplate, final String receiveQueue, final String receiveDeadLetterExchange,
+                               final String sendQueuePrefix, final String sendDeadLetterExchange) {
+        this.receiveQueue = receiveQueue;
+        this.sendQueuePrefix = sendQueuePrefix;
+        this.receiveRecoverer = new Republisher(amqpTemplate, receiveDeadLetterExchange);
+        this.sendRecoverer = new Republisher(amqpTemplate, sendDeadLetterExchange);
+    }
+
+    @Override
+    public void recover(final Message message, final Throwable cause) {
+        final String consumerQueue = message.getMessageProperties().getConsumerQueue();
+        if (StringUtils.equals(receiveQueue, consumerQueue)) {
+            receiveRecoverer.recover(message, cause);
+        } else if (StringUtils.startsWith(consumerQueue, sendQueuePrefix)) {
+            sendRecoverer.recover(message, cause);
+        } else {
+            rejectRecoverer.recover(message, cause);
+        }
+    }
+
+    private static final class Republisher extends RepublishMessageRecoverer {
+
+        private Republisher(final AmqpTemplate amqpTemplate, final String deadLetterExchange) {
+            super(amqpTemplate, deadLetterExchange);
+        }
+
+        @Override
+        protected Map<? extends String, ?> additionalHeaders(final Message message, final Throwable cause) {
+            return Map.of(X_EXCEPTION_CLASS, NestedExceptionUtils.getMostSpecificCause(cause).getClass().getName());
+        }
+    }
+}
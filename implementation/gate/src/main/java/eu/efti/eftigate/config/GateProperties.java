@@ -1,5 +1,7 @@
 package eu.efti.eftigate.config;
 
+import eu.efti.edeliveryapconnector.dto.ApConfigDto;
+import eu.efti.plugin.ws.client.MessageLoggingPolicy;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -24,6 +26,29 @@ public class GateProperties {
         private String url;
         private String username;
         private String password;
+        private boolean bundledWsdl;
+        private int connectTimeout;
+        private int readTimeout;
+        private int requestTimeout;
+        private int maxConnections;
+        private boolean asyncSend;
+        private int maxInFlight;
+        private MessageLoggingPolicy messageLogging;
+
+        public ApConfigDto toApConfigDto() {
+            return ApConfigDto.builder()
+                    .url(url)
+                    .username(username)
+                    .password(password)
+                    .bundledWsdl(bundledWsdl)
+                    .connectTimeout(connectTimeout)
+                    .readTimeout(readTimeout)
+                    .requestTimeout(requestTimeout)
+                    .maxConnections(maxConnections)
+                    .maxInFlight(maxInFlight)
+                    .messageLogging(messageLogging)
+                    .build();
+        }
     }
 
     @Builder
@@ -0,0 +1,144 @@
+package eu.efti.eftigate.config;
+
+import eu.efti.commons.utils.JaxbMarshallerPool;
+import eu.efti.commons.utils.ValidatorHandlerPool;
+import eu.efti.edeliveryapconnector.service.AbstractApService;
+import eu.efti.edeliveryapconnector.service.RequestSendingService;
+import eu.efti.edeliveryapconnector.service.RequestUpdaterService;
+import eu.efti.commons.utils.SerializeUtils;
+import eu.efti.eftigate.service.DestinationBulkheads;
+import eu.efti.eftigate.service.PendingMessagePuller;
+import eu.efti.eftigate.service.RabbitSenderService;
+import eu.efti.eftigate.service.ReceivedMessageDeduplicator;
+import eu.efti.eftilogger.service.AuditLogWriter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public MeterBinder jaxbMarshallerPoolMetrics(final SerializeUtils serializeUtils) {
+        final JaxbMarshallerPool pool = serializeUtils.getMarshallerPool();
+        return registry -> {
+            FunctionCounter.builder("efti.jaxb.pool.hits", pool, JaxbMarshallerPool::getHits).register(registry);
+            FunctionCounter.builder("efti.jaxb.pool.misses", pool, JaxbMarshallerPool::getMisses).register(registry);
+            FunctionCounter.builder("efti.jaxb.pool.creations", pool, JaxbMarshallerPool::getCreations).register(registry);
+            Gauge.builder("efti.jaxb.pool.idle", pool, JaxbMarshallerPool::getIdleCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder validatorPoolMetrics(final SerializeUtils serializeUtils) {
+        final ValidatorHandlerPool pool = serializeUtils.getValidatorPool();
+        return registry -> {
+            FunctionTimer.builder("efti.validation.pool.wait", pool,
+                    ValidatorHandlerPool::getBorrowCount, ValidatorHandlerPool::getBorrowWaitNanos, TimeUnit.NANOSECONDS).register(registry);
+            FunctionTimer.builder("efti.validation.latency", pool,
+                    ValidatorHandlerPool::getValidationCount, ValidatorHandlerPool::getValidationNanos, TimeUnit.NANOSECONDS).register(registry);
+            Gauge.builder("efti.validation.pool.idle", pool, ValidatorHandlerPool::getIdleCount).register(registry);
+            Gauge.builder("efti.validation.pool.created", pool, ValidatorHandlerPool::getCreatedCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder auditLogWriterMetrics(final AuditLogWriter auditLogWriter) {
+        return registry -> {
+            FunctionCounter.builder("efti.audit.written", auditLogWriter, AuditLogWriter::getWrittenCount).register(registry);
+            FunctionCounter.builder("efti.audit.dropped", auditLogWriter, AuditLogWriter::getDroppedCount).register(registry);
+            Gauge.builder("efti.audit.pending", auditLogWriter, AuditLogWriter::getPendingCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder rabbitSenderMetrics(final RabbitSenderService rabbitSenderService) {
+        return registry -> {
+            FunctionTimer.builder("efti.rabbit.send.latency", rabbitSenderService,
+                    RabbitSenderService::getSendCount, RabbitSenderService::getSendNanos, TimeUnit.NANOSECONDS).register(registry);
+            FunctionCounter.builder("efti.rabbit.confirms.acked", rabbitSenderService, RabbitSenderService::getAckCount).register(registry);
+            FunctionCounter.builder("efti.rabbit.confirms.nacked", rabbitSenderService, RabbitSenderService::getNackCount).register(registry);
+            FunctionTimer.builder("efti.rabbit.confirms.latency", rabbitSenderService,
+                    service -> service.getAckCount() + service.getNackCount(), RabbitSenderService::getConfirmNanos, TimeUnit.NANOSECONDS).register(registry);
+            Gauge.builder("efti.rabbit.confirms.outstanding", rabbitSenderService, RabbitSenderService::getOutstandingConfirms).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder destinationBulkheadMetrics(final DestinationBulkheads destinationBulkheads) {
+        return destinationBulkheads::bindMetrics;
+    }
+
+    @Bean
+    public MeterBinder receivedMessageDeduplicatorMetrics(final ReceivedMessageDeduplicator receivedMessageDeduplicator) {
+        return receivedMessageDeduplicator::bindMetrics;
+    }
+
+    /**
+     * Connection leases and SOAP calls to the access point, for message submissions and download acknowledgements.
+     */
+    @Bean
+    public MeterBinder accessPointMetrics(final RequestSendingService requestSendingService, final RequestUpdaterService requestUpdaterService) {
+        return registry -> {
+            bindAccessPointMetrics(registry, requestSendingService, "submitMessage");
+            bindAccessPointMetrics(registry, requestUpdaterService, "markMessageAsDownloaded");
+            Gauge.builder("efti.ap.send.in-flight", requestSendingService, RequestSendingService::getInFlightCount).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder pendingMessagePullerMetrics(final PendingMessagePuller pendingMessagePuller) {
+        return registry -> {
+            FunctionCounter.builder("efti.ap.pull", pendingMessagePuller, PendingMessagePuller::getHandledCount)
+                    .tag("result", "handled").register(registry);
+            FunctionCounter.builder("efti.ap.pull", pendingMessagePuller, PendingMessagePuller::getFailedCount)
+                    .tag("result", "failed").register(registry);
+            Gauge.builder("efti.ap.pull.skipped", pendingMessagePuller, PendingMessagePuller::getSkippedCount).register(registry);
+        };
+    }
+
+    private static void bindAccessPointMetrics(final MeterRegistry registry, final AbstractApService apService, final String operation) {
+        FunctionTimer.builder("efti.ap.pool.wait", apService,
+                service -> service.getLeaseCount() + service.getLeaseTimeoutCount(), AbstractApService::getLeaseWaitNanos, TimeUnit.NANOSECONDS)
+                .tag("operation", operation).register(registry);
+        FunctionCounter.builder("efti.ap.pool.leases", apService, AbstractApService::getLeaseCount)
+                .tag("operation", operation).register(registry);
+        FunctionCounter.builder("efti.ap.pool.timeouts", apService, AbstractApService::getLeaseTimeoutCount)
+                .tag("operation", operation).register(registry);
+        Gauge.builder("efti.ap.pool.leased", apService, AbstractApService::getLeasedCount)
+                .tag("operation", operation).register(registry);
+        FunctionTimer.builder("efti.ap.call.latency", apService,
+                AbstractApService::getCallCount, AbstractApService::getCallNanos, TimeUnit.NANOSECONDS)
+                .tag("operation", operation).register(registry);
+    }
+
+    /**
+     * Number of messages ready in each send lane queue, read from the broker at each scrape.
+     */
+    @Bean
+    @ConditionalOnProperty(name = RabbitConfiguration.SEND_LANES_ENABLED, havingValue = "true")
+    public MeterBinder sendLaneMetrics(final AmqpAdmin amqpAdmin, final SendLaneProperties sendLaneProperties) {
+        return registry -> {
+            for (final SendLane lane : SendLane.values()) {
+                final String queueName = sendLaneProperties.queueName(lane);
+                Gauge.builder("efti.rabbit.send.lane.depth", amqpAdmin, admin -> queueDepth(admin, queueName))
+                        .tag("lane", lane.name())
+                        .register(registry);
+            }
+        };
+    }
+
+    private static double queueDepth(final AmqpAdmin amqpAdmin, final String queueName) {
+        final QueueInformation queueInformation = amqpAdmin.getQueueInfo(queueName);
+        return queueInformation != null ? queueInformation.getMessageCount() : Double.NaN;
+    }
+}
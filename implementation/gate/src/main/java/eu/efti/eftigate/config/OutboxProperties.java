@@ -0,0 +1,14 @@
+package eu.efti.eftigate.config;
+
+import lombok.Data;
+
+@Data
+public class OutboxProperties {
+    private boolean enabled;
+    private int batchSize = 100;
+    // this instance relays the messages of the controls with mod(control, shard-count) = shard-index
+    private int shardCount = 1;
+    private int shardIndex;
+    // seconds a relay owns the messages it publishes, longer than the publisher confirm timeout
+    private int lease = 120;
+}
@@ -0,0 +1,14 @@
+package eu.efti.eftigate.config;
+
+import lombok.Data;
+
+@Data
+public class PullProperties {
+    private boolean enabled;
+    // messages retrieved and handled at the same time
+    private int concurrency = 8;
+    // pending messages handled per run, the run is repeated while the access point has more
+    private int maxMessages = 500;
+    // failed attempts to handle a pending message before it is skipped, it stays pending in the access point
+    private int maxAttempts = 3;
+}
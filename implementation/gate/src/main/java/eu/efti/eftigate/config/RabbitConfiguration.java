@@ -0,0 +1,124 @@
+package eu.efti.eftigate.config;
+
+import eu.efti.eftigate.service.RabbitListenerService;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.MessageRecoverer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class RabbitConfiguration {
+
+    public static final String RECEIVE_BATCH_CONTAINER_FACTORY = "receiveBatchContainerFactory";
+    public static final String SEND_LANES_ENABLED = "efti.rabbit.send.lanes.enabled";
+
+    /**
+     * Delivers up to batch-size messages at once, or fewer when no message arrived for receive-timeout milliseconds.
+     * Messages are acknowledged one by one by the listener, failed ones being rejected to the dead letter queue,
+     * so the retry advice of the default factory is not applied.
+     */
+    @Bean(RECEIVE_BATCH_CONTAINER_FACTORY)
+    public SimpleRabbitListenerContainerFactory receiveBatchContainerFactory(final SimpleRabbitListenerContainerFactoryConfigurer configurer,
+                                                                             final ConnectionFactory connectionFactory,
+                                                                             @Value("${efti.rabbit.receive.batch.size:100}") final int batchSize,
+                                                                             @Value("${efti.rabbit.receive.batch.receive-timeout:200}") final long receiveTimeout) {
+        final SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setPrefetchCount(batchSize);
+        factory.setReceiveTimeout(receiveTimeout);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setAdviceChain();
+        return factory;
+    }
+
+    /**
+     * Recoverer of the default listener factory, applied once the listener retries are exhausted.
+     */
+    @Bean
+    public MessageRecoverer deadLetterRecoverer(final RabbitTemplate rabbitTemplate,
+                                                final SendLaneProperties sendLaneProperties,
+                                                @Value("${spring.rabbitmq.queues.eftiReceiveMessageQueue:efti.receive-messages.q}") final String receiveQueue,
+                                                @Value("${spring.rabbitmq.queues.messageReceiveDeadLetterExchange:receive-message-dead-letter-exchange}") final String receiveDeadLetterExchange,
+                                                @Value("${spring.rabbitmq.queues.messageSendDeadLetterExchange:send-message-dead-letter-exchange}") final String sendDeadLetterExchange) {
+        return new DeadLetterRecoverer(rabbitTemplate, receiveQueue, receiveDeadLetterExchange, sendLaneProperties.getQueuePrefix(), sendDeadLetterExchange);
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "efti.rabbit.send.lanes")
+    public SendLaneProperties sendLaneProperties() {
+        return new SendLaneProperties();
+    }
+
+    /**
+     * One queue per lane, bound to the send exchange with the lane routing key and dead lettered like the default send queue.
+     */
+    @Bean
+    @ConditionalOnProperty(name = SEND_LANES_ENABLED, havingValue = "true")
+    public Declarables sendLaneDeclarables(final SendLaneProperties sendLaneProperties,
+                                           @Value("${spring.rabbitmq.queues.eftiSendMessageExchange:efti.send-message.exchange}") final String exchangeName,
+                                           @Value("${spring.rabbitmq.queues.eftiKeySendMessage:EFTI}") final String baseKey) {
+        final DirectExchange exchange = new DirectExchange(exchangeName);
+        final List<Declarable> declarables = new ArrayList<>();
+        declarables.add(exchange);
+        for (final SendLane lane : SendLane.values()) {
+            final Queue queue = QueueBuilder.durable(sendLaneProperties.queueName(lane))
+                    .deadLetterExchange(sendLaneProperties.getDeadLetterExchange())
+                    .build();
+            final Binding binding = BindingBuilder.bind(queue).to(exchange).with(lane.routingKey(baseKey));
+            declarables.add(queue);
+            declarables.add(binding);
+        }
+        return new Declarables(declarables);
+    }
+
+    /**
+     * Registers a consumer per lane with its own concurrency and prefetch. Retries and dead lettering are those of
+     * the default listener factory.
+     */
+    @Bean
+    @ConditionalOnProperty(name = SEND_LANES_ENABLED, havingValue = "true")
+    public RabbitListenerConfigurer sendLaneListeners(final SimpleRabbitListenerContainerFactoryConfigurer configurer,
+                                                      final ConnectionFactory connectionFactory,
+                                                      final SendLaneProperties sendLaneProperties,
+                                                      @Lazy final RabbitListenerService rabbitListenerService) {
+        return registrar -> {
+            for (final SendLane lane : SendLane.values()) {
+                final SendLaneProperties.LaneConfig laneConfig = sendLaneProperties.getLane(lane);
+                final SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+                configurer.configure(factory, connectionFactory);
+                factory.setPrefetchCount(laneConfig.getPrefetch());
+
+                final SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+                endpoint.setId("sendLane-" + lane.name());
+                endpoint.setQueueNames(sendLaneProperties.queueName(lane));
+                endpoint.setConcurrency(laneConfig.getConcurrency());
+                endpoint.setMessageListener(message -> rabbitListenerService.listenSendMessage(new String(message.getBody(), StandardCharsets.UTF_8)));
+                registrar.registerEndpoint(endpoint, factory);
+            }
+        };
+    }
+}
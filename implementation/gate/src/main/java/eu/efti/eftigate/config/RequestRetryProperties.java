@@ -0,0 +1,22 @@
+package eu.efti.eftigate.config;
+
+import lombok.Data;
+
+@Data
+public class RequestRetryProperties {
+    private boolean enabled;
+    // attempts after the first send
+    private int maxAttempts = 6;
+    // seconds
+    private long initialInterval = 2;
+    private double multiplier = 2;
+    // seconds
+    private long maxInterval = 600;
+    // fraction of the interval added or removed at random
+    private double jitter = 0.2;
+    private int batchSize = 100;
+    // seconds a claimed request is hidden from other schedulers while being published
+    private long lease = 300;
+    private int shardCount = 1;
+    private int shardIndex;
+}
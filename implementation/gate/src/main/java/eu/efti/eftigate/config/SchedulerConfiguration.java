@@ -3,6 +3,7 @@ package eu.efti.eftigate.config;
 import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.provider.jdbctemplate.JdbcTemplateLockProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -18,4 +19,22 @@ public class SchedulerConfiguration {
     public LockProvider lockProvider(final DataSource dataSource) {
         return new JdbcTemplateLockProvider(dataSource, defaultSchema + ".shedlock");
     }
+
+    @Bean
+    @ConfigurationProperties(prefix = "efti.retry")
+    public RequestRetryProperties requestRetryProperties() {
+        return new RequestRetryProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "efti.outbox")
+    public OutboxProperties outboxProperties() {
+        return new OutboxProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "efti.pull")
+    public PullProperties pullProperties() {
+        return new PullProperties();
+    }
 }
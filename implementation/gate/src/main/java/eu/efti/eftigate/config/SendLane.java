@@ -0,0 +1,45 @@
+package eu.efti.eftigate.config;
+
+import eu.efti.commons.dto.RequestDto;
+import eu.efti.commons.enums.RequestType;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Lanes of the send queue. Each lane has its own queue and consumers, so that interactive uil searches are not
+ * delayed by identifiers fan-outs or notes.
+ */
+public enum SendLane {
+    UIL,
+    IDENTIFIER,
+    NOTE,
+    RESPONSE;
+
+    /**
+     * @return the lane of the request, empty when the request has no request type to pick one
+     */
+    public static Optional<SendLane> of(final RequestDto requestDto) {
+        if (requestDto.getControl() != null && requestDto.getControl().getRequestType() != null
+                && requestDto.getControl().getRequestType().isExternalAsk()) {
+            return Optional.of(RESPONSE);
+        }
+        final RequestType requestType = requestDto.getRequestType();
+        if (requestType == null) {
+            return Optional.empty();
+        }
+        return Optional.of(switch (requestType) {
+            case UIL -> UIL;
+            case IDENTIFIER -> IDENTIFIER;
+            case NOTE -> NOTE;
+        });
+    }
+
+    public String routingKey(final String baseKey) {
+        return baseKey + "." + name();
+    }
+
+    public String queueName(final String queuePrefix) {
+        return queuePrefix + "." + name().toLowerCase(Locale.ROOT) + ".q";
+    }
+}
@@ -0,0 +1,29 @@
+package eu.efti.eftigate.config;
+
+import lombok.Data;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+public class SendLaneProperties {
+    private boolean enabled;
+    private String queuePrefix = "efti.send-messages";
+    private String deadLetterExchange = "send-message-dead-letter-exchange";
+    private Map<SendLane, LaneConfig> lanes = new EnumMap<>(SendLane.class);
+
+    public LaneConfig getLane(final SendLane lane) {
+        return lanes.getOrDefault(lane, new LaneConfig());
+    }
+
+    public String queueName(final SendLane lane) {
+        return lane.queueName(queuePrefix);
+    }
+
+    @Data
+    public static final class LaneConfig {
+        // number of consumers, either fixed ("4") or a range ("1-4")
+        private String concurrency = "1";
+        private int prefetch = 1;
+    }
+}
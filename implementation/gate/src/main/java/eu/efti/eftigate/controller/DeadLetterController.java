@@ -0,0 +1,53 @@
+package eu.efti.eftigate.controller;
+
+import eu.efti.commons.enums.DeadLetterSourceEnum;
+import eu.efti.eftigate.controller.api.DeadLetterControllerApi;
+import eu.efti.eftigate.dto.DeadLetterCountDto;
+import eu.efti.eftigate.dto.DeadLetterDto;
+import eu.efti.eftigate.dto.DeadLetterListDto;
+import eu.efti.eftigate.dto.DeadLetterReplayDto;
+import eu.efti.eftigate.dto.DeadLetterReplayResultDto;
+import eu.efti.eftigate.service.DeadLetterService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/v1")
+@AllArgsConstructor
+@Slf4j
+public class DeadLetterController implements DeadLetterControllerApi {
+
+    private final DeadLetterService deadLetterService;
+
+    @Override
+    public ResponseEntity<DeadLetterListDto> getDeadLetters(final DeadLetterSourceEnum source, final String messageType, final String destination,
+                                                            final String errorType, final int page, final int size) {
+        log.info("GET on /admin/dead-letters with params source: {}, messageType: {}, destination: {}, errorType: {}", source, messageType, destination, errorType);
+        return new ResponseEntity<>(deadLetterService.findByCriteria(source, messageType, destination, errorType, page, size), HttpStatus.OK);
+    }
+
+    @Override
+    public ResponseEntity<DeadLetterDto> getDeadLetter(final long id) {
+        log.info("GET on /admin/dead-letters/{}", id);
+        return ResponseEntity.of(deadLetterService.findById(id));
+    }
+
+    @Override
+    public ResponseEntity<List<DeadLetterCountDto>> countDeadLetters() {
+        log.info("GET on /admin/dead-letters/counts");
+        return new ResponseEntity<>(deadLetterService.count(), HttpStatus.OK);
+    }
+
+    @Override
+    public ResponseEntity<DeadLetterReplayResultDto> replayDeadLetters(@RequestBody final DeadLetterReplayDto replayDto) {
+        log.info("POST on /admin/dead-letters/replay");
+        return new ResponseEntity<>(deadLetterService.replay(replayDto), HttpStatus.ACCEPTED);
+    }
+}
@@ -38,13 +38,13 @@ public class PlatformApiController implements V0Api {
         var ctx = PlatformApiContextResolver.getPlatformContextOrFail();
 
         var xml = (String) body;
-        var validationError = validationService.isXmlValid(xml);
-        if (validationError.isPresent()) {
+        var result = serializeUtils.validateAndMapXmlStringToJaxbObject(xml, SupplyChainConsignment.class, validationService.getGateSchema());
+        if (!result.isValid()) {
             var problemDetail = org.springframework.http.ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
-            problemDetail.setDetail(validationError.get());
+            problemDetail.setDetail(result.getErrorMessage());
             return ResponseEntity.of(problemDetail).headers(h -> h.setContentType(MediaType.APPLICATION_PROBLEM_XML)).build();
         } else {
-            SupplyChainConsignment consignment = serializeUtils.mapXmlStringToJaxbObject(xml, SupplyChainConsignment.class);
+            SupplyChainConsignment consignment = result.value();
 
             SaveIdentifiersRequest saveIdentifiersRequest = new SaveIdentifiersRequest();
             saveIdentifiersRequest.setDatasetId(datasetId);
@@ -0,0 +1,80 @@
+package eu.efti.eftigate.controller.api;
+
+import eu.efti.commons.enums.DeadLetterSourceEnum;
+import eu.efti.eftigate.config.security.Roles;
+import eu.efti.eftigate.dto.DeadLetterCountDto;
+import eu.efti.eftigate.dto.DeadLetterDto;
+import eu.efti.eftigate.dto.DeadLetterListDto;
+import eu.efti.eftigate.dto.DeadLetterReplayDto;
+import eu.efti.eftigate.dto.DeadLetterReplayResultDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+
+@Tag(name = "Dead letters", description = "Interface to inspect and replay the dead lettered messages")
+@RequestMapping("/v1")
+public interface DeadLetterControllerApi {
+
+    @Operation(summary = "List dead letters", description = "List the dead lettered messages matching the given criteria, most recent first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema()))
+    })
+    @GetMapping("/admin/dead-letters")
+    @Secured(Roles.ROLE_ADMIN)
+    ResponseEntity<DeadLetterListDto> getDeadLetters(@RequestParam(required = false) DeadLetterSourceEnum source,
+                                                     @RequestParam(required = false) String messageType,
+                                                     @RequestParam(required = false) String destination,
+                                                     @RequestParam(required = false) String errorType,
+                                                     @RequestParam(defaultValue = "0") int page,
+                                                     @RequestParam(defaultValue = "50") int size);
+
+    @Operation(summary = "Get a dead letter", description = "Get a dead lettered message with its body")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "404", description = "Not found", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema()))
+    })
+    @GetMapping("/admin/dead-letters/{id}")
+    @Secured(Roles.ROLE_ADMIN)
+    ResponseEntity<DeadLetterDto> getDeadLetter(@PathVariable long id);
+
+    @Operation(summary = "Count dead letters", description = "Count the dead lettered messages by source, type, destination and error")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema()))
+    })
+    @GetMapping("/admin/dead-letters/counts")
+    @Secured(Roles.ROLE_ADMIN)
+    ResponseEntity<List<DeadLetterCountDto>> countDeadLetters();
+
+    @Operation(summary = "Replay dead letters", description = "Publish again the selected dead letters to their original exchange, at the configured rate")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Accepted"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "500", description = "Internal server error", content = @Content(schema = @Schema()))
+    })
+    @PostMapping("/admin/dead-letters/replay")
+    @Secured(Roles.ROLE_ADMIN)
+    ResponseEntity<DeadLetterReplayResultDto> replayDeadLetters(@RequestBody DeadLetterReplayDto replayDto);
+}
@@ -0,0 +1,17 @@
+package eu.efti.eftigate.dto;
+
+import eu.efti.commons.enums.DeadLetterSourceEnum;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterCountDto {
+    private DeadLetterSourceEnum source;
+    private String messageType;
+    private String destination;
+    private String errorType;
+    private Long count;
+}
@@ -0,0 +1,29 @@
+package eu.efti.eftigate.dto;
+
+import eu.efti.commons.enums.DeadLetterSourceEnum;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterDto {
+    private Long id;
+    private DeadLetterSourceEnum source;
+    private String messageType;
+    private String destination;
+    private String requestId;
+    private String errorType;
+    private String errorReason;
+    private String exchange;
+    private String routingKey;
+    private String contentType;
+    private String headers;
+    private String body;
+    private LocalDateTime createdDate;
+}
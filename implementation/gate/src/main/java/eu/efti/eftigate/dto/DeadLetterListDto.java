@@ -0,0 +1,17 @@
+package eu.efti.eftigate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterListDto {
+    private long totalCount;
+    private List<DeadLetterDto> deadLetters;
+}
@@ -0,0 +1,25 @@
+package eu.efti.eftigate.dto;
+
+import eu.efti.commons.enums.DeadLetterSourceEnum;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Selects the dead letters to replay, either by id or by criteria. A null criterion matches any value.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterReplayDto {
+    private List<Long> ids;
+    private DeadLetterSourceEnum source;
+    private String messageType;
+    private String destination;
+    private String errorType;
+    private Integer limit;
+}
@@ -0,0 +1,13 @@
+package eu.efti.eftigate.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterReplayResultDto {
+    private int scheduled;
+    private double ratePerSecond;
+}
@@ -0,0 +1,85 @@
+package eu.efti.eftigate.entity;
+
+import eu.efti.commons.enums.DeadLetterSourceEnum;
+import eu.efti.commons.model.AbstractModel;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.io.Serializable;
+
+/**
+ * A message dead lettered by the send or receive queue, kept until it is replayed.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "dead_letter", catalog = "efti")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class DeadLetterEntity extends AbstractModel implements Serializable {
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "source")
+    @Enumerated(EnumType.STRING)
+    private DeadLetterSourceEnum source;
+
+    /**
+     * request type of the control for a sent request, notification type for a received Domibus message
+     */
+    @Column(name = "messagetype")
+    private String messageType;
+
+    /**
+     * gate or platform the request was sent to, empty for received messages
+     */
+    @Column(name = "destination")
+    private String destination;
+
+    @Column(name = "requestid")
+    private String requestId;
+
+    /**
+     * exception class, or dead letter reason given by the broker
+     */
+    @Column(name = "errortype")
+    private String errorType;
+
+    @Column(name = "errorreason")
+    private String errorReason;
+
+    /**
+     * exchange and routing key the message was originally published to, used to replay it
+     */
+    @Column(name = "exchange")
+    private String exchange;
+
+    @Column(name = "routingkey")
+    private String routingKey;
+
+    @Column(name = "contenttype")
+    private String contentType;
+
+    @Column(name = "headers")
+    private String headers;
+
+    @Column(name = "body")
+    private String body;
+}
@@ -0,0 +1,53 @@
+package eu.efti.eftigate.entity;
+
+import eu.efti.commons.model.AbstractModel;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * A message to publish to rabbitmq, saved in the transaction of the request it carries.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "outbox", catalog = "efti")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class OutboxEntity extends AbstractModel implements Serializable {
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "control")
+    private int controlId;
+
+    @Column(name = "exchange")
+    private String exchange;
+
+    @Column(name = "routingkey")
+    private String routingKey;
+
+    @Column(name = "payload")
+    private String payload;
+
+    // set while a relay publishes the message
+    @Column(name = "leaseuntil")
+    private LocalDateTime leaseUntil;
+}
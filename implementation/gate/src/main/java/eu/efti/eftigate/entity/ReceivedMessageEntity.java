@@ -0,0 +1,52 @@
+package eu.efti.eftigate.entity;
+
+import eu.efti.commons.model.AbstractModel;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * A message received from the access point and claimed by the gate, so that its redeliveries are ignored. The claim
+ * is completed once the message is handled.
+ */
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "received_message", catalog = "efti",
+        uniqueConstraints = @UniqueConstraint(name = "received_message_unique", columnNames = {"messageid", "contenthash"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class ReceivedMessageEntity extends AbstractModel implements Serializable {
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "messageid")
+    private String messageId;
+
+    @Column(name = "contenthash")
+    private String contentHash;
+
+    @Column(name = "completed")
+    private boolean completed;
+
+    @Column(name = "claimeddate")
+    private LocalDateTime claimedDate;
+}
@@ -7,10 +7,14 @@ import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +22,11 @@ public interface ControlRepository extends JpaRepository<ControlEntity, Long>, J
     @Transactional("controlTransactionManager")
     Optional<ControlEntity> findByRequestId(String requestId);
 
+    @Modifying
+    @Transactional("controlTransactionManager")
+    @Query("update ControlEntity c set c.status = :status, c.lastModifiedDate = :now where c.id in :ids")
+    int updateStatusByIdIn(@Param("status") StatusEnum status, @Param("now") LocalDateTime now, @Param("ids") Collection<Integer> ids);
+
     default List<ControlEntity> findByCriteria(final StatusEnum status, final Integer timeoutValue) {
         return this.findAll((root, query, cb) -> {
             final List<Predicate> predicates = new ArrayList<>();
@@ -0,0 +1,44 @@
+package eu.efti.eftigate.repository;
+
+import eu.efti.commons.enums.DeadLetterSourceEnum;
+import eu.efti.eftigate.dto.DeadLetterCountDto;
+import eu.efti.eftigate.entity.DeadLetterEntity;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public interface DeadLetterRepository extends JpaRepository<DeadLetterEntity, Long>, JpaSpecificationExecutor<DeadLetterEntity> {
+
+    @Query("select new eu.efti.eftigate.dto.DeadLetterCountDto(d.source, d.messageType, d.destination, d.errorType, count(d)) " +
+            "from DeadLetterEntity d group by d.source, d.messageType, d.destination, d.errorType order by count(d) desc")
+    List<DeadLetterCountDto> countByGroup();
+
+    /**
+     * Dead letters matching all the given criteria, a null criterion matching any value.
+     */
+    default Page<DeadLetterEntity> findByCriteria(final DeadLetterSourceEnum source, final String messageType, final String destination,
+                                                  final String errorType, final Pageable pageable) {
+        return this.findAll((root, query, cb) -> {
+            final List<Predicate> predicates = new ArrayList<>();
+            if (source != null) {
+                predicates.add(cb.equal(root.get("source"), source));
+            }
+            if (messageType != null) {
+                predicates.add(cb.equal(root.get("messageType"), messageType));
+            }
+            if (destination != null) {
+                predicates.add(cb.equal(root.get("destination"), destination));
+            }
+            if (errorType != null) {
+                predicates.add(cb.equal(root.get("errorType"), errorType));
+            }
+            return cb.and(predicates.toArray(new Predicate[]{}));
+        }, pageable);
+    }
+}
@@ -0,0 +1,44 @@
+package eu.efti.eftigate.repository;
+
+import eu.efti.eftigate.entity.OutboxEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static eu.efti.eftigate.repository.RequestRepository.SKIP_LOCKED;
+
+public interface OutboxRepository extends JpaRepository<OutboxEntity, Long> {
+
+    /**
+     * Oldest messages of the shard not leased by a relay, locked for update. Rows locked by another relay are skipped.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = SKIP_LOCKED))
+    @Query("select o from OutboxEntity o where mod(o.controlId, :shardCount) = :shardIndex " +
+            "and (o.leaseUntil is null or o.leaseUntil < :now) order by o.id")
+    List<OutboxEntity> findForRelay(@Param("shardCount") final int shardCount, @Param("shardIndex") final int shardIndex,
+                                    @Param("now") final LocalDateTime now, final Pageable pageable);
+
+    /**
+     * Messages of the given controls older than maxId, other than the given ones.
+     */
+    @Query("select o from OutboxEntity o where o.controlId in :controlIds and o.id < :maxId and o.id not in :ids")
+    List<OutboxEntity> findOlderOfControls(@Param("controlIds") final Collection<Integer> controlIds, @Param("maxId") final long maxId,
+                                           @Param("ids") final Collection<Long> ids);
+
+    @Modifying
+    @Transactional("controlTransactionManager")
+    @Query("update OutboxEntity o set o.leaseUntil = null where o.id in :ids")
+    int releaseLease(@Param("ids") final Collection<Long> ids);
+}
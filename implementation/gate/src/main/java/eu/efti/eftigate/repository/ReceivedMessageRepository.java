@@ -0,0 +1,43 @@
+package eu.efti.eftigate.repository;
+
+import eu.efti.eftigate.entity.ReceivedMessageEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface ReceivedMessageRepository extends JpaRepository<ReceivedMessageEntity, Long> {
+
+    boolean existsByMessageIdAndContentHashAndCompletedTrue(String messageId, String contentHash);
+
+    /**
+     * Takes over a claim left in progress since before the given date, by a gate instance that stopped while handling
+     * the message.
+     *
+     * @return 1 when the claim was taken over
+     */
+    @Modifying
+    @Transactional("controlTransactionManager")
+    @Query("update ReceivedMessageEntity r set r.claimedDate = :now where r.messageId = :messageId and r.contentHash = :contentHash " +
+            "and r.completed = false and r.claimedDate < :staleBefore")
+    int reclaimStale(@Param("messageId") String messageId, @Param("contentHash") String contentHash,
+                     @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Transactional("controlTransactionManager")
+    @Query("update ReceivedMessageEntity r set r.completed = true where r.messageId = :messageId and r.contentHash = :contentHash")
+    int markCompleted(@Param("messageId") String messageId, @Param("contentHash") String contentHash);
+
+    @Modifying
+    @Transactional("controlTransactionManager")
+    @Query("delete from ReceivedMessageEntity r where r.messageId = :messageId and r.contentHash = :contentHash")
+    int release(@Param("messageId") String messageId, @Param("contentHash") String contentHash);
+
+    @Modifying
+    @Transactional("controlTransactionManager")
+    @Query("delete from ReceivedMessageEntity r where r.createdDate < :date")
+    int deleteByCreatedDateBefore(@Param("date") LocalDateTime date);
+}
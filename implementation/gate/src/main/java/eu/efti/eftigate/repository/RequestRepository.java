@@ -3,15 +3,30 @@ package eu.efti.eftigate.repository;
 import eu.efti.commons.enums.RequestStatusEnum;
 import eu.efti.commons.enums.RequestTypeEnum;
 import eu.efti.eftigate.entity.RequestEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface RequestRepository<T extends RequestEntity> extends JpaRepository<T, Long> {
 
+    // org.hibernate.LockOptions.SKIP_LOCKED
+    String SKIP_LOCKED = "-2";
+
     T findByEdeliveryMessageId(final String messageId);
 
+    List<T> findByEdeliveryMessageIdIn(final Collection<String> messageIds);
+
     T findByControlRequestTypeAndStatusAndEdeliveryMessageId(final RequestTypeEnum controlRequestType, final RequestStatusEnum requestStatusEnum, final String messageId);
 
     @Transactional("controlTransactionManager")
@@ -20,4 +35,22 @@ public interface RequestRepository<T extends RequestEntity> extends JpaRepositor
     @Transactional("controlTransactionManager")
     List<T> findByControlId(final int controlId);
 
+    @Modifying
+    @Transactional("controlTransactionManager")
+    @Query("update RequestEntity r set r.status = :status, r.lastModifiedDate = :now where r.id in :ids")
+    int updateStatusByIdIn(@Param("status") final RequestStatusEnum status, @Param("now") final LocalDateTime now, @Param("ids") final Collection<Long> ids);
+
+    @Modifying
+    @Transactional("controlTransactionManager")
+    @Query("update RequestEntity r set r.nextRetryDate = null where r.id = :id")
+    int clearNextRetryDate(@Param("id") final long id);
+
+    /**
+     * Requests of the shard whose retry is due, locked for update. Rows locked by another scheduler are skipped.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = SKIP_LOCKED))
+    @Query("select r from RequestEntity r where r.nextRetryDate <= :now and mod(r.id, :shardCount) = :shardIndex order by r.nextRetryDate")
+    List<T> findDueForRetry(@Param("now") final LocalDateTime now, @Param("shardCount") final int shardCount,
+                            @Param("shardIndex") final int shardIndex, final Pageable pageable);
 }
@@ -1,6 +1,7 @@
 package eu.efti.eftigate.service;
 
 import eu.efti.edeliveryapconnector.dto.NotificationDto;
+import eu.efti.edeliveryapconnector.dto.NotificationType;
 import eu.efti.edeliveryapconnector.dto.ReceivedNotificationDto;
 import eu.efti.edeliveryapconnector.service.NotificationService;
 import eu.efti.eftigate.service.request.EftiRequestUpdater;
@@ -8,25 +9,80 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 @Service
 @AllArgsConstructor
 @Slf4j
 public class ApIncomingService {
 
+    private static final Set<NotificationType> SEND_ACKNOWLEDGEMENTS = Set.of(NotificationType.SEND_SUCCESS, NotificationType.SEND_FAILURE);
 
     private final NotificationService notificationService;
     private final EftiRequestUpdater eftiRequestUpdater;
     private final EDeliveryMessageRouter messageRouter;
+    private final ReceivedMessageDeduplicator receivedMessageDeduplicator;
 
     public void manageIncomingNotification(final ReceivedNotificationDto receivedNotificationDto) {
         notificationService.consume(receivedNotificationDto).ifPresent(this::rootResponse);
     }
 
+    /**
+     * Batch variant of {@link #manageIncomingNotification}: send acknowledgements of the batch are handled together,
+     * received messages one by one.
+     *
+     * @return keys of the notifications that could not be handled
+     */
+    public <K> Set<K> manageIncomingNotifications(final Map<K, ReceivedNotificationDto> receivedNotificationDtos) {
+        final Set<K> failed = new HashSet<>();
+        final Map<K, NotificationDto> acknowledgements = new LinkedHashMap<>();
+        receivedNotificationDtos.forEach((key, receivedNotificationDto) -> {
+            try {
+                notificationService.consume(receivedNotificationDto).ifPresent(notificationDto -> {
+                    if (SEND_ACKNOWLEDGEMENTS.contains(notificationDto.getNotificationType())) {
+                        acknowledgements.put(key, notificationDto);
+                    } else {
+                        rootResponse(notificationDto);
+                    }
+                });
+            } catch (final RuntimeException e) {
+                log.error("error while handling incoming notification", e);
+                failed.add(key);
+            }
+        });
+        if (!acknowledgements.isEmpty()) {
+            try {
+                final Set<String> failedMessageIds = eftiRequestUpdater.manageSendNotifications(List.copyOf(acknowledgements.values()));
+                acknowledgements.forEach((key, notificationDto) -> {
+                    if (failedMessageIds.contains(notificationDto.getMessageId())) {
+                        failed.add(key);
+                    }
+                });
+            } catch (final RuntimeException e) {
+                log.error("error while handling {} send acknowledgements", acknowledgements.size(), e);
+                failed.addAll(acknowledgements.keySet());
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Handles a message pulled from the access point, as if it had been notified.
+     */
+    public void manageRetrievedMessage(final NotificationDto notificationDto) {
+        rootResponse(notificationDto);
+    }
+
     private void rootResponse(final NotificationDto notificationDto) {
         switch (notificationDto.getNotificationType()) {
             case SEND_SUCCESS -> eftiRequestUpdater.manageSendSuccess(notificationDto, LogManager.FTI_ROOT_RESPONSE_SUCESS);
             case SEND_FAILURE -> eftiRequestUpdater.manageSendFailure(notificationDto, LogManager.FTI_SEND_FAIL);
-            case RECEIVED -> messageRouter.process(notificationDto);
+            case RECEIVED -> receivedMessageDeduplicator.runOnce(notificationDto.getMessageId(), notificationDto.getContent().getBody(),
+                    () -> messageRouter.process(notificationDto));
             default -> log.error("Unhandled notification type: {}", notificationDto.getNotificationType());
         }
     }
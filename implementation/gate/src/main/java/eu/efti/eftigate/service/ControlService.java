@@ -50,6 +50,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -295,6 +297,12 @@ public class ControlService {
         return mapperUtils.controlEntityToControlDto(controlRepository.save(controlEntity));
     }
 
+    public void updateStatus(final Collection<Integer> controlIds, final StatusEnum status) {
+        if (!controlIds.isEmpty()) {
+            controlRepository.updateStatusByIdIn(status, LocalDateTime.now(), controlIds);
+        }
+    }
+
     private <T extends ValidableDto> RequestIdDto createControl(final T searchDto, final ControlDto controlDto, Function<T, Optional<ErrorDto>> validate) {
         validate.apply(searchDto).ifPresentOrElse(
                 error -> createErrorControl(controlDto, error, true),
@@ -332,15 +340,19 @@ public class ControlService {
 
         controlDto.setRequestType(gateToRequestTypeFunction.apply(destinationGatesUrls));
         final ControlDto saveControl = this.save(controlDto);
+        final List<String> remoteGatesUrls = new ArrayList<>();
         CollectionUtils.emptyIfNull(destinationGatesUrls).forEach(destinationUrl -> {
             if (StringUtils.isBlank(destinationUrl)) {
                 getRequestService(saveControl.getRequestType()).createRequest(saveControl, RequestStatusEnum.ERROR);
             } else if (destinationUrl.equalsIgnoreCase(gateProperties.getOwner())) {
                 eftiAsyncCallsProcessor.checkLocalRepoAsync(searchWithIdentifiersRequestDto, saveControl);
             } else {
-                getRequestService(saveControl.getRequestType()).createAndSendRequest(saveControl, destinationUrl);
+                remoteGatesUrls.add(destinationUrl);
             }
         });
+        if (!remoteGatesUrls.isEmpty()) {
+            getRequestService(saveControl.getRequestType()).createAndSendRequests(saveControl, remoteGatesUrls);
+        }
         log.info("Identifier control with request uuid '{}' has been register", saveControl.getRequestId());
     }
 
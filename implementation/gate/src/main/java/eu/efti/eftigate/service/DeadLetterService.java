@@ -0,0 +1,282 @@
+package eu.efti.eftigate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.efti.commons.enums.DeadLetterSourceEnum;
+import eu.efti.eftigate.config.DeadLetterRecoverer;
+import eu.efti.eftigate.dto.DeadLetterCountDto;
+import eu.efti.eftigate.dto.DeadLetterDto;
+import eu.efti.eftigate.dto.DeadLetterListDto;
+import eu.efti.eftigate.dto.DeadLetterReplayDto;
+import eu.efti.eftigate.dto.DeadLetterReplayResultDto;
+import eu.efti.eftigate.entity.DeadLetterEntity;
+import eu.efti.eftigate.repository.DeadLetterRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.RepublishMessageRecoverer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parking lot of the dead lettered messages. Messages of the dead letter queues are stored with the reason of their
+ * failure, can be listed and counted by type, destination and error, and replayed in bulk to the exchange they were
+ * first published to. Replays run one after the other on a single thread, at most replay-rate messages per second,
+ * and a replayed message is removed from the parking lot; if it fails again it comes back as a new dead letter.
+ */
+@Slf4j
+@Service
+public class DeadLetterService {
+
+    private static final String X_DEATH = "x-death";
+    private static final String X_FIRST_DEATH_REASON = "x-first-death-reason";
+    private static final Set<String> FAILURE_HEADERS = Set.of(X_DEATH, X_FIRST_DEATH_REASON, "x-first-death-exchange", "x-first-death-queue",
+            "x-last-death-reason", "x-last-death-exchange", "x-last-death-queue",
+            RepublishMessageRecoverer.X_EXCEPTION_MESSAGE, RepublishMessageRecoverer.X_EXCEPTION_STACKTRACE,
+            RepublishMessageRecoverer.X_ORIGINAL_EXCHANGE, RepublishMessageRecoverer.X_ORIGINAL_ROUTING_KEY,
+            DeadLetterRecoverer.X_EXCEPTION_CLASS);
+    private static final int SHORT_COLUMN_LENGTH = 255;
+
+    private final DeadLetterRepository deadLetterRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final ExecutorService replayExecutor;
+    private final double replayRate;
+    private final int replayMaxMessages;
+    private final String sendExchange;
+    private final String receiveExchange;
+    private final String routingKey;
+    private final ObjectMapper objectMapper;
+
+    public DeadLetterService(final DeadLetterRepository deadLetterRepository, final RabbitTemplate rabbitTemplate, final ObjectMapper objectMapper,
+                             @Value("${efti.parking-lot.replay.rate:10}") final double replayRate,
+                             @Value("${efti.parking-lot.replay.max-messages:10000}") final int replayMaxMessages,
+                             @Value("${spring.rabbitmq.queues.eftiSendMessageExchange:efti.send-message.exchange}") final String sendExchange,
+                             @Value("${spring.rabbitmq.queues.eftiReceiveMessageExchange:efti.receive-message.exchange}") final String receiveExchange,
+                             @Value("${spring.rabbitmq.queues.eftiKeySendMessage:EFTI}") final String routingKey) {
+        this.deadLetterRepository = deadLetterRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        this.replayExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "dead-letter-replay"));
+        this.replayRate = replayRate;
+        this.replayMaxMessages = replayMaxMessages;
+        this.sendExchange = sendExchange;
+        this.receiveExchange = receiveExchange;
+        this.routingKey = routingKey;
+    }
+
+    public DeadLetterEntity park(final Message message, final DeadLetterSourceEnum source) {
+        final MessageProperties properties = message.getMessageProperties();
+        final DeadLetterEntity deadLetter = DeadLetterEntity.builder()
+                .source(source)
+                .contentType(properties.getContentType())
+                .headers(writeHeaders(properties.getHeaders()))
+                .body(new String(message.getBody(), StandardCharsets.UTF_8))
+                .build();
+        describeBody(deadLetter);
+        describeFailure(deadLetter, properties);
+        describeOrigin(deadLetter, properties);
+        log.error("{} message {} of type {} for {} dead lettered: {} {}", source, deadLetter.getRequestId(), deadLetter.getMessageType(),
+                deadLetter.getDestination(), deadLetter.getErrorType(), deadLetter.getErrorReason());
+        return deadLetterRepository.save(deadLetter);
+    }
+
+    public DeadLetterListDto findByCriteria(final DeadLetterSourceEnum source, final String messageType, final String destination,
+                                            final String errorType, final int page, final int size) {
+        final Page<DeadLetterEntity> deadLetters = deadLetterRepository.findByCriteria(source, messageType, destination, errorType,
+                PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "id")));
+        return DeadLetterListDto.builder()
+                .totalCount(deadLetters.getTotalElements())
+                .deadLetters(deadLetters.map(deadLetter -> toDto(deadLetter, false)).getContent())
+                .build();
+    }
+
+    public Optional<DeadLetterDto> findById(final long id) {
+        return deadLetterRepository.findById(id).map(deadLetter -> toDto(deadLetter, true));
+    }
+
+    public List<DeadLetterCountDto> count() {
+        return deadLetterRepository.countByGroup();
+    }
+
+    /**
+     * Schedules the replay of the selected dead letters, at most replay-max-messages of them.
+     */
+    public DeadLetterReplayResultDto replay(final DeadLetterReplayDto replayDto) {
+        final int limit = replayDto.getLimit() != null ? Math.min(replayDto.getLimit(), replayMaxMessages) : replayMaxMessages;
+        final List<Long> ids = CollectionUtils.isNotEmpty(replayDto.getIds())
+                ? replayDto.getIds().stream().limit(limit).toList()
+                : deadLetterRepository.findByCriteria(replayDto.getSource(), replayDto.getMessageType(), replayDto.getDestination(),
+                replayDto.getErrorType(), PageRequest.of(0, limit, Sort.by("id"))).map(DeadLetterEntity::getId).getContent();
+        log.info("replaying {} dead letters at {} messages per second", ids.size(), replayRate);
+        replayExecutor.execute(() -> replayAll(ids));
+        return new DeadLetterReplayResultDto(ids.size(), replayRate);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        replayExecutor.shutdownNow();
+    }
+
+    private void replayAll(final List<Long> ids) {
+        final long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / replayRate);
+        int replayed = 0;
+        for (final Iterator<Long> iterator = ids.iterator(); iterator.hasNext() && !Thread.currentThread().isInterrupted(); ) {
+            final Optional<DeadLetterEntity> deadLetter = deadLetterRepository.findById(iterator.next());
+            if (deadLetter.isEmpty()) {
+                continue;
+            }
+            try {
+                republish(deadLetter.get());
+            } catch (final AmqpException e) {
+                log.error("replay stopped after {} of {} dead letters, could not publish dead letter {}", replayed, ids.size(), deadLetter.get().getId(), e);
+                return;
+            }
+            replayed++;
+            pause(intervalNanos);
+        }
+        log.info("{} dead letters replayed", replayed);
+    }
+
+    private void republish(final DeadLetterEntity deadLetter) {
+        final Map<String, Object> headers = readHeaders(deadLetter.getHeaders());
+        headers.keySet().removeAll(FAILURE_HEADERS);
+        final Message message = MessageBuilder.withBody(deadLetter.getBody().getBytes(StandardCharsets.UTF_8))
+                .setContentType(deadLetter.getContentType())
+                .copyHeaders(headers)
+                .build();
+        rabbitTemplate.send(deadLetter.getExchange(), deadLetter.getRoutingKey(), message);
+        deadLetterRepository.delete(deadLetter);
+    }
+
+    private static void pause(final long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void describeBody(final DeadLetterEntity deadLetter) {
+        final JsonNode body;
+        try {
+            body = objectMapper.readTree(deadLetter.getBody());
+        } catch (final JsonProcessingException e) {
+            log.warn("dead letter body is not json");
+            return;
+        }
+        if (DeadLetterSourceEnum.SEND.equals(deadLetter.getSource())) {
+            deadLetter.setMessageType(text(body.at("/control/requestType")));
+            deadLetter.setDestination(text(body.at("/gateIdDest")));
+            deadLetter.setRequestId(text(body.at("/control/requestId")));
+        } else {
+            final JsonNode notification = body.path("Body");
+            final Iterator<String> notificationTypes = notification.fieldNames();
+            if (notificationTypes.hasNext()) {
+                final String notificationType = notificationTypes.next();
+                deadLetter.setMessageType(notificationType);
+                deadLetter.setRequestId(text(notification.path(notificationType).path("messageID")));
+            }
+        }
+    }
+
+    private static void describeFailure(final DeadLetterEntity deadLetter, final MessageProperties properties) {
+        final Object exceptionMessage = properties.getHeader(RepublishMessageRecoverer.X_EXCEPTION_MESSAGE);
+        if (exceptionMessage != null) {
+            deadLetter.setErrorType(StringUtils.left(properties.getHeader(DeadLetterRecoverer.X_EXCEPTION_CLASS), SHORT_COLUMN_LENGTH));
+            deadLetter.setErrorReason(exceptionMessage.toString());
+            return;
+        }
+        final Object deathReason = properties.getHeader(X_FIRST_DEATH_REASON);
+        if (deathReason != null) {
+            deadLetter.setErrorType(deathReason.toString());
+        } else {
+            firstDeath(properties).map(death -> death.get("reason")).ifPresent(reason -> deadLetter.setErrorType(reason.toString()));
+        }
+    }
+
+    private void describeOrigin(final DeadLetterEntity deadLetter, final MessageProperties properties) {
+        final Object originalExchange = properties.getHeader(RepublishMessageRecoverer.X_ORIGINAL_EXCHANGE);
+        final Optional<Map<String, ?>> firstDeath = firstDeath(properties);
+        if (originalExchange != null) {
+            deadLetter.setExchange(originalExchange.toString());
+            deadLetter.setRoutingKey(Optional.ofNullable(properties.getHeader(RepublishMessageRecoverer.X_ORIGINAL_ROUTING_KEY))
+                    .map(Object::toString).orElse(routingKey));
+        } else if (firstDeath.isPresent() && firstDeath.get().get("exchange") != null) {
+            deadLetter.setExchange(firstDeath.get().get("exchange").toString());
+            deadLetter.setRoutingKey(firstDeath.get().get("routing-keys") instanceof final List<?> routingKeys && !routingKeys.isEmpty()
+                    ? routingKeys.get(0).toString() : routingKey);
+        } else {
+            deadLetter.setExchange(DeadLetterSourceEnum.SEND.equals(deadLetter.getSource()) ? sendExchange : receiveExchange);
+            deadLetter.setRoutingKey(routingKey);
+        }
+    }
+
+    private static Optional<Map<String, ?>> firstDeath(final MessageProperties properties) {
+        final List<Map<String, ?>> deaths = properties.getXDeathHeader();
+        return CollectionUtils.isNotEmpty(deaths) ? Optional.of(deaths.get(0)) : Optional.empty();
+    }
+
+    private static String text(final JsonNode node) {
+        return node.isValueNode() ? StringUtils.left(node.asText(), SHORT_COLUMN_LENGTH) : null;
+    }
+
+    private String writeHeaders(final Map<String, Object> headers) {
+        try {
+            return objectMapper.writeValueAsString(headers);
+        } catch (final JsonProcessingException e) {
+            log.warn("could not write dead letter headers as json", e);
+            return null;
+        }
+    }
+
+    private Map<String, Object> readHeaders(final String headers) {
+        if (headers == null) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readerForMapOf(Object.class).readValue(headers);
+        } catch (final JsonProcessingException e) {
+            log.warn("could not read dead letter headers, replaying without them", e);
+            return new HashMap<>();
+        }
+    }
+
+    private static DeadLetterDto toDto(final DeadLetterEntity deadLetter, final boolean withBody) {
+        return DeadLetterDto.builder()
+                .id(deadLetter.getId())
+                .source(deadLetter.getSource())
+                .messageType(deadLetter.getMessageType())
+                .destination(deadLetter.getDestination())
+                .requestId(deadLetter.getRequestId())
+                .errorType(deadLetter.getErrorType())
+                .errorReason(deadLetter.getErrorReason())
+                .exchange(deadLetter.getExchange())
+                .routingKey(deadLetter.getRoutingKey())
+                .contentType(deadLetter.getContentType())
+                .headers(deadLetter.getHeaders())
+                .body(withBody ? deadLetter.getBody() : null)
+                .createdDate(deadLetter.getCreatedDate())
+                .build();
+    }
+}
@@ -0,0 +1,175 @@
+package eu.efti.eftigate.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of concurrent sends to each receiver, so that a slow or unreachable gate or platform only ties up
+ * its own share of the listener threads. Sends beyond the limit are refused immediately and the caller defers them.
+ * When max-queued is set, that many sends per receiver may instead hold their listener thread for up to max-wait
+ * milliseconds waiting for a slot.
+ */
+@Slf4j
+@Component
+public class DestinationBulkheads {
+
+    /**
+     * Key of the sends whose receiver is unknown, such as requests without platform.
+     */
+    public static final String UNKNOWN_DESTINATION = "unknown";
+
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final long maxWaitMillis;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private volatile MeterRegistry meterRegistry;
+
+    public DestinationBulkheads(@Value("${efti.bulkhead.max-in-flight:4}") final int maxInFlight,
+                                @Value("${efti.bulkhead.max-queued:0}") final int maxQueued,
+                                @Value("${efti.bulkhead.max-wait:1000}") final long maxWaitMillis) {
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Runs the send in the bulkhead of the receiver.
+     *
+     * @return false when the bulkhead is saturated and the send was not run
+     */
+    public boolean tryRun(final String destination, final Runnable send) {
+        final Bulkhead bulkhead = acquire(destination);
+        if (bulkhead == null) {
+            return false;
+        }
+        final long start = System.nanoTime();
+        try {
+            send.run();
+        } finally {
+            bulkhead.release(start);
+        }
+        return true;
+    }
+
+    /**
+     * Starts the asynchronous send in the bulkhead of the receiver, which keeps its slot until the send completes.
+     *
+     * @return false when the bulkhead is saturated and the send was not started
+     */
+    public boolean tryRunAsync(final String destination, final Supplier<CompletableFuture<?>> send) {
+        final Bulkhead bulkhead = acquire(destination);
+        if (bulkhead == null) {
+            return false;
+        }
+        final long start = System.nanoTime();
+        try {
+            send.get().whenComplete((result, e) -> bulkhead.release(start));
+        } catch (final RuntimeException e) {
+            bulkhead.release(start);
+            throw e;
+        }
+        return true;
+    }
+
+    private Bulkhead acquire(final String destination) {
+        final Bulkhead bulkhead = bulkheads.computeIfAbsent(key(destination), this::createBulkhead);
+        if (!bulkhead.acquire()) {
+            bulkhead.rejected.increment();
+            log.debug("{} sends in flight to {}, deferring send", maxInFlight, destination);
+            return null;
+        }
+        return bulkhead;
+    }
+
+    /**
+     * Registers the meters of the existing bulkheads and of the ones created afterwards.
+     */
+    public void bindMetrics(final MeterRegistry registry) {
+        this.meterRegistry = registry;
+        bulkheads.forEach((destination, bulkhead) -> register(registry, destination, bulkhead));
+    }
+
+    public int getInFlight(final String destination) {
+        final Bulkhead bulkhead = bulkheads.get(key(destination));
+        return bulkhead != null ? bulkhead.inFlight() : 0;
+    }
+
+    public long getRejectedCount(final String destination) {
+        final Bulkhead bulkhead = bulkheads.get(key(destination));
+        return bulkhead != null ? bulkhead.rejected.sum() : 0;
+    }
+
+    private static String key(final String destination) {
+        return destination != null ? destination : UNKNOWN_DESTINATION;
+    }
+
+    private Bulkhead createBulkhead(final String destination) {
+        final Bulkhead bulkhead = new Bulkhead();
+        final MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            register(registry, destination, bulkhead);
+        }
+        return bulkhead;
+    }
+
+    private static void register(final MeterRegistry registry, final String destination, final Bulkhead bulkhead) {
+        FunctionTimer.builder("efti.bulkhead.latency", bulkhead, b -> b.calls.sum(), b -> b.nanos.sum(), TimeUnit.NANOSECONDS)
+                .tag("destination", destination).register(registry);
+        FunctionCounter.builder("efti.bulkhead.rejected", bulkhead, b -> b.rejected.sum())
+                .tag("destination", destination).register(registry);
+        Gauge.builder("efti.bulkhead.in-flight", bulkhead, Bulkhead::inFlight)
+                .tag("destination", destination).register(registry);
+        Gauge.builder("efti.bulkhead.queued", bulkhead, b -> b.queued.get())
+                .tag("destination", destination).register(registry);
+    }
+
+    private final class Bulkhead {
+        private final Semaphore permits = new Semaphore(maxInFlight);
+        private final AtomicInteger queued = new AtomicInteger();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        private boolean acquire() {
+            if (permits.tryAcquire()) {
+                return true;
+            }
+            if (queued.incrementAndGet() > maxQueued) {
+                queued.decrementAndGet();
+                return false;
+            }
+            try {
+                return permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                queued.decrementAndGet();
+            }
+        }
+
+        private void release(final long start) {
+            calls.increment();
+            nanos.add(System.nanoTime() - start);
+            permits.release();
+        }
+
+        private int inFlight() {
+            return maxInFlight - permits.availablePermits();
+        }
+    }
+}
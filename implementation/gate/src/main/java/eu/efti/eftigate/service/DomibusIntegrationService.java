@@ -6,8 +6,6 @@ import eu.efti.commons.enums.ErrorCodesEnum;
 import eu.efti.commons.enums.RequestType;
 import eu.efti.commons.enums.RequestTypeEnum;
 import eu.efti.commons.exception.TechnicalException;
-import eu.efti.commons.utils.SerializeUtils;
-import eu.efti.edeliveryapconnector.dto.ApConfigDto;
 import eu.efti.edeliveryapconnector.dto.ApRequestDto;
 import eu.efti.edeliveryapconnector.exception.SendRequestException;
 import eu.efti.edeliveryapconnector.service.RequestSendingService;
@@ -20,70 +18,168 @@ import eu.efti.eftigate.service.request.RequestServiceFactory;
 import eu.efti.eftilogger.model.ComponentType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @Service
 @RequiredArgsConstructor(onConstructor = @__(@Lazy))
 @Slf4j
 public class DomibusIntegrationService {
 
     private final GateProperties gateProperties;
-    private final SerializeUtils serializeUtils;
     private final RequestSendingService requestSendingService;
     private final RequestServiceFactory requestServiceFactory;
     private final MapperUtils mapperUtils;
     private final LogManager logManager;
     private final MessageIdGenerator messageIdGenerator;
+    private final DestinationBulkheads destinationBulkheads;
+    private final RequestRetryService requestRetryService;
 
+    /**
+     * Sends the request within the bulkhead of its receiver. When the receiver already has its maximum of sends in
+     * flight and waiting, the send is deferred to the retry scheduler instead of holding the listener thread.
+     * With asynchronous sends, the listener thread only starts the send, and the request is updated when the access
+     * point acknowledges it.
+     */
     void trySendDomibus(final RabbitRequestDto rabbitRequestDto, RequestTypeEnum requestTypeEnum, String receiverLabel) {
-        final ComponentType target = gateProperties.isCurrentGate(rabbitRequestDto.getGateIdDest()) ? ComponentType.PLATFORM : ComponentType.GATE;
-
         final RequestDto requestDto = mapperUtils.rabbitRequestDtoToRequestDto(rabbitRequestDto, EftiGateConstants.REQUEST_TYPE_CLASS_MAP.get(rabbitRequestDto.getRequestType()));
+        final String receiver = getReceiver(rabbitRequestDto);
+        final boolean started = gateProperties.getAp().isAsyncSend()
+                ? destinationBulkheads.tryRunAsync(receiver, () -> sendDomibusAsync(rabbitRequestDto, requestDto, requestTypeEnum, receiverLabel))
+                : destinationBulkheads.tryRun(receiver, () -> sendDomibus(rabbitRequestDto, requestDto, requestTypeEnum, receiverLabel));
+        if (!started) {
+            deferSend(rabbitRequestDto, requestDto, receiver);
+        }
+    }
+
+    private void deferSend(final RabbitRequestDto rabbitRequestDto, final RequestDto requestDto, final String receiver) {
+        if (!isSaved(rabbitRequestDto)) {
+            // nothing to schedule from, the listener retries it
+            throw new TechnicalException("too many sends in flight to " + receiver);
+        }
+        requestRetryService.deferSend(requestDto);
+        getRequestService(rabbitRequestDto.getRequestType()).saveRequest(requestDto);
+    }
+
+    private void sendDomibus(final RabbitRequestDto rabbitRequestDto, final RequestDto requestDto, final RequestTypeEnum requestTypeEnum, final String receiverLabel) {
         String previousEdeliveryMessageId = rabbitRequestDto.getEdeliveryMessageId();
+        try (PreparedSend send = prepareSend(rabbitRequestDto, requestDto, requestTypeEnum, receiverLabel, false)) {
+            try {
+                this.requestSendingService.sendRequest(send.apRequestDto());
+            } catch (final SendRequestException e) {
+                manageSendFailure(rabbitRequestDto, requestDto, previousEdeliveryMessageId, e, true);
+            } finally {
+                logSentMessage(rabbitRequestDto, requestDto, receiverLabel, send.body());
+            }
+        }
+    }
+
+    private CompletableFuture<String> sendDomibusAsync(final RabbitRequestDto rabbitRequestDto, final RequestDto requestDto, final RequestTypeEnum requestTypeEnum, final String receiverLabel) {
+        final String previousEdeliveryMessageId = rabbitRequestDto.getEdeliveryMessageId();
+        final PreparedSend send = prepareSend(rabbitRequestDto, requestDto, requestTypeEnum, receiverLabel, true);
+        return this.requestSendingService.sendRequestAsync(send.apRequestDto()).whenComplete((messageId, e) -> {
+            try {
+                if (e != null) {
+                    // the listener has moved on, so the failure cannot be retried by rabbitmq
+                    manageSendFailure(rabbitRequestDto, requestDto, previousEdeliveryMessageId, e instanceof CompletionException ? e.getCause() : e, false);
+                } else if (isSaved(rabbitRequestDto)) {
+                    requestRetryService.releaseSend(requestDto);
+                }
+                logSentMessage(rabbitRequestDto, requestDto, receiverLabel, send.body());
+            } catch (final RuntimeException callbackException) {
+                log.error("error while completing send of request {}", requestDto.getControl().getRequestId(), callbackException);
+            } finally {
+                send.close();
+            }
+        });
+    }
+
+    /**
+     * Prepares the send, logging the request as sent when it cannot be prepared, with a body built for the log.
+     */
+    private PreparedSend prepareSend(final RabbitRequestDto rabbitRequestDto, final RequestDto requestDto, final RequestTypeEnum requestTypeEnum,
+                                     final String receiverLabel, final boolean async) {
         try {
-            String eDeliveryMessageId = messageIdGenerator.generateMessageId();
-            if (rabbitRequestDto.getError() == null || !ErrorCodesEnum.REQUESTID_MISSING.name().equals(rabbitRequestDto.getError().getErrorCode())) {
-                getRequestService(rabbitRequestDto.getRequestType()).updateRequestStatus(requestDto, eDeliveryMessageId);
+            return prepareSend(rabbitRequestDto, requestDto, async);
+        } catch (final RuntimeException e) {
+            logSentMessage(rabbitRequestDto, requestDto, receiverLabel, LoggedBody.of(getRequestService(requestTypeEnum).buildRequestBody(rabbitRequestDto)));
+            throw e;
+        }
+    }
+
+    /**
+     * An asynchronous send holds the request with a retry date until it is acknowledged, so that the send is not lost
+     * if the gate stops meanwhile.
+     */
+    private PreparedSend prepareSend(final RabbitRequestDto rabbitRequestDto, final RequestDto requestDto, final boolean async) {
+        String eDeliveryMessageId = messageIdGenerator.generateMessageId();
+        if (isSaved(rabbitRequestDto)) {
+            if (async) {
+                requestRetryService.leaseSend(requestDto);
+            } else {
+                requestDto.setNextRetryDate(null);
             }
-            this.requestSendingService.sendRequest(buildApRequestDto(rabbitRequestDto, eDeliveryMessageId));
-        } catch (final SendRequestException e) {
-            log.error("error while sending request" + e);
-            getRequestService(rabbitRequestDto.getRequestType()).updateRequestStatus(requestDto, previousEdeliveryMessageId);
+            getRequestService(rabbitRequestDto.getRequestType()).updateRequestStatus(requestDto, eDeliveryMessageId);
+        }
+        return buildApRequestDto(rabbitRequestDto, eDeliveryMessageId);
+    }
+
+    private void manageSendFailure(final RabbitRequestDto rabbitRequestDto, final RequestDto requestDto, final String previousEdeliveryMessageId,
+                                   final Throwable e, final boolean rethrow) {
+        log.error("error while sending request {}", requestDto.getControl().getRequestId(), e);
+        requestDto.setNextRetryDate(null);
+        final boolean persistentRetry = requestRetryService.isEnabled() && isSaved(rabbitRequestDto);
+        final boolean retryScheduled = persistentRetry && requestRetryService.scheduleRetry(requestDto);
+        getRequestService(rabbitRequestDto.getRequestType()).updateRequestStatus(requestDto, previousEdeliveryMessageId);
+        if (!persistentRetry && rethrow) {
             throw new TechnicalException("Error when try to send message to domibus", e);
-        } finally {
-            final String body = getRequestService(requestTypeEnum).buildRequestBody(rabbitRequestDto);
-            if (RequestType.UIL.equals(requestDto.getRequestType())) {
-                //log fti020 and fti009
-                logManager.logSentMessage(requestDto.getControl(), body, receiverLabel, ComponentType.GATE, target, true, LogManager.FTI_009_FTI_020);
-            } else if (RequestType.IDENTIFIER.equals(requestDto.getRequestType())) {
-                //log fti019
-                logManager.logSentMessage(requestDto.getControl(), body, receiverLabel, ComponentType.GATE, ComponentType.GATE, true, LogManager.FTI_019);
-            }
+        }
+        if (!retryScheduled) {
+            getRequestService(rabbitRequestDto.getRequestType()).manageSendError(requestDto);
         }
     }
 
-    private ApRequestDto buildApRequestDto(final RabbitRequestDto requestDto, String edeliveryMessageId) {
-        final String receiver = gateProperties.isCurrentGate(requestDto.getGateIdDest()) ? requestDto.getControl().getPlatformId() : requestDto.getGateIdDest();
-        return ApRequestDto.builder()
-                .requestId(requestDto.getControl().getRequestId())
-                .sender(gateProperties.getOwner()).receiver(receiver)
-                .body(getRequestService(requestDto.getRequestType()).buildRequestBody(requestDto))
-                .eDeliveryMessageId(edeliveryMessageId)
-                .apConfig(ApConfigDto.builder()
-                        .username(gateProperties.getAp().getUsername())
-                        .password(gateProperties.getAp().getPassword())
-                        .url(gateProperties.getAp().getUrl())
-                        .build())
-                .build();
+    /**
+     * @param body the body that was sent, for a streamed send read back from the payload file
+     */
+    private void logSentMessage(final RabbitRequestDto rabbitRequestDto, final RequestDto requestDto, final String receiverLabel, final LoggedBody body) {
+        final ComponentType target = gateProperties.isCurrentGate(rabbitRequestDto.getGateIdDest()) ? ComponentType.PLATFORM : ComponentType.GATE;
+        if (RequestType.UIL.equals(requestDto.getRequestType())) {
+            //log fti020 and fti009
+            logManager.logSentMessage(requestDto.getControl(), body, receiverLabel, ComponentType.GATE, target, true, LogManager.FTI_009_FTI_020);
+        } else if (RequestType.IDENTIFIER.equals(requestDto.getRequestType())) {
+            //log fti019
+            logManager.logSentMessage(requestDto.getControl(), body, receiverLabel, ComponentType.GATE, ComponentType.GATE, true, LogManager.FTI_019);
+        }
+    }
+
+    // requests answering an unknown request id are not saved
+    private static boolean isSaved(final RabbitRequestDto rabbitRequestDto) {
+        return rabbitRequestDto.getError() == null || !ErrorCodesEnum.REQUESTID_MISSING.name().equals(rabbitRequestDto.getError().getErrorCode());
     }
 
-    @RabbitListener(queues = "${spring.rabbitmq.queues.messageSendDeadLetterQueue:message-send-dead-letter-queue}")
-    public void listenSendMessageDeadLetter(final String message) {
-        log.error("Receive message for dead queue");
-        final RequestDto requestDto = serializeUtils.mapJsonStringToClass(message, RequestDto.class);
-        this.getRequestService(requestDto.getControl().getRequestType()).manageSendError(requestDto);
+    private String getReceiver(final RabbitRequestDto requestDto) {
+        return gateProperties.isCurrentGate(requestDto.getGateIdDest()) ? requestDto.getControl().getPlatformId() : requestDto.getGateIdDest();
+    }
+
+    /**
+     * Bodies that may be large are marshalled into a payload file and streamed from it, the others are built as strings.
+     */
+    private PreparedSend buildApRequestDto(final RabbitRequestDto requestDto, String edeliveryMessageId) {
+        final RequestService<?> requestService = getRequestService(requestDto.getRequestType());
+        final ApRequestDto.ApRequestDtoBuilder apRequestDto = ApRequestDto.builder()
+                .requestId(requestDto.getControl().getRequestId())
+                .sender(gateProperties.getOwner()).receiver(getReceiver(requestDto))
+                .eDeliveryMessageId(edeliveryMessageId)
+                .apConfig(gateProperties.getAp().toApConfigDto());
+        if (!requestService.isStreamedBody(requestDto)) {
+            return new PreparedSend(apRequestDto.body(requestService.buildRequestBody(requestDto)).build(), null);
+        }
+        final PayloadFile payloadFile = PayloadFile.write(outputStream -> requestService.writeRequestBody(requestDto, outputStream));
+        return new PreparedSend(apRequestDto.bodySource(payloadFile::openStream).build(), payloadFile);
     }
 
     private RequestService<?> getRequestService(final RequestType requestType) {
@@ -93,4 +189,18 @@ public class DomibusIntegrationService {
     private RequestService<?> getRequestService(final RequestTypeEnum requestType) {
         return requestServiceFactory.getRequestServiceByRequestType(requestType);
     }
+
+    private record PreparedSend(ApRequestDto apRequestDto, PayloadFile payloadFile) implements AutoCloseable {
+
+        LoggedBody body() {
+            return payloadFile != null ? payloadFile.readForLog() : LoggedBody.of(apRequestDto.getBody());
+        }
+
+        @Override
+        public void close() {
+            if (payloadFile != null) {
+                payloadFile.close();
+            }
+        }
+    }
 }
@@ -5,6 +5,7 @@ import eu.efti.commons.dto.SearchWithIdentifiersRequestDto;
 import eu.efti.commons.dto.identifiers.ConsignmentDto;
 import eu.efti.commons.enums.RequestStatusEnum;
 import eu.efti.eftigate.service.request.IdentifiersRequestService;
+import eu.efti.identifiersregistry.service.IdentifiersSearchResult;
 import eu.efti.identifiersregistry.service.IdentifiersService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,7 +29,11 @@ public class EftiAsyncCallsProcessor {
     public void checkLocalRepoAsync(final SearchWithIdentifiersRequestDto identifiersRequestDto, final ControlDto savedControl) {
         //log fti015
         logManager.logRegistryIdentifiers(savedControl, null, GATE, REGISTRY, LogManager.FTI_015);
-        final List<ConsignmentDto> metadataDtoList = identifiersService.search(identifiersRequestDto);
+        final IdentifiersSearchResult searchResult = identifiersService.search(identifiersRequestDto);
+        if (searchResult.truncated()) {
+            log.warn("identifiers search {} matches more than {} consignments, only the first ones are returned", savedControl.getRequestId(), searchResult.consignments().size());
+        }
+        final List<ConsignmentDto> metadataDtoList = searchResult.consignments();
         //logfti016
         logManager.logRegistryIdentifiers(savedControl, metadataDtoList, REGISTRY, GATE, LogManager.FTI_016);
         identifiersRequestService.createRequest(savedControl, RequestStatusEnum.SUCCESS, metadataDtoList);
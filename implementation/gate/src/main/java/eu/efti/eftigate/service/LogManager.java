@@ -10,6 +10,7 @@ import eu.efti.commons.utils.SerializeUtils;
 import eu.efti.eftigate.config.GateProperties;
 import eu.efti.eftigate.dto.RequestIdDto;
 import eu.efti.eftigate.service.gate.EftiGateIdResolver;
+import eu.efti.eftilogger.dto.LogCommonDto;
 import eu.efti.eftilogger.dto.MessagePartiesDto;
 import eu.efti.eftilogger.model.ComponentType;
 import eu.efti.eftilogger.service.AuditRegistryLogService;
@@ -19,7 +20,13 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
+/**
+ * Audit points of the gate. Gate country resolution is done in the completion and the audit event is encoded by the
+ * writer, not on the calling thread. Payload DTOs are still mutable once logged, so they are serialized to json here
+ * and only their Base64 encoding is left to the writer.
+ */
 @Service
 @RequiredArgsConstructor
 public class LogManager {
@@ -53,38 +60,58 @@ public class LogManager {
                                              final boolean isSuccess,
                                              final RequestTypeEnum requestType,
                                              final String name) {
-        String receiverCountry = eftiGateIdResolver.resolve(receiver);
         control.setRequestType(requestType);
-        sendLogRequest(control, message, receiver, requestingComponentType, respondingComponentType, isSuccess, name, receiverCountry);
+        sendLogRequest(control, withContent(message), receiver, requestingComponentType, respondingComponentType, isSuccess, name);
     }
 
-    private void sendLogRequest(ControlDto control, String message, String receiver, ComponentType requestingComponentType, ComponentType respondingComponentType, boolean isSuccess, String name, String receiverCountry) {
-        final MessagePartiesDto messagePartiesDto = buildMessagePartiesDto(receiver, requestingComponentType, respondingComponentType, receiverCountry);
+    private void sendLogRequest(ControlDto control, Consumer<LogCommonDto> content, String receiver, ComponentType requestingComponentType, ComponentType respondingComponentType, boolean isSuccess, String name) {
+        final MessagePartiesDto messagePartiesDto = buildMessagePartiesDto(receiver, requestingComponentType, respondingComponentType);
         final StatusEnum status = isSuccess ? StatusEnum.COMPLETE : StatusEnum.ERROR;
-        final String body = serializeUtils.mapObjectToBase64String(message);
-        this.auditRequestLogService.log(control, messagePartiesDto, gateProperties.getOwner(), gateProperties.getCountry(), body, status, false, name);
+        this.auditRequestLogService.log(control, messagePartiesDto, gateProperties.getOwner(), gateProperties.getCountry(), null, status, false, name,
+                content.andThen(logDto -> {
+                    final String receiverCountry = eftiGateIdResolver.resolve(receiver);
+                    if (StringUtils.isNotBlank(receiverCountry)) {
+                        logDto.setRespondingComponentCountry(receiverCountry);
+                    }
+                }));
     }
 
-    private MessagePartiesDto buildMessagePartiesDto(String receiver, ComponentType requestingComponentType, ComponentType respondingComponentType, String receiverCountry) {
+    private MessagePartiesDto buildMessagePartiesDto(String receiver, ComponentType requestingComponentType, ComponentType respondingComponentType) {
         return MessagePartiesDto.builder()
                 .requestingComponentType(requestingComponentType)
                 .requestingComponentId(gateProperties.getOwner())
                 .requestingComponentCountry(gateProperties.getCountry())
                 .respondingComponentType(respondingComponentType)
                 .respondingComponentId(receiver)
-                .respondingComponentCountry(StringUtils.isNotBlank(receiverCountry) ? receiverCountry : gateProperties.getCountry())
+                .respondingComponentCountry(gateProperties.getCountry())
                 .build();
     }
 
+    private Consumer<LogCommonDto> withContent(final String payload) {
+        return logDto -> logDto.setMessagePayload(payload);
+    }
+
+    private Consumer<LogCommonDto> withContent(final Object payload) {
+        final byte[] json = serializeUtils.mapObjectToJsonBytes(payload);
+        return logDto -> logDto.setMessagePayload(json);
+    }
+
+    private Consumer<LogCommonDto> withContent(final LoggedBody body) {
+        return logDto -> {
+            logDto.setMessagePayload(body.content());
+            logDto.setMessageSize(body.size());
+            logDto.setMessageTruncated(body.truncated());
+        };
+    }
+
     public void logSentMessage(final ControlDto control,
-                               final String message,
+                               final LoggedBody message,
                                final String receiver,
                                final ComponentType requestingComponentType,
                                final ComponentType respondingComponentType,
                                final boolean isSuccess,
                                final String name) {
-        String receiverCountry = eftiGateIdResolver.resolve(receiver);
-        sendLogRequest(control, message, receiver, requestingComponentType, respondingComponentType, isSuccess, name, receiverCountry);
+        sendLogRequest(control, withContent(message), receiver, requestingComponentType, respondingComponentType, isSuccess, name);
     }
 
     public void logFromIdentifier(final IdentifiersResponseDto identifiersResponseDto, final ComponentType requestingComponentType, final ComponentType respondingComponentType, final ControlDto controlDto, final String name) {
@@ -102,12 +129,13 @@ public class LogManager {
         final MessagePartiesDto messagePartiesDto = MessagePartiesDto.builder()
                 .requestingComponentType(requestingComponentType)
                 .requestingComponentId(receiver)
-                .requestingComponentCountry(isLocalRequest ? gateProperties.getCountry() : eftiGateIdResolver.resolve(receiver))
+                .requestingComponentCountry(gateProperties.getCountry())
                 .respondingComponentType(respondingComponentType)
                 .respondingComponentId(gateProperties.getOwner())
                 .respondingComponentCountry(gateProperties.getCountry()).build();
         final StatusEnum status = isSuccess ? StatusEnum.COMPLETE : StatusEnum.ERROR;
-        this.auditRequestLogService.log(control, messagePartiesDto, gateProperties.getOwner(), gateProperties.getCountry(), "", status, true, name);
+        this.auditRequestLogService.log(control, messagePartiesDto, gateProperties.getOwner(), gateProperties.getCountry(), "", status, true, name,
+                isLocalRequest ? null : logDto -> logDto.setRequestingComponentCountry(eftiGateIdResolver.resolve(receiver)));
     }
 
     public void logReceivedMessage(final ControlDto control,
@@ -117,17 +145,21 @@ public class LogManager {
                                    final String sender,
                                    final StatusEnum statusEnum,
                                    final String name) {
-        final String senderCountry = eftiGateIdResolver.resolve(sender);
-        final boolean senderIsKnown = senderCountry != null;
         final MessagePartiesDto messagePartiesDto = MessagePartiesDto.builder()
-                .requestingComponentType(requestingComponentType) // if sender is unknown, its a platform
+                .requestingComponentType(requestingComponentType)
                 .requestingComponentId(sender)
-                .requestingComponentCountry(senderIsKnown ? senderCountry : gateProperties.getCountry())
+                .requestingComponentCountry(gateProperties.getCountry())
                 .respondingComponentType(respondingComponentType)
                 .respondingComponentId(gateProperties.getOwner())
                 .respondingComponentCountry(gateProperties.getCountry()).build();
-        final String bodyBase64 = serializeUtils.mapObjectToBase64String(body);
-        this.auditRequestLogService.log(control, messagePartiesDto, gateProperties.getOwner(), gateProperties.getCountry(), bodyBase64, statusEnum, false, name);
+        this.auditRequestLogService.log(control, messagePartiesDto, gateProperties.getOwner(), gateProperties.getCountry(), null, statusEnum, false, name,
+                withContent(body).andThen(logDto -> {
+                    final String senderCountry = eftiGateIdResolver.resolve(sender);
+                    // if sender is unknown, its a platform
+                    if (senderCountry != null) {
+                        logDto.setRequestingComponentCountry(senderCountry);
+                    }
+                }));
     }
 
     public void logRegistryIdentifiers(final ControlDto control,
@@ -135,16 +167,15 @@ public class LogManager {
                                        final ComponentType requestingComponentType,
                                        final ComponentType respondingComponentType,
                                        final String name) {
-        final String body = consignementList != null ? serializeUtils.mapObjectToBase64String(consignementList) : null;
-        this.auditRegistryLogService.logByControlDto(control, gateProperties.getOwner(), gateProperties.getCountry(), requestingComponentType, respondingComponentType, body, null, name);
+        this.auditRegistryLogService.logByControlDto(control, gateProperties.getOwner(), gateProperties.getCountry(), requestingComponentType, respondingComponentType, null, null, name,
+                consignementList != null ? withContent(consignementList) : null);
     }
 
     public void logLocalIdentifierMessage(final ControlDto control,
                                           final IdentifiersResponseDto identifierRequestResultDtos,
                                           ComponentType requestingComponentType, ComponentType respondingComponentType, final String name) {
         final MessagePartiesDto messagePartiesDto = getMessagePartiesDto(requestingComponentType, respondingComponentType);
-        final String body = serializeUtils.mapObjectToBase64String(identifierRequestResultDtos);
-        this.auditRequestLogService.log(control, messagePartiesDto, gateProperties.getOwner(), gateProperties.getCountry(), body, StatusEnum.COMPLETE, false, name);
+        this.auditRequestLogService.log(control, messagePartiesDto, gateProperties.getOwner(), gateProperties.getCountry(), null, StatusEnum.COMPLETE, false, name, withContent(identifierRequestResultDtos));
     }
 
     private MessagePartiesDto getMessagePartiesDto(ComponentType requestingComponentType, ComponentType respondingComponentType) {
@@ -175,8 +206,7 @@ public class LogManager {
                 .respondingComponentId(gateProperties.getOwner())
                 .respondingComponentCountry(gateProperties.getCountry()).build();
 
-        final String body = serializeUtils.mapObjectToBase64String(searchDto);
-        this.auditRequestLogService.log(control, messagePartiesDto, gateProperties.getOwner(), gateProperties.getCountry(), body, StatusEnum.COMPLETE, false, name);
+        this.auditRequestLogService.log(control, messagePartiesDto, gateProperties.getOwner(), gateProperties.getCountry(), null, StatusEnum.COMPLETE, false, name, withContent(searchDto));
     }
 
     public void logAppResponse(final ControlDto control,
@@ -194,8 +224,7 @@ public class LogManager {
                 .respondingComponentId(respondingComponentId)
                 .respondingComponentCountry(gateProperties.getCountry()).build();
 
-        final String body = serializeUtils.mapObjectToBase64String(requestIdDto);
-        this.auditRequestLogService.log(control, messagePartiesDto, gateProperties.getOwner(), gateProperties.getCountry(), body, control.getStatus(), false, name);
+        this.auditRequestLogService.log(control, messagePartiesDto, gateProperties.getOwner(), gateProperties.getCountry(), null, control.getStatus(), false, name, withContent(requestIdDto));
     }
 
 }
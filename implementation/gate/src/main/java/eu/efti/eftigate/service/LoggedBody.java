@@ -0,0 +1,46 @@
+package eu.efti.eftigate.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Body of a sent message as written to the audit log: at most its first {@link #MAX_SIZE} bytes, cut on a character
+ * boundary, with the size of the whole body and whether it was cut. The same rule applies whether the body was built
+ * as a string or streamed from a payload file, so that a large body is never read back in memory as a whole.
+ *
+ * @param content   the body, or its first bytes when truncated
+ * @param size      size of the whole body, in UTF-8 bytes
+ * @param truncated whether content only holds the first bytes of the body
+ */
+public record LoggedBody(String content, long size, boolean truncated) {
+
+    public static final int MAX_SIZE = 64 * 1024;
+
+    public static LoggedBody of(final String body) {
+        if (body == null) {
+            return new LoggedBody(null, 0, false);
+        }
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return bytes.length > MAX_SIZE ? cut(bytes, bytes.length) : new LoggedBody(body, bytes.length, false);
+    }
+
+    /**
+     * @param size size of the whole body the stream reads
+     */
+    static LoggedBody read(final InputStream inputStream, final long size) throws IOException {
+        final byte[] bytes = inputStream.readNBytes(MAX_SIZE + 1);
+        return bytes.length > MAX_SIZE ? cut(bytes, size) : new LoggedBody(new String(bytes, StandardCharsets.UTF_8), bytes.length, false);
+    }
+
+    /**
+     * Keeps the bytes before MAX_SIZE, less the start of a character spanning it.
+     */
+    private static LoggedBody cut(final byte[] bytes, final long size) {
+        int end = MAX_SIZE;
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) {
+            end--;
+        }
+        return new LoggedBody(new String(bytes, 0, end, StandardCharsets.UTF_8), size, true);
+    }
+}
@@ -0,0 +1,136 @@
+package eu.efti.eftigate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import eu.efti.commons.dto.RequestDto;
+import eu.efti.commons.exception.TechnicalException;
+import eu.efti.eftigate.config.OutboxProperties;
+import eu.efti.eftigate.entity.OutboxEntity;
+import eu.efti.eftigate.repository.OutboxRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional outbox of the requests to send. New requests and the messages publishing them are saved in the same
+ * transaction, and the relay publishes the saved messages afterwards, so that a request is never saved without being
+ * sent nor sent without being saved. Messages are relayed in batches, in creation order. A relay leases the messages
+ * it publishes in a short transaction, so that row locks are not held while waiting for the broker confirms, and it
+ * leaves out the messages of a control whose older messages are leased or locked by another relay, so that the
+ * messages of a control are published in order whatever the number of gate instances.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxProperties outboxProperties;
+    private final OutboxRepository outboxRepository;
+    private final RabbitSenderService rabbitSenderService;
+
+    public boolean isEnabled() {
+        return outboxProperties.isEnabled();
+    }
+
+    /**
+     * Saves the requests and their messages to the given exchange in a single transaction.
+     */
+    @Transactional("controlTransactionManager")
+    public List<RequestDto> saveAndEnqueue(final Supplier<List<RequestDto>> save, final String exchange, final Function<RequestDto, String> routingKey) {
+        final List<RequestDto> requestDtos = save.get();
+        outboxRepository.saveAll(requestDtos.stream().map(requestDto -> OutboxEntity.builder()
+                .controlId(requestDto.getControl().getId())
+                .exchange(exchange)
+                .routingKey(routingKey.apply(requestDto))
+                .payload(writeAsJson(requestDto))
+                .build()).toList());
+        return requestDtos;
+    }
+
+    /**
+     * Outbox messages are deleted once relayed, which is only safe when the broker confirms them.
+     */
+    @PostConstruct
+    void checkPublisherConfirms() {
+        if (isEnabled() && !rabbitSenderService.isPublisherConfirms()) {
+            throw new IllegalStateException("efti.outbox.enabled requires efti.rabbit.publisher-confirms.enabled "
+                    + "and spring.rabbitmq.publisher-confirm-type: correlated");
+        }
+    }
+
+    /**
+     * Leases the oldest batch-size messages of the shard that can be published in order: a message is left out when an
+     * older message of its control is not part of the batch.
+     *
+     * @return the leased messages, in creation order
+     */
+    @Transactional("controlTransactionManager")
+    public List<OutboxEntity> claimForRelay() {
+        final LocalDateTime now = LocalDateTime.now();
+        final List<OutboxEntity> messages = outboxRepository.findForRelay(outboxProperties.getShardCount(), outboxProperties.getShardIndex(),
+                now, PageRequest.ofSize(outboxProperties.getBatchSize()));
+        if (messages.isEmpty()) {
+            return messages;
+        }
+        final Map<Integer, Long> oldestOthers = outboxRepository.findOlderOfControls(
+                        messages.stream().map(OutboxEntity::getControlId).collect(Collectors.toSet()),
+                        messages.get(messages.size() - 1).getId(),
+                        messages.stream().map(OutboxEntity::getId).toList()).stream()
+                .collect(Collectors.toMap(OutboxEntity::getControlId, OutboxEntity::getId, Math::min));
+        final LocalDateTime leaseEnd = now.plusSeconds(outboxProperties.getLease());
+        final List<OutboxEntity> claimed = messages.stream()
+                .filter(message -> message.getId() < oldestOthers.getOrDefault(message.getControlId(), Long.MAX_VALUE))
+                .toList();
+        claimed.forEach(message -> message.setLeaseUntil(leaseEnd));
+        return claimed;
+    }
+
+    /**
+     * Publishes leased messages and deletes them once the broker confirmed them. When a message is not confirmed, the
+     * leases are released and the messages are published again by the next relay.
+     *
+     * @return number of relayed messages
+     */
+    public int relay(final List<OutboxEntity> messages) {
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        final boolean confirmed;
+        try {
+            confirmed = rabbitSenderService.sendJsonMessagesToRabbit(messages.stream()
+                    .map(message -> new RabbitSenderService.JsonMessage(message.getExchange(), message.getRoutingKey(), message.getPayload()))
+                    .toList());
+        } catch (final RuntimeException e) {
+            outboxRepository.releaseLease(ids(messages));
+            throw e;
+        }
+        if (!confirmed) {
+            outboxRepository.releaseLease(ids(messages));
+            throw new TechnicalException("outbox messages " + messages.get(0).getId() + " to " + messages.get(messages.size() - 1).getId()
+                    + " not confirmed by the broker, relaying them again later");
+        }
+        outboxRepository.deleteAllByIdInBatch(ids(messages));
+        return messages.size();
+    }
+
+    private static List<Long> ids(final List<OutboxEntity> messages) {
+        return messages.stream().map(OutboxEntity::getId).toList();
+    }
+
+    private String writeAsJson(final RequestDto requestDto) {
+        try {
+            return rabbitSenderService.writeAsJson(requestDto);
+        } catch (final JsonProcessingException e) {
+            throw new TechnicalException("Error when try to parse object to json/string", e);
+        }
+    }
+}
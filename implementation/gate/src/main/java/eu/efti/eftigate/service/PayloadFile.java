@@ -0,0 +1,74 @@
+package eu.efti.eftigate.service;
+
+import eu.efti.commons.exception.TechnicalException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Request body written to a temporary file, then read from it while it is sent, so that a large body is never held in
+ * memory as a whole. The file is deleted when closed.
+ */
+@Slf4j
+final class PayloadFile implements AutoCloseable {
+
+    private final Path path;
+
+    private PayloadFile(final Path path) {
+        this.path = path;
+    }
+
+    static PayloadFile write(final Consumer<OutputStream> writer) {
+        final PayloadFile payloadFile;
+        try {
+            payloadFile = new PayloadFile(Files.createTempFile("efti-payload-", ".xml"));
+        } catch (final IOException e) {
+            throw new TechnicalException("error while creating payload file", e);
+        }
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(payloadFile.path))) {
+            writer.accept(outputStream);
+        } catch (final IOException e) {
+            payloadFile.close();
+            throw new TechnicalException("error while writing payload file", e);
+        } catch (final RuntimeException e) {
+            payloadFile.close();
+            throw e;
+        }
+        return payloadFile;
+    }
+
+    InputStream openStream() {
+        try {
+            return Files.newInputStream(path);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The body as logged, read back from the file up to the size kept by the audit log.
+     */
+    LoggedBody readForLog() {
+        try (InputStream inputStream = openStream()) {
+            return LoggedBody.read(inputStream, Files.size(path));
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            Files.deleteIfExists(path);
+        } catch (final IOException e) {
+            log.warn("could not delete payload file {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package eu.efti.eftigate.service;
+
+import eu.efti.edeliveryapconnector.dto.ApConfigDto;
+import eu.efti.edeliveryapconnector.service.MessageRetrievalService;
+import eu.efti.edeliveryapconnector.service.RequestUpdaterService;
+import eu.efti.eftigate.config.GateProperties;
+import eu.efti.eftigate.config.PullProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pulls the messages pending in the access point, as an alternative to its push notifications, to drain a backlog
+ * faster than it would be pushed. Pending messages are retrieved and handled by concurrency threads, then the handled
+ * ones are marked as downloaded together; the others stay pending and are pulled again by the next run.
+ * A message that failed max-attempts times, to be handled or marked as downloaded, is skipped by the next runs while
+ * it stays pending, so that it does not hold back the messages listed after it.
+ */
+@Slf4j
+@Service
+public class PendingMessagePuller {
+
+    private final GateProperties gateProperties;
+    private final PullProperties pullProperties;
+    private final MessageRetrievalService messageRetrievalService;
+    private final RequestUpdaterService requestUpdaterService;
+    private final ApIncomingService apIncomingService;
+    private final ExecutorService pullExecutor;
+    private final LongAdder handledCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final Map<String, Integer> failedAttempts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PendingMessagePuller(final GateProperties gateProperties, final PullProperties pullProperties,
+                                final MessageRetrievalService messageRetrievalService, final RequestUpdaterService requestUpdaterService,
+                                final ApIncomingService apIncomingService) {
+        this(gateProperties, pullProperties, messageRetrievalService, requestUpdaterService, apIncomingService,
+                Executors.newFixedThreadPool(pullProperties.getConcurrency(), new CustomizableThreadFactory("ap-pull-")));
+    }
+
+    // lets tests run the pulls on their own executor
+    PendingMessagePuller(final GateProperties gateProperties, final PullProperties pullProperties,
+                         final MessageRetrievalService messageRetrievalService, final RequestUpdaterService requestUpdaterService,
+                         final ApIncomingService apIncomingService, final ExecutorService pullExecutor) {
+        this.gateProperties = gateProperties;
+        this.pullProperties = pullProperties;
+        this.messageRetrievalService = messageRetrievalService;
+        this.requestUpdaterService = requestUpdaterService;
+        this.apIncomingService = apIncomingService;
+        this.pullExecutor = pullExecutor;
+    }
+
+    public boolean isEnabled() {
+        return pullProperties.isEnabled();
+    }
+
+    /**
+     * Retrieves and handles up to max-messages pending messages.
+     *
+     * @return number of pending messages handled and marked as downloaded
+     */
+    public int pull() {
+        final ApConfigDto apConfigDto = gateProperties.getAp().toApConfigDto();
+        final List<String> pendingIds = messageRetrievalService.listPendingMessages(apConfigDto);
+        // messages no longer pending are forgotten
+        failedAttempts.keySet().retainAll(Set.copyOf(pendingIds));
+        final List<String> messageIds = pendingIds.stream()
+                .filter(messageId -> failedAttempts.getOrDefault(messageId, 0) < pullProperties.getMaxAttempts())
+                .limit(pullProperties.getMaxMessages())
+                .toList();
+        if (messageIds.isEmpty()) {
+            return 0;
+        }
+        final List<CompletableFuture<String>> pulls = messageIds.stream()
+                .map(messageId -> CompletableFuture.supplyAsync(() -> pull(apConfigDto, messageId), pullExecutor))
+                .toList();
+        final List<String> handled = pulls.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList();
+        final Set<String> notMarked = requestUpdaterService.setAllMarkedAsDownload(apConfigDto, handled);
+        notMarked.forEach(this::recordFailure);
+        handled.stream().filter(messageId -> !notMarked.contains(messageId)).forEach(failedAttempts::remove);
+        log.info("{} pending messages pulled, {} handled, {} not marked as downloaded", messageIds.size(), handled.size(), notMarked.size());
+        return handled.size() - notMarked.size();
+    }
+
+    private String pull(final ApConfigDto apConfigDto, final String messageId) {
+        try {
+            apIncomingService.manageRetrievedMessage(messageRetrievalService.retrieveMessage(apConfigDto, messageId));
+            handledCount.increment();
+            return messageId;
+        } catch (final RuntimeException e) {
+            log.error("error while pulling message {}", messageId, e);
+            failedCount.increment();
+            recordFailure(messageId);
+            return null;
+        }
+    }
+
+    private void recordFailure(final String messageId) {
+        if (failedAttempts.merge(messageId, 1, Integer::sum) >= pullProperties.getMaxAttempts()) {
+            log.warn("message {} failed {} times, it is no longer pulled", messageId, pullProperties.getMaxAttempts());
+        }
+    }
+
+    public long getHandledCount() {
+        return handledCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public int getSkippedCount() {
+        return (int) failedAttempts.values().stream().filter(attempts -> attempts >= pullProperties.getMaxAttempts()).count();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pullExecutor.shutdown();
+    }
+}
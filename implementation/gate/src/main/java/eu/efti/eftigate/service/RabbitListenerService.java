@@ -1,44 +1,93 @@
 package eu.efti.eftigate.service;
 
+import com.rabbitmq.client.Channel;
 import eu.efti.commons.dto.RequestDto;
+import eu.efti.commons.enums.DeadLetterSourceEnum;
 import eu.efti.commons.enums.RequestTypeEnum;
 import eu.efti.commons.utils.SerializeUtils;
 import eu.efti.edeliveryapconnector.dto.ReceivedNotificationDto;
 import eu.efti.eftigate.config.GateProperties;
+import eu.efti.eftigate.config.RabbitConfiguration;
 import eu.efti.eftigate.dto.RabbitRequestDto;
 import eu.efti.eftigate.service.request.RequestService;
 import eu.efti.eftigate.service.request.RequestServiceFactory;
 import eu.efti.eftilogger.model.ComponentType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.support.RetrySynchronizationManager;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor(onConstructor = @__(@Lazy))
 @Slf4j
 public class RabbitListenerService {
 
+    private static final String PARKED = "parked";
+
     private final GateProperties gateProperties;
     private final SerializeUtils serializeUtils;
     private final RequestServiceFactory requestServiceFactory;
     private final ApIncomingService apIncomingService;
     private final GateIntegrationService gateIntegrationService;
     private final PlatformIntegrationService platformIntegrationService;
+    private final DeadLetterService deadLetterService;
 
-    @RabbitListener(queues = "${spring.rabbitmq.queues.eftiReceiveMessageQueue:efti.receive-messages.q}")
+    @RabbitListener(queues = "${spring.rabbitmq.queues.eftiReceiveMessageQueue:efti.receive-messages.q}",
+            autoStartup = "#{!${efti.rabbit.receive.batch.enabled:false}}")
     public void listenReceiveMessage(final String message) {
         log.debug("Receive message from Domibus : {}", message);
         apIncomingService.manageIncomingNotification(
                 serializeUtils.mapJsonStringToClass(message, ReceivedNotificationDto.class));
     }
 
+    /**
+     * Batch mode of {@link #listenReceiveMessage}, enabled with efti.rabbit.receive.batch.enabled. Each message is
+     * acknowledged on its own; the ones that could not be read or handled are rejected to the dead letter queue.
+     */
+    @RabbitListener(queues = "${spring.rabbitmq.queues.eftiReceiveMessageQueue:efti.receive-messages.q}",
+            containerFactory = RabbitConfiguration.RECEIVE_BATCH_CONTAINER_FACTORY,
+            autoStartup = "${efti.rabbit.receive.batch.enabled:false}")
+    public void listenReceiveMessages(final List<Message> messages, final Channel channel) throws IOException {
+        log.debug("Receive {} messages from Domibus", messages.size());
+        final Map<Long, ReceivedNotificationDto> notifications = new LinkedHashMap<>();
+        final Set<Long> failed = new HashSet<>();
+        for (final Message message : messages) {
+            final long deliveryTag = message.getMessageProperties().getDeliveryTag();
+            try {
+                notifications.put(deliveryTag, serializeUtils.mapJsonStringToClass(new String(message.getBody(), StandardCharsets.UTF_8), ReceivedNotificationDto.class));
+            } catch (final RuntimeException e) {
+                log.error("could not read message {} from Domibus", deliveryTag, e);
+                failed.add(deliveryTag);
+            }
+        }
+        failed.addAll(apIncomingService.manageIncomingNotifications(notifications));
+        for (final Message message : messages) {
+            final long deliveryTag = message.getMessageProperties().getDeliveryTag();
+            if (failed.contains(deliveryTag)) {
+                channel.basicNack(deliveryTag, false, false);
+            } else {
+                channel.basicAck(deliveryTag, false);
+            }
+        }
+    }
+
     @RabbitListener(queues = "${spring.rabbitmq.queues.messageReceiveDeadLetterQueue:messageReceiveDeadLetterQueue}")
-    public void listenMessageReceiveDeadQueue(final String message) {
-        log.error("Receive message from dead queue : {}", message);
+    public void listenMessageReceiveDeadQueue(final Message message) {
+        log.error("Receive message from dead queue : {}", new String(message.getBody(), StandardCharsets.UTF_8));
+        parkOnce(message, DeadLetterSourceEnum.RECEIVE);
     }
 
     @RabbitListener(queues = "${spring.rabbitmq.queues.eftiSendMessageQueue:efti.send-messages.q}")
@@ -59,12 +108,28 @@ public class RabbitListenerService {
     }
 
     @RabbitListener(queues = "${spring.rabbitmq.queues.messageSendDeadLetterQueue:message-send-dead-letter-queue}")
-    public void listenSendMessageDeadLetter(final String message) {
+    public void listenSendMessageDeadLetter(final Message message) {
         log.error("Receive message for dead queue");
-        final RequestDto requestDto = serializeUtils.mapJsonStringToClass(message, RequestDto.class);
+        parkOnce(message, DeadLetterSourceEnum.SEND);
+        final RequestDto requestDto = serializeUtils.mapJsonStringToClass(new String(message.getBody(), StandardCharsets.UTF_8), RequestDto.class);
         this.getRequestService(requestDto.getControl().getRequestType()).manageSendError(requestDto);
     }
 
+    /**
+     * Parks the message once per delivery: when the handling that follows fails, the listener retries of the message
+     * run in the same retry context, which remembers that it is already parked.
+     */
+    private void parkOnce(final Message message, final DeadLetterSourceEnum source) {
+        final RetryContext retryContext = RetrySynchronizationManager.getContext();
+        if (retryContext != null && retryContext.hasAttribute(PARKED)) {
+            return;
+        }
+        deadLetterService.park(message, source);
+        if (retryContext != null) {
+            retryContext.setAttribute(PARKED, true);
+        }
+    }
+
     private RequestService<?> getRequestService(final RequestTypeEnum requestType) {
         return requestServiceFactory.getRequestServiceByRequestType(requestType);
     }
@@ -3,22 +3,231 @@ package eu.efti.eftigate.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import lombok.RequiredArgsConstructor;
+import eu.efti.commons.exception.TechnicalException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes json messages to rabbitmq, written with the application {@link ObjectMapper} the listeners read them with.
+ * With publisher confirms enabled, each message is tracked until the broker confirms it; the number of unconfirmed
+ * messages is bounded and senders wait for a confirm when the bound is reached.
+ * Confirms require the connection factory to be configured with spring.rabbitmq.publisher-confirm-type: correlated.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class RabbitSenderService {
 
     private final RabbitTemplate rabbitTemplate;
+    private final ObjectWriter objectWriter;
+    private final boolean publisherConfirms;
+    private final int maxOutstandingConfirms;
+    private final Semaphore outstandingConfirms;
+    private final long confirmTimeoutSeconds;
+
+    private final LongAdder sendCount = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+    private final LongAdder ackCount = new LongAdder();
+    private final LongAdder nackCount = new LongAdder();
+    private final LongAdder confirmNanos = new LongAdder();
+
+    public RabbitSenderService(final RabbitTemplate rabbitTemplate,
+                               final ObjectMapper objectMapper,
+                               @Value("${efti.rabbit.publisher-confirms.enabled:false}") final boolean publisherConfirms,
+                               @Value("${efti.rabbit.publisher-confirms.max-outstanding:1024}") final int maxOutstandingConfirms,
+                               @Value("${efti.rabbit.publisher-confirms.timeout:30}") final long confirmTimeoutSeconds) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectWriter = objectMapper.writer();
+        this.publisherConfirms = publisherConfirms && supportsPublisherConfirms(rabbitTemplate);
+        this.maxOutstandingConfirms = maxOutstandingConfirms;
+        this.outstandingConfirms = new Semaphore(maxOutstandingConfirms);
+        this.confirmTimeoutSeconds = confirmTimeoutSeconds;
+    }
 
     public void sendMessageToRabbit(final String exchange, final String key, final Object message) throws JsonProcessingException {
-        final ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        final ObjectWriter ow = objectMapper.writer();
-        final String json = ow.writeValueAsString(message);
-        rabbitTemplate.convertAndSend(exchange, key, json);
+        final long start = System.nanoTime();
+        final Message amqpMessage = toAmqpMessage(message);
+        if (publisherConfirms) {
+            rabbitTemplate.send(exchange, key, amqpMessage, trackConfirm(exchange, key));
+        } else {
+            rabbitTemplate.send(exchange, key, amqpMessage);
+        }
+        sendCount.increment();
+        sendNanos.add(System.nanoTime() - start);
+    }
+
+    /**
+     * Publishes the messages on a single channel and, with publisher confirms, waits once for all of them to be confirmed.
+     * A message that cannot be serialized is logged and skipped, the others are still sent.
+     */
+    public void sendMessagesToRabbit(final String exchange, final String key, final List<?> messages) {
+        final long start = System.nanoTime();
+        final List<OutboundMessage> outboundMessages = new ArrayList<>(messages.size());
+        for (final Object message : messages) {
+            try {
+                outboundMessages.add(new OutboundMessage(exchange, key, toAmqpMessage(message)));
+            } catch (final JsonProcessingException e) {
+                log.error("Error when try to parse object to json/string", e);
+            }
+        }
+        publishAll(exchange, outboundMessages);
+        sendCount.add(outboundMessages.size());
+        sendNanos.add(System.nanoTime() - start);
+    }
+
+    /**
+     * Publishes messages already serialized with {@link #writeAsJson(Object)}, in the given order, on a single channel,
+     * and with publisher confirms waits for all of them to be confirmed.
+     *
+     * @return false when publisher confirms are enabled and a message was not confirmed
+     */
+    public boolean sendJsonMessagesToRabbit(final List<JsonMessage> messages) {
+        final long start = System.nanoTime();
+        final boolean confirmed = publishAll("json messages", messages.stream()
+                .map(message -> new OutboundMessage(message.exchange(), message.key(), toAmqpMessage(message.json().getBytes(StandardCharsets.UTF_8))))
+                .toList());
+        sendCount.add(messages.size());
+        sendNanos.add(System.nanoTime() - start);
+        return confirmed;
+    }
+
+    public String writeAsJson(final Object message) throws JsonProcessingException {
+        return objectWriter.writeValueAsString(message);
+    }
+
+    public boolean isPublisherConfirms() {
+        return publisherConfirms;
+    }
+
+    public long getSendCount() {
+        return sendCount.sum();
+    }
+
+    public double getSendNanos() {
+        return sendNanos.sum();
+    }
+
+    public long getAckCount() {
+        return ackCount.sum();
+    }
+
+    public long getNackCount() {
+        return nackCount.sum();
+    }
+
+    public double getConfirmNanos() {
+        return confirmNanos.sum();
+    }
+
+    public int getOutstandingConfirms() {
+        return maxOutstandingConfirms - outstandingConfirms.availablePermits();
+    }
+
+    private Message toAmqpMessage(final Object message) throws JsonProcessingException {
+        return toAmqpMessage(objectWriter.writeValueAsBytes(message));
+    }
+
+    private static Message toAmqpMessage(final byte[] json) {
+        return MessageBuilder.withBody(json)
+                .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+                .setContentEncoding(StandardCharsets.UTF_8.name())
+                .build();
+    }
+
+    private boolean publishAll(final String target, final List<OutboundMessage> outboundMessages) {
+        final List<CompletableFuture<CorrelationData.Confirm>> confirms = new ArrayList<>(outboundMessages.size());
+        rabbitTemplate.invoke(operations -> {
+            for (final OutboundMessage outboundMessage : outboundMessages) {
+                if (publisherConfirms) {
+                    final CorrelationData correlationData = trackConfirm(outboundMessage.exchange(), outboundMessage.key());
+                    confirms.add(correlationData.getFuture());
+                    operations.send(outboundMessage.exchange(), outboundMessage.key(), outboundMessage.message(), correlationData);
+                } else {
+                    operations.send(outboundMessage.exchange(), outboundMessage.key(), outboundMessage.message());
+                }
+            }
+            return null;
+        });
+        return awaitConfirms(target, confirms);
+    }
+
+    private boolean awaitConfirms(final String exchange, final List<CompletableFuture<CorrelationData.Confirm>> confirms) {
+        if (confirms.isEmpty()) {
+            return true;
+        }
+        try {
+            CompletableFuture.allOf(confirms.toArray(CompletableFuture[]::new)).get(confirmTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (final TimeoutException e) {
+            log.warn("{} of {} messages sent to {} not confirmed after {}s", confirms.stream().filter(confirm -> !confirm.isDone()).count(),
+                    confirms.size(), exchange, confirmTimeoutSeconds);
+        } catch (final ExecutionException e) {
+            log.error("error while waiting for confirms of messages sent to {}", exchange, e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return confirms.stream().allMatch(confirm -> confirm.isDone() && !confirm.isCompletedExceptionally() && confirm.join().isAck());
+    }
+
+    /**
+     * A json message and the exchange and routing key to publish it to.
+     */
+    public record JsonMessage(String exchange, String key, String json) {
+    }
+
+    private record OutboundMessage(String exchange, String key, Message message) {
+    }
+
+    private CorrelationData trackConfirm(final String exchange, final String key) {
+        acquireConfirmPermit(exchange);
+        final long start = System.nanoTime();
+        final CorrelationData correlationData = new CorrelationData();
+        correlationData.getFuture().whenComplete((confirm, throwable) -> {
+            outstandingConfirms.release();
+            confirmNanos.add(System.nanoTime() - start);
+            if (confirm != null && confirm.isAck()) {
+                ackCount.increment();
+            } else {
+                nackCount.increment();
+                log.error("message {} sent to {} with key {} was not confirmed by the broker: {}", correlationData.getId(), exchange, key,
+                        confirm != null ? confirm.getReason() : throwable);
+            }
+        });
+        return correlationData;
+    }
+
+    private void acquireConfirmPermit(final String exchange) {
+        try {
+            if (!outstandingConfirms.tryAcquire(confirmTimeoutSeconds, TimeUnit.SECONDS)) {
+                throw new TechnicalException("no confirm from the broker for " + maxOutstandingConfirms + " messages, not sending to " + exchange);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TechnicalException("interrupted while waiting for broker confirms", e);
+        }
+    }
+
+    private static boolean supportsPublisherConfirms(final RabbitTemplate rabbitTemplate) {
+        final ConnectionFactory connectionFactory = rabbitTemplate.getConnectionFactory();
+        if (connectionFactory == null || !connectionFactory.isPublisherConfirms()) {
+            log.warn("publisher confirms requested but the connection factory is not configured for correlated confirms, sending without confirms");
+            return false;
+        }
+        return true;
     }
 }
@@ -0,0 +1,130 @@
+package eu.efti.eftigate.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import eu.efti.eftigate.entity.ReceivedMessageEntity;
+import eu.efti.eftigate.repository.ReceivedMessageRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Handles each message received from the access point once, whatever the number of redeliveries by Domibus or
+ * rabbitmq. A message is identified by its eDelivery message id and the hash of its content. Recently handled
+ * messages are kept in a bounded in-memory cache; the others are claimed with an insert on a unique key, so that
+ * instances sharing the database and restarted instances also drop duplicates. The claim is in progress until the
+ * handler succeeds. A message whose handling fails is released, so that its redelivery is handled again, and a claim
+ * still in progress after claim-timeout seconds, left by an instance that stopped, is taken over by the next
+ * redelivery.
+ */
+@Slf4j
+@Component
+public class ReceivedMessageDeduplicator {
+
+    private final ReceivedMessageRepository receivedMessageRepository;
+    private final boolean enabled;
+    private final Duration claimTimeout;
+    private final Cache<String, Boolean> handled;
+    private final LongAdder uniqueCount = new LongAdder();
+    private final LongAdder duplicateCount = new LongAdder();
+
+    public ReceivedMessageDeduplicator(final ReceivedMessageRepository receivedMessageRepository,
+                                       @Value("${efti.dedupe.enabled:true}") final boolean enabled,
+                                       @Value("${efti.dedupe.cache.max-size:100000}") final long maxSize,
+                                       @Value("${efti.dedupe.cache.ttl:3600}") final long ttlSeconds,
+                                       @Value("${efti.dedupe.claim-timeout:300}") final long claimTimeoutSeconds) {
+        this.receivedMessageRepository = receivedMessageRepository;
+        this.enabled = enabled;
+        this.claimTimeout = Duration.ofSeconds(claimTimeoutSeconds);
+        this.handled = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Runs the handler unless the message was already handled.
+     *
+     * @return false when the message is a duplicate and the handler was not run
+     */
+    public boolean runOnce(final String messageId, final byte[] content, final Runnable handler) {
+        if (!enabled) {
+            handler.run();
+            return true;
+        }
+        final String contentHash = Hashing.sha256().hashBytes(content != null ? content : new byte[0]).toString();
+        final String key = messageId + ":" + contentHash;
+        if (handled.getIfPresent(key) != null) {
+            return duplicate(messageId);
+        }
+        if (!claim(messageId, contentHash)) {
+            if (receivedMessageRepository.existsByMessageIdAndContentHashAndCompletedTrue(messageId, contentHash)) {
+                handled.put(key, Boolean.TRUE);
+            }
+            return duplicate(messageId);
+        }
+        try {
+            handler.run();
+        } catch (final RuntimeException e) {
+            receivedMessageRepository.release(messageId, contentHash);
+            throw e;
+        }
+        receivedMessageRepository.markCompleted(messageId, contentHash);
+        handled.put(key, Boolean.TRUE);
+        uniqueCount.increment();
+        return true;
+    }
+
+    private boolean claim(final String messageId, final String contentHash) {
+        final LocalDateTime now = LocalDateTime.now();
+        try {
+            receivedMessageRepository.saveAndFlush(ReceivedMessageEntity.builder()
+                    .messageId(messageId).contentHash(contentHash).claimedDate(now).build());
+            return true;
+        } catch (final DataIntegrityViolationException e) {
+            if (receivedMessageRepository.reclaimStale(messageId, contentHash, now, now.minus(claimTimeout)) == 1) {
+                log.warn("message {} was left in progress since more than {}, handling it again", messageId, claimTimeout);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Forgets the messages received before the given date, their redeliveries being no longer expected.
+     */
+    public int purge(final LocalDateTime before) {
+        return receivedMessageRepository.deleteByCreatedDateBefore(before);
+    }
+
+    public void bindMetrics(final MeterRegistry registry) {
+        FunctionCounter.builder("efti.receive.dedupe", this, ReceivedMessageDeduplicator::getUniqueCount)
+                .tag("result", "unique").register(registry);
+        FunctionCounter.builder("efti.receive.dedupe", this, ReceivedMessageDeduplicator::getDuplicateCount)
+                .tag("result", "duplicate").register(registry);
+        Gauge.builder("efti.receive.dedupe.cache.size", handled, Cache::size).register(registry);
+    }
+
+    public long getUniqueCount() {
+        return uniqueCount.sum();
+    }
+
+    public long getDuplicateCount() {
+        return duplicateCount.sum();
+    }
+
+    private boolean duplicate(final String messageId) {
+        duplicateCount.increment();
+        log.warn("message {} already received, ignoring it", messageId);
+        return false;
+    }
+}
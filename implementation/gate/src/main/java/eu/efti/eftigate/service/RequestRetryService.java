@@ -0,0 +1,115 @@
+package eu.efti.eftigate.service;
+
+import eu.efti.commons.constant.EftiGateConstants;
+import eu.efti.commons.dto.RequestDto;
+import eu.efti.commons.enums.RequestType;
+import eu.efti.eftigate.config.RequestRetryProperties;
+import eu.efti.eftigate.entity.RequestEntity;
+import eu.efti.eftigate.mapper.MapperUtils;
+import eu.efti.eftigate.repository.RequestRepository;
+import eu.efti.eftigate.service.request.RequestServiceFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Persistent retry of failed sends. A failed send records the attempt in the request and schedules its next retry
+ * date with an exponential backoff; the scheduler then claims due requests and publishes them again to the send queue.
+ * Sends deferred by the receiver bulkheads are scheduled the same way, whether persistent retry is enabled or not.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor(onConstructor = @__(@Lazy))
+public class RequestRetryService {
+
+    private final RequestRetryProperties requestRetryProperties;
+    private final RequestRepository<RequestEntity> requestRepository;
+    private final RequestServiceFactory requestServiceFactory;
+    private final MapperUtils mapperUtils;
+
+    public boolean isEnabled() {
+        return requestRetryProperties.isEnabled();
+    }
+
+    /**
+     * Records a failed send attempt in the request, which the caller saves.
+     *
+     * @return false when all attempts have been made and no retry is scheduled
+     */
+    public boolean scheduleRetry(final RequestDto requestDto) {
+        final int attempt = requestDto.getRetry() == null ? 1 : requestDto.getRetry() + 1;
+        if (attempt > requestRetryProperties.getMaxAttempts()) {
+            requestDto.setNextRetryDate(null);
+            return false;
+        }
+        requestDto.setRetry(attempt);
+        requestDto.setNextRetryDate(LocalDateTime.now().plus(backoff(attempt)));
+        log.info("send of request {} failed, attempt {} scheduled at {}", requestDto.getId(), attempt, requestDto.getNextRetryDate());
+        return true;
+    }
+
+    /**
+     * Defers a send refused by the bulkhead of its receiver to the delay of a first retry, without counting an attempt.
+     * The request, which the caller saves, is then published again by the scheduler.
+     */
+    public void deferSend(final RequestDto requestDto) {
+        requestDto.setNextRetryDate(LocalDateTime.now().plus(backoff(1)));
+        log.debug("send of request {} deferred to {}", requestDto.getId(), requestDto.getNextRetryDate());
+    }
+
+    /**
+     * Holds a request whose send is started asynchronously until the lease ends, so that the scheduler publishes it
+     * again if the gate stops before the access point acknowledges the send. The caller saves the request.
+     */
+    public void leaseSend(final RequestDto requestDto) {
+        requestDto.setNextRetryDate(LocalDateTime.now().plusSeconds(requestRetryProperties.getLease()));
+    }
+
+    /**
+     * Releases the request held by {@link #leaseSend(RequestDto)} once the access point has acknowledged the send.
+     * Only the retry date is updated, the request may have been updated since the send started.
+     */
+    public void releaseSend(final RequestDto requestDto) {
+        requestDto.setNextRetryDate(null);
+        requestRepository.clearNextRetryDate(requestDto.getId());
+    }
+
+    /**
+     * Claims up to batch-size due requests of the shard by moving their retry date past the lease, so that they are
+     * not claimed again while being published, nor lost if the gate stops before publishing them.
+     */
+    @Transactional("controlTransactionManager")
+    public List<RequestDto> claimDueRequests() {
+        final LocalDateTime now = LocalDateTime.now();
+        final List<RequestEntity> dueRequests = requestRepository.findDueForRetry(now, requestRetryProperties.getShardCount(),
+                requestRetryProperties.getShardIndex(), PageRequest.ofSize(requestRetryProperties.getBatchSize()));
+        final LocalDateTime leaseEnd = now.plusSeconds(requestRetryProperties.getLease());
+        return dueRequests.stream().<RequestDto>map(request -> {
+            request.setNextRetryDate(leaseEnd);
+            return mapperUtils.requestToRequestDto(request,
+                    EftiGateConstants.REQUEST_TYPE_CLASS_MAP.get(RequestType.valueOf(request.getRequestType())));
+        }).toList();
+    }
+
+    public void republish(final List<RequestDto> requestDtos) {
+        requestDtos.forEach(requestDto -> requestServiceFactory.getRequestServiceByRequestType(requestDto.getRequestType().name())
+                .sendRequest(requestDto));
+    }
+
+    Duration backoff(final int attempt) {
+        final double interval = Math.min(requestRetryProperties.getInitialInterval() * Math.pow(requestRetryProperties.getMultiplier(), attempt - 1.0),
+                requestRetryProperties.getMaxInterval());
+        final double jitter = requestRetryProperties.getJitter() > 0
+                ? ThreadLocalRandom.current().nextDouble(-requestRetryProperties.getJitter(), requestRetryProperties.getJitter())
+                : 0;
+        return Duration.ofMillis(Math.round(interval * (1 + jitter) * 1000));
+    }
+}
@@ -5,7 +5,9 @@ import eu.efti.commons.dto.RequestDto;
 import eu.efti.commons.enums.RequestStatusEnum;
 import eu.efti.commons.enums.RequestType;
 import eu.efti.commons.enums.RequestTypeEnum;
+import eu.efti.commons.enums.StatusEnum;
 import eu.efti.edeliveryapconnector.dto.NotificationDto;
+import eu.efti.edeliveryapconnector.dto.NotificationType;
 import eu.efti.eftigate.entity.RequestEntity;
 import eu.efti.eftigate.mapper.MapperUtils;
 import eu.efti.eftigate.repository.RequestRepository;
@@ -16,10 +18,18 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import static eu.efti.commons.enums.RequestStatusEnum.RESPONSE_IN_PROGRESS;
 import static eu.efti.commons.enums.RequestStatusEnum.SEND_ERROR;
+import static eu.efti.commons.enums.RequestStatusEnum.SUCCESS;
 
 @Slf4j
 @Component
@@ -28,6 +38,7 @@ public class EftiRequestUpdater {
     public static final String COULDN_T_FIND_REQUEST_FOR_MESSAGE_ID = "couldn't find request for messageId: ";
     public static final String SENT_MESSAGE_SUCCESSFULLY_BUT_NOT_SAVED_IN_DB = "sent message {} successfully, but not saved in DB";
     public static final String SENT_MESSAGE_SUCCESSFULLY = "sent message {} successfully";
+    private static final Set<RequestTypeEnum> EXTERNAL_ASK_TYPES = Set.of(RequestTypeEnum.EXTERNAL_ASK_IDENTIFIERS_SEARCH, RequestTypeEnum.EXTERNAL_ASK_UIL_SEARCH);
 
     private final RequestRepository<?> requestRepository;
     private final ControlService controlService;
@@ -58,6 +69,64 @@ public class EftiRequestUpdater {
         logManager.logAckMessage(requestDto.get().getControl(), ComponentType.GATE, null, true, name);
     }
 
+    /**
+     * Batch variant of {@link #manageSendSuccess} and {@link #manageSendFailure}: the requests of all notifications are
+     * loaded with one query and their status changes are written with one update per status.
+     *
+     * @return message ids of the notifications that could not be handled
+     */
+    public Set<String> manageSendNotifications(final List<NotificationDto> notificationDtos) {
+        final Map<String, RequestEntity> requestsByMessageId = requestRepository.findByEdeliveryMessageIdIn(
+                        notificationDtos.stream().map(NotificationDto::getMessageId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(RequestEntity::getEdeliveryMessageId, Function.identity(), (first, second) -> first));
+        final Set<String> failedMessageIds = new HashSet<>();
+        final Set<Long> sendErrorRequestIds = new HashSet<>();
+        final Set<Long> successRequestIds = new HashSet<>();
+        final Set<Integer> completedControlIds = new HashSet<>();
+        for (final NotificationDto notificationDto : notificationDtos) {
+            final String messageId = notificationDto.getMessageId();
+            final RequestEntity request = requestsByMessageId.get(messageId);
+            try {
+                if (NotificationType.SEND_SUCCESS == notificationDto.getNotificationType()) {
+                    if (request == null) {
+                        log.info(SENT_MESSAGE_SUCCESSFULLY_BUT_NOT_SAVED_IN_DB, messageId);
+                        continue;
+                    }
+                    if (isRespondingToExternalAsk(request)) {
+                        successRequestIds.add(request.getId());
+                        completedControlIds.add(request.getControl().getId());
+                    } else {
+                        log.info(SENT_MESSAGE_SUCCESSFULLY, messageId);
+                    }
+                    logManager.logAckMessage(mapperUtils.controlEntityToControlDto(request.getControl()), ComponentType.GATE, null, true, LogManager.FTI_ROOT_RESPONSE_SUCESS);
+                } else if (request == null) {
+                    log.error(COULDN_T_FIND_REQUEST_FOR_MESSAGE_ID + "{}", messageId);
+                } else {
+                    sendErrorRequestIds.add(request.getId());
+                    logManager.logAckMessage(mapperUtils.controlEntityToControlDto(request.getControl()), null, null, false, LogManager.FTI_SEND_FAIL);
+                }
+            } catch (final RuntimeException e) {
+                log.error("error while handling {} notification of message {}", notificationDto.getNotificationType(), messageId, e);
+                failedMessageIds.add(messageId);
+            }
+        }
+        final LocalDateTime now = LocalDateTime.now();
+        if (!sendErrorRequestIds.isEmpty()) {
+            requestRepository.updateStatusByIdIn(SEND_ERROR, now, sendErrorRequestIds);
+        }
+        if (!successRequestIds.isEmpty()) {
+            requestRepository.updateStatusByIdIn(SUCCESS, now, successRequestIds);
+            controlService.updateStatus(completedControlIds, StatusEnum.COMPLETE);
+        }
+        return failedMessageIds;
+    }
+
+    // the requests whose send success is handled by UilRequestService/IdentifiersRequestService.manageSendSuccess
+    private static boolean isRespondingToExternalAsk(final RequestEntity request) {
+        return EXTERNAL_ASK_TYPES.contains(request.getControl().getRequestType()) && RESPONSE_IN_PROGRESS == request.getStatus();
+    }
+
     private RequestService<?> getRequestService(final String requestType) {
         return requestServiceFactory.getRequestServiceByRequestType(requestType);
     }
@@ -13,6 +13,7 @@ import eu.efti.commons.enums.RequestType;
 import eu.efti.commons.enums.RequestTypeEnum;
 import eu.efti.commons.enums.StatusEnum;
 import eu.efti.commons.utils.SerializeUtils;
+import eu.efti.commons.utils.XmlMappingResult;
 import eu.efti.edeliveryapconnector.constant.EDeliveryStatus;
 import eu.efti.edeliveryapconnector.dto.NotificationDto;
 import eu.efti.edeliveryapconnector.service.RequestUpdaterService;
@@ -26,11 +27,13 @@ import eu.efti.eftigate.repository.IdentifiersRequestRepository;
 import eu.efti.eftigate.service.ControlService;
 import eu.efti.eftigate.service.LogManager;
 import eu.efti.eftigate.service.RabbitSenderService;
+import eu.efti.identifiersregistry.service.IdentifiersSearchResult;
 import eu.efti.identifiersregistry.service.IdentifiersService;
 import eu.efti.v1.edelivery.Identifier;
 import eu.efti.v1.edelivery.IdentifierQuery;
 import eu.efti.v1.edelivery.IdentifierResponse;
 import eu.efti.v1.edelivery.IdentifierType;
+import eu.efti.v1.edelivery.SaveIdentifiersRequest;
 import jakarta.xml.bind.JAXBElement;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
@@ -92,17 +95,21 @@ public class IdentifiersRequestService extends RequestService<IdentifiersRequest
     }
 
     public void manageQueryReceived(final NotificationDto notificationDto) {
-        Optional<String> result = validationService.isXmlValid(notificationDto.getContent().getBody());
-        if (result.isPresent()) {
+        final XmlMappingResult<IdentifierQuery> result = getSerializeUtils().validateAndMapXmlBytesToJaxbObject(notificationDto.getContent().getBody(), validationService.getGateSchema());
+        if (!result.isValid()) {
             log.error("Received invalid IdentifierQuery");
-            this.sendRequest(this.buildErrorRequestDto(notificationDto, EXTERNAL_ASK_IDENTIFIERS_SEARCH, result.get()));
+            this.sendRequest(this.buildErrorRequestDto(notificationDto, EXTERNAL_ASK_IDENTIFIERS_SEARCH, result.getErrorMessage()));
             return;
         }
-        final IdentifierQuery identifierQuery = getSerializeUtils().mapXmlStringToJaxbObject(notificationDto.getContent().getBody());
+        final IdentifierQuery identifierQuery = result.value();
         final ControlDto controlDto = getControlService().createControlFrom(identifierQuery, notificationDto.getContent().getFromPartyId());
         //log fti015
         getLogManager().logRequestRegistry(controlDto, null, GATE, REGISTRY, LogManager.FTI_015);
-        final List<ConsignmentDto> identifiersDtoList = identifiersService.search(buildIdentifiersRequestDtoFrom(identifierQuery));
+        final IdentifiersSearchResult searchResult = identifiersService.search(buildIdentifiersRequestDtoFrom(identifierQuery));
+        if (searchResult.truncated()) {
+            log.warn("identifiers query {} matches more than {} consignments, only the first ones are returned", controlDto.getRequestId(), searchResult.consignments().size());
+        }
+        final List<ConsignmentDto> identifiersDtoList = searchResult.consignments();
         controlDto.setIdentifiersResults(identifiersDtoList);
         getControlService().save(controlDto);
         //log fti016
@@ -113,14 +120,13 @@ public class IdentifiersRequestService extends RequestService<IdentifiersRequest
     }
 
     public void manageResponseReceived(final NotificationDto notificationDto) {
-        String body = notificationDto.getContent().getBody();
-        Optional<String> result = validationService.isXmlValid(notificationDto.getContent().getBody());
-        if (result.isPresent()) {
+        final XmlMappingResult<IdentifierResponse> result = getSerializeUtils().validateAndMapXmlBytesToJaxbObject(notificationDto.getContent().getBody(), validationService.getGateSchema());
+        if (!result.isValid()) {
             log.error("Received invalid IdentifierResponse");
-            this.sendRequest(this.buildErrorRequestDto(notificationDto, EXTERNAL_ASK_IDENTIFIERS_SEARCH, result.get()));
+            this.sendRequest(this.buildErrorRequestDto(notificationDto, EXTERNAL_ASK_IDENTIFIERS_SEARCH, result.getErrorMessage()));
             return;
         }
-        final IdentifierResponse response = getSerializeUtils().mapXmlStringToJaxbObject(body);
+        final IdentifierResponse response = result.value();
         String requestId = response.getRequestId();
         if (getControlService().findByRequestId(requestId).isPresent()) {
             String fromPartyId = notificationDto.getContent().getFromPartyId();
@@ -129,7 +135,7 @@ public class IdentifiersRequestService extends RequestService<IdentifiersRequest
             IdentifiersRequestEntity identifiersRequestEntity = identifiersRequestRepository.findByControlRequestIdAndGateIdDest(requestId, fromPartyId);
 
             //log fti021
-            getLogManager().logReceivedMessage(getMapperUtils().controlEntityToControlDto(identifiersRequestEntity.getControl()), GATE, GATE, body, fromPartyId,
+            getLogManager().logReceivedMessage(getMapperUtils().controlEntityToControlDto(identifiersRequestEntity.getControl()), GATE, GATE, notificationDto.getContent().getBodyAsString(), fromPartyId,
                     getStatusEnumOfRequest(identifiersRequestEntity), LogManager.FTI_021);
         }
     }
@@ -178,6 +184,16 @@ public class IdentifiersRequestService extends RequestService<IdentifiersRequest
                 IdentifiersRequestDto.class);
     }
 
+    @Override
+    public List<RequestDto> saveAll(final List<RequestDto> requestDtos) {
+        final List<IdentifiersRequestEntity> requestEntities = requestDtos.stream()
+                .map(requestDto -> getMapperUtils().requestDtoToRequestEntity(requestDto, IdentifiersRequestEntity.class))
+                .toList();
+        return identifiersRequestRepository.saveAll(requestEntities).stream()
+                .<RequestDto>map(requestEntity -> getMapperUtils().requestToRequestDto(requestEntity, IdentifiersRequestDto.class))
+                .toList();
+    }
+
     @Override
     public void saveRequest(RequestDto requestDto) {
         identifiersRequestRepository.save(getMapperUtils().requestDtoToRequestEntity(requestDto, IdentifiersRequestEntity.class));
@@ -208,14 +224,14 @@ public class IdentifiersRequestService extends RequestService<IdentifiersRequest
     }
 
     public void createOrUpdate(final NotificationDto notificationDto) {
-        final Optional<String> validationResult = validationService.isXmlValid(notificationDto.getContent().getBody());
-        if (validationResult.isPresent()) {
+        final XmlMappingResult<SaveIdentifiersRequest> validationResult = getSerializeUtils().validateAndMapXmlBytesToJaxbObject(notificationDto.getContent().getBody(), validationService.getGateSchema());
+        if (!validationResult.isValid()) {
             log.error("Received invalid SaveIdentifierRequest from {}", notificationDto.getContent().getFromPartyId());
             return;
         }
 
         this.identifiersService.createOrUpdate(new SaveIdentifiersRequestWrapper(notificationDto.getContent().getFromPartyId(),
-                getSerializeUtils().mapXmlStringToJaxbObject(notificationDto.getContent().getBody())));
+                validationResult.value()));
     }
 
     private RequestDto createReceivedRequest(final ControlDto controlDto, final List<ConsignmentDto> identifiersDtos) {
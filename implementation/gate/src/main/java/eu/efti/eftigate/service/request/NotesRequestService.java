@@ -7,6 +7,7 @@ import eu.efti.commons.enums.RequestStatusEnum;
 import eu.efti.commons.enums.RequestType;
 import eu.efti.commons.enums.RequestTypeEnum;
 import eu.efti.commons.utils.SerializeUtils;
+import eu.efti.commons.utils.XmlMappingResult;
 import eu.efti.edeliveryapconnector.dto.NotificationDto;
 import eu.efti.edeliveryapconnector.service.RequestUpdaterService;
 import eu.efti.eftigate.config.GateProperties;
@@ -98,18 +99,18 @@ public class NotesRequestService extends RequestService<NoteRequestEntity> {
     }
 
     public void manageMessageReceive(final NotificationDto notificationDto) {
-        Optional<String> result = validationService.isXmlValid(notificationDto.getContent().getBody());
-        if (result.isPresent()) {
+        final XmlMappingResult<PostFollowUpRequest> result = getSerializeUtils().validateAndMapXmlBytesToJaxbObject(notificationDto.getContent().getBody(), validationService.getGateSchema());
+        if (!result.isValid()) {
             log.error("Received invalid PostFollowUpRequest");
-            RequestDto requestDto = this.buildErrorRequestDto(notificationDto, RequestTypeEnum.EXTERNAL_NOTE_SEND, result.get());
-            sendLogNote(requestDto.getControl(), true, notificationDto.getContent().getBody());
+            RequestDto requestDto = this.buildErrorRequestDto(notificationDto, RequestTypeEnum.EXTERNAL_NOTE_SEND, result.getErrorMessage());
+            sendLogNote(requestDto.getControl(), true, notificationDto.getContent().getBodyAsString());
             this.sendRequest(requestDto);
             return;
         }
-        final PostFollowUpRequest messageBody = getSerializeUtils().mapXmlStringToJaxbObject(notificationDto.getContent().getBody());
+        final PostFollowUpRequest messageBody = result.value();
         getControlService().getByRequestId(messageBody.getUilQueryRequestId()).ifPresent(controlEntity -> {
             final ControlDto controlDto = getMapperUtils().controlEntityToControlDto(controlEntity);
-            sendLogNote(controlDto, false, notificationDto.getContent().getBody());
+            sendLogNote(controlDto, false, notificationDto.getContent().getBodyAsString());
             controlDto.setNotes(messageBody.getMessage());
             createAndSendRequest(controlDto, messageBody.getUil().getPlatformId());
             markMessageAsDownloaded(notificationDto.getMessageId());
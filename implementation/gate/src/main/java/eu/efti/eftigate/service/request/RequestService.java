@@ -9,28 +9,37 @@ import eu.efti.commons.enums.RequestStatusEnum;
 import eu.efti.commons.enums.RequestType;
 import eu.efti.commons.enums.RequestTypeEnum;
 import eu.efti.commons.enums.StatusEnum;
+import eu.efti.commons.exception.TechnicalException;
 import eu.efti.commons.utils.SerializeUtils;
 import eu.efti.edeliveryapconnector.dto.ApConfigDto;
 import eu.efti.edeliveryapconnector.dto.NotificationDto;
 import eu.efti.edeliveryapconnector.service.RequestUpdaterService;
 import eu.efti.eftigate.config.GateProperties;
+import eu.efti.eftigate.config.SendLane;
 import eu.efti.eftigate.dto.RabbitRequestDto;
 import eu.efti.eftigate.entity.RequestEntity;
 import eu.efti.eftigate.mapper.MapperUtils;
 import eu.efti.eftigate.service.ControlService;
 import eu.efti.eftigate.service.LogManager;
+import eu.efti.eftigate.service.OutboxService;
 import eu.efti.eftigate.service.RabbitSenderService;
 import eu.efti.v1.edelivery.ObjectFactory;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static eu.efti.commons.constant.EftiGateConstants.EXTERNAL_REQUESTS_TYPES;
 import static eu.efti.commons.enums.RequestStatusEnum.ERROR;
@@ -57,6 +66,18 @@ public abstract class RequestService<T extends RequestEntity> {
     private String eftiSendMessageExchange;
     @Value("${spring.rabbitmq.queues.eftiKeySendMessage:EFTI}")
     private String eftiKeySendMessage;
+    @Value("${efti.rabbit.send.lanes.enabled:false}")
+    private boolean sendLanesEnabled;
+    private OutboxService outboxService;
+
+    /**
+     * Set rather than passed to the constructor, so that the constructors of the request services stay unchanged.
+     */
+    @Lazy
+    @Autowired
+    public void setOutboxService(final OutboxService outboxService) {
+        this.outboxService = outboxService;
+    }
 
     public abstract boolean allRequestsContainsData(List<RequestEntity> controlEntityRequests);
 
@@ -70,6 +91,24 @@ public abstract class RequestService<T extends RequestEntity> {
 
     public abstract String buildRequestBody(final RabbitRequestDto rabbitRequestDto);
 
+    /**
+     * Whether the body may be too large to be held in memory, and is written to a stream rather than built as a string.
+     */
+    public boolean isStreamedBody(final RabbitRequestDto rabbitRequestDto) {
+        return false;
+    }
+
+    /**
+     * Writes the body into the stream, as UTF-8.
+     */
+    public void writeRequestBody(final RabbitRequestDto rabbitRequestDto, final OutputStream outputStream) {
+        try {
+            outputStream.write(buildRequestBody(rabbitRequestDto).getBytes(StandardCharsets.UTF_8));
+        } catch (final IOException e) {
+            throw new TechnicalException("error while writing request body", e);
+        }
+    }
+
     public abstract RequestDto save(final RequestDto requestDto);
 
     public abstract void saveRequest(final RequestDto requestDto);
@@ -87,10 +126,35 @@ public abstract class RequestService<T extends RequestEntity> {
     public void createAndSendRequest(final ControlDto controlDto, final String destinationUrl, final RequestStatusEnum status) {
         final RequestDto requestDto = initRequest(controlDto, destinationUrl);
         requestDto.setStatus(status);
+        if (isOutboxEnabled()) {
+            outboxService.saveAndEnqueue(() -> List.of(this.save(requestDto)), eftiSendMessageExchange, this::routingKey);
+            return;
+        }
         final RequestDto result = this.save(requestDto);
         this.sendRequest(result);
     }
 
+    /**
+     * Fan-out variant of {@link #createAndSendRequest(ControlDto, String)}: the requests are saved together, then published
+     * in one batch, or relayed by the outbox when it is enabled.
+     */
+    public void createAndSendRequests(final ControlDto controlDto, final List<String> destinationUrls) {
+        final List<RequestDto> requestDtos = destinationUrls.stream().map(destinationUrl -> {
+            final RequestDto requestDto = initRequest(controlDto, destinationUrl);
+            requestDto.setStatus(RequestStatusEnum.RECEIVED);
+            return requestDto;
+        }).toList();
+        if (isOutboxEnabled()) {
+            outboxService.saveAndEnqueue(() -> this.saveAll(requestDtos), eftiSendMessageExchange, this::routingKey);
+            return;
+        }
+        this.sendRequests(this.saveAll(requestDtos));
+    }
+
+    public List<RequestDto> saveAll(final List<RequestDto> requestDtos) {
+        return requestDtos.stream().map(this::save).toList();
+    }
+
     public RequestDto buildErrorRequestDto(final NotificationDto notificationDto, final RequestTypeEnum requestTypeEnum, final String error) {
         ErrorDto errorDto = ErrorDto.builder()
                 .errorCode(ErrorCodesEnum.XML_ERROR.name())
@@ -119,12 +183,38 @@ public abstract class RequestService<T extends RequestEntity> {
 
     public void sendRequest(final RequestDto requestDto) {
         try {
-            rabbitSenderService.sendMessageToRabbit(eftiSendMessageExchange, eftiKeySendMessage, requestDto);
+            rabbitSenderService.sendMessageToRabbit(eftiSendMessageExchange, routingKey(requestDto), requestDto);
         } catch (final JsonProcessingException e) {
             log.error("Error when try to parse object to json/string", e);
         }
     }
 
+    public void sendRequests(final List<RequestDto> requestDtos) {
+        if (!sendLanesEnabled) {
+            rabbitSenderService.sendMessagesToRabbit(eftiSendMessageExchange, eftiKeySendMessage, requestDtos);
+            return;
+        }
+        requestDtos.stream()
+                .collect(Collectors.groupingBy(this::routingKey, LinkedHashMap::new, Collectors.toList()))
+                .forEach((routingKey, laneRequestDtos) -> rabbitSenderService.sendMessagesToRabbit(eftiSendMessageExchange, routingKey, laneRequestDtos));
+    }
+
+    private boolean isOutboxEnabled() {
+        return outboxService != null && outboxService.isEnabled();
+    }
+
+    private String routingKey(final RequestDto requestDto) {
+        if (!sendLanesEnabled) {
+            return eftiKeySendMessage;
+        }
+        return SendLane.of(requestDto)
+                .map(lane -> lane.routingKey(eftiKeySendMessage))
+                .orElseGet(() -> {
+                    log.warn("request {} has no request type, sent to the default send queue", requestDto.getId());
+                    return eftiKeySendMessage;
+                });
+    }
+
     public <R extends RequestDto> RequestDto updateStatus(final R requestDto, final RequestStatusEnum status) {
         requestDto.setStatus(status);
         return this.save(requestDto);
@@ -176,11 +266,7 @@ public abstract class RequestService<T extends RequestEntity> {
     }
 
     private ApConfigDto createApConfig() {
-        return ApConfigDto.builder()
-                .username(getGateProperties().getAp().getUsername())
-                .password(getGateProperties().getAp().getPassword())
-                .url(getGateProperties().getAp().getUrl())
-                .build();
+        return getGateProperties().getAp().toApConfigDto();
     }
 
     protected boolean isExternalRequest(final RequestDto requestDto) {
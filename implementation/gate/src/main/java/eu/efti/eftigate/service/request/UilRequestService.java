@@ -12,6 +12,7 @@ import eu.efti.commons.enums.StatusEnum;
 import eu.efti.commons.exception.TechnicalException;
 import eu.efti.commons.utils.EftiSchemaUtils;
 import eu.efti.commons.utils.SerializeUtils;
+import eu.efti.commons.utils.XmlMappingResult;
 import eu.efti.edeliveryapconnector.constant.EDeliveryStatus;
 import eu.efti.edeliveryapconnector.dto.NotificationContentDto;
 import eu.efti.edeliveryapconnector.dto.NotificationDto;
@@ -33,15 +34,14 @@ import eu.efti.v1.consignment.common.SupplyChainConsignment;
 import eu.efti.v1.edelivery.UIL;
 import eu.efti.v1.edelivery.UILQuery;
 import eu.efti.v1.edelivery.UILResponse;
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBElement;
-import jakarta.xml.bind.JAXBException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Component;
 
-import java.nio.charset.Charset;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
@@ -94,27 +94,25 @@ public class UilRequestService extends RequestService<UilRequestEntity> {
     }
 
     public void manageQueryReceived(final NotificationDto notificationDto) {
-        String body = notificationDto.getContent().getBody();
-        Optional<String> result = validationService.isXmlValid(body);
-        if (result.isPresent()) {
+        final XmlMappingResult<UILQuery> result = getSerializeUtils().validateAndMapXmlBytesToJaxbObject(notificationDto.getContent().getBody(), validationService.getGateSchema());
+        if (!result.isValid()) {
             log.error("Received invalid UILQuery");
-            this.sendRequest(this.buildErrorRequestDto(notificationDto, EXTERNAL_ASK_UIL_SEARCH, result.get()));
+            this.sendRequest(this.buildErrorRequestDto(notificationDto, EXTERNAL_ASK_UIL_SEARCH, result.getErrorMessage()));
             return;
         }
-        final UILQuery uilQuery = getSerializeUtils().mapXmlStringToJaxbObject(body);
+        final UILQuery uilQuery = result.value();
         getControlService().createUilControl(ControlUtils
                 .fromGateToGateQuery(uilQuery, RequestTypeEnum.EXTERNAL_ASK_UIL_SEARCH, notificationDto, getGateProperties().getOwner()));
     }
 
     public void manageResponseReceived(final NotificationDto notificationDto) {
-        String body = notificationDto.getContent().getBody();
-        Optional<String> result = validationService.isXmlValid(body);
-        if (result.isPresent()) {
+        final XmlMappingResult<UILResponse> result = getSerializeUtils().validateAndMapXmlBytesToJaxbObject(notificationDto.getContent().getBody(), validationService.getGateSchema());
+        if (!result.isValid()) {
             log.error("Received invalid UILResponse");
-            this.sendRequest(this.buildErrorRequestDto(notificationDto, EXTERNAL_ASK_UIL_SEARCH, result.get()));
+            this.sendRequest(this.buildErrorRequestDto(notificationDto, EXTERNAL_ASK_UIL_SEARCH, result.getErrorMessage()));
             return;
         }
-        final UILResponse uilResponse = getSerializeUtils().mapXmlStringToJaxbObject(body);
+        final UILResponse uilResponse = result.value();
         final Optional<UilRequestDto> uilRequestDto = this.findByRequestId(uilResponse.getRequestId());
         if (uilRequestDto.isPresent()) {
             if (List.of(RequestTypeEnum.LOCAL_UIL_SEARCH, EXTERNAL_ASK_UIL_SEARCH).contains(uilRequestDto.get().getControl().getRequestType())) { //platform response
@@ -140,7 +138,7 @@ public class UilRequestService extends RequestService<UilRequestEntity> {
             if (List.of(RequestTypeEnum.LOCAL_UIL_SEARCH, EXTERNAL_ASK_UIL_SEARCH).contains(maybeUilRequestDto.get().getControl().getRequestType())) {
                 String responseData = serializeUtils.mapDocToXmlString(EftiSchemaUtils.mapCommonObjectToDoc(serializeUtils, consignment));
                 UilRequestDto uilRequestDto = maybeUilRequestDto.get();
-                uilRequestDto.setReponseData(responseData.getBytes(Charset.defaultCharset()));
+                uilRequestDto.setReponseData(responseData.getBytes(StandardCharsets.UTF_8));
                 updateStatus(uilRequestDto, RequestStatusEnum.SUCCESS);
                 getControlService().updateControlStatus(uilRequestDto.getControl(), COMPLETE);
             } else {
@@ -180,28 +178,11 @@ public class UilRequestService extends RequestService<UilRequestEntity> {
 
     @Override
     public String buildRequestBody(final RabbitRequestDto requestDto) {
-        final ControlDto controlDto = requestDto.getControl();
-
-        if (requestDto.getStatus() == RESPONSE_IN_PROGRESS || requestDto.getStatus() == ERROR || requestDto.getStatus() == TIMEOUT) {
-            final boolean hasData = requestDto.getReponseData() != null;
-            final boolean hasError = (controlDto.getError() != null || requestDto.getError() != null);
-
-            final UILResponse uilResponse = new UILResponse();
-            uilResponse.setRequestId(controlDto.getRequestId());
-            uilResponse.setStatus(getStatus(requestDto, hasError));
-            if (hasData) {
-                try {
-                    SupplyChainConsignment consignment = serializeUtils.mapXmlStringToJaxbObject(new String(requestDto.getReponseData()), JAXBContext.newInstance(ObjectFactory.class));
-                    uilResponse.setConsignment(consignment);
-                } catch (JAXBException e) {
-                    throw new TechnicalException("error while writing content", e);
-                }
-            }
-            uilResponse.setDescription(hasError ? requestDto.getError().getErrorDescription() : null);
-            final JAXBElement<UILResponse> jaxBResponse = getObjectFactory().createUilResponse(uilResponse);
-            return getSerializeUtils().mapJaxbObjectToXmlString(jaxBResponse, UILResponse.class);
+        if (isResponse(requestDto)) {
+            return getSerializeUtils().mapJaxbObjectToXmlString(buildUilResponse(requestDto), UILResponse.class);
         }
 
+        final ControlDto controlDto = requestDto.getControl();
         final UILQuery uilQuery = new UILQuery();
         final UIL uil = new UIL();
         uil.setDatasetId(controlDto.getDatasetId());
@@ -215,6 +196,43 @@ public class UilRequestService extends RequestService<UilRequestEntity> {
         return getSerializeUtils().mapJaxbObjectToXmlString(jaxBResponse, UILQuery.class);
     }
 
+    /**
+     * Responses carrying the consignment are streamed, the consignment may be large.
+     */
+    @Override
+    public boolean isStreamedBody(final RabbitRequestDto requestDto) {
+        return isResponse(requestDto) && requestDto.getReponseData() != null;
+    }
+
+    @Override
+    public void writeRequestBody(final RabbitRequestDto requestDto, final OutputStream outputStream) {
+        if (isResponse(requestDto)) {
+            getSerializeUtils().marshal(buildUilResponse(requestDto), UILResponse.class, outputStream);
+        } else {
+            super.writeRequestBody(requestDto, outputStream);
+        }
+    }
+
+    private static boolean isResponse(final RabbitRequestDto requestDto) {
+        return requestDto.getStatus() == RESPONSE_IN_PROGRESS || requestDto.getStatus() == ERROR || requestDto.getStatus() == TIMEOUT;
+    }
+
+    private JAXBElement<UILResponse> buildUilResponse(final RabbitRequestDto requestDto) {
+        final ControlDto controlDto = requestDto.getControl();
+        final boolean hasData = requestDto.getReponseData() != null;
+        final boolean hasError = (controlDto.getError() != null || requestDto.getError() != null);
+
+        final UILResponse uilResponse = new UILResponse();
+        uilResponse.setRequestId(controlDto.getRequestId());
+        uilResponse.setStatus(getStatus(requestDto, hasError));
+        if (hasData) {
+            final SupplyChainConsignment consignment = serializeUtils.unmarshal(new ByteArrayInputStream(requestDto.getReponseData()), SupplyChainConsignment.class);
+            uilResponse.setConsignment(consignment);
+        }
+        uilResponse.setDescription(hasError ? requestDto.getError().getErrorDescription() : null);
+        return getObjectFactory().createUilResponse(uilResponse);
+    }
+
     private String getStatus(final RabbitRequestDto requestDto, final boolean hasError) {
         if (hasError) {
             String errorCode = requestDto.getError().getErrorCode();
@@ -263,8 +281,7 @@ public class UilRequestService extends RequestService<UilRequestEntity> {
         String messageId = notificationDto.getMessageId();
         if (uilResponse.getStatus().equals(EDeliveryStatus.OK.getCode())) {
             JAXBElement<SupplyChainConsignment> consignment = objectFactory.createConsignment(uilResponse.getConsignment());
-            String responseData = serializeUtils.mapJaxbObjectToXmlString(consignment, SupplyChainConsignment.class);
-            uilRequestDto.setReponseData(responseData.getBytes(Charset.defaultCharset()));
+            uilRequestDto.setReponseData(serializeUtils.mapJaxbObjectToXmlBytes(consignment, SupplyChainConsignment.class));
             this.updateStatus(uilRequestDto, RequestStatusEnum.SUCCESS, messageId);
             getControlService().updateControlStatus(uilRequestDto.getControl(), COMPLETE);
         } else {
@@ -276,7 +293,7 @@ public class UilRequestService extends RequestService<UilRequestEntity> {
         }
         //log fti010
         NotificationContentDto content = notificationDto.getContent();
-        getLogManager().logReceivedMessage(uilRequestDto.getControl(), ComponentType.PLATFORM, ComponentType.GATE, content.getBody(), content.getFromPartyId(), REQUEST_STATUS_ENUM_STATUS_ENUM_MAP.getOrDefault(uilRequestDto.getStatus(), COMPLETE), LogManager.FTI_010);
+        getLogManager().logReceivedMessage(uilRequestDto.getControl(), ComponentType.PLATFORM, ComponentType.GATE, content.getBodyAsString(), content.getFromPartyId(), REQUEST_STATUS_ENUM_STATUS_ENUM_MAP.getOrDefault(uilRequestDto.getStatus(), COMPLETE), LogManager.FTI_010);
     }
 
     private void manageResponseFromOtherGate(final UilRequestDto requestDto, final UILResponse uilResponse, NotificationContentDto content) {
@@ -293,8 +310,7 @@ public class UilRequestService extends RequestService<UilRequestEntity> {
             }
             case OK -> {
                 JAXBElement<SupplyChainConsignment> consignment = objectFactory.createConsignment(uilResponse.getConsignment());
-                String responseData = serializeUtils.mapJaxbObjectToXmlString(consignment, SupplyChainConsignment.class);
-                requestDto.setReponseData(responseData.getBytes(StandardCharsets.UTF_8));
+                requestDto.setReponseData(serializeUtils.mapJaxbObjectToXmlBytes(consignment, SupplyChainConsignment.class));
                 requestDto.setStatus(RequestStatusEnum.SUCCESS);
                 controlDto.setStatus(COMPLETE);
             }
@@ -311,7 +327,7 @@ public class UilRequestService extends RequestService<UilRequestEntity> {
         this.save(requestDto);
         ControlDto savedControl = getControlService().save(controlDto);
         if (!StatusEnum.PENDING.equals(savedControl.getStatus())) {
-            getLogManager().logReceivedMessage(controlDto, ComponentType.GATE, ComponentType.GATE, content.getBody(), content.getFromPartyId(), savedControl.getStatus(), LogManager.FTI_022);
+            getLogManager().logReceivedMessage(controlDto, ComponentType.GATE, ComponentType.GATE, content.getBodyAsString(), content.getFromPartyId(), savedControl.getStatus(), LogManager.FTI_022);
         }
     }
 
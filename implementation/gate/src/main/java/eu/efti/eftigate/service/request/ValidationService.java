@@ -11,10 +11,13 @@ import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
-import javax.xml.validation.Validator;
 import java.io.*;
-import java.util.Optional;
 
+/**
+ * Compiles the gate schema once. The compiled {@link #gateSchema} is thread-safe and shared: incoming messages are
+ * validated against it while being unmarshalled, with validators borrowed from the bounded pool of
+ * {@link eu.efti.commons.utils.SerializeUtils}.
+ */
 @Service
 @Slf4j
 public class ValidationService {
@@ -22,20 +25,18 @@ public class ValidationService {
     private static final String GATE_XSD = "xsd/edelivery/gate.xsd";
 
     @Getter
-    private Schema gateSchema;
-
-    Validator validator;
+    private final Schema gateSchema;
 
     public ValidationService() {
         try {
-            validator = initValidator();
+            gateSchema = initSchema();
         } catch (SAXException e) {
             log.error("can't initialize ValidationService", e);
             throw new IllegalArgumentException(e);
         }
     }
 
-    private Validator initValidator() throws SAXException {
+    private Schema initSchema() throws SAXException {
         SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
         factory.setResourceResolver((type, namespaceURI, publicId, systemId, baseURI) -> {
             if (systemId != null) {
@@ -61,18 +62,7 @@ public class ValidationService {
             return null;
         });
         Source schemaFile = new StreamSource(getClass().getClassLoader().getResourceAsStream(GATE_XSD));
-        gateSchema = factory.newSchema(schemaFile);
-        return gateSchema.newValidator();
-    }
-
-    public Optional<String> isXmlValid(String body) {
-        try {
-            validator.validate(new StreamSource(new StringReader(body)));
-        } catch (SAXException | IOException e) {
-            log.error("Error with XSD", e);
-            return Optional.of(e.getMessage());
-        }
-        return Optional.empty();
+        return factory.newSchema(schemaFile);
     }
 
     private static class XSDInsideJarInput implements LSInput {
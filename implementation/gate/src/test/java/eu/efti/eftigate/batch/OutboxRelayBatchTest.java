@@ -0,0 +1,45 @@
+package eu.efti.eftigate.batch;
+
+import eu.efti.eftigate.config.OutboxProperties;
+import eu.efti.eftigate.entity.OutboxEntity;
+import eu.efti.eftigate.service.OutboxService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayBatchTest {
+    @Mock
+    private OutboxService outboxService;
+
+    @Test
+    void shouldRelayUntilNoFullBatchIsLeft() {
+        final OutboxProperties properties = new OutboxProperties();
+        properties.setBatchSize(2);
+        final List<OutboxEntity> fullBatch = List.of(new OutboxEntity(), new OutboxEntity());
+        final List<OutboxEntity> lastBatch = List.of(new OutboxEntity());
+        when(outboxService.isEnabled()).thenReturn(true);
+        when(outboxService.claimForRelay()).thenReturn(fullBatch, fullBatch, lastBatch);
+
+        new OutboxRelayBatch(outboxService, properties).relayOutbox();
+
+        verify(outboxService, times(3)).claimForRelay();
+        verify(outboxService, times(2)).relay(fullBatch);
+        verify(outboxService).relay(lastBatch);
+    }
+
+    @Test
+    void shouldDoNothingWhenOutboxDisabled() {
+        new OutboxRelayBatch(outboxService, new OutboxProperties()).relayOutbox();
+
+        verify(outboxService, never()).claimForRelay();
+    }
+}
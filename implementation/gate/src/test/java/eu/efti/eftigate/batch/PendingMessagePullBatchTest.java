@@ -0,0 +1,38 @@
+package eu.efti.eftigate.batch;
+
+import eu.efti.eftigate.config.PullProperties;
+import eu.efti.eftigate.service.PendingMessagePuller;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PendingMessagePullBatchTest {
+    @Mock
+    private PendingMessagePuller pendingMessagePuller;
+
+    @Test
+    void shouldPullUntilAccessPointHasNoMorePendingMessages() {
+        final PullProperties properties = new PullProperties();
+        properties.setMaxMessages(2);
+        when(pendingMessagePuller.isEnabled()).thenReturn(true);
+        when(pendingMessagePuller.pull()).thenReturn(2, 2, 0);
+
+        new PendingMessagePullBatch(pendingMessagePuller, properties).pullPendingMessages();
+
+        verify(pendingMessagePuller, times(3)).pull();
+    }
+
+    @Test
+    void shouldDoNothingWhenPullDisabled() {
+        new PendingMessagePullBatch(pendingMessagePuller, new PullProperties()).pullPendingMessages();
+
+        verify(pendingMessagePuller, never()).pull();
+    }
+}
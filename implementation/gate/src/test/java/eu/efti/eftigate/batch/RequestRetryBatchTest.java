@@ -0,0 +1,47 @@
+package eu.efti.eftigate.batch;
+
+import eu.efti.commons.dto.RequestDto;
+import eu.efti.eftigate.config.RequestRetryProperties;
+import eu.efti.eftigate.service.RequestRetryService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RequestRetryBatchTest {
+    @Mock
+    private RequestRetryService requestRetryService;
+
+    @Test
+    void shouldClaimAndPublishUntilNoFullBatchIsLeft() {
+        final RequestRetryProperties properties = new RequestRetryProperties();
+        properties.setBatchSize(2);
+        final List<RequestDto> fullBatch = List.of(new RequestDto(), new RequestDto());
+        final List<RequestDto> lastBatch = List.of(new RequestDto());
+        when(requestRetryService.claimDueRequests()).thenReturn(fullBatch, lastBatch);
+
+        new RequestRetryBatch(requestRetryService, properties).retryDueRequests();
+
+        verify(requestRetryService, times(2)).claimDueRequests();
+        verify(requestRetryService).republish(fullBatch);
+        verify(requestRetryService).republish(lastBatch);
+    }
+
+    @Test
+    void shouldPublishNothingWhenNoRequestIsDue() {
+        when(requestRetryService.claimDueRequests()).thenReturn(List.of());
+
+        new RequestRetryBatch(requestRetryService, new RequestRetryProperties()).retryDueRequests();
+
+        verify(requestRetryService).claimDueRequests();
+        verifyNoMoreInteractions(requestRetryService);
+    }
+}
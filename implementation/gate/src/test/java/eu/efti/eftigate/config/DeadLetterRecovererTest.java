@@ -0,0 +1,77 @@
+package eu.efti.eftigate.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.amqp.rabbit.retry.RepublishMessageRecoverer;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterRecovererTest {
+
+    @Mock
+    private AmqpTemplate amqpTemplate;
+
+    private DeadLetterRecoverer deadLetterRecoverer() {
+        return new DeadLetterRecoverer(amqpTemplate, "efti.receive-messages.q", "receive-dlx", "efti.send-messages", "send-dlx");
+    }
+
+    @Test
+    void shouldPublishSendLaneMessageToSendDeadLetterExchangeWithFailureHeaders() {
+        final Message message = message("efti.send-messages.uil.q");
+
+        deadLetterRecoverer().recover(message, new ListenerExecutionFailedException("listener failed", new IllegalStateException("connection refused"), message));
+
+        final ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(amqpTemplate).send(eq("send-dlx"), anyString(), messageCaptor.capture());
+        assertEquals("connection refused", messageCaptor.getValue().getMessageProperties().getHeader(RepublishMessageRecoverer.X_EXCEPTION_MESSAGE));
+        assertEquals(IllegalStateException.class.getName(), messageCaptor.getValue().getMessageProperties().getHeader(DeadLetterRecoverer.X_EXCEPTION_CLASS));
+        assertEquals("efti.send-message.exchange", messageCaptor.getValue().getMessageProperties().getHeader(RepublishMessageRecoverer.X_ORIGINAL_EXCHANGE));
+    }
+
+    @Test
+    void shouldPublishReceiveMessageToReceiveDeadLetterExchange() {
+        final Message message = message("efti.receive-messages.q");
+
+        deadLetterRecoverer().recover(message, new ListenerExecutionFailedException("listener failed", new IllegalStateException("boom"), message));
+
+        verify(amqpTemplate).send(eq("receive-dlx"), anyString(), any(Message.class));
+    }
+
+    @Test
+    void shouldRejectMessagesOfOtherQueues() {
+        final Message message = message("message-send-dead-letter-queue");
+        final DeadLetterRecoverer deadLetterRecoverer = deadLetterRecoverer();
+        final ListenerExecutionFailedException cause = new ListenerExecutionFailedException("listener failed", new IllegalStateException("boom"), message);
+
+        final Exception exception = assertThrows(ListenerExecutionFailedException.class, () -> deadLetterRecoverer.recover(message, cause));
+        assertInstanceOf(AmqpRejectAndDontRequeueException.class, exception.getCause());
+        verify(amqpTemplate, never()).send(anyString(), anyString(), any(Message.class));
+    }
+
+    private static Message message(final String consumerQueue) {
+        final Message message = MessageBuilder.withBody("{}".getBytes(StandardCharsets.UTF_8))
+                .setReceivedExchange("efti.send-message.exchange")
+                .setReceivedRoutingKey("EFTI")
+                .build();
+        message.getMessageProperties().setConsumerQueue(consumerQueue);
+        return message;
+    }
+}
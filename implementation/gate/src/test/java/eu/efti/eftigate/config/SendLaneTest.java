@@ -0,0 +1,64 @@
+package eu.efti.eftigate.config;
+
+import eu.efti.commons.dto.ControlDto;
+import eu.efti.commons.dto.RequestDto;
+import eu.efti.commons.enums.RequestType;
+import eu.efti.commons.enums.RequestTypeEnum;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SendLaneTest {
+
+    @Test
+    void shouldRouteRequestsByRequestType() {
+        assertEquals(Optional.of(SendLane.UIL), SendLane.of(request(RequestType.UIL, RequestTypeEnum.EXTERNAL_UIL_SEARCH)));
+        assertEquals(Optional.of(SendLane.IDENTIFIER), SendLane.of(request(RequestType.IDENTIFIER, RequestTypeEnum.EXTERNAL_IDENTIFIERS_SEARCH)));
+        assertEquals(Optional.of(SendLane.NOTE), SendLane.of(request(RequestType.NOTE, RequestTypeEnum.NOTE_SEND)));
+    }
+
+    @Test
+    void shouldNotPickLaneWithoutRequestType() {
+        assertEquals(Optional.empty(), SendLane.of(RequestDto.builder().build()));
+        assertEquals(Optional.empty(), SendLane.of(request(null, RequestTypeEnum.EXTERNAL_UIL_SEARCH)));
+    }
+
+    @Test
+    void shouldRouteResponsesToExternalGatesToResponseLane() {
+        assertEquals(Optional.of(SendLane.RESPONSE), SendLane.of(request(RequestType.UIL, RequestTypeEnum.EXTERNAL_ASK_UIL_SEARCH)));
+        assertEquals(Optional.of(SendLane.RESPONSE), SendLane.of(request(RequestType.IDENTIFIER, RequestTypeEnum.EXTERNAL_ASK_IDENTIFIERS_SEARCH)));
+    }
+
+    @Test
+    void shouldNameLaneQueuesAndRoutingKeys() {
+        assertEquals("EFTI.IDENTIFIER", SendLane.IDENTIFIER.routingKey("EFTI"));
+        assertEquals("efti.send-messages.identifier.q", new SendLaneProperties().queueName(SendLane.IDENTIFIER));
+        assertEquals("1", new SendLaneProperties().getLane(SendLane.NOTE).getConcurrency());
+    }
+
+    @Test
+    void shouldBindLaneSettingsByLowerCaseLaneName() {
+        final Binder binder = new Binder(new MapConfigurationPropertySource(Map.of(
+                "efti.rabbit.send.lanes.enabled", "true",
+                "efti.rabbit.send.lanes.lanes.identifier.concurrency", "1-3",
+                "efti.rabbit.send.lanes.lanes.identifier.prefetch", "10")));
+
+        final SendLaneProperties properties = binder.bind("efti.rabbit.send.lanes", SendLaneProperties.class).get();
+
+        assertEquals("1-3", properties.getLane(SendLane.IDENTIFIER).getConcurrency());
+        assertEquals(10, properties.getLane(SendLane.IDENTIFIER).getPrefetch());
+        assertEquals(1, properties.getLane(SendLane.UIL).getPrefetch());
+    }
+
+    private static RequestDto request(final RequestType requestType, final RequestTypeEnum controlType) {
+        return RequestDto.builder()
+                .requestType(requestType)
+                .control(ControlDto.builder().requestType(controlType).build())
+                .build();
+    }
+}
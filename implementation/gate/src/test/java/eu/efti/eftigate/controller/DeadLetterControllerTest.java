@@ -0,0 +1,96 @@
+package eu.efti.eftigate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.efti.commons.enums.DeadLetterSourceEnum;
+import eu.efti.eftigate.dto.DeadLetterCountDto;
+import eu.efti.eftigate.dto.DeadLetterDto;
+import eu.efti.eftigate.dto.DeadLetterListDto;
+import eu.efti.eftigate.dto.DeadLetterReplayDto;
+import eu.efti.eftigate.dto.DeadLetterReplayResultDto;
+import eu.efti.eftigate.service.DeadLetterService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithAnonymousUser;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(DeadLetterController.class)
+@ContextConfiguration(classes = {DeadLetterController.class})
+@ExtendWith(SpringExtension.class)
+class DeadLetterControllerTest {
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @MockBean
+    DeadLetterService deadLetterService;
+
+    @Test
+    @WithAnonymousUser
+    void getDeadLettersShouldGetAuthent() throws Exception {
+        mockMvc.perform(get("/v1/admin/dead-letters"))
+                .andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    @WithMockUser
+    void getDeadLettersTest() throws Exception {
+        Mockito.when(deadLetterService.findByCriteria(DeadLetterSourceEnum.SEND, null, "borduria", null, 0, 50))
+                .thenReturn(DeadLetterListDto.builder().totalCount(1).deadLetters(List.of(DeadLetterDto.builder().id(1L).build())).build());
+
+        mockMvc.perform(get("/v1/admin/dead-letters").param("source", "SEND").param("destination", "borduria"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalCount").value(1))
+                .andExpect(jsonPath("$.deadLetters[0].id").value(1));
+    }
+
+    @Test
+    @WithMockUser
+    void getDeadLetterNotFoundTest() throws Exception {
+        Mockito.when(deadLetterService.findById(1L)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/v1/admin/dead-letters/1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    void countDeadLettersTest() throws Exception {
+        Mockito.when(deadLetterService.count())
+                .thenReturn(List.of(new DeadLetterCountDto(DeadLetterSourceEnum.SEND, "LOCAL_UIL_SEARCH", "borduria", "rejected", 12L)));
+
+        mockMvc.perform(get("/v1/admin/dead-letters/counts"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].count").value(12));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void replayDeadLettersTest() throws Exception {
+        final DeadLetterReplayDto replayDto = DeadLetterReplayDto.builder().errorType("rejected").build();
+        Mockito.when(deadLetterService.replay(replayDto)).thenReturn(new DeadLetterReplayResultDto(3, 10));
+
+        mockMvc.perform(post("/v1/admin/dead-letters/replay")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsBytes(replayDto)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.scheduled").value(3));
+    }
+}
@@ -0,0 +1,78 @@
+package eu.efti.eftigate.integration;
+
+import eu.efti.eftigate.entity.OutboxEntity;
+import eu.efti.eftigate.repository.OutboxRepository;
+import eu.efti.eftigate.testsupport.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OutboxIT extends IntegrationTest {
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    @Qualifier("controlTransactionManager")
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void shouldRelayMessagesOfTheShardInCreationOrder() {
+        // Arrange
+        final List<OutboxEntity> saved = saveMessages(2, 1, 4);
+
+        // Act
+        final List<OutboxEntity> shard0 = outboxRepository.findForRelay(2, 0, LocalDateTime.now(), PageRequest.ofSize(10));
+
+        // Assert
+        assertEquals(List.of(saved.get(0).getId(), saved.get(2).getId()), shard0.stream().map(OutboxEntity::getId).toList());
+    }
+
+    @Test
+    public void shouldSkipMessagesLockedByAnotherRelay() {
+        // Arrange
+        saveMessages(1);
+
+        // Act
+        final List<OutboxEntity> relayedMeanwhile = new TransactionTemplate(transactionManager).execute(status -> {
+            assertEquals(1, outboxRepository.findForRelay(1, 0, LocalDateTime.now(), PageRequest.ofSize(10)).size());
+            return CompletableFuture.supplyAsync(() -> new TransactionTemplate(transactionManager)
+                    .execute(other -> outboxRepository.findForRelay(1, 0, LocalDateTime.now(), PageRequest.ofSize(10)))).join();
+        });
+
+        // Assert
+        assertTrue(relayedMeanwhile.isEmpty());
+    }
+
+    @Test
+    public void shouldSkipMessagesLeasedByAnotherRelay() {
+        // Arrange
+        final List<OutboxEntity> saved = saveMessages(1, 1);
+        saved.get(0).setLeaseUntil(LocalDateTime.now().plusMinutes(1));
+        outboxRepository.save(saved.get(0));
+
+        // Act
+        final List<OutboxEntity> relayable = outboxRepository.findForRelay(1, 0, LocalDateTime.now(), PageRequest.ofSize(10));
+        final List<OutboxEntity> older = outboxRepository.findOlderOfControls(List.of(1), saved.get(1).getId(), List.of(saved.get(1).getId()));
+
+        // Assert
+        assertEquals(List.of(saved.get(1).getId()), relayable.stream().map(OutboxEntity::getId).toList());
+        assertEquals(List.of(saved.get(0).getId()), older.stream().map(OutboxEntity::getId).toList());
+    }
+
+    private List<OutboxEntity> saveMessages(final int... controlIds) {
+        return outboxRepository.saveAll(IntStream.of(controlIds).mapToObj(controlId -> OutboxEntity.builder()
+                .controlId(controlId).exchange("efti.send-message.exchange").routingKey("EFTI").payload("{}").build()).toList());
+    }
+}
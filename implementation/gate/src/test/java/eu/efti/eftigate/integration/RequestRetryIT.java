@@ -0,0 +1,88 @@
+package eu.efti.eftigate.integration;
+
+import eu.efti.commons.dto.RequestDto;
+import eu.efti.commons.enums.RequestStatusEnum;
+import eu.efti.commons.enums.StatusEnum;
+import eu.efti.eftigate.entity.ControlEntity;
+import eu.efti.eftigate.entity.RequestEntity;
+import eu.efti.eftigate.entity.UilRequestEntity;
+import eu.efti.eftigate.repository.ControlRepository;
+import eu.efti.eftigate.repository.RequestRepository;
+import eu.efti.eftigate.service.RequestRetryService;
+import eu.efti.eftigate.testsupport.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RequestRetryIT extends IntegrationTest {
+
+    @Autowired
+    private ControlRepository controlRepository;
+
+    @Autowired
+    private RequestRepository<RequestEntity> requestRepository;
+
+    @Autowired
+    private RequestRetryService requestRetryService;
+
+    @Autowired
+    @Qualifier("controlTransactionManager")
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void shouldClaimDueRequestsOldestFirstAndMoveThemPastTheLease() {
+        // Arrange
+        final LocalDateTime now = LocalDateTime.now();
+        final List<RequestEntity> saved = saveRequests(now.minusMinutes(1), now.minusMinutes(2), now.plusMinutes(1), null);
+
+        // Act
+        final List<RequestDto> claimed = requestRetryService.claimDueRequests();
+
+        // Assert
+        assertEquals(List.of(saved.get(1).getId(), saved.get(0).getId()), claimed.stream().map(RequestDto::getId).toList());
+        assertTrue(requestRepository.findById(saved.get(0).getId()).orElseThrow().getNextRetryDate().isAfter(now.plusMinutes(1)));
+        assertTrue(requestRetryService.claimDueRequests().isEmpty());
+    }
+
+    @Test
+    public void shouldSkipRequestsLockedByAnotherScheduler() throws Exception {
+        // Arrange
+        saveRequests(LocalDateTime.now().minusMinutes(1));
+
+        // Act
+        final List<RequestDto> claimedMeanwhile = new TransactionTemplate(transactionManager).execute(status -> {
+            final List<RequestEntity> locked = requestRepository.findDueForRetry(LocalDateTime.now(), 1, 0, PageRequest.ofSize(10));
+            assertEquals(1, locked.size());
+            return CompletableFuture.supplyAsync(requestRetryService::claimDueRequests).join();
+        });
+
+        // Assert
+        assertTrue(claimedMeanwhile.isEmpty());
+        assertEquals(1, CompletableFuture.supplyAsync(requestRetryService::claimDueRequests).get(10, TimeUnit.SECONDS).size());
+    }
+
+    private List<RequestEntity> saveRequests(final LocalDateTime... nextRetryDates) {
+        final List<RequestEntity> requests = new ArrayList<>();
+        for (final LocalDateTime nextRetryDate : nextRetryDates) {
+            final RequestEntity request = new UilRequestEntity();
+            request.setStatus(RequestStatusEnum.IN_PROGRESS);
+            request.setNextRetryDate(nextRetryDate);
+            requests.add(request);
+        }
+        final ControlEntity control = ControlEntity.builder().requestId("67fe38bd-6bf7-4b06-b20e-206264bd639c").status(StatusEnum.PENDING).requests(requests).build();
+        requests.forEach(request -> request.setControl(control));
+        return controlRepository.save(control).getRequests();
+    }
+}
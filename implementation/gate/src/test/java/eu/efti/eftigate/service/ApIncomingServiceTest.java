@@ -5,6 +5,7 @@ import eu.efti.edeliveryapconnector.dto.NotificationDto;
 import eu.efti.edeliveryapconnector.dto.NotificationType;
 import eu.efti.edeliveryapconnector.dto.ReceivedNotificationDto;
 import eu.efti.edeliveryapconnector.service.NotificationService;
+import eu.efti.eftigate.repository.ReceivedMessageRepository;
 import eu.efti.eftigate.service.request.EftiRequestUpdater;
 import eu.efti.eftigate.service.request.IdentifiersRequestService;
 import eu.efti.eftigate.service.request.NotesRequestService;
@@ -16,10 +17,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static eu.efti.edeliveryapconnector.dto.ReceivedNotificationDto.SUBMIT_MESSAGE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -39,10 +44,12 @@ class ApIncomingServiceTest extends BaseServiceTest {
     private NotesRequestService notesRequestService;
     @Mock
     private EftiRequestUpdater eftiRequestUpdater;
+    @Mock
+    private ReceivedMessageRepository receivedMessageRepository;
 
     //todo change body
     private static final String XML_BODY = """
-            <SaveIdentifiersRequest>
+            <saveIdentifiersRequest xmlns="http://efti.eu/v1/edelivery">
                 <eFTIPlatformUrl>https://efti.platform.001.eu</eFTIPlatformUrl>
                 <datasetId>ac0bbbc9-f46e-4093-b523-830431fb1001</datasetId>
                 <eFTIGateUrl>https://efti.gate.001.eu"</eFTIGateUrl>
@@ -73,14 +80,35 @@ class ApIncomingServiceTest extends BaseServiceTest {
                         <countryEnd>DE</countryEnd>
                     </transportVehicle>
                 </transportVehicles>
-            </SaveIdentifiersRequest>
+            </saveIdentifiersRequest>
             """;
 
     @Override
     @BeforeEach
     public void before() {
         EDeliveryMessageRouter router = new EDeliveryMessageRouter(uilRequestService, identifiersRequestService, notesRequestService);
-        service = new ApIncomingService(notificationService, eftiRequestUpdater, router);
+        service = new ApIncomingService(notificationService, eftiRequestUpdater, router, new ReceivedMessageDeduplicator(receivedMessageRepository, true, 100_000, 3600, 300));
+    }
+
+    @Test
+    void shouldIgnoreRedeliveredMessage() {
+        final ReceivedNotificationDto receivedNotificationDto = ReceivedNotificationDto.builder()
+                .body(Map.of(SUBMIT_MESSAGE, Map.of(MESSAGE_ID, "messageId"))).build();
+        final NotificationDto notificationDto = NotificationDto.builder()
+                .messageId("messageId")
+                .content(NotificationContentDto.builder()
+                        .messageId("messageId")
+                        .body("<uilQuery xmlns=\"http://efti.eu/v1/edelivery\">")
+                        .build())
+                .notificationType(NotificationType.RECEIVED)
+                .build();
+        when(notificationService.consume(receivedNotificationDto)).thenReturn(Optional.of(notificationDto));
+
+        service.manageIncomingNotification(receivedNotificationDto);
+        service.manageIncomingNotification(receivedNotificationDto);
+
+        verify(receivedMessageRepository).saveAndFlush(any());
+        verify(uilRequestService).manageQueryReceived(notificationDto);
     }
 
     @Test
@@ -91,7 +119,7 @@ class ApIncomingServiceTest extends BaseServiceTest {
         final NotificationDto notificationDto = NotificationDto.builder()
                 .content(NotificationContentDto.builder()
                         .messageId(messageId)
-                        .body("<UILQuery")
+                        .body("<uilQuery xmlns=\"http://efti.eu/v1/edelivery\">")
                         .build())
                 .notificationType(NotificationType.RECEIVED)
                 .build();
@@ -111,7 +139,7 @@ class ApIncomingServiceTest extends BaseServiceTest {
         final NotificationDto notificationDto = NotificationDto.builder()
                 .content(NotificationContentDto.builder()
                         .messageId(messageId)
-                        .body("<saveIdentifiersRequest")
+                        .body("<saveIdentifiersRequest xmlns=\"http://efti.eu/v1/edelivery\">")
                         .build())
                 .notificationType(NotificationType.RECEIVED)
                 .build();
@@ -198,4 +226,37 @@ class ApIncomingServiceTest extends BaseServiceTest {
         verify(notificationService).consume(receivedNotificationDto);
         verify(uilRequestService, never()).manageQueryReceived(any());
     }
+
+    @Test
+    void shouldGroupSendAcknowledgementsOfABatch() {
+        final ReceivedNotificationDto success = ReceivedNotificationDto.builder().body(Map.of(SUBMIT_MESSAGE, Map.of(MESSAGE_ID, "success"))).build();
+        final ReceivedNotificationDto failure = ReceivedNotificationDto.builder().body(Map.of(SUBMIT_MESSAGE, Map.of(MESSAGE_ID, "failure"))).build();
+        final ReceivedNotificationDto unreadable = ReceivedNotificationDto.builder().body(Map.of(SUBMIT_MESSAGE, Map.of(MESSAGE_ID, "unreadable"))).build();
+        final NotificationDto successNotification = NotificationDto.builder().notificationType(NotificationType.SEND_SUCCESS).messageId("success").build();
+        final NotificationDto failureNotification = NotificationDto.builder().notificationType(NotificationType.SEND_FAILURE).messageId("failure").build();
+        when(notificationService.consume(success)).thenReturn(Optional.of(successNotification));
+        when(notificationService.consume(failure)).thenReturn(Optional.of(failureNotification));
+        when(notificationService.consume(unreadable)).thenThrow(new IllegalArgumentException("unreadable"));
+        when(eftiRequestUpdater.manageSendNotifications(List.of(successNotification, failureNotification))).thenReturn(Set.of("failure"));
+        final Map<Long, ReceivedNotificationDto> notifications = new LinkedHashMap<>();
+        notifications.put(1L, success);
+        notifications.put(2L, failure);
+        notifications.put(3L, unreadable);
+
+        final Set<Long> failed = service.manageIncomingNotifications(notifications);
+
+        assertEquals(Set.of(2L, 3L), failed);
+        verify(eftiRequestUpdater, never()).manageSendSuccess(any(), any());
+        verify(eftiRequestUpdater, never()).manageSendFailure(any(), any());
+    }
+
+    @Test
+    void shouldFailAllSendAcknowledgementsWhenBatchUpdateFails() {
+        final ReceivedNotificationDto success = ReceivedNotificationDto.builder().body(Map.of(SUBMIT_MESSAGE, Map.of(MESSAGE_ID, "success"))).build();
+        final NotificationDto successNotification = NotificationDto.builder().notificationType(NotificationType.SEND_SUCCESS).messageId("success").build();
+        when(notificationService.consume(success)).thenReturn(Optional.of(successNotification));
+        when(eftiRequestUpdater.manageSendNotifications(any())).thenThrow(new IllegalStateException("database down"));
+
+        assertEquals(Set.of(1L), service.manageIncomingNotifications(Map.of(1L, success)));
+    }
 }
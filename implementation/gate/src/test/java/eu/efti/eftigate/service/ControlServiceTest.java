@@ -63,6 +63,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -437,7 +438,7 @@ class ControlServiceTest extends AbstractServiceTest {
 
         final RequestIdDto requestIdDtoResult = controlService.createIdentifiersControl(searchWithIdentifiersRequestDto);
         verify(uilRequestService, never()).createAndSendRequest(any(), any());
-        verify(identifiersRequestService, times(1)).createAndSendRequest(any(), any());
+        verify(identifiersRequestService, times(1)).createAndSendRequests(any(), eq(List.of("borduria")));
         verify(eftiAsyncCallsProcessor, never()).checkLocalRepoAsync(any(), any());
         verify(controlRepository, times(1)).save(any());
         assertNotNull(requestIdDtoResult);
@@ -454,7 +455,7 @@ class ControlServiceTest extends AbstractServiceTest {
 
         final RequestIdDto requestIdDtoResult = controlService.createIdentifiersControl(searchWithIdentifiersRequestDto);
         verify(uilRequestService, never()).createAndSendRequest(any(), any());
-        verify(identifiersRequestService, never()).createAndSendRequest(any(), any());
+        verify(identifiersRequestService, never()).createAndSendRequests(any(), any());
         verify(eftiAsyncCallsProcessor, times(1)).checkLocalRepoAsync(any(), any());
         verify(controlRepository, times(1)).save(any());
         assertNotNull(requestIdDtoResult);
@@ -474,7 +475,7 @@ class ControlServiceTest extends AbstractServiceTest {
 
         final RequestIdDto requestIdDtoResult = controlService.createIdentifiersControl(searchWithIdentifiersRequestDto);
         verify(uilRequestService, never()).createAndSendRequest(any(), any());
-        verify(identifiersRequestService, times(1)).createAndSendRequest(any(), any());
+        verify(identifiersRequestService, times(1)).createAndSendRequests(any(), eq(List.of("http://italie.it")));
         verify(eftiAsyncCallsProcessor, never()).checkLocalRepoAsync(any(), any());
         verify(controlRepository, times(1)).save(any());
         assertNotNull(requestIdDtoResult);
@@ -490,7 +491,7 @@ class ControlServiceTest extends AbstractServiceTest {
 
         final RequestIdDto requestIdDtoResult = controlService.createIdentifiersControl(searchWithIdentifiersRequestDto);
         verify(uilRequestService, never()).createAndSendRequest(any(), any());
-        verify(identifiersRequestService, never()).createAndSendRequest(any(), any());
+        verify(identifiersRequestService, never()).createAndSendRequests(any(), any());
         verify(eftiAsyncCallsProcessor, never()).checkLocalRepoAsync(any(), any());
         verify(controlRepository, times(1)).save(any());
         assertNotNull(requestIdDtoResult);
@@ -512,7 +513,7 @@ class ControlServiceTest extends AbstractServiceTest {
 
         final RequestIdDto requestIdDtoResult = controlService.createIdentifiersControl(searchWithIdentifiersRequestDto);
 
-        verify(identifiersRequestService, times(1)).createAndSendRequest(any(), any());
+        verify(identifiersRequestService, times(1)).createAndSendRequests(any(), eq(List.of("borduria")));
         verify(uilRequestService, times(0)).createAndSendRequest(any(), any());
         verify(controlRepository, times(1)).save(any());
         assertNotNull(requestIdDtoResult);
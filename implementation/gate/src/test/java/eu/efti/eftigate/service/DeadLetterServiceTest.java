@@ -0,0 +1,155 @@
+package eu.efti.eftigate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.efti.commons.enums.DeadLetterSourceEnum;
+import eu.efti.eftigate.config.DeadLetterRecoverer;
+import eu.efti.eftigate.dto.DeadLetterReplayDto;
+import eu.efti.eftigate.dto.DeadLetterReplayResultDto;
+import eu.efti.eftigate.entity.DeadLetterEntity;
+import eu.efti.eftigate.repository.DeadLetterRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.retry.RepublishMessageRecoverer;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterServiceTest {
+
+    private static final String SEND_BODY = "{\"gateIdDest\":\"borduria\",\"control\":{\"requestId\":\"c5ed0840\",\"requestType\":\"LOCAL_UIL_SEARCH\"}}";
+    private static final String RECEIVE_BODY = "{\"Body\":{\"sendFailure\":{\"messageID\":\"domibus-id\"}}}";
+
+    @Mock
+    private DeadLetterRepository deadLetterRepository;
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private DeadLetterService deadLetterService;
+
+    @BeforeEach
+    void before() {
+        deadLetterService = new DeadLetterService(deadLetterRepository, rabbitTemplate, new ObjectMapper(), 1000, 10000,
+                "efti.send-message.exchange", "efti.receive-message.exchange", "EFTI");
+    }
+
+    @AfterEach
+    void after() {
+        deadLetterService.shutdown();
+    }
+
+    @Test
+    void shouldParkSendMessageWithExceptionHeaders() {
+        when(deadLetterRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        final Message message = MessageBuilder.withBody(SEND_BODY.getBytes(StandardCharsets.UTF_8))
+                .setContentType("application/json")
+                .setHeader(RepublishMessageRecoverer.X_EXCEPTION_MESSAGE, "connection refused")
+                .setHeader(DeadLetterRecoverer.X_EXCEPTION_CLASS, "java.net.ConnectException")
+                .setHeader(RepublishMessageRecoverer.X_ORIGINAL_EXCHANGE, "efti.send-message.exchange")
+                .setHeader(RepublishMessageRecoverer.X_ORIGINAL_ROUTING_KEY, "EFTI.UIL")
+                .build();
+
+        final DeadLetterEntity deadLetter = deadLetterService.park(message, DeadLetterSourceEnum.SEND);
+
+        assertEquals(DeadLetterSourceEnum.SEND, deadLetter.getSource());
+        assertEquals("LOCAL_UIL_SEARCH", deadLetter.getMessageType());
+        assertEquals("borduria", deadLetter.getDestination());
+        assertEquals("c5ed0840", deadLetter.getRequestId());
+        assertEquals("java.net.ConnectException", deadLetter.getErrorType());
+        assertEquals("connection refused", deadLetter.getErrorReason());
+        assertEquals("efti.send-message.exchange", deadLetter.getExchange());
+        assertEquals("EFTI.UIL", deadLetter.getRoutingKey());
+        assertEquals(SEND_BODY, deadLetter.getBody());
+        assertTrue(deadLetter.getHeaders().contains("connection refused"));
+    }
+
+    @Test
+    void shouldParkRejectedReceiveMessageFromDeathHeader() {
+        when(deadLetterRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        final Message message = MessageBuilder.withBody(RECEIVE_BODY.getBytes(StandardCharsets.UTF_8))
+                .setHeader("x-death", List.of(Map.of("reason", "rejected", "exchange", "efti.receive-message.exchange", "routing-keys", List.of("EFTI"))))
+                .build();
+
+        final DeadLetterEntity deadLetter = deadLetterService.park(message, DeadLetterSourceEnum.RECEIVE);
+
+        assertEquals("sendFailure", deadLetter.getMessageType());
+        assertEquals("domibus-id", deadLetter.getRequestId());
+        assertNull(deadLetter.getDestination());
+        assertEquals("rejected", deadLetter.getErrorType());
+        assertEquals("efti.receive-message.exchange", deadLetter.getExchange());
+        assertEquals("EFTI", deadLetter.getRoutingKey());
+    }
+
+    @Test
+    void shouldParkUnreadableMessageOnDefaultExchange() {
+        when(deadLetterRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        final Message message = MessageBuilder.withBody("not json".getBytes(StandardCharsets.UTF_8)).build();
+
+        final DeadLetterEntity deadLetter = deadLetterService.park(message, DeadLetterSourceEnum.SEND);
+
+        assertNull(deadLetter.getMessageType());
+        assertEquals("efti.send-message.exchange", deadLetter.getExchange());
+        assertEquals("EFTI", deadLetter.getRoutingKey());
+    }
+
+    @Test
+    void shouldReplaySelectedDeadLettersWithoutFailureHeaders() {
+        final DeadLetterEntity deadLetter = DeadLetterEntity.builder().id(1L).source(DeadLetterSourceEnum.SEND)
+                .exchange("efti.send-message.exchange").routingKey("EFTI").body(SEND_BODY)
+                .headers("{\"x-exception-message\":\"connection refused\",\"__TypeId__\":\"RequestDto\"}").build();
+        when(deadLetterRepository.findByCriteria(eq(DeadLetterSourceEnum.SEND), eq(null), eq("borduria"), eq(null), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(deadLetter)));
+        when(deadLetterRepository.findById(1L)).thenReturn(Optional.of(deadLetter));
+
+        final DeadLetterReplayResultDto result = deadLetterService.replay(DeadLetterReplayDto.builder()
+                .source(DeadLetterSourceEnum.SEND).destination("borduria").build());
+
+        verify(deadLetterRepository, timeout(5000)).delete(deadLetter);
+        assertEquals(1, result.getScheduled());
+        final ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq("efti.send-message.exchange"), eq("EFTI"), messageCaptor.capture());
+        assertEquals(SEND_BODY, new String(messageCaptor.getValue().getBody(), StandardCharsets.UTF_8));
+        assertEquals("RequestDto", messageCaptor.getValue().getMessageProperties().getHeader("__TypeId__"));
+        assertFalse(messageCaptor.getValue().getMessageProperties().getHeaders().containsKey(RepublishMessageRecoverer.X_EXCEPTION_MESSAGE));
+    }
+
+    @Test
+    void shouldStopReplayWhenBrokerIsUnreachable() {
+        final DeadLetterEntity first = DeadLetterEntity.builder().id(1L).exchange("exchange").routingKey("EFTI").body("{}").build();
+        when(deadLetterRepository.findById(1L)).thenReturn(Optional.of(first));
+        doThrow(new AmqpConnectException(new RuntimeException("down"))).when(rabbitTemplate).send(eq("exchange"), eq("EFTI"), any(Message.class));
+
+        final DeadLetterReplayResultDto result = deadLetterService.replay(DeadLetterReplayDto.builder().ids(List.of(1L, 2L)).build());
+
+        verify(rabbitTemplate, timeout(5000)).send(eq("exchange"), eq("EFTI"), any(Message.class));
+
+        assertEquals(2, result.getScheduled());
+        verify(deadLetterRepository, never()).findById(2L);
+        verify(deadLetterRepository, never()).delete(any(DeadLetterEntity.class));
+    }
+}
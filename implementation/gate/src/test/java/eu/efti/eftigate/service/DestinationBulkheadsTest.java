@@ -0,0 +1,106 @@
+package eu.efti.eftigate.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DestinationBulkheadsTest {
+
+    @Test
+    void shouldRefuseSendsToSaturatedReceiverOnly() throws Exception {
+        final DestinationBulkheads bulkheads = new DestinationBulkheads(1, 0, 0);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompletableFuture<Boolean> slowSend = CompletableFuture.supplyAsync(() -> bulkheads.tryRun("borduria", () -> {
+            started.countDown();
+            awaitQuietly(release);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, bulkheads.getInFlight("borduria"));
+        assertFalse(bulkheads.tryRun("borduria", () -> { }));
+        assertTrue(bulkheads.tryRun("syldavia", () -> { }));
+
+        release.countDown();
+        assertTrue(slowSend.get(5, TimeUnit.SECONDS));
+        assertEquals(0, bulkheads.getInFlight("borduria"));
+        assertEquals(1, bulkheads.getRejectedCount("borduria"));
+        assertEquals(0, bulkheads.getRejectedCount("syldavia"));
+    }
+
+    @Test
+    void shouldLetQueuedSendWaitForSlot() throws Exception {
+        final DestinationBulkheads bulkheads = new DestinationBulkheads(1, 1, 5000);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompletableFuture<Boolean> slowSend = CompletableFuture.supplyAsync(() -> bulkheads.tryRun("borduria", () -> {
+            started.countDown();
+            awaitQuietly(release);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        final CompletableFuture<Boolean> queuedSend = CompletableFuture.supplyAsync(() -> bulkheads.tryRun("borduria", () -> { }));
+
+        release.countDown();
+
+        assertTrue(slowSend.get(5, TimeUnit.SECONDS));
+        assertTrue(queuedSend.get(5, TimeUnit.SECONDS));
+        assertEquals(0, bulkheads.getRejectedCount("borduria"));
+    }
+
+    @Test
+    void shouldKeepSlotUntilAsynchronousSendCompletes() {
+        final DestinationBulkheads bulkheads = new DestinationBulkheads(1, 0, 0);
+        final CompletableFuture<String> send = new CompletableFuture<>();
+
+        assertTrue(bulkheads.tryRunAsync("borduria", () -> send));
+
+        assertEquals(1, bulkheads.getInFlight("borduria"));
+        assertFalse(bulkheads.tryRunAsync("borduria", () -> CompletableFuture.completedFuture("id")));
+        send.completeExceptionally(new IllegalStateException("access point down"));
+        assertEquals(0, bulkheads.getInFlight("borduria"));
+        assertTrue(bulkheads.tryRunAsync("borduria", () -> CompletableFuture.completedFuture("id")));
+    }
+
+    @Test
+    void shouldReleaseSlotAndRecordLatencyWhenSendFails() {
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final DestinationBulkheads bulkheads = new DestinationBulkheads(1, 0, 0);
+        bulkheads.bindMetrics(registry);
+
+        assertThrows(IllegalStateException.class, () -> bulkheads.tryRun("borduria", () -> {
+            throw new IllegalStateException("unreachable");
+        }));
+
+        assertEquals(0, bulkheads.getInFlight("borduria"));
+        assertTrue(bulkheads.tryRun("borduria", () -> { }));
+        assertEquals(2, registry.get("efti.bulkhead.latency").tag("destination", "borduria").functionTimer().count());
+    }
+
+    @Test
+    void shouldKeySendsWithoutReceiverTogether() {
+        final DestinationBulkheads bulkheads = new DestinationBulkheads(1, 0, 0);
+        final CompletableFuture<String> send = new CompletableFuture<>();
+
+        assertTrue(bulkheads.tryRunAsync(null, () -> send));
+
+        assertFalse(bulkheads.tryRun(null, () -> { }));
+        assertEquals(1, bulkheads.getInFlight(DestinationBulkheads.UNKNOWN_DESTINATION));
+        assertEquals(1, bulkheads.getRejectedCount(null));
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
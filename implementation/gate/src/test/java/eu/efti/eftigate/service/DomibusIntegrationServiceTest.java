@@ -1,7 +1,7 @@
 package eu.efti.eftigate.service;
 
-import eu.efti.commons.enums.RequestTypeEnum;
 import eu.efti.commons.exception.TechnicalException;
+import eu.efti.edeliveryapconnector.dto.ApRequestDto;
 import eu.efti.edeliveryapconnector.exception.SendRequestException;
 import eu.efti.edeliveryapconnector.service.RequestSendingService;
 import eu.efti.eftigate.config.GateProperties;
@@ -13,15 +13,32 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import static eu.efti.eftigate.EftiTestUtils.testFile;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -38,6 +55,8 @@ class DomibusIntegrationServiceTest extends BaseServiceTest {
     private LogManager logManager;
     @Mock
     private MessageIdGenerator messageIdGenerator;
+    @Mock
+    private RequestRetryService requestRetryService;
 
     private static final String URL = "url";
     private static final String PASSWORD = "password";
@@ -53,13 +72,12 @@ class DomibusIntegrationServiceTest extends BaseServiceTest {
     @Test
     void listenSendMessageUilTest() {
         when(requestServiceFactory.getRequestServiceByRequestType(any(String.class))).thenReturn(uilRequestService);
-        when(requestServiceFactory.getRequestServiceByRequestType(any(RequestTypeEnum.class))).thenReturn(uilRequestService);
 
         final String requestJson = testFile("/json/localuilrequest.json");
 
         var rabbitRequestDto = serializeUtils.mapJsonStringToClass(StringUtils.deleteWhitespace(requestJson), RabbitRequestDto.class);
 
-        var domibusIntegrationService = new DomibusIntegrationService(gateProperties, serializeUtils, requestSendingService, requestServiceFactory, mapperUtils, logManager, messageIdGenerator);
+        var domibusIntegrationService = new DomibusIntegrationService(gateProperties, requestSendingService, requestServiceFactory, mapperUtils, logManager, messageIdGenerator, new DestinationBulkheads(4, 0, 0), requestRetryService);
         domibusIntegrationService.trySendDomibus(rabbitRequestDto, rabbitRequestDto.getControl().getRequestType(), rabbitRequestDto.getGateIdDest());
 
         verify(logManager).logSentMessage(any(), any(), anyString(), any(), any(), anyBoolean(), any());
@@ -70,14 +88,169 @@ class DomibusIntegrationServiceTest extends BaseServiceTest {
         final String message = "{\"id\":151,\"status\":\"RECEIVED\",\"edeliveryMessageId\":null,\"retry\":0,\"requestType\":\"UIL\",\"reponseData\":null,\"nextRetryDate\":null,\"createdDate\":[2024,3,5,15,6,52,135892300],\"lastModifiedDate\":null,\"gateIdDest\":\"borduria\",\"control\":{\"id\":102,\"datasetId\":\"12345678-ab12-4ab6-8999-123456789abe\",\"requestId\":\"c5ed0840-bf60-4052-8172-35530d423672\",\"requestType\":\"LOCAL_UIL_SEARCH\",\"status\":\"PENDING\",\"platformId\":\"acme\",\"gateId\":\"borduria\",\"subseId\":\"full\",\"createdDate\":[2024,3,5,15,6,51,987861600],\"lastModifiedDate\":[2024,3,5,15,6,51,987861600],\"eftiData\":null,\"transportMetaData\":null,\"fromGateId\":null,\"requests\":null,\"authority\":{\"id\":99,\"country\":\"SY\",\"legalContact\":{\"id\":197,\"email\":\"nnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnn.A@63ccccccccccccccccccccccccccccccccccccccccccccccccccccccccgmail.63ccccccccccccccccccccccccccccccccccccccccccccccccccccccccgmail.commmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmm\",\"streetName\":\"rue des rossignols\",\"buildingNumber\":\"12\",\"city\":\"Acheville\",\"additionalLine\":null,\"postalCode\":\"62320\"},\"workingContact\":{\"id\":198,\"email\":\"toto@gmail.com\",\"streetName\":\"rue des cafés\",\"buildingNumber\":\"14\",\"city\":\"Lille\",\"additionalLine\":\"osef\",\"postalCode\":\"59000\"},\"isEmergencyService\":null,\"name\":\"aaaa\",\"nationalUniqueIdentifier\":\"aaa\"},\"error\":null,\"metadataResults\":null},\"error\":null}";
         when(requestServiceFactory.getRequestServiceByRequestType(any(String.class))).thenReturn(uilRequestService);
         when(requestSendingService.sendRequest(any())).thenThrow(SendRequestException.class);
-        when(requestServiceFactory.getRequestServiceByRequestType(any(RequestTypeEnum.class))).thenReturn(uilRequestService);
 
         var rabbitRequestDto = serializeUtils.mapJsonStringToClass(StringUtils.deleteWhitespace(message), RabbitRequestDto.class);
-        var domibusIntegrationService = new DomibusIntegrationService(gateProperties, serializeUtils, requestSendingService, requestServiceFactory, mapperUtils, logManager, messageIdGenerator);
+        var domibusIntegrationService = new DomibusIntegrationService(gateProperties, requestSendingService, requestServiceFactory, mapperUtils, logManager, messageIdGenerator, new DestinationBulkheads(4, 0, 0), requestRetryService);
         final Exception exception = assertThrows(TechnicalException.class, () -> domibusIntegrationService.trySendDomibus(rabbitRequestDto, rabbitRequestDto.getControl().getRequestType(), rabbitRequestDto.getGateIdDest()));
 
         verify(logManager).logSentMessage(any(), any(), anyString(), any(), any(), anyBoolean(), any());
         assertEquals("Error when try to send message to domibus", exception.getMessage());
     }
-}
 
+    @Test
+    void shouldDeferSendWhenReceiverBulkheadIsSaturated() {
+        when(requestServiceFactory.getRequestServiceByRequestType(any(String.class))).thenReturn(uilRequestService);
+        final DestinationBulkheads destinationBulkheads = new DestinationBulkheads(1, 0, 0);
+        final var rabbitRequestDto = serializeUtils.mapJsonStringToClass(StringUtils.deleteWhitespace(testFile("/json/localuilrequest.json")), RabbitRequestDto.class);
+        final var domibusIntegrationService = new DomibusIntegrationService(gateProperties, requestSendingService, requestServiceFactory, mapperUtils, logManager, messageIdGenerator, destinationBulkheads, requestRetryService);
+        // the request is for the platform of the current gate
+        final String receiver = rabbitRequestDto.getControl().getPlatformId();
+
+        destinationBulkheads.tryRun(receiver, () -> domibusIntegrationService.trySendDomibus(rabbitRequestDto, rabbitRequestDto.getControl().getRequestType(), receiver));
+
+        verify(requestRetryService).deferSend(any());
+        verify(uilRequestService).saveRequest(any());
+        verify(uilRequestService, never()).sendRequest(any());
+        verify(requestSendingService, never()).sendRequest(any());
+        verify(logManager, never()).logSentMessage(any(), any(), anyString(), any(), any(), anyBoolean(), any());
+        assertEquals(1, destinationBulkheads.getRejectedCount(receiver));
+    }
+
+    @Test
+    void shouldScheduleRetryInsteadOfThrowingWhenPersistentRetryEnabled() throws Exception {
+        when(requestServiceFactory.getRequestServiceByRequestType(any(String.class))).thenReturn(uilRequestService);
+        when(requestSendingService.sendRequest(any())).thenThrow(SendRequestException.class);
+        when(requestRetryService.isEnabled()).thenReturn(true);
+        when(requestRetryService.scheduleRetry(any())).thenReturn(true);
+        final var rabbitRequestDto = serializeUtils.mapJsonStringToClass(StringUtils.deleteWhitespace(testFile("/json/localuilrequest.json")), RabbitRequestDto.class);
+        final var domibusIntegrationService = new DomibusIntegrationService(gateProperties, requestSendingService, requestServiceFactory, mapperUtils, logManager, messageIdGenerator, new DestinationBulkheads(4, 0, 0), requestRetryService);
+
+        assertDoesNotThrow(() -> domibusIntegrationService.trySendDomibus(rabbitRequestDto, rabbitRequestDto.getControl().getRequestType(), rabbitRequestDto.getGateIdDest()));
+
+        verify(requestRetryService).scheduleRetry(any());
+        verify(uilRequestService, never()).manageSendError(any());
+    }
+
+    @Test
+    void shouldManageSendErrorWhenAllRetriesAreDone() throws Exception {
+        when(requestServiceFactory.getRequestServiceByRequestType(any(String.class))).thenReturn(uilRequestService);
+        when(requestSendingService.sendRequest(any())).thenThrow(SendRequestException.class);
+        when(requestRetryService.isEnabled()).thenReturn(true);
+        when(requestRetryService.scheduleRetry(any())).thenReturn(false);
+        final var rabbitRequestDto = serializeUtils.mapJsonStringToClass(StringUtils.deleteWhitespace(testFile("/json/localuilrequest.json")), RabbitRequestDto.class);
+        final var domibusIntegrationService = new DomibusIntegrationService(gateProperties, requestSendingService, requestServiceFactory, mapperUtils, logManager, messageIdGenerator, new DestinationBulkheads(4, 0, 0), requestRetryService);
+
+        domibusIntegrationService.trySendDomibus(rabbitRequestDto, rabbitRequestDto.getControl().getRequestType(), rabbitRequestDto.getGateIdDest());
+
+        verify(uilRequestService).manageSendError(any());
+    }
+
+    @Test
+    void shouldUpdateRequestWhenAsynchronousSendCompletes() {
+        when(requestServiceFactory.getRequestServiceByRequestType(any(String.class))).thenReturn(uilRequestService);
+        when(messageIdGenerator.generateMessageId()).thenReturn("messageId");
+        final CompletableFuture<String> send = new CompletableFuture<>();
+        when(requestSendingService.sendRequestAsync(any())).thenReturn(send);
+        final var rabbitRequestDto = serializeUtils.mapJsonStringToClass(StringUtils.deleteWhitespace(testFile("/json/localuilrequest.json")), RabbitRequestDto.class);
+        final var domibusIntegrationService = new DomibusIntegrationService(asyncGateProperties(), requestSendingService, requestServiceFactory, mapperUtils, logManager, messageIdGenerator, new DestinationBulkheads(4, 0, 0), requestRetryService);
+
+        domibusIntegrationService.trySendDomibus(rabbitRequestDto, rabbitRequestDto.getControl().getRequestType(), rabbitRequestDto.getGateIdDest());
+
+        verify(requestRetryService).leaseSend(any());
+        verify(uilRequestService).updateRequestStatus(any(), eq("messageId"));
+        verify(requestSendingService, never()).sendRequest(any());
+        verify(logManager, never()).logSentMessage(any(), any(), anyString(), any(), any(), anyBoolean(), any());
+        verify(requestRetryService, never()).releaseSend(any());
+        send.complete("messageId");
+        verify(requestRetryService).releaseSend(any());
+        verify(logManager).logSentMessage(any(), any(), anyString(), any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    void shouldManageSendErrorWhenAsynchronousSendFails() {
+        when(requestServiceFactory.getRequestServiceByRequestType(any(String.class))).thenReturn(uilRequestService);
+        when(requestSendingService.sendRequestAsync(any())).thenReturn(CompletableFuture.failedFuture(new SendRequestException("no messageId")));
+        final var rabbitRequestDto = serializeUtils.mapJsonStringToClass(StringUtils.deleteWhitespace(testFile("/json/localuilrequest.json")), RabbitRequestDto.class);
+        final var domibusIntegrationService = new DomibusIntegrationService(asyncGateProperties(), requestSendingService, requestServiceFactory, mapperUtils, logManager, messageIdGenerator, new DestinationBulkheads(4, 0, 0), requestRetryService);
+
+        assertDoesNotThrow(() -> domibusIntegrationService.trySendDomibus(rabbitRequestDto, rabbitRequestDto.getControl().getRequestType(), rabbitRequestDto.getGateIdDest()));
+
+        verify(uilRequestService, times(2)).updateRequestStatus(any(), any());
+        verify(uilRequestService).manageSendError(any());
+        verify(logManager).logSentMessage(any(), any(), anyString(), any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    void shouldStreamLargeBodyFromPayloadFileAndDeleteIt() throws SendRequestException {
+        when(requestServiceFactory.getRequestServiceByRequestType(any(String.class))).thenReturn(uilRequestService);
+        when(uilRequestService.isStreamedBody(any())).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("<uilResponse/>".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(uilRequestService).writeRequestBody(any(), any());
+        final List<String> sentBodies = new ArrayList<>();
+        final ArgumentCaptor<ApRequestDto> apRequestDtoCaptor = ArgumentCaptor.forClass(ApRequestDto.class);
+        when(requestSendingService.sendRequest(apRequestDtoCaptor.capture())).thenAnswer(invocation -> {
+            try (InputStream inputStream = invocation.<ApRequestDto>getArgument(0).getBodySource().get()) {
+                sentBodies.add(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            return "messageId";
+        });
+        final var rabbitRequestDto = serializeUtils.mapJsonStringToClass(StringUtils.deleteWhitespace(testFile("/json/localuilrequest.json")), RabbitRequestDto.class);
+        final var domibusIntegrationService = new DomibusIntegrationService(gateProperties, requestSendingService, requestServiceFactory, mapperUtils, logManager, messageIdGenerator, new DestinationBulkheads(4, 0, 0), requestRetryService);
+
+        domibusIntegrationService.trySendDomibus(rabbitRequestDto, rabbitRequestDto.getControl().getRequestType(), rabbitRequestDto.getGateIdDest());
+
+        assertEquals(List.of("<uilResponse/>"), sentBodies);
+        verify(logManager).logSentMessage(any(), eq(LoggedBody.of("<uilResponse/>")), anyString(), any(), any(), anyBoolean(), any());
+        verify(uilRequestService, never()).buildRequestBody(any());
+        assertNull(apRequestDtoCaptor.getValue().getBody());
+        assertThrows(UncheckedIOException.class, () -> apRequestDtoCaptor.getValue().getBodySource().get());
+    }
+
+    @Test
+    void shouldLogOnlyCappedPrefixOfLargeStreamedBody() throws SendRequestException {
+        final int bodySize = 4 * 1024 * 1024;
+        when(requestServiceFactory.getRequestServiceByRequestType(any(String.class))).thenReturn(uilRequestService);
+        when(uilRequestService.isStreamedBody(any())).thenReturn(true);
+        doAnswer(invocation -> {
+            final OutputStream outputStream = invocation.getArgument(1);
+            outputStream.write("<uilResponse>".getBytes(StandardCharsets.UTF_8));
+            final byte[] chunk = "\u00e9".repeat(512).getBytes(StandardCharsets.UTF_8);
+            for (int written = 13; written < bodySize; written += chunk.length) {
+                outputStream.write(chunk);
+            }
+            return null;
+        }).when(uilRequestService).writeRequestBody(any(), any());
+        final List<Long> sentSizes = new ArrayList<>();
+        when(requestSendingService.sendRequest(any())).thenAnswer(invocation -> {
+            try (InputStream inputStream = invocation.<ApRequestDto>getArgument(0).getBodySource().get()) {
+                sentSizes.add(inputStream.transferTo(OutputStream.nullOutputStream()));
+            }
+            return "messageId";
+        });
+        final var rabbitRequestDto = serializeUtils.mapJsonStringToClass(StringUtils.deleteWhitespace(testFile("/json/localuilrequest.json")), RabbitRequestDto.class);
+        final var domibusIntegrationService = new DomibusIntegrationService(gateProperties, requestSendingService, requestServiceFactory, mapperUtils, logManager, messageIdGenerator, new DestinationBulkheads(4, 0, 0), requestRetryService);
+
+        domibusIntegrationService.trySendDomibus(rabbitRequestDto, rabbitRequestDto.getControl().getRequestType(), rabbitRequestDto.getGateIdDest());
+
+        final ArgumentCaptor<LoggedBody> loggedBody = ArgumentCaptor.forClass(LoggedBody.class);
+        verify(logManager).logSentMessage(any(), loggedBody.capture(), anyString(), any(), any(), anyBoolean(), any());
+        assertTrue(sentSizes.get(0) >= bodySize);
+        assertTrue(loggedBody.getValue().truncated());
+        assertEquals(sentSizes.get(0), loggedBody.getValue().size());
+        assertTrue(loggedBody.getValue().content().startsWith("<uilResponse>\u00e9"));
+        assertTrue(loggedBody.getValue().content().getBytes(StandardCharsets.UTF_8).length <= LoggedBody.MAX_SIZE);
+        assertFalse(loggedBody.getValue().content().contains("\ufffd"));
+    }
+
+    private static GateProperties asyncGateProperties() {
+        return GateProperties.builder()
+                .owner("http://france.lol")
+                .ap(GateProperties.ApConfig.builder()
+                        .url(URL)
+                        .password(PASSWORD)
+                        .username(USERNAME)
+                        .asyncSend(true).build()).build();
+    }
+}
@@ -57,14 +57,26 @@ class EDeliveryMessageRouterTest {
         assertThrows(TechnicalException.class, () -> router.process(notificationDto));
     }
 
+    @Test
+    void shouldThrowExceptionIfUnknownRootElement() {
+        notificationDto.setContent(NotificationContentDto.builder().body("<uilQuery><uilQuery/></uilQuery>").build());
+        assertThrows(TechnicalException.class, () -> router.process(notificationDto));
+    }
+
+    @Test
+    void shouldThrowExceptionIfBlankMessage() {
+        notificationDto.setContent(NotificationContentDto.builder().body(" ").build());
+        assertThrows(TechnicalException.class, () -> router.process(notificationDto));
+    }
+
     private Map<String, Consumer<NotificationDto>> buildHashMap() {
         final Map<String, Consumer<NotificationDto>> map = new HashMap<>();
-        map.put("<UILQuery></UILQuery>", message -> verify(uilRequestService).manageQueryReceived(message));
-        map.put("<UILResponse></UILResponse>", message -> verify(uilRequestService).manageResponseReceived(message));
-        map.put("<IdentifierQuery></IdentifierQuery>", message -> verify(identifiersRequestService).manageQueryReceived(message));
-        map.put("<IdentifierResponse></IdentifierResponse>", message -> verify(identifiersRequestService).manageResponseReceived(message));
-        map.put("<SaveIdentifiersRequest></SaveIdentifiersRequest>", message -> verify(identifiersRequestService).createOrUpdate(message));
-        map.put("<PostFollowUpRequest></PostFollowUpRequest>", message -> verify(notesRequestService).manageMessageReceive(message));
+        map.put("<uilQuery xmlns=\"http://efti.eu/v1/edelivery\"></uilQuery>", message -> verify(uilRequestService).manageQueryReceived(message));
+        map.put("<?xml version=\"1.0\"?><ed:uilResponse xmlns:ed=\"http://efti.eu/v1/edelivery\"/>", message -> verify(uilRequestService).manageResponseReceived(message));
+        map.put("<identifierQuery xmlns=\"http://efti.eu/v1/edelivery\"></identifierQuery>", message -> verify(identifiersRequestService).manageQueryReceived(message));
+        map.put("<identifierResponse xmlns=\"http://efti.eu/v1/edelivery\"></identifierResponse>", message -> verify(identifiersRequestService).manageResponseReceived(message));
+        map.put("<saveIdentifiersRequest xmlns=\"http://efti.eu/v1/edelivery\"></saveIdentifiersRequest>", message -> verify(identifiersRequestService).createOrUpdate(message));
+        map.put("<!-- note --><postFollowUpRequest xmlns=\"http://efti.eu/v1/edelivery\"><message>uilQuery</message></postFollowUpRequest>", message -> verify(notesRequestService).manageMessageReceive(message));
         return map;
     }
 }
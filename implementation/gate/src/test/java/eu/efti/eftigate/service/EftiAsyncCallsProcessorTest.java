@@ -4,9 +4,11 @@ import eu.efti.commons.dto.AuthorityDto;
 import eu.efti.commons.dto.ControlDto;
 import eu.efti.commons.dto.SearchWithIdentifiersRequestDto;
 import eu.efti.commons.dto.identifiers.ConsignmentDto;
+import eu.efti.commons.enums.RequestStatusEnum;
 import eu.efti.eftigate.config.GateProperties;
 import eu.efti.eftigate.service.request.IdentifiersRequestService;
 import eu.efti.eftilogger.model.ComponentType;
+import eu.efti.identifiersregistry.service.IdentifiersSearchResult;
 import eu.efti.identifiersregistry.service.IdentifiersService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,11 +17,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class EftiAsyncCallsProcessorTest {
@@ -54,6 +59,7 @@ class EftiAsyncCallsProcessorTest {
     @Test
     void checkLocalRepoTest_whenIdentifiersIsNotPresentInRegistry() {
         //Arrange
+        when(identifiersService.search(identifiersRequestDto)).thenReturn(new IdentifiersSearchResult(List.of(), false));
 
         //Act
         eftiAsyncCallsProcessor.checkLocalRepoAsync(identifiersRequestDto, controlDto);
@@ -63,4 +69,16 @@ class EftiAsyncCallsProcessorTest {
         verify(identifiersRequestService, times(1)).createRequest(any(ControlDto.class), any(), anyList());
         verify(logManager, times(2)).logRegistryIdentifiers(any(ControlDto.class), any(), any(ComponentType.class), any(ComponentType.class), anyString());
     }
+
+    @Test
+    void checkLocalRepoTest_whenSearchIsTruncated() {
+        //Arrange
+        when(identifiersService.search(identifiersRequestDto)).thenReturn(new IdentifiersSearchResult(List.of(consignmentDto), true));
+
+        //Act
+        eftiAsyncCallsProcessor.checkLocalRepoAsync(identifiersRequestDto, controlDto);
+
+        //Assert
+        verify(identifiersRequestService).createRequest(controlDto, RequestStatusEnum.SUCCESS, List.of(consignmentDto));
+    }
 }
@@ -10,6 +10,7 @@ import eu.efti.commons.enums.RequestTypeEnum;
 import eu.efti.commons.enums.StatusEnum;
 import eu.efti.eftigate.config.GateProperties;
 import eu.efti.eftigate.dto.RequestIdDto;
+import eu.efti.eftilogger.dto.LogCommonDto;
 import eu.efti.eftilogger.dto.MessagePartiesDto;
 import eu.efti.eftilogger.model.ComponentType;
 import eu.efti.eftilogger.service.AuditRegistryLogService;
@@ -17,13 +18,20 @@ import eu.efti.eftilogger.service.AuditRequestLogService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Base64;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static eu.efti.eftilogger.model.ComponentType.GATE;
 import static eu.efti.eftilogger.model.ComponentType.REGISTRY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -37,6 +45,15 @@ class LogManagerTest extends BaseServiceTest {
     @Mock
     private AuditRegistryLogService auditRegistryLogService;
 
+    @Captor
+    private ArgumentCaptor<MessagePartiesDto> messagePartiesCaptor;
+
+    @Captor
+    private ArgumentCaptor<String> bodyCaptor;
+
+    @Captor
+    private ArgumentCaptor<Consumer<LogCommonDto>> completionCaptor;
+
     private ControlDto controlDto;
     private UilDto uilDto;
     private static final String BODY = "body";
@@ -67,7 +84,7 @@ class LogManagerTest extends BaseServiceTest {
         logManager.logNoteReceiveFromAapMessage(controlDto, BODY, RECEIVER, GATE, GATE, true, RequestTypeEnum.NOTE_SEND, "test");
 
         final String bodyBase64 = serializeUtils.mapObjectToBase64String(BODY);
-        verify(auditRequestLogService).log(controlDto, expectedMessageParties, "ownerId", "ownerCountry", bodyBase64, StatusEnum.COMPLETE, false, "test");
+        verifyRequestLog(expectedMessageParties, bodyBase64, StatusEnum.COMPLETE, false);
     }
 
     @Test
@@ -80,10 +97,10 @@ class LogManagerTest extends BaseServiceTest {
                 .respondingComponentType(GATE)
                 .respondingComponentCountry("ownerCountry").build();
 
-        logManager.logSentMessage(controlDto, BODY, RECEIVER, GATE, GATE, false, "test");
+        logManager.logSentMessage(controlDto, LoggedBody.of(BODY), RECEIVER, GATE, GATE, false, "test");
 
         final String bodyBase64 = serializeUtils.mapObjectToBase64String(BODY);
-        verify(auditRequestLogService).log(controlDto, expectedMessageParties, "ownerId", "ownerCountry", bodyBase64, StatusEnum.ERROR, false, "test");
+        verifyRequestLog(expectedMessageParties, bodyBase64, StatusEnum.ERROR, false);
     }
 
     @Test
@@ -96,11 +113,30 @@ class LogManagerTest extends BaseServiceTest {
                 .respondingComponentType(GATE)
                 .respondingComponentCountry("ownerCountry").build();
 
-        logManager.logSentMessage(controlDto, BODY, RECEIVER, GATE, GATE, true, "test");
+        logManager.logSentMessage(controlDto, LoggedBody.of(BODY), RECEIVER, GATE, GATE, true, "test");
 
         final String bodyBase64 = serializeUtils.mapObjectToBase64String(BODY);
 
-        verify(auditRequestLogService).log(controlDto, expectedMessageParties, "ownerId", "ownerCountry", bodyBase64, StatusEnum.COMPLETE, false, "test");
+        final LogCommonDto logged = verifyRequestLog(expectedMessageParties, bodyBase64, StatusEnum.COMPLETE, false);
+        assertEquals(BODY.length(), logged.getMessageSize());
+        assertEquals(false, logged.getMessageTruncated());
+    }
+
+    @Test
+    void testLogSentMessageTruncated() {
+        final MessagePartiesDto expectedMessageParties = MessagePartiesDto.builder()
+                .requestingComponentId("ownerId")
+                .requestingComponentType(GATE)
+                .requestingComponentCountry("ownerCountry")
+                .respondingComponentId("receiver")
+                .respondingComponentType(GATE)
+                .respondingComponentCountry("ownerCountry").build();
+
+        logManager.logSentMessage(controlDto, new LoggedBody(BODY, 100000, true), RECEIVER, GATE, GATE, true, "test");
+
+        final LogCommonDto logged = verifyRequestLog(expectedMessageParties, serializeUtils.mapObjectToBase64String(BODY), StatusEnum.COMPLETE, false);
+        assertEquals(100000, logged.getMessageSize());
+        assertEquals(true, logged.getMessageTruncated());
     }
 
     @Test
@@ -115,7 +151,7 @@ class LogManagerTest extends BaseServiceTest {
 
         logManager.logAckMessage(controlDto, null, null, false, "test");
 
-        verify(auditRequestLogService).log(controlDto, expectedMessageParties, "ownerId", "ownerCountry", "", StatusEnum.ERROR, true, "test");
+        verifyRequestLog(expectedMessageParties, "", StatusEnum.ERROR, true);
     }
 
     @Test
@@ -130,7 +166,7 @@ class LogManagerTest extends BaseServiceTest {
 
         logManager.logAckMessage(controlDto, null, null, true, "test");
 
-        verify(auditRequestLogService).log(controlDto, expectedMessageParties, "ownerId", "ownerCountry", "", StatusEnum.COMPLETE, true, "test");
+        verifyRequestLog(expectedMessageParties, "", StatusEnum.COMPLETE, true);
     }
 
     @Test
@@ -148,7 +184,7 @@ class LogManagerTest extends BaseServiceTest {
         logManager.logReceivedMessage(controlDto, GATE, GATE, BODY, "sender", StatusEnum.COMPLETE, "test");
 
         final String bodyBase64 = serializeUtils.mapObjectToBase64String(BODY);
-        verify(auditRequestLogService).log(controlDto, expectedMessageParties, "ownerId", "ownerCountry", bodyBase64, StatusEnum.COMPLETE, false, "test");
+        verifyRequestLog(expectedMessageParties, bodyBase64, StatusEnum.COMPLETE, false);
     }
 
     @Test
@@ -168,7 +204,7 @@ class LogManagerTest extends BaseServiceTest {
 
         logManager.logLocalIdentifierMessage(controlDto, identifiersResponseDto, GATE, GATE, "test");
 
-        verify(auditRequestLogService).log(controlDto, expectedMessageParties, "ownerId", "ownerCountry", body, StatusEnum.COMPLETE, false, "test");
+        verifyRequestLog(expectedMessageParties, body, StatusEnum.COMPLETE, false);
     }
 
     @Test
@@ -184,7 +220,20 @@ class LogManagerTest extends BaseServiceTest {
 
         logManager.logAppRequest(controlDto, uilDto, GATE, GATE, "test");
 
-        verify(auditRequestLogService).log(controlDto, expectedMessageParties, "ownerId", "ownerCountry", body, StatusEnum.COMPLETE, false, "test");
+        verifyRequestLog(expectedMessageParties, body, StatusEnum.COMPLETE, false);
+    }
+
+    @Test
+    void shouldLogAppRequestAsItWasWhenLogged() {
+        final UilDto request = UilDto.builder().gateId("gateId").datasetId("before").build();
+        final String body = serializeUtils.mapObjectToBase64String(request);
+
+        logManager.logAppRequest(controlDto, request, GATE, GATE, "test");
+        request.setDatasetId("after");
+
+        verify(auditRequestLogService).log(eq(controlDto), messagePartiesCaptor.capture(), eq("ownerId"), eq("ownerCountry"), isNull(),
+                eq(StatusEnum.COMPLETE), eq(false), eq("test"), completionCaptor.capture());
+        assertEquals(body, messageContentOf(complete(LogCommonDto.builder().build(), completionCaptor.getValue())));
     }
 
     @Test
@@ -202,7 +251,7 @@ class LogManagerTest extends BaseServiceTest {
 
         logManager.logAppResponse(controlDto, requestIdDto, GATE, "requestingComponentId", GATE, "respondingComponentId", "test");
 
-        verify(auditRequestLogService).log(controlDto, expectedMessageParties, "ownerId", "ownerCountry", body, StatusEnum.COMPLETE, false, "test");
+        verifyRequestLog(expectedMessageParties, body, StatusEnum.COMPLETE, false);
     }
 
     @Test
@@ -219,7 +268,8 @@ class LogManagerTest extends BaseServiceTest {
 
         logManager.logRegistryIdentifiers(controlDto, consignmentDtoList, GATE, REGISTRY, "test");
 
-        verify(auditRegistryLogService).logByControlDto(controlDto, "ownerId", "ownerCountry", GATE, REGISTRY, body, null, "test");
+        verify(auditRegistryLogService).logByControlDto(eq(controlDto), eq("ownerId"), eq("ownerCountry"), eq(GATE), eq(REGISTRY), isNull(), isNull(), eq("test"), completionCaptor.capture());
+        assertEquals(body, messageContentOf(complete(LogCommonDto.builder().build(), completionCaptor.getValue())));
     }
 
     @Test
@@ -241,8 +291,46 @@ class LogManagerTest extends BaseServiceTest {
 
         logManager.logFromIdentifier(identifiersResponseDto, GATE, GATE, controlDto, "test");
 
-        verify(auditRequestLogService).log(controlDto, expectedMessageParties, "ownerId", "ownerCountry", body, StatusEnum.COMPLETE, false, "test");
+        verifyRequestLog(expectedMessageParties, body, StatusEnum.COMPLETE, false);
+    }
+
+    private LogCommonDto verifyRequestLog(final MessagePartiesDto expectedMessageParties, final String expectedBody, final StatusEnum status, final boolean isAck) {
+        verify(auditRequestLogService).log(eq(controlDto), messagePartiesCaptor.capture(), eq("ownerId"), eq("ownerCountry"), bodyCaptor.capture(),
+                eq(status), eq(isAck), eq("test"), completionCaptor.capture());
+        final MessagePartiesDto parties = messagePartiesCaptor.getValue();
+        final LogCommonDto logged = complete(LogCommonDto.builder()
+                .requestingComponentType(parties.getRequestingComponentType())
+                .requestingComponentId(parties.getRequestingComponentId())
+                .requestingComponentCountry(parties.getRequestingComponentCountry())
+                .respondingComponentType(parties.getRespondingComponentType())
+                .respondingComponentId(parties.getRespondingComponentId())
+                .respondingComponentCountry(parties.getRespondingComponentCountry())
+                .messageContent(bodyCaptor.getValue())
+                .build(), completionCaptor.getValue());
+
+        assertEquals(expectedMessageParties, MessagePartiesDto.builder()
+                .requestingComponentType(logged.getRequestingComponentType())
+                .requestingComponentId(logged.getRequestingComponentId())
+                .requestingComponentCountry(logged.getRequestingComponentCountry())
+                .respondingComponentType(logged.getRespondingComponentType())
+                .respondingComponentId(logged.getRespondingComponentId())
+                .respondingComponentCountry(logged.getRespondingComponentCountry())
+                .build());
+        assertEquals(expectedBody, messageContentOf(logged));
+        return logged;
     }
 
+    private String messageContentOf(final LogCommonDto logDto) {
+        if (logDto.getMessagePayload() instanceof byte[] json) {
+            return Base64.getEncoder().encodeToString(json);
+        }
+        return logDto.getMessagePayload() != null ? serializeUtils.mapObjectToBase64String(logDto.getMessagePayload()) : logDto.getMessageContent();
+    }
 
+    private static LogCommonDto complete(final LogCommonDto logDto, final Consumer<LogCommonDto> completion) {
+        if (completion != null) {
+            completion.accept(logDto);
+        }
+        return logDto;
+    }
 }
@@ -0,0 +1,39 @@
+package eu.efti.eftigate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoggedBodyTest {
+
+    @Test
+    void shouldKeepSmallBodyWhole() throws IOException {
+        final String body = "<uilResponse/>";
+
+        final LoggedBody logged = LoggedBody.of(body);
+
+        assertEquals(new LoggedBody(body, body.length(), false), logged);
+        assertEquals(logged, LoggedBody.read(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), body.length()));
+    }
+
+    @Test
+    void shouldCutLargeBodyTheSameWayWhetherBuiltOrStreamed() throws IOException {
+        // a two bytes character spans the cut
+        final String body = "a" + "é".repeat(LoggedBody.MAX_SIZE);
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        final LoggedBody logged = LoggedBody.of(body);
+
+        assertTrue(logged.truncated());
+        assertEquals(bytes.length, logged.size());
+        assertEquals(LoggedBody.MAX_SIZE - 1, logged.content().getBytes(StandardCharsets.UTF_8).length);
+        assertFalse(logged.content().contains("�"));
+        assertEquals(logged, LoggedBody.read(new ByteArrayInputStream(bytes), bytes.length));
+    }
+}
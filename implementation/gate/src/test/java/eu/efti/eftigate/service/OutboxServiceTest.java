@@ -0,0 +1,139 @@
+package eu.efti.eftigate.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import eu.efti.commons.dto.ControlDto;
+import eu.efti.commons.dto.RequestDto;
+import eu.efti.commons.exception.TechnicalException;
+import eu.efti.eftigate.config.OutboxProperties;
+import eu.efti.eftigate.entity.OutboxEntity;
+import eu.efti.eftigate.repository.OutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxServiceTest {
+
+    @Mock
+    private OutboxRepository outboxRepository;
+    @Mock
+    private RabbitSenderService rabbitSenderService;
+
+    private final OutboxProperties outboxProperties = new OutboxProperties();
+    private OutboxService outboxService;
+
+    @BeforeEach
+    void before() {
+        outboxProperties.setShardCount(2);
+        outboxProperties.setShardIndex(1);
+        outboxService = new OutboxService(outboxProperties, outboxRepository, rabbitSenderService);
+    }
+
+    @Test
+    void shouldSaveAMessagePerSavedRequest() throws JsonProcessingException {
+        final RequestDto first = RequestDto.builder().gateIdDest("borduria").control(ControlDto.builder().id(7).build()).build();
+        final RequestDto second = RequestDto.builder().gateIdDest("syldavia").control(ControlDto.builder().id(7).build()).build();
+        when(rabbitSenderService.writeAsJson(any())).thenAnswer(invocation -> "{\"gateIdDest\":\"" + invocation.<RequestDto>getArgument(0).getGateIdDest() + "\"}");
+
+        final List<RequestDto> saved = outboxService.saveAndEnqueue(() -> List.of(first, second), "exchange", requestDto -> "EFTI");
+
+        assertEquals(List.of(first, second), saved);
+        final ArgumentCaptor<List<OutboxEntity>> outboxCaptor = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).saveAll(outboxCaptor.capture());
+        assertEquals(2, outboxCaptor.getValue().size());
+        assertEquals(7, outboxCaptor.getValue().get(0).getControlId());
+        assertEquals("exchange", outboxCaptor.getValue().get(0).getExchange());
+        assertEquals("EFTI", outboxCaptor.getValue().get(0).getRoutingKey());
+        assertEquals("{\"gateIdDest\":\"syldavia\"}", outboxCaptor.getValue().get(1).getPayload());
+    }
+
+    @Test
+    void shouldLeaseClaimedMessages() {
+        final List<OutboxEntity> messages = List.of(message(1L, 7), message(2L, 8));
+        when(outboxRepository.findForRelay(eq(2), eq(1), any(LocalDateTime.class), any(Pageable.class))).thenReturn(messages);
+
+        final LocalDateTime before = LocalDateTime.now();
+        assertEquals(messages, outboxService.claimForRelay());
+
+        assertTrue(messages.get(0).getLeaseUntil().isAfter(before.plusSeconds(outboxProperties.getLease() - 1)));
+        assertNotNull(messages.get(1).getLeaseUntil());
+    }
+
+    @Test
+    void shouldLeaveOutMessagesOfControlWithOlderMessageOutsideBatch() {
+        // message 1 of control 7 is leased by another relay
+        when(outboxRepository.findForRelay(eq(2), eq(1), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(message(2L, 8), message(3L, 7), message(4L, 7)));
+        when(outboxRepository.findOlderOfControls(Set.of(7, 8), 4L, List.of(2L, 3L, 4L))).thenReturn(List.of(message(1L, 7)));
+
+        final List<OutboxEntity> claimed = outboxService.claimForRelay();
+
+        assertEquals(List.of(2L), claimed.stream().map(OutboxEntity::getId).toList());
+    }
+
+    @Test
+    void shouldDeleteRelayedMessagesOnceConfirmed() {
+        final List<OutboxEntity> messages = List.of(message(1L, 7), message(2L, 7));
+        when(rabbitSenderService.sendJsonMessagesToRabbit(anyList())).thenReturn(true);
+
+        assertEquals(2, outboxService.relay(messages));
+
+        final ArgumentCaptor<List<RabbitSenderService.JsonMessage>> jsonCaptor = ArgumentCaptor.forClass(List.class);
+        verify(rabbitSenderService).sendJsonMessagesToRabbit(jsonCaptor.capture());
+        assertEquals(new RabbitSenderService.JsonMessage("exchange", "EFTI", "{\"id\":1}"), jsonCaptor.getValue().get(0));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+    }
+
+    @Test
+    void shouldReleaseMessagesNotConfirmed() {
+        when(rabbitSenderService.sendJsonMessagesToRabbit(anyList())).thenReturn(false);
+
+        assertThrows(TechnicalException.class, () -> outboxService.relay(List.of(message(1L, 7))));
+
+        verify(outboxRepository).releaseLease(List.of(1L));
+        verify(outboxRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void shouldRelayNothingWhenOutboxIsEmpty() {
+        when(outboxRepository.findForRelay(eq(2), eq(1), any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of());
+
+        assertEquals(0, outboxService.relay(outboxService.claimForRelay()));
+
+        verify(rabbitSenderService, never()).sendJsonMessagesToRabbit(anyList());
+    }
+
+    @Test
+    void shouldNotStartWithoutPublisherConfirms() {
+        outboxProperties.setEnabled(true);
+
+        assertThrows(IllegalStateException.class, () -> outboxService.checkPublisherConfirms());
+
+        when(rabbitSenderService.isPublisherConfirms()).thenReturn(true);
+        assertDoesNotThrow(() -> outboxService.checkPublisherConfirms());
+    }
+
+    private static OutboxEntity message(final long id, final int controlId) {
+        return OutboxEntity.builder().id(id).controlId(controlId).exchange("exchange").routingKey("EFTI").payload("{\"id\":" + id + "}").build();
+    }
+}
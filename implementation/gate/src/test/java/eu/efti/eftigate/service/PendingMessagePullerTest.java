@@ -0,0 +1,143 @@
+package eu.efti.eftigate.service;
+
+import eu.efti.edeliveryapconnector.dto.ApConfigDto;
+import eu.efti.edeliveryapconnector.dto.NotificationDto;
+import eu.efti.edeliveryapconnector.dto.NotificationType;
+import eu.efti.edeliveryapconnector.exception.RetrieveMessageException;
+import eu.efti.edeliveryapconnector.service.MessageRetrievalService;
+import eu.efti.edeliveryapconnector.service.RequestUpdaterService;
+import eu.efti.eftigate.config.GateProperties;
+import eu.efti.eftigate.config.PullProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PendingMessagePullerTest {
+
+    @Mock
+    private MessageRetrievalService messageRetrievalService;
+    @Mock
+    private RequestUpdaterService requestUpdaterService;
+    @Mock
+    private ApIncomingService apIncomingService;
+
+    private final PullProperties pullProperties = new PullProperties();
+    private ExecutorService pullExecutor;
+    private PendingMessagePuller pendingMessagePuller;
+
+    @BeforeEach
+    void before() {
+        final GateProperties gateProperties = GateProperties.builder()
+                .ap(GateProperties.ApConfig.builder().url("url").username("username").password("password").build()).build();
+        pullExecutor = Executors.newFixedThreadPool(2);
+        pendingMessagePuller = new PendingMessagePuller(gateProperties, pullProperties, messageRetrievalService, requestUpdaterService, apIncomingService, pullExecutor);
+    }
+
+    @AfterEach
+    void after() {
+        pullExecutor.shutdownNow();
+    }
+
+    @Test
+    void shouldHandlePendingMessagesAndMarkOnlyHandledOnesAsDownloaded() {
+        when(messageRetrievalService.listPendingMessages(any(ApConfigDto.class))).thenReturn(List.of("id1", "id2", "id3"));
+        when(messageRetrievalService.retrieveMessage(any(ApConfigDto.class), eq("id1"))).thenReturn(received("id1"));
+        when(messageRetrievalService.retrieveMessage(any(ApConfigDto.class), eq("id2"))).thenThrow(new RetrieveMessageException("no payload"));
+        when(messageRetrievalService.retrieveMessage(any(ApConfigDto.class), eq("id3"))).thenReturn(received("id3"));
+        when(requestUpdaterService.setAllMarkedAsDownload(any(ApConfigDto.class), eq(List.of("id1", "id3")))).thenReturn(Set.of());
+
+        assertEquals(2, pendingMessagePuller.pull());
+
+        verify(apIncomingService).manageRetrievedMessage(received("id1"));
+        verify(apIncomingService).manageRetrievedMessage(received("id3"));
+        assertEquals(2, pendingMessagePuller.getHandledCount());
+        assertEquals(1, pendingMessagePuller.getFailedCount());
+    }
+
+    @Test
+    void shouldPullAtMostMaxMessages() {
+        pullProperties.setMaxMessages(1);
+        when(messageRetrievalService.listPendingMessages(any(ApConfigDto.class))).thenReturn(List.of("id1", "id2"));
+        when(messageRetrievalService.retrieveMessage(any(ApConfigDto.class), eq("id1"))).thenReturn(received("id1"));
+        when(requestUpdaterService.setAllMarkedAsDownload(any(ApConfigDto.class), eq(List.of("id1")))).thenReturn(Set.of());
+
+        assertEquals(1, pendingMessagePuller.pull());
+
+        verify(messageRetrievalService, never()).retrieveMessage(any(ApConfigDto.class), eq("id2"));
+    }
+
+    @Test
+    void shouldSkipMessagesThatFailedMaxAttempts() {
+        pullProperties.setMaxMessages(1);
+        pullProperties.setMaxAttempts(2);
+        when(messageRetrievalService.listPendingMessages(any(ApConfigDto.class))).thenReturn(List.of("id1", "id2"));
+        when(messageRetrievalService.retrieveMessage(any(ApConfigDto.class), eq("id1"))).thenThrow(new RetrieveMessageException("no payload"));
+        when(messageRetrievalService.retrieveMessage(any(ApConfigDto.class), eq("id2"))).thenReturn(received("id2"));
+        when(requestUpdaterService.setAllMarkedAsDownload(any(ApConfigDto.class), any(List.class))).thenReturn(Set.of());
+
+        assertEquals(0, pendingMessagePuller.pull());
+        assertEquals(0, pendingMessagePuller.pull());
+        assertEquals(1, pendingMessagePuller.getSkippedCount());
+        assertEquals(1, pendingMessagePuller.pull());
+
+        verify(messageRetrievalService, times(2)).retrieveMessage(any(ApConfigDto.class), eq("id1"));
+        verify(apIncomingService).manageRetrievedMessage(received("id2"));
+    }
+
+    @Test
+    void shouldNotCountMessagesNotMarkedAsDownloaded() {
+        pullProperties.setMaxAttempts(1);
+        when(messageRetrievalService.listPendingMessages(any(ApConfigDto.class))).thenReturn(List.of("id1"));
+        when(messageRetrievalService.retrieveMessage(any(ApConfigDto.class), eq("id1"))).thenReturn(received("id1"));
+        when(requestUpdaterService.setAllMarkedAsDownload(any(ApConfigDto.class), eq(List.of("id1")))).thenReturn(Set.of("id1"));
+
+        assertEquals(0, pendingMessagePuller.pull());
+        assertEquals(0, pendingMessagePuller.pull());
+
+        verify(messageRetrievalService, times(1)).retrieveMessage(any(ApConfigDto.class), eq("id1"));
+    }
+
+    @Test
+    void shouldForgetFailuresOfMessagesNoLongerPending() {
+        pullProperties.setMaxAttempts(1);
+        when(messageRetrievalService.listPendingMessages(any(ApConfigDto.class))).thenReturn(List.of("id1"), List.of());
+        when(messageRetrievalService.retrieveMessage(any(ApConfigDto.class), eq("id1"))).thenThrow(new RetrieveMessageException("no payload"));
+        when(requestUpdaterService.setAllMarkedAsDownload(any(ApConfigDto.class), any(List.class))).thenReturn(Set.of());
+
+        pendingMessagePuller.pull();
+        assertEquals(1, pendingMessagePuller.getSkippedCount());
+        pendingMessagePuller.pull();
+
+        assertEquals(0, pendingMessagePuller.getSkippedCount());
+    }
+
+    @Test
+    void shouldDoNothingWithoutPendingMessages() {
+        when(messageRetrievalService.listPendingMessages(any(ApConfigDto.class))).thenReturn(List.of());
+
+        assertEquals(0, pendingMessagePuller.pull());
+
+        verify(requestUpdaterService, never()).setAllMarkedAsDownload(any(ApConfigDto.class), any(List.class));
+    }
+
+    private static NotificationDto received(final String messageId) {
+        return NotificationDto.builder().notificationType(NotificationType.RECEIVED).messageId(messageId).build();
+    }
+}
@@ -2,6 +2,8 @@ package eu.efti.eftigate.service;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
+import com.rabbitmq.client.Channel;
+import eu.efti.commons.enums.DeadLetterSourceEnum;
 import eu.efti.commons.enums.RequestTypeEnum;
 import eu.efti.commons.exception.TechnicalException;
 import eu.efti.commons.utils.MemoryAppender;
@@ -16,11 +18,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @Slf4j
@@ -36,6 +51,10 @@ class RabbitListenerServiceTest extends BaseServiceTest {
     private GateIntegrationService gateIntegrationService;
     @Mock
     private PlatformIntegrationService platformIntegrationService;
+    @Mock
+    private Channel channel;
+    @Mock
+    private DeadLetterService deadLetterService;
 
     private static final String URL = "url";
     private static final String PASSWORD = "password";
@@ -61,7 +80,7 @@ class RabbitListenerServiceTest extends BaseServiceTest {
                         .username(USERNAME).build()).build();
 
         rabbitListenerService = new RabbitListenerService(gateProperties, serializeUtils,
-                requestServiceFactory, apIncomingService, gateIntegrationService, platformIntegrationService);
+                requestServiceFactory, apIncomingService, gateIntegrationService, platformIntegrationService, deadLetterService);
         memoryAppenderTestLogger = (Logger) LoggerFactory.getLogger(LOGGER_NAME);
         memoryAppender = MemoryAppender.createInitializedMemoryAppender(
                 Level.TRACE, memoryAppenderTestLogger);
@@ -76,11 +95,13 @@ class RabbitListenerServiceTest extends BaseServiceTest {
     @Test
     void listenMessageReceiveDeadQueueTest() {
         final String message = "oki";
+        final Message amqpMessage = MessageBuilder.withBody(message.getBytes(StandardCharsets.UTF_8)).build();
 
-        rabbitListenerService.listenMessageReceiveDeadQueue(message);
+        rabbitListenerService.listenMessageReceiveDeadQueue(amqpMessage);
 
         assertTrue(memoryAppender.containsFormattedLogMessage(message));
         assertEquals(1, memoryAppender.countEventsForLogger(LOGGER_NAME, Level.ERROR));
+        verify(deadLetterService).park(amqpMessage, DeadLetterSourceEnum.RECEIVE);
     }
 
     @Test
@@ -118,10 +139,50 @@ class RabbitListenerServiceTest extends BaseServiceTest {
         when(requestServiceFactory.getRequestServiceByRequestType(any(RequestTypeEnum.class))).thenReturn(uilRequestService);
         final String message = "{\"id\":151,\"status\":\"RECEIVED\",\"edeliveryMessageId\":null,\"retry\":0,\"reponseData\":null,\"nextRetryDate\":null,\"createdDate\":[2024,3,5,15,6,52,135892300],\"lastModifiedDate\":null,\"gateIdDest\":\"borduria\",\"control\":{\"id\":102,\"datasetId\":\"12345678-ab12-4ab6-8999-123456789abe\",\"requestId\":\"c5ed0840-bf60-4052-8172-35530d423672\",\"requestType\":\"LOCAL_UIL_SEARCH\",\"status\":\"PENDING\",\"platformId\":\"acme\",\"gateId\":\"borduria\",\"subsetId\":\"full\",\"createdDate\":[2024,3,5,15,6,51,987861600],\"lastModifiedDate\":[2024,3,5,15,6,51,987861600],\"eftiData\":null,\"transportMetaData\":null,\"fromGateId\":null,\"requests\":null,\"authority\":{\"id\":99,\"country\":\"SY\",\"legalContact\":{\"id\":197,\"email\":\"nnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnnn.A@63ccccccccccccccccccccccccccccccccccccccccccccccccccccccccgmail.63ccccccccccccccccccccccccccccccccccccccccccccccccccccccccgmail.commmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmmm\",\"streetName\":\"rue des rossignols\",\"buildingNumber\":\"12\",\"city\":\"Acheville\",\"additionalLine\":null,\"postalCode\":\"62320\"},\"workingContact\":{\"id\":198,\"email\":\"toto@gmail.com\",\"streetName\":\"rue des cafés\",\"buildingNumber\":\"14\",\"city\":\"Lille\",\"additionalLine\":\"osef\",\"postalCode\":\"59000\"},\"isEmergencyService\":null,\"name\":\"aaaa\",\"nationalUniqueIdentifier\":\"aaa\"},\"error\":null,\"metadataResults\":null},\"error\":null}";
 
-        rabbitListenerService.listenSendMessageDeadLetter(message);
+        final Message amqpMessage = MessageBuilder.withBody(message.getBytes(StandardCharsets.UTF_8)).build();
+
+        rabbitListenerService.listenSendMessageDeadLetter(amqpMessage);
 
         assertTrue(memoryAppender.containsFormattedLogMessage("Receive message for dead queue"));
         assertEquals(1, memoryAppender.countEventsForLogger(LOGGER_NAME, Level.ERROR));
+        verify(deadLetterService).park(amqpMessage, DeadLetterSourceEnum.SEND);
+        verify(uilRequestService).manageSendError(any());
     }
-}
 
+    @Test
+    void listenSendMessageDeadLetterShouldParkOnceWhenRetried() {
+        when(requestServiceFactory.getRequestServiceByRequestType(any(RequestTypeEnum.class))).thenReturn(uilRequestService);
+        doThrow(new TechnicalException("database down")).when(uilRequestService).manageSendError(any());
+        final Message amqpMessage = MessageBuilder.withBody("{\"control\":{\"requestType\":\"LOCAL_UIL_SEARCH\"}}".getBytes(StandardCharsets.UTF_8)).build();
+        final RetryTemplate retryTemplate = RetryTemplate.builder().maxAttempts(6).noBackoff().build();
+
+        assertThrows(TechnicalException.class, () -> retryTemplate.execute(context -> {
+            rabbitListenerService.listenSendMessageDeadLetter(amqpMessage);
+            return null;
+        }));
+
+        verify(uilRequestService, times(6)).manageSendError(any());
+        verify(deadLetterService).park(amqpMessage, DeadLetterSourceEnum.SEND);
+    }
+
+    @Test
+    void listenReceiveMessagesShouldAckHandledMessagesAndRejectTheOthers() throws IOException {
+        when(apIncomingService.manageIncomingNotifications(anyMap())).thenAnswer(invocation -> {
+            final Map<Long, ?> notifications = invocation.getArgument(0);
+            assertEquals(Set.of(1L, 3L), notifications.keySet());
+            return Set.of(3L);
+        });
+
+        rabbitListenerService.listenReceiveMessages(List.of(message(1, "{}"), message(2, "it's gonna explode"), message(3, "{}")), channel);
+
+        verify(channel).basicAck(1, false);
+        verify(channel).basicNack(2, false, false);
+        verify(channel).basicNack(3, false, false);
+    }
+
+    private static Message message(final long deliveryTag, final String body) {
+        final Message message = MessageBuilder.withBody(body.getBytes(StandardCharsets.UTF_8)).build();
+        message.getMessageProperties().setDeliveryTag(deliveryTag);
+        return message;
+    }
+}
@@ -5,27 +5,48 @@ import eu.efti.commons.dto.ControlDto;
 import eu.efti.commons.dto.UilRequestDto;
 import eu.efti.commons.enums.RequestStatusEnum;
 import eu.efti.commons.enums.RequestType;
+import eu.efti.commons.exception.TechnicalException;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 import static eu.efti.eftigate.EftiTestUtils.testFile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
-class RabbitSenderServiceTest {
+class RabbitSenderServiceTest extends AbstractServiceTest {
     private RabbitSenderService rabbitSenderService;
 
     @Mock
     private RabbitTemplate rabbitTemplate;
+    @Mock
+    private ConnectionFactory connectionFactory;
 
     @BeforeEach
     public void before() {
-        rabbitSenderService = new RabbitSenderService(rabbitTemplate);
+        rabbitSenderService = new RabbitSenderService(rabbitTemplate, objectMapper(), false, 1024, 30);
     }
 
     @Test
@@ -41,7 +62,86 @@ class RabbitSenderServiceTest {
 
         //Assert
         final String requestJson = testFile("/json/request.json");
+        final ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+
+        verify(rabbitTemplate).send(eq("exchange"), eq("key"), messageCaptor.capture());
+        assertEquals(StringUtils.deleteWhitespace(requestJson), new String(messageCaptor.getValue().getBody(), StandardCharsets.UTF_8));
+        assertEquals(MessageProperties.CONTENT_TYPE_JSON, messageCaptor.getValue().getMessageProperties().getContentType());
+        assertEquals(1, rabbitSenderService.getSendCount());
+    }
+
+    @Test
+    void shouldTrackConfirmsWhenPublisherConfirmsEnabled() throws JsonProcessingException {
+        when(rabbitTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+        when(connectionFactory.isPublisherConfirms()).thenReturn(true);
+        rabbitSenderService = new RabbitSenderService(rabbitTemplate, objectMapper(), true, 2, 0);
+
+        rabbitSenderService.sendMessageToRabbit("exchange", "key", "first");
+        rabbitSenderService.sendMessageToRabbit("exchange", "key", "second");
+
+        final ArgumentCaptor<CorrelationData> correlationCaptor = ArgumentCaptor.forClass(CorrelationData.class);
+        verify(rabbitTemplate, times(2)).send(eq("exchange"), eq("key"), any(Message.class), correlationCaptor.capture());
+        assertEquals(2, rabbitSenderService.getOutstandingConfirms());
+        assertThrows(TechnicalException.class, () -> rabbitSenderService.sendMessageToRabbit("exchange", "key", "third"));
+
+        correlationCaptor.getAllValues().get(0).getFuture().complete(new CorrelationData.Confirm(true, null));
+        correlationCaptor.getAllValues().get(1).getFuture().complete(new CorrelationData.Confirm(false, "nack"));
+
+        assertEquals(0, rabbitSenderService.getOutstandingConfirms());
+        assertEquals(1, rabbitSenderService.getAckCount());
+        assertEquals(1, rabbitSenderService.getNackCount());
+    }
+
+    @Test
+    void shouldPublishBatchOnOneChannelAndWaitForAllConfirms() {
+        when(rabbitTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+        when(connectionFactory.isPublisherConfirms()).thenReturn(true);
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation -> invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(rabbitTemplate));
+        doAnswer(invocation -> invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(true, null)))
+                .when(rabbitTemplate).send(eq("exchange"), eq("key"), any(Message.class), any(CorrelationData.class));
+        rabbitSenderService = new RabbitSenderService(rabbitTemplate, objectMapper(), true, 2, 1);
+
+        rabbitSenderService.sendMessagesToRabbit("exchange", "key", List.of("first", "second", "third"));
+
+        verify(rabbitTemplate).invoke(any());
+        verify(rabbitTemplate, times(3)).send(eq("exchange"), eq("key"), any(Message.class), any(CorrelationData.class));
+        assertEquals(3, rabbitSenderService.getAckCount());
+        assertEquals(3, rabbitSenderService.getSendCount());
+        assertEquals(0, rabbitSenderService.getOutstandingConfirms());
+    }
+
+    @Test
+    void shouldPublishJsonMessagesInOrderAndReportMissingConfirms() throws JsonProcessingException {
+        when(rabbitTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+        when(connectionFactory.isPublisherConfirms()).thenReturn(true);
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation -> invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(rabbitTemplate));
+        doAnswer(invocation -> invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(true, null)))
+                .when(rabbitTemplate).send(eq("exchange"), eq("EFTI.UIL"), any(Message.class), any(CorrelationData.class));
+        doAnswer(invocation -> invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(false, "nack")))
+                .when(rabbitTemplate).send(eq("exchange"), eq("EFTI.NOTE"), any(Message.class), any(CorrelationData.class));
+        rabbitSenderService = new RabbitSenderService(rabbitTemplate, objectMapper(), true, 2, 1);
+        final String json = rabbitSenderService.writeAsJson(List.of("first"));
+
+        assertTrue(rabbitSenderService.sendJsonMessagesToRabbit(List.of(new RabbitSenderService.JsonMessage("exchange", "EFTI.UIL", json))));
+        assertFalse(rabbitSenderService.sendJsonMessagesToRabbit(List.of(new RabbitSenderService.JsonMessage("exchange", "EFTI.UIL", json),
+                new RabbitSenderService.JsonMessage("exchange", "EFTI.NOTE", json))));
+
+        final ArgumentCaptor<Message> messageCaptor = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate, times(2)).send(eq("exchange"), eq("EFTI.UIL"), messageCaptor.capture(), any(CorrelationData.class));
+        assertEquals("[\"first\"]", new String(messageCaptor.getValue().getBody(), StandardCharsets.UTF_8));
+        assertEquals(MessageProperties.CONTENT_TYPE_JSON, messageCaptor.getValue().getMessageProperties().getContentType());
+        assertEquals(3, rabbitSenderService.getSendCount());
+    }
+
+    @Test
+    void shouldSendWithoutConfirmsWhenConnectionFactoryDoesNotSupportThem() throws JsonProcessingException {
+        when(rabbitTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+        rabbitSenderService = new RabbitSenderService(rabbitTemplate, objectMapper(), true, 2, 0);
+
+        rabbitSenderService.sendMessageToRabbit("exchange", "key", "message");
 
-        verify(rabbitTemplate).convertAndSend("exchange", "key", StringUtils.deleteWhitespace(requestJson));
+        assertFalse(rabbitSenderService.isPublisherConfirms());
+        verify(rabbitTemplate).send(eq("exchange"), eq("key"), any(Message.class));
+        assertTrue(rabbitSenderService.getSendNanos() > 0);
     }
 }
@@ -0,0 +1,129 @@
+package eu.efti.eftigate.service;
+
+import eu.efti.eftigate.repository.ReceivedMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReceivedMessageDeduplicatorTest {
+
+    private static final byte[] CONTENT = "<uilResponse/>".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private ReceivedMessageRepository receivedMessageRepository;
+
+    private ReceivedMessageDeduplicator deduplicator;
+    private final AtomicInteger handled = new AtomicInteger();
+
+    @BeforeEach
+    void before() {
+        deduplicator = new ReceivedMessageDeduplicator(receivedMessageRepository, true, 100_000, 3600, 300);
+    }
+
+    @Test
+    void shouldDropDuplicateFromCacheWithoutQueryingDatabase() {
+        when(receivedMessageRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertTrue(deduplicator.runOnce("id", CONTENT, handled::incrementAndGet));
+        assertFalse(deduplicator.runOnce("id", CONTENT, handled::incrementAndGet));
+
+        assertEquals(1, handled.get());
+        verify(receivedMessageRepository).saveAndFlush(any());
+        verify(receivedMessageRepository).markCompleted(eq("id"), anyString());
+        assertEquals(1, deduplicator.getUniqueCount());
+        assertEquals(1, deduplicator.getDuplicateCount());
+    }
+
+    @Test
+    void shouldHandleSameMessageIdWithOtherContent() {
+        when(receivedMessageRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertTrue(deduplicator.runOnce("id", CONTENT, handled::incrementAndGet));
+        assertTrue(deduplicator.runOnce("id", "<other/>".getBytes(StandardCharsets.UTF_8), handled::incrementAndGet));
+
+        assertEquals(2, handled.get());
+    }
+
+    @Test
+    void shouldDropDuplicateAlreadyHandledInDatabase() {
+        when(receivedMessageRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("received_message_unique"));
+        when(receivedMessageRepository.existsByMessageIdAndContentHashAndCompletedTrue(eq("id"), anyString())).thenReturn(true);
+
+        assertFalse(deduplicator.runOnce("id", CONTENT, handled::incrementAndGet));
+        assertFalse(deduplicator.runOnce("id", CONTENT, handled::incrementAndGet));
+
+        assertEquals(0, handled.get());
+        verify(receivedMessageRepository).saveAndFlush(any());
+        assertEquals(2, deduplicator.getDuplicateCount());
+    }
+
+    @Test
+    void shouldNotRememberDuplicateStillInProgress() {
+        when(receivedMessageRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("received_message_unique"));
+
+        assertFalse(deduplicator.runOnce("id", CONTENT, handled::incrementAndGet));
+        assertFalse(deduplicator.runOnce("id", CONTENT, handled::incrementAndGet));
+
+        assertEquals(0, handled.get());
+        verify(receivedMessageRepository, times(2)).saveAndFlush(any());
+    }
+
+    @Test
+    void shouldTakeOverClaimLeftInProgress() {
+        when(receivedMessageRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("received_message_unique"));
+        when(receivedMessageRepository.reclaimStale(eq("id"), anyString(), any(), any())).thenReturn(1);
+
+        assertTrue(deduplicator.runOnce("id", CONTENT, handled::incrementAndGet));
+
+        assertEquals(1, handled.get());
+        final ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        final ArgumentCaptor<LocalDateTime> staleBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(receivedMessageRepository).reclaimStale(eq("id"), anyString(), now.capture(), staleBefore.capture());
+        assertEquals(now.getValue().minusSeconds(300), staleBefore.getValue());
+        verify(receivedMessageRepository).markCompleted(eq("id"), anyString());
+    }
+
+    @Test
+    void shouldReleaseMessageWhenHandlingFails() {
+        when(receivedMessageRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertThrows(IllegalStateException.class, () -> deduplicator.runOnce("id", CONTENT, () -> {
+            throw new IllegalStateException("database down");
+        }));
+        assertTrue(deduplicator.runOnce("id", CONTENT, handled::incrementAndGet));
+
+        assertEquals(1, handled.get());
+        verify(receivedMessageRepository).release(eq("id"), anyString());
+        verify(receivedMessageRepository, times(2)).saveAndFlush(any());
+    }
+
+    @Test
+    void shouldAlwaysHandleWhenDisabled() {
+        deduplicator = new ReceivedMessageDeduplicator(receivedMessageRepository, false, 10, 60, 300);
+
+        assertTrue(deduplicator.runOnce("id", CONTENT, handled::incrementAndGet));
+        assertTrue(deduplicator.runOnce("id", CONTENT, handled::incrementAndGet));
+
+        assertEquals(2, handled.get());
+    }
+}
@@ -0,0 +1,136 @@
+package eu.efti.eftigate.service;
+
+import eu.efti.commons.dto.RequestDto;
+import eu.efti.commons.dto.UilRequestDto;
+import eu.efti.commons.enums.RequestType;
+import eu.efti.eftigate.config.RequestRetryProperties;
+import eu.efti.eftigate.entity.ControlEntity;
+import eu.efti.eftigate.entity.RequestEntity;
+import eu.efti.eftigate.entity.UilRequestEntity;
+import eu.efti.eftigate.repository.RequestRepository;
+import eu.efti.eftigate.service.request.RequestServiceFactory;
+import eu.efti.eftigate.service.request.UilRequestService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RequestRetryServiceTest extends AbstractServiceTest {
+    @Mock
+    private RequestRepository<RequestEntity> requestRepository;
+    @Mock
+    private RequestServiceFactory requestServiceFactory;
+    @Mock
+    private UilRequestService uilRequestService;
+
+    private final RequestRetryProperties properties = new RequestRetryProperties();
+    private RequestRetryService requestRetryService;
+
+    @BeforeEach
+    void before() {
+        properties.setEnabled(true);
+        properties.setMaxAttempts(3);
+        properties.setInitialInterval(10);
+        properties.setMaxInterval(30);
+        properties.setJitter(0);
+        requestRetryService = new RequestRetryService(properties, requestRepository, requestServiceFactory, mapperUtils);
+    }
+
+    @Test
+    void shouldScheduleRetriesWithExponentialBackoffUpToMaxInterval() {
+        assertEquals(Duration.ofSeconds(10), requestRetryService.backoff(1));
+        assertEquals(Duration.ofSeconds(20), requestRetryService.backoff(2));
+        assertEquals(Duration.ofSeconds(30), requestRetryService.backoff(3));
+    }
+
+    @Test
+    void shouldKeepJitterWithinBounds() {
+        properties.setJitter(0.5);
+        for (int i = 0; i < 100; i++) {
+            final long millis = requestRetryService.backoff(1).toMillis();
+            assertTrue(millis >= 5000 && millis <= 15000, "backoff " + millis);
+        }
+    }
+
+    @Test
+    void shouldRecordAttemptsUntilMaxAttempts() {
+        final RequestDto requestDto = RequestDto.builder().retry(0).build();
+
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            final LocalDateTime before = LocalDateTime.now();
+            assertTrue(requestRetryService.scheduleRetry(requestDto));
+            assertEquals(attempt, requestDto.getRetry());
+            assertTrue(requestDto.getNextRetryDate().isAfter(before));
+        }
+
+        assertFalse(requestRetryService.scheduleRetry(requestDto));
+        assertEquals(3, requestDto.getRetry());
+        assertNull(requestDto.getNextRetryDate());
+    }
+
+    @Test
+    void shouldDeferSendWithoutCountingAnAttempt() {
+        final RequestDto requestDto = RequestDto.builder().retry(2).build();
+        final LocalDateTime before = LocalDateTime.now();
+
+        requestRetryService.deferSend(requestDto);
+
+        assertEquals(2, requestDto.getRetry());
+        assertTrue(requestDto.getNextRetryDate().isAfter(before.plusSeconds(9)));
+    }
+
+    @Test
+    void shouldHoldAsynchronousSendUntilAcknowledged() {
+        final RequestDto requestDto = RequestDto.builder().id(7L).build();
+
+        requestRetryService.leaseSend(requestDto);
+
+        assertTrue(requestDto.getNextRetryDate().isAfter(LocalDateTime.now().plusSeconds(properties.getLease() - 10)));
+        requestRetryService.releaseSend(requestDto);
+        assertNull(requestDto.getNextRetryDate());
+        verify(requestRepository).clearNextRetryDate(7L);
+    }
+
+    @Test
+    void shouldClaimDueRequestsForTheLease() {
+        final UilRequestEntity request = new UilRequestEntity();
+        request.setId(7L);
+        request.setRequestType(RequestType.UIL.name());
+        request.setNextRetryDate(LocalDateTime.now().minusSeconds(1));
+        request.setControl(new ControlEntity());
+        when(requestRepository.findDueForRetry(any(), eq(1), eq(0), any())).thenReturn(List.of(request));
+
+        final List<RequestDto> claimed = requestRetryService.claimDueRequests();
+
+        assertEquals(1, claimed.size());
+        assertInstanceOf(UilRequestDto.class, claimed.get(0));
+        assertEquals(7L, claimed.get(0).getId());
+        assertTrue(request.getNextRetryDate().isAfter(LocalDateTime.now().plusSeconds(properties.getLease() - 10)));
+    }
+
+    @Test
+    void shouldPublishClaimedRequestsAgain() {
+        final RequestDto requestDto = RequestDto.builder().requestType(RequestType.UIL).build();
+        when(requestServiceFactory.getRequestServiceByRequestType(RequestType.UIL.name())).thenReturn(uilRequestService);
+
+        requestRetryService.republish(List.of(requestDto));
+
+        verify(uilRequestService).sendRequest(requestDto);
+    }
+}
@@ -1,22 +1,36 @@
 package eu.efti.eftigate.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.efti.commons.utils.JaxbMarshallerPool;
+import eu.efti.commons.utils.SerializeUtils;
+import eu.efti.commons.utils.ValidatorHandlerPool;
+import eu.efti.commons.utils.XmlMappingResult;
 import eu.efti.eftigate.service.request.ValidationService;
+import eu.efti.v1.edelivery.PostFollowUpRequest;
+import eu.efti.v1.edelivery.UILQuery;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Optional;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 
 @ExtendWith(MockitoExtension.class)
 class ValidationServiceTest {
 
     private ValidationService validationService;
+    private SerializeUtils serializeUtils;
 
     @BeforeEach
     void before() {
         validationService = new ValidationService();
+        serializeUtils = new SerializeUtils(new ObjectMapper());
     }
 
     @Test
@@ -32,9 +46,9 @@ class ValidationServiceTest {
                
                 </identifierQuery>""";
 
-        Optional<String> result = validationService.isXmlValid(body);
+        XmlMappingResult<Object> result = validateAndMap(body);
 
-        Assertions.assertTrue(result.isEmpty());
+        Assertions.assertTrue(result.isValid());
     }
 
     @Test
@@ -60,9 +74,9 @@ class ValidationServiceTest {
                 
                 </uilQuery>""";
 
-        Optional<String> result = validationService.isXmlValid(body);
+        XmlMappingResult<Object> result = validateAndMap(body);
 
-        Assertions.assertTrue(result.isEmpty());
+        Assertions.assertTrue(result.isValid());
     }
 
     @Test
@@ -267,18 +281,18 @@ class ValidationServiceTest {
                                
                  </ed:identifierResponse>""";
 
-        Optional<String> result = validationService.isXmlValid(body);
+        XmlMappingResult<Object> result = validateAndMap(body);
 
-        Assertions.assertTrue(result.isEmpty());
+        Assertions.assertTrue(result.isValid());
     }
 
     @Test
     void isXmlValideUilResponse() {
         String body = "<uilResponse xmlns=\"http://efti.eu/v1/edelivery\" xmlns:ns2=\"http://efti.eu/v1/consignment/common\" xmlns:ns3=\"http://efti.eu/v1/consignment/identifier\" requestId=\"67fe38bd-6bf7-4b06-b20e-206264bd639c\" status=\"200\"/>\n";
 
-        Optional<String> result = validationService.isXmlValid(body);
+        XmlMappingResult<Object> result = validateAndMap(body);
 
-        Assertions.assertTrue(result.isEmpty());
+        Assertions.assertTrue(result.isValid());
     }
 
     @Test
@@ -304,9 +318,9 @@ class ValidationServiceTest {
                 
                 </postFollowUpRequest>""";
 
-        Optional<String> result = validationService.isXmlValid(body);
+        XmlMappingResult<Object> result = validateAndMap(body);
 
-        Assertions.assertTrue(result.isEmpty());
+        Assertions.assertTrue(result.isValid());
     }
 
     @Test
@@ -330,8 +344,76 @@ class ValidationServiceTest {
                 
                 "</postFollowUpRequest>""";
 
-        Optional<String> result = validationService.isXmlValid(body);
+        XmlMappingResult<Object> result = validateAndMap(body);
 
-        Assertions.assertTrue(result.isPresent());
+        Assertions.assertFalse(result.isValid());
+    }
+
+    @Test
+    void shouldValidateAndMapInOnePass() {
+        String body = """
+                <uilQuery xmlns="http://efti.eu/v1/edelivery" requestId="67fe38bd-6bf7-4b06-b20e-206264bd639c">
+                  <uil>
+                    <gateId>FI1</gateId>
+                    <platformId>xxx</platformId>
+                    <datasetId>asdf</datasetId>
+                  </uil>
+                  <subsetId>FI</subsetId>
+                </uilQuery>""";
+
+        XmlMappingResult<UILQuery> result = serializeUtils
+                .validateAndMapXmlStringToJaxbObject(body, validationService.getGateSchema());
+
+        Assertions.assertTrue(result.isValid());
+        Assertions.assertEquals("asdf", result.value().getUil().getDatasetId());
+    }
+
+    @Test
+    void shouldCollectAllValidationErrorsInOnePass() {
+        String body = """
+                <postFollowUpRequest xmlns="http://efti.eu/v1/edelivery">
+                 <uil>
+                     <gateId>gate</gateId>
+                     <platformId>acme</platformId>
+                 </uil>
+                 <message>message</message>
+                 <unexpected/>
+                </postFollowUpRequest>""";
+
+        XmlMappingResult<PostFollowUpRequest> result = serializeUtils
+                .validateAndMapXmlStringToJaxbObject(body, validationService.getGateSchema());
+
+        Assertions.assertFalse(result.isValid());
+        Assertions.assertNull(result.value());
+        Assertions.assertTrue(result.errors().size() > 1);
+    }
+
+    @Test
+    void shouldValidateConcurrentlyWithBoundedPool() throws Exception {
+        SerializeUtils boundedSerializeUtils = new SerializeUtils(new ObjectMapper(), JaxbMarshallerPool.DEFAULT_MAX_SIZE, 2);
+        String valid = "<uilResponse xmlns=\"http://efti.eu/v1/edelivery\" requestId=\"67fe38bd-6bf7-4b06-b20e-206264bd639c\" status=\"200\"/>";
+        String invalid = "<uilResponse xmlns=\"http://efti.eu/v1/edelivery\" status=\"999\"/>";
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> tasks = IntStream.range(0, 200)
+                    .<Callable<Boolean>>mapToObj(i -> () -> boundedSerializeUtils
+                            .validateAndMapXmlStringToJaxbObject(i % 2 == 0 ? valid : invalid, validationService.getGateSchema())
+                            .isValid() == (i % 2 == 0))
+                    .toList();
+            for (Future<Boolean> future : executor.invokeAll(tasks)) {
+                Assertions.assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        ValidatorHandlerPool pool = boundedSerializeUtils.getValidatorPool();
+        Assertions.assertEquals(2, pool.getCreatedCount());
+        Assertions.assertEquals(2, pool.getIdleCount());
+        Assertions.assertEquals(200, pool.getValidationCount());
+    }
+
+    private XmlMappingResult<Object> validateAndMap(String body) {
+        return serializeUtils.validateAndMapXmlStringToJaxbObject(body, validationService.getGateSchema());
     }
 }
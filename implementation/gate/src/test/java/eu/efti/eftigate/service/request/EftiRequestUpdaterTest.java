@@ -1,7 +1,9 @@
 package eu.efti.eftigate.service.request;
 
 import eu.efti.commons.dto.ControlDto;
+import eu.efti.commons.enums.RequestStatusEnum;
 import eu.efti.commons.enums.RequestTypeEnum;
+import eu.efti.commons.enums.StatusEnum;
 import eu.efti.edeliveryapconnector.dto.NotificationContentDto;
 import eu.efti.edeliveryapconnector.dto.NotificationDto;
 import eu.efti.edeliveryapconnector.dto.NotificationType;
@@ -17,8 +19,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
+import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -86,4 +92,36 @@ class EftiRequestUpdaterTest extends BaseServiceTest {
         verify(uilRequestService).manageSendSuccess(messageId);
     }
 
+    @Test
+    void shouldManageSendNotificationsWithOneLookupAndBulkUpdates() {
+        requestEntity.setStatus(RequestStatusEnum.RESPONSE_IN_PROGRESS);
+        requestEntity.getControl().setId(10);
+        final UilRequestEntity failedRequest = new UilRequestEntity();
+        failedRequest.setId(2L);
+        failedRequest.setEdeliveryMessageId("failedMessageId");
+        failedRequest.setControl(new ControlEntity());
+        when(requestRepository.findByEdeliveryMessageIdIn(Set.of("messageId", "failedMessageId", "unknownMessageId")))
+                .thenReturn(List.of(requestEntity, failedRequest));
+
+        final Set<String> failedMessageIds = eftiRequestUpdater.manageSendNotifications(List.of(
+                notification(NotificationType.SEND_SUCCESS, "messageId"),
+                notification(NotificationType.SEND_FAILURE, "failedMessageId"),
+                notification(NotificationType.SEND_SUCCESS, "unknownMessageId")));
+
+        assertTrue(failedMessageIds.isEmpty());
+        verify(requestRepository).updateStatusByIdIn(eq(RequestStatusEnum.SUCCESS), any(), eq(Set.of(1L)));
+        verify(requestRepository).updateStatusByIdIn(eq(RequestStatusEnum.SEND_ERROR), any(), eq(Set.of(2L)));
+        verify(controlService).updateStatus(Set.of(10), StatusEnum.COMPLETE);
+        verify(requestRepository, never()).findByEdeliveryMessageId(any());
+    }
+
+    private static NotificationDto notification(final NotificationType notificationType, final String messageId) {
+        return NotificationDto.builder()
+                .notificationType(notificationType)
+                .messageId(messageId)
+                .content(NotificationContentDto.builder()
+                        .messageId(messageId)
+                        .build())
+                .build();
+    }
 }
@@ -2,6 +2,7 @@ package eu.efti.eftigate.service.request;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import eu.efti.commons.dto.IdentifiersRequestDto;
+import eu.efti.commons.dto.RequestDto;
 import eu.efti.commons.dto.SaveIdentifiersRequestWrapper;
 import eu.efti.commons.dto.identifiers.ConsignmentDto;
 import eu.efti.commons.dto.identifiers.UsedTransportEquipmentDto;
@@ -16,6 +17,7 @@ import eu.efti.eftigate.entity.IdentifiersResults;
 import eu.efti.eftigate.exception.RequestNotFoundException;
 import eu.efti.eftigate.repository.IdentifiersRequestRepository;
 import eu.efti.eftigate.service.BaseServiceTest;
+import eu.efti.identifiersregistry.service.IdentifiersSearchResult;
 import eu.efti.identifiersregistry.service.IdentifiersService;
 import eu.efti.v1.codes.TransportEquipmentCategoryCode;
 import org.junit.jupiter.api.BeforeEach;
@@ -38,6 +40,7 @@ import java.util.Optional;
 import java.util.stream.Stream;
 
 import static eu.efti.commons.enums.RequestStatusEnum.IN_PROGRESS;
+import static eu.efti.commons.enums.RequestStatusEnum.RECEIVED;
 import static eu.efti.commons.enums.RequestStatusEnum.RESPONSE_IN_PROGRESS;
 import static eu.efti.commons.enums.RequestStatusEnum.SUCCESS;
 import static eu.efti.commons.enums.StatusEnum.COMPLETE;
@@ -118,6 +121,23 @@ class IdentifiersRequestServiceTest extends BaseServiceTest {
         assertEquals("https://efti.platform.borduria.eu", requestDtoArgumentCaptor.getValue().getGateIdDest());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldSaveAndSendRequestsToAllGatesInOneBatch() {
+        //Arrange
+        when(identifiersRequestRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        final ArgumentCaptor<List<RequestDto>> sentCaptor = ArgumentCaptor.forClass(List.class);
+
+        //Act
+        identifiersRequestService.createAndSendRequests(controlDto, List.of("borduria", "syldavia"));
+
+        //Assert
+        verify(identifiersRequestRepository, never()).save(any());
+        verify(rabbitSenderService).sendMessagesToRabbit(any(), any(), sentCaptor.capture());
+        assertEquals(List.of("borduria", "syldavia"), sentCaptor.getValue().stream().map(RequestDto::getGateIdDest).toList());
+        assertEquals(List.of(RECEIVED, RECEIVED), sentCaptor.getValue().stream().map(RequestDto::getStatus).toList());
+    }
+
     @Test
     void shouldCreateRequest() {
         //Arrange
@@ -152,7 +172,7 @@ class IdentifiersRequestServiceTest extends BaseServiceTest {
         when(controlService.createControlFrom(any(), any())).thenReturn(controlDto);
         when(controlService.updateControl(any())).thenReturn(controlDto);
         when(identifiersRequestRepository.save(any())).thenReturn(identifiersRequestEntity);
-        when(validationService.isXmlValid(any())).thenReturn(Optional.empty());
+        when(identifiersService.search(any())).thenReturn(new IdentifiersSearchResult(List.of(), false));
         //Act
         identifiersRequestService.manageQueryReceived(notificationDto);
 
@@ -177,7 +197,6 @@ class IdentifiersRequestServiceTest extends BaseServiceTest {
         identifiersRequestEntity.setStatus(IN_PROGRESS);
         controlEntity.setRequests(List.of(identifiersRequestEntity));
 
-        when(validationService.isXmlValid(any())).thenReturn(Optional.empty());
         when(controlService.findByRequestId(any())).thenReturn(Optional.of(controlEntity));
         when(identifiersRequestRepository.findByControlRequestIdAndGateIdDest(any(), any())).thenReturn(identifiersRequestEntity);
 
@@ -325,7 +344,6 @@ class IdentifiersRequestServiceTest extends BaseServiceTest {
                         .body(testFile("/xml/SaveIdentifierRequest.xml"))
                         .build())
                 .build();
-        when(validationService.isXmlValid(anyString())).thenReturn(Optional.empty());
         identifiersRequestService.createOrUpdate(notificationDto);
 
         verify(identifiersService).createOrUpdate(any(SaveIdentifiersRequestWrapper.class));
@@ -337,10 +355,10 @@ class IdentifiersRequestServiceTest extends BaseServiceTest {
                 .notificationType(NotificationType.RECEIVED)
                 .content(NotificationContentDto.builder()
                         .messageId(MESSAGE_ID)
-                        .body(testFile("/xml/SaveIdentifierRequest.xml"))
+                        .body("<saveIdentifiersRequest xmlns=\"http://efti.eu/v1/edelivery\"/>")
                         .build())
                 .build();
-        when(validationService.isXmlValid(anyString())).thenReturn(Optional.of("error!"));
+        when(validationService.getGateSchema()).thenReturn(new ValidationService().getGateSchema());
         identifiersRequestService.createOrUpdate(notificationDto);
 
         verify(identifiersService, never()).createOrUpdate(any(SaveIdentifiersRequestWrapper.class));
@@ -4,11 +4,13 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import eu.efti.commons.dto.ControlDto;
 import eu.efti.commons.dto.RequestDto;
+import eu.efti.commons.enums.RequestType;
 import eu.efti.commons.enums.RequestTypeEnum;
 import eu.efti.commons.utils.MemoryAppender;
 import eu.efti.edeliveryapconnector.dto.NotificationContentDto;
 import eu.efti.edeliveryapconnector.dto.NotificationDto;
 import eu.efti.eftigate.config.GateProperties;
+import eu.efti.eftigate.service.OutboxService;
 import eu.efti.eftigate.service.RabbitSenderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,11 +23,15 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.LoggerFactory;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.List;
+import java.util.function.Supplier;
+
 import static eu.efti.commons.enums.RequestStatusEnum.SUCCESS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,6 +40,8 @@ class RequestServiceTest {
 
     @Mock
     RabbitSenderService rabbitSenderService;
+    @Mock
+    OutboxService outboxService;
 
     private MemoryAppender memoryAppender;
 
@@ -91,4 +99,58 @@ class RequestServiceTest {
         verify(requestService).sendRequest(requestDtoArgumentCaptor.capture());
         assertEquals("requestId", requestDtoArgumentCaptor.getValue().getControl().getRequestId());
     }
+
+    @Test
+    void shouldRouteRequestsToTheirLaneWhenSendLanesEnabled() throws Exception {
+        RequestService requestService = Mockito.mock(RequestService.class, Mockito.CALLS_REAL_METHODS);
+        ReflectionTestUtils.setField(requestService, "rabbitSenderService", rabbitSenderService);
+        ReflectionTestUtils.setField(requestService, "eftiSendMessageExchange", "exchange");
+        ReflectionTestUtils.setField(requestService, "eftiKeySendMessage", "EFTI");
+        ReflectionTestUtils.setField(requestService, "sendLanesEnabled", true);
+        final RequestDto uil = RequestDto.builder().requestType(RequestType.UIL).control(ControlDto.builder().requestType(RequestTypeEnum.EXTERNAL_UIL_SEARCH).build()).build();
+        final RequestDto identifiers = RequestDto.builder().requestType(RequestType.IDENTIFIER).control(ControlDto.builder().requestType(RequestTypeEnum.EXTERNAL_IDENTIFIERS_SEARCH).build()).build();
+        final RequestDto response = RequestDto.builder().requestType(RequestType.UIL).control(ControlDto.builder().requestType(RequestTypeEnum.EXTERNAL_ASK_UIL_SEARCH).build()).build();
+
+        requestService.sendRequest(uil);
+        requestService.sendRequests(List.of(identifiers, response, identifiers));
+
+        verify(rabbitSenderService).sendMessageToRabbit("exchange", "EFTI.UIL", uil);
+        verify(rabbitSenderService).sendMessagesToRabbit(eq("exchange"), eq("EFTI.IDENTIFIER"), eq(List.of(identifiers, identifiers)));
+        verify(rabbitSenderService).sendMessagesToRabbit(eq("exchange"), eq("EFTI.RESPONSE"), eq(List.of(response)));
+    }
+
+    @Test
+    void shouldRouteRequestWithoutTypeToDefaultQueueWhenSendLanesEnabled() throws Exception {
+        RequestService requestService = Mockito.mock(RequestService.class, Mockito.CALLS_REAL_METHODS);
+        ReflectionTestUtils.setField(requestService, "rabbitSenderService", rabbitSenderService);
+        ReflectionTestUtils.setField(requestService, "eftiSendMessageExchange", "exchange");
+        ReflectionTestUtils.setField(requestService, "eftiKeySendMessage", "EFTI");
+        ReflectionTestUtils.setField(requestService, "sendLanesEnabled", true);
+        final RequestDto untyped = RequestDto.builder().control(ControlDto.builder().requestType(RequestTypeEnum.EXTERNAL_UIL_SEARCH).build()).build();
+
+        requestService.sendRequest(untyped);
+
+        verify(rabbitSenderService).sendMessageToRabbit("exchange", "EFTI", untyped);
+    }
+
+    @Test
+    void shouldSaveRequestsWithTheirMessagesWhenOutboxEnabled() {
+        final RequestService requestService = Mockito.mock(RequestService.class, Mockito.CALLS_REAL_METHODS);
+        ReflectionTestUtils.setField(requestService, "rabbitSenderService", rabbitSenderService);
+        requestService.setOutboxService(outboxService);
+        ReflectionTestUtils.setField(requestService, "eftiSendMessageExchange", "exchange");
+        ReflectionTestUtils.setField(requestService, "eftiKeySendMessage", "EFTI");
+        final ControlDto controlDto = ControlDto.builder().id(3).gateId("borduria").build();
+        final RequestDto requestDto = RequestDto.builder().control(controlDto).build();
+        when(outboxService.isEnabled()).thenReturn(true);
+        when(requestService.createRequest(controlDto)).thenReturn(requestDto);
+        when(requestService.save(requestDto)).thenReturn(requestDto);
+        when(outboxService.saveAndEnqueue(any(), eq("exchange"), any())).thenAnswer(invocation -> invocation.<Supplier<List<RequestDto>>>getArgument(0).get());
+
+        requestService.createAndSendRequest(controlDto, null);
+
+        verify(requestService).save(requestDto);
+        verify(outboxService).saveAndEnqueue(any(), eq("exchange"), any());
+        Mockito.verifyNoInteractions(rabbitSenderService);
+    }
 }
@@ -34,8 +34,9 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Stream;
 
 import static eu.efti.commons.enums.RequestStatusEnum.ERROR;
@@ -161,7 +162,6 @@ class UilRequestServiceTest extends BaseServiceTest {
 
         Mockito.when(uilRequestRepository.findByControlRequestIdAndStatus(any(), any())).thenReturn(uilRequestEntity);
         Mockito.when(uilRequestRepository.save(any())).thenReturn(uilRequestEntity);
-        Mockito.when(validationService.isXmlValid(any())).thenReturn(Optional.empty());
 
         uilRequestService.manageResponseReceived(notificationDto);
 
@@ -200,7 +200,6 @@ class UilRequestServiceTest extends BaseServiceTest {
         Mockito.when(uilRequestRepository.findByControlRequestIdAndStatus(any(), any())).thenReturn(uilRequestEntityError);
         Mockito.when(uilRequestRepository.save(any())).thenReturn(uilRequestEntityError);
         Mockito.when(controlService.save(any(ControlDto.class))).thenReturn(savedControlDto);
-        Mockito.when(validationService.isXmlValid(any())).thenReturn(Optional.empty());
 
         uilRequestService.manageResponseReceived(notificationDto);
 
@@ -239,7 +238,6 @@ class UilRequestServiceTest extends BaseServiceTest {
         Mockito.when(uilRequestRepository.findByControlRequestIdAndStatus(any(), any())).thenReturn(uilRequestEntityError);
         Mockito.when(uilRequestRepository.save(any())).thenReturn(uilRequestEntityError);
         Mockito.when(controlService.save(any(ControlDto.class))).thenReturn(savedControlDto);
-        Mockito.when(validationService.isXmlValid(any())).thenReturn(Optional.empty());
 
         uilRequestService.manageResponseReceived(notificationDto);
 
@@ -277,7 +275,6 @@ class UilRequestServiceTest extends BaseServiceTest {
         Mockito.when(uilRequestRepository.findByControlRequestIdAndStatus(any(), any())).thenReturn(uilRequestEntityError);
         Mockito.when(uilRequestRepository.save(any())).thenReturn(uilRequestEntityError);
         Mockito.when(controlService.save(any(ControlDto.class))).thenReturn(savedControlDto);
-        Mockito.when(validationService.isXmlValid(any())).thenReturn(Optional.empty());
 
         uilRequestService.manageResponseReceived(notificationDto);
 
@@ -312,7 +309,6 @@ class UilRequestServiceTest extends BaseServiceTest {
                         .build())
                 .build();
 
-        Mockito.when(validationService.isXmlValid(any())).thenReturn(Optional.empty());
 
         uilRequestService.manageResponseReceived(notificationDto);
 
@@ -344,7 +340,7 @@ class UilRequestServiceTest extends BaseServiceTest {
                         .build())
                 .build();
 
-        Mockito.when(validationService.isXmlValid(any())).thenReturn(Optional.of("présent"));
+        Mockito.when(validationService.getGateSchema()).thenReturn(new ValidationService().getGateSchema());
 
         uilRequestService.manageResponseReceived(notificationDto);
 
@@ -375,7 +371,6 @@ class UilRequestServiceTest extends BaseServiceTest {
                         .build())
                 .build();
 
-        when(validationService.isXmlValid(any())).thenReturn(Optional.empty());
 
         uilRequestService.manageResponseReceived(notificationDto);
 
@@ -406,7 +401,6 @@ class UilRequestServiceTest extends BaseServiceTest {
                         .build())
                 .build();
 
-        when(validationService.isXmlValid(any())).thenReturn(Optional.empty());
 
         uilRequestService.manageResponseReceived(notificationDto);
 
@@ -439,7 +433,6 @@ class UilRequestServiceTest extends BaseServiceTest {
                 .build();
         final ArgumentCaptor<ControlDto> argumentCaptorControlDto = ArgumentCaptor.forClass(ControlDto.class);
 
-        when(validationService.isXmlValid(any())).thenReturn(Optional.empty());
 
         uilRequestService.manageQueryReceived(notificationDto);
         verify(controlService).createUilControl(argumentCaptorControlDto.capture());
@@ -486,7 +479,6 @@ class UilRequestServiceTest extends BaseServiceTest {
         final ArgumentCaptor<UilRequestEntity> requestEntityArgumentCaptor = ArgumentCaptor.forClass(UilRequestEntity.class);
         uilRequestEntity.getControl().setFromGateId("other");
 
-        when(validationService.isXmlValid(any())).thenReturn(Optional.empty());
         when(uilRequestRepository.findByControlRequestIdAndStatus(any(), any())).thenReturn(uilRequestEntity);
         when(uilRequestRepository.save(any())).thenReturn(uilRequestEntity);
 
@@ -517,7 +509,6 @@ class UilRequestServiceTest extends BaseServiceTest {
                 .build();
         when(uilRequestRepository.findByControlRequestIdAndStatus(any(), any())).thenReturn(uilRequestEntity);
         when(uilRequestRepository.save(any())).thenReturn(uilRequestEntity);
-        when(validationService.isXmlValid(any())).thenReturn(Optional.empty());
         uilRequestService.manageResponseReceived(notificationDto);
 
         verify(uilRequestRepository).save(uilRequestEntityArgumentCaptor.capture());
@@ -546,7 +537,6 @@ class UilRequestServiceTest extends BaseServiceTest {
                 .build();
         when(uilRequestRepository.findByControlRequestIdAndStatus(any(), any())).thenReturn(uilRequestEntity);
         when(uilRequestRepository.save(any())).thenReturn(uilRequestEntity);
-        when(validationService.isXmlValid(any())).thenReturn(Optional.empty());
 
         uilRequestService.manageResponseReceived(notificationDto);
 
@@ -585,7 +575,6 @@ class UilRequestServiceTest extends BaseServiceTest {
                         .build())
                 .build();
         when(uilRequestRepository.findByControlRequestIdAndStatus(any(), any())).thenReturn(null);
-        when(validationService.isXmlValid(any())).thenReturn(Optional.empty());
 
         uilRequestService.manageResponseReceived(notificationDto);
 
@@ -642,6 +631,38 @@ class UilRequestServiceTest extends BaseServiceTest {
         assertThat(expectedRequestBody, isIdenticalTo(requestBody).ignoreWhitespace());
     }
 
+    @Test
+    void shouldStreamResponseBody_whenResponseHasData() {
+        controlDto.setRequestType(RequestTypeEnum.EXTERNAL_ASK_UIL_SEARCH);
+        final RabbitRequestDto rabbitRequestDto = new RabbitRequestDto();
+        rabbitRequestDto.setControl(controlDto);
+        rabbitRequestDto.setStatus(RequestStatusEnum.RESPONSE_IN_PROGRESS);
+        rabbitRequestDto.setReponseData("<consignment xmlns=\"http://efti.eu/v1/consignment/common\"><deliveryInformation>handle with care</deliveryInformation></consignment>"
+                .getBytes(StandardCharsets.UTF_8));
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        uilRequestService.writeRequestBody(rabbitRequestDto, outputStream);
+
+        assertTrue(uilRequestService.isStreamedBody(rabbitRequestDto));
+        final String streamedBody = outputStream.toString(StandardCharsets.UTF_8);
+        assertTrue(streamedBody.contains("handle with care"));
+        assertThat(uilRequestService.buildRequestBody(rabbitRequestDto), isIdenticalTo(streamedBody));
+    }
+
+    @Test
+    void shouldNotStreamBody_whenReceived() {
+        controlDto.setRequestType(RequestTypeEnum.EXTERNAL_UIL_SEARCH);
+        final RabbitRequestDto rabbitRequestDto = new RabbitRequestDto();
+        rabbitRequestDto.setControl(controlDto);
+        rabbitRequestDto.setStatus(RequestStatusEnum.RECEIVED);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        uilRequestService.writeRequestBody(rabbitRequestDto, outputStream);
+
+        assertFalse(uilRequestService.isStreamedBody(rabbitRequestDto));
+        assertEquals(uilRequestService.buildRequestBody(rabbitRequestDto), outputStream.toString(StandardCharsets.UTF_8));
+    }
+
     @Test
     void shouldBuildRequestBody_whenReceived() {
         controlDto.setRequestType(RequestTypeEnum.EXTERNAL_UIL_SEARCH);
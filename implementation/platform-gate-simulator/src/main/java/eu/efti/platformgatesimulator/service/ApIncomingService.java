@@ -2,12 +2,12 @@ package eu.efti.platformgatesimulator.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import eu.efti.commons.utils.SerializeUtils;
+import eu.efti.commons.utils.XmlRootElementSniffer;
 import eu.efti.platformgatesimulator.mapper.MapperUtils;
 import eu.efti.v1.consignment.common.SupplyChainConsignment;
 import eu.efti.v1.edelivery.ObjectFactory;
 import eu.efti.v1.edelivery.PostFollowUpRequest;
 import eu.efti.v1.edelivery.UILQuery;
-import eu.efti.v1.edelivery.UILResponse;
 import eu.efti.v1.json.SaveIdentifiersRequest;
 import eu.efti.edeliveryapconnector.dto.ApConfigDto;
 import eu.efti.edeliveryapconnector.dto.ApRequestDto;
@@ -20,18 +20,23 @@ import eu.efti.edeliveryapconnector.service.NotificationService;
 import eu.efti.edeliveryapconnector.service.RequestSendingService;
 import eu.efti.platformgatesimulator.config.GateProperties;
 import eu.efti.v1.edelivery.IdentifierQuery;
-import eu.efti.v1.edelivery.IdentifierResponse;
 import jakarta.xml.bind.JAXBElement;
-import jakarta.xml.bind.annotation.XmlType;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.Optional;
 import java.util.UUID;
 
+import static eu.efti.commons.utils.XmlRootElementSniffer.IDENTIFIER_QUERY;
+import static eu.efti.commons.utils.XmlRootElementSniffer.IDENTIFIER_RESPONSE;
+import static eu.efti.commons.utils.XmlRootElementSniffer.POST_FOLLOW_UP_REQUEST;
+import static eu.efti.commons.utils.XmlRootElementSniffer.UIL_QUERY;
+import static eu.efti.commons.utils.XmlRootElementSniffer.UIL_RESPONSE;
+
 @Service
 @AllArgsConstructor
 @Slf4j
@@ -76,28 +81,17 @@ public class ApIncomingService {
         }
 
         final NotificationContentDto notificationContentDto = notificationDto.get().getContent();
+        final QName root = XmlRootElementSniffer.sniff(notificationContentDto.getBody()).orElse(null);
 
-        final XmlType queryAnnotationUilResponse = UILResponse.class.getAnnotation((XmlType.class));
-        if (StringUtils.containsIgnoreCase(notificationContentDto.getBody(), "<" + queryAnnotationUilResponse.name())) {
+        if (UIL_RESPONSE.equals(root)) {
             log.info("Receive UilResponse");
-            return;
-        }
-        final XmlType responseIdentifierAnnotation = IdentifierResponse.class.getAnnotation((XmlType.class));
-        if (StringUtils.containsIgnoreCase(notificationContentDto.getBody(), "<" + responseIdentifierAnnotation.name())) {
+        } else if (IDENTIFIER_RESPONSE.equals(root)) {
             log.info("Receive IdentifierResponse");
-            return;
-        }
-
-        final XmlType queryAnnotationIdentifierQuery = IdentifierQuery.class.getAnnotation((XmlType.class));
-        if (StringUtils.containsIgnoreCase(notificationContentDto.getBody(), "<" + queryAnnotationIdentifierQuery.name())) {
-            final IdentifierQuery identifierQuery = serializeUtils.mapXmlStringToJaxbObject(notificationContentDto.getBody());
+        } else if (IDENTIFIER_QUERY.equals(root)) {
+            final IdentifierQuery identifierQuery = serializeUtils.unmarshal(new ByteArrayInputStream(notificationContentDto.getBody()));
             identifierService.sendResponseIdentifier(identifierQuery, notificationDto.get());
-            return;
-        }
-
-        final XmlType queryAnnotation = UILQuery.class.getAnnotation((XmlType.class));
-        if (StringUtils.containsIgnoreCase(notificationContentDto.getBody(), "<" + queryAnnotation.name())) {
-            final UILQuery uilQuery = serializeUtils.mapXmlStringToJaxbObject(notificationContentDto.getBody());
+        } else if (UIL_QUERY.equals(root)) {
+            final UILQuery uilQuery = serializeUtils.unmarshal(new ByteArrayInputStream(notificationContentDto.getBody()));
             final String datasetId = uilQuery.getUil().getDatasetId();
             if (datasetId.endsWith("1")) {
                 log.info("id {} end with 1, not responding", datasetId);
@@ -109,9 +103,11 @@ public class ApIncomingService {
             } catch (IOException e) {
                 log.error("Error can't read file");
             }
-        } else {
-            final PostFollowUpRequest messageBody = serializeUtils.mapXmlStringToJaxbObject(notificationDto.get().getContent().getBody());
+        } else if (POST_FOLLOW_UP_REQUEST.equals(root)) {
+            final PostFollowUpRequest messageBody = serializeUtils.unmarshal(new ByteArrayInputStream(notificationContentDto.getBody()));
             log.info("note \"{}\" received for request with id {}", messageBody.getMessage(), messageBody.getRequestId());
+        } else {
+            log.warn("ignoring message {} with unknown root element {}", notificationDto.get().getMessageId(), root);
         }
     }
 
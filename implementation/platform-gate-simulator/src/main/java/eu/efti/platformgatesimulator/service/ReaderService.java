@@ -1,12 +1,12 @@
 package eu.efti.platformgatesimulator.service;
 
 import eu.efti.commons.exception.TechnicalException;
+import eu.efti.commons.utils.JaxbContextRegistry;
 import eu.efti.platformgatesimulator.config.GateProperties;
 import eu.efti.platformgatesimulator.exception.UploadException;
 import eu.efti.platformgatesimulator.utils.SubsetUtils;
 import eu.efti.v1.consignment.common.ObjectFactory;
 import eu.efti.v1.consignment.common.SupplyChainConsignment;
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBElement;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Unmarshaller;
@@ -67,7 +67,7 @@ public class ReaderService {
                 return null;
             }
             try {
-                final Unmarshaller unmarshaller = JAXBContext.newInstance(ObjectFactory.class).createUnmarshaller();
+                final Unmarshaller unmarshaller = JaxbContextRegistry.getContext(ObjectFactory.class).createUnmarshaller();
                 final JAXBElement<SupplyChainConsignment> jaxbElement = (JAXBElement<SupplyChainConsignment>) unmarshaller.unmarshal(new InputSource(new StringReader(str.get())));
                 return jaxbElement.getValue();
             } catch (JAXBException e) {
@@ -17,6 +17,8 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.io.Serializable;
@@ -66,6 +68,7 @@ public class Consignment extends AbstractModel implements Serializable {
     @Builder.Default
     @ToString.Exclude
     @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, orphanRemoval = true, mappedBy = "consignment")
+    @Fetch(FetchMode.SUBSELECT)
     private List<UsedTransportEquipment> usedTransportEquipments = new ArrayList<>();
 
     public void setUsedTransportEquipments(List<UsedTransportEquipment> usedTransportEquipments) {
@@ -1,122 +1,95 @@
 package eu.efti.identifiersregistry.repository;
 
 import eu.efti.commons.dto.SearchWithIdentifiersRequestDto;
-import eu.efti.identifiersregistry.entity.CarriedTransportEquipment;
 import eu.efti.identifiersregistry.entity.Consignment;
-import eu.efti.identifiersregistry.entity.MainCarriageTransportMovement;
-import eu.efti.identifiersregistry.entity.UsedTransportEquipment;
-import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
-import jakarta.persistence.criteria.Predicate;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public interface IdentifiersRepository extends JpaRepository<Consignment, Long>, JpaSpecificationExecutor<Consignment> {
 
-    String VEHICLE_COUNTRY = "registrationCountry";
-    String TRANSPORT_MODE = "modeCode";
-    String IS_DANGEROUS_GOODS = "dangerousGoodsIndicator";
-    String MOVEMENTS = "mainCarriageTransportMovements";
-    String TRANSPORT_VEHICLES = "usedTransportEquipments";
-    String VEHICLE_ID = "equipmentId";
     String EQUIPMENT = "equipment";
     String CARRIED = "carried";
     String MEANS = "means";
-    String CARRIED_TRANSPORT_EQUIPMENTS = "carriedTransportEquipments";
-    String USED_TRANSPORT_MEANS_REGISTRATION_COUNTRY = "usedTransportMeansRegistrationCountry";
-    String USED_TRANSPORT_MEANS_ID = "usedTransportMeansId";
+    // consignments returned by a search at most
+    int MAX_RESULTS = 1000;
 
     @Query(value = "SELECT c FROM Consignment c where c.gateId = :gate and c.datasetId = :uuid and c.platformId = :platform")
     Optional<Consignment> findByUil(final String gate, final String uuid, final String platform);
 
+    /**
+     * First max-results consignments matching the search, in id order: the ids of the consignments matching any of the
+     * identifier types are looked up by a single union, then their graphs are fetched together.
+     */
     default List<Consignment> searchByCriteria(final SearchWithIdentifiersRequestDto request) {
-        final Set<Consignment> results = new HashSet<>();
-        List<String> identifierTypes = request.getIdentifierType();
-        if (CollectionUtils.isNotEmpty(identifierTypes)) {
-            identifierTypes.forEach(identifierType -> {
-                if (MEANS.equalsIgnoreCase(identifierType)) {
-                    results.addAll(findAllForMeans(request));
-                } else if (EQUIPMENT.equalsIgnoreCase(identifierType)) {
-                    results.addAll(findAllForEquipment(request));
-                } else if (CARRIED.equalsIgnoreCase(identifierType)) {
-                    results.addAll(findAllForCarried(request));
-                }
-            });
-        } else {
-            results.addAll(Stream.of(findAllForMeans(request), findAllForEquipment(request), findAllForCarried(request))
-                    .flatMap(Collection::stream)
-                    .collect(Collectors.toSet()));
-        }
-        return new ArrayList<>(results);
+        final List<Long> ids = findIdsByCriteria(request, 0, MAX_RESULTS);
+        return ids.isEmpty() ? List.of() : findAllByIdInOrderById(ids);
     }
 
-    default List<Consignment> findAllForMeans(SearchWithIdentifiersRequestDto request) {
-        return this.findAll((root, query, cb) -> {
-            final List<Predicate> predicates = new ArrayList<>();
-            Join<Consignment, MainCarriageTransportMovement> mainCarriageTransportMovementJoin = root.join(MOVEMENTS, JoinType.LEFT);
-
-            predicates.add(cb.equal(cb.upper(mainCarriageTransportMovementJoin.get(USED_TRANSPORT_MEANS_ID)), request.getIdentifier().toUpperCase()));
-
-            buildCommonAttributesRequest(request, cb, predicates, mainCarriageTransportMovementJoin);
-
-            if (StringUtils.isNotBlank(request.getRegistrationCountryCode())) {
-                predicates.add(cb.equal(mainCarriageTransportMovementJoin.get(USED_TRANSPORT_MEANS_REGISTRATION_COUNTRY), request.getRegistrationCountryCode()));
-            }
-
-            return cb.and(predicates.toArray(new Predicate[]{}));
-        });
+    /**
+     * Whether consignments after the given one match the search, without loading them.
+     */
+    default boolean hasResultsAfter(final SearchWithIdentifiersRequestDto request, final long afterId) {
+        return !findIdsByCriteria(request, afterId, 1).isEmpty();
     }
 
-    default List<Consignment> findAllForEquipment(SearchWithIdentifiersRequestDto request) {
-        return this.findAll((root, query, cb) -> {
-            final List<Predicate> predicates = new ArrayList<>();
-            Join<Consignment, MainCarriageTransportMovement> mainCarriageTransportMovementJoin = root.join(MOVEMENTS, JoinType.LEFT);
-            Join<Consignment, UsedTransportEquipment> equipmentJoin = root.join(TRANSPORT_VEHICLES, JoinType.LEFT);
-            predicates.add(cb.equal(cb.upper(equipmentJoin.get(VEHICLE_ID)), request.getIdentifier().toUpperCase()));
-
-            buildCommonAttributesRequest(request, cb, predicates, mainCarriageTransportMovementJoin);
-
-            if (StringUtils.isNotBlank(request.getRegistrationCountryCode())) {
-                predicates.add(cb.equal(equipmentJoin.get(VEHICLE_COUNTRY), request.getRegistrationCountryCode()));
-            }
-            return cb.and(predicates.toArray(new Predicate[]{}));
-        });
-    }
-
-    default List<Consignment> findAllForCarried(SearchWithIdentifiersRequestDto request) {
-        return this.findAll((root, query, cb) -> {
-            final List<Predicate> predicates = new ArrayList<>();
-            Join<Consignment, MainCarriageTransportMovement> mainCarriageTransportMovementJoin = root.join(MOVEMENTS, JoinType.LEFT);
-            Join<Consignment, UsedTransportEquipment> equipmentJoin = root.join(TRANSPORT_VEHICLES, JoinType.LEFT);
-            Join<UsedTransportEquipment, CarriedTransportEquipment> carriedJoin = equipmentJoin.join(CARRIED_TRANSPORT_EQUIPMENTS, JoinType.LEFT);
-
-            predicates.add(cb.equal(cb.upper(carriedJoin.get(VEHICLE_ID)), request.getIdentifier().toUpperCase()));
-
-            buildCommonAttributesRequest(request, cb, predicates, mainCarriageTransportMovementJoin);
-
-            return cb.and(predicates.toArray(new Predicate[]{}));
-        });
+    private List<Long> findIdsByCriteria(final SearchWithIdentifiersRequestDto request, final long afterId, final int limit) {
+        final List<String> identifierTypes = request.getIdentifierType();
+        final boolean allTypes = CollectionUtils.isEmpty(identifierTypes);
+        return findIdsByIdentifier(request.getIdentifier().toUpperCase(),
+                allTypes || containsIgnoreCase(identifierTypes, MEANS),
+                allTypes || containsIgnoreCase(identifierTypes, EQUIPMENT),
+                allTypes || containsIgnoreCase(identifierTypes, CARRIED),
+                StringUtils.defaultIfBlank(request.getRegistrationCountryCode(), null),
+                request.getDangerousGoodsIndicator(),
+                StringUtils.defaultIfBlank(request.getModeCode(), null),
+                afterId,
+                PageRequest.ofSize(limit));
     }
 
-    private void buildCommonAttributesRequest(SearchWithIdentifiersRequestDto request, CriteriaBuilder cb, List<Predicate> predicates, Join<Consignment, MainCarriageTransportMovement> mainCarriageTransportMovementJoin) {
-        if (request.getDangerousGoodsIndicator() != null) {
-            predicates.add(cb.and(cb.equal(mainCarriageTransportMovementJoin.get(IS_DANGEROUS_GOODS), request.getDangerousGoodsIndicator())));
-        }
-        if (StringUtils.isNotBlank(request.getModeCode())) {
-            predicates.add(cb.and(cb.equal(mainCarriageTransportMovementJoin.get(TRANSPORT_MODE), request.getModeCode())));
-        }
+    /**
+     * Distinct ids of the consignments whose transport means, used equipment or carried equipment has the identifier,
+     * each lookup being enabled by its flag. The movement filters apply to any movement of the consignment, and the
+     * registration country to the means or used equipment holding the identifier.
+     */
+    @Query("""
+            select c.id from Consignment c where c.id > :afterId and c.id in (
+                select cm.id from Consignment cm left join cm.mainCarriageTransportMovements m
+                where :means = true and upper(m.usedTransportMeansId) = :identifier
+                and (:country is null or m.usedTransportMeansRegistrationCountry = :country)
+                and (:dangerousGoods is null or m.dangerousGoodsIndicator = :dangerousGoods) and (:modeCode is null or m.modeCode = :modeCode)
+                union
+                select ce.id from Consignment ce left join ce.mainCarriageTransportMovements m left join ce.usedTransportEquipments e
+                where :equipment = true and upper(e.equipmentId) = :identifier
+                and (:country is null or e.registrationCountry = :country)
+                and (:dangerousGoods is null or m.dangerousGoodsIndicator = :dangerousGoods) and (:modeCode is null or m.modeCode = :modeCode)
+                union
+                select cc.id from Consignment cc left join cc.mainCarriageTransportMovements m left join cc.usedTransportEquipments e
+                left join e.carriedTransportEquipments carried
+                where :carried = true and upper(carried.equipmentId) = :identifier
+                and (:dangerousGoods is null or m.dangerousGoodsIndicator = :dangerousGoods) and (:modeCode is null or m.modeCode = :modeCode))
+            order by c.id""")
+    List<Long> findIdsByIdentifier(@Param("identifier") final String identifier, @Param("means") final boolean means,
+                                   @Param("equipment") final boolean equipment, @Param("carried") final boolean carried,
+                                   @Param("country") final String country, @Param("dangerousGoods") final Boolean dangerousGoods,
+                                   @Param("modeCode") final String modeCode, @Param("afterId") final long afterId, final Pageable pageable);
+
+    /**
+     * Consignments with their movements; their equipments are loaded by one subselect per collection.
+     */
+    @Query("select distinct c from Consignment c left join fetch c.mainCarriageTransportMovements where c.id in :ids order by c.id")
+    List<Consignment> findAllByIdInOrderById(@Param("ids") final Collection<Long> ids);
+
+    private static boolean containsIgnoreCase(final List<String> identifierTypes, final String identifierType) {
+        return identifierTypes.stream().anyMatch(identifierType::equalsIgnoreCase);
     }
 }
@@ -0,0 +1,14 @@
+package eu.efti.identifiersregistry.service;
+
+import eu.efti.commons.dto.identifiers.ConsignmentDto;
+
+import java.util.List;
+
+/**
+ * Consignments found by an identifiers search, at most max-results of them.
+ *
+ * @param consignments the first consignments matching the search, in id order
+ * @param truncated    whether more consignments match the search than were returned
+ */
+public record IdentifiersSearchResult(List<ConsignmentDto> consignments, boolean truncated) {
+}
@@ -68,8 +68,14 @@ public class IdentifiersService {
         return consignment.map(mapper::entityToDto).orElse(null);
     }
 
+    /**
+     * First max-results consignments matching the search, flagged as truncated when more of them match.
+     */
     @Transactional("identifiersTransactionManager")
-    public List<ConsignmentDto> search(final SearchWithIdentifiersRequestDto identifiersRequestDto) {
-        return mapper.entityToDto(this.identifiersRepository.searchByCriteria(identifiersRequestDto));
+    public IdentifiersSearchResult search(final SearchWithIdentifiersRequestDto identifiersRequestDto) {
+        final List<Consignment> consignments = this.identifiersRepository.searchByCriteria(identifiersRequestDto);
+        final boolean truncated = consignments.size() == IdentifiersRepository.MAX_RESULTS
+                && this.identifiersRepository.hasResultsAfter(identifiersRequestDto, consignments.get(consignments.size() - 1).getId());
+        return new IdentifiersSearchResult(mapper.entityToDto(consignments), truncated);
     }
 }
@@ -14,6 +14,7 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
@@ -23,6 +24,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(SpringExtension.class)
@@ -35,6 +37,8 @@ class IdentifiersRepositoryTest {
 
     @Autowired
     private IdentifiersRepository identifiersRepository;
+    @Autowired
+    private TestEntityManager entityManager;
     final Consignment firstConsignment = new Consignment();
     final Consignment secondConsignment = new Consignment();
     final Consignment thirdConsignment = new Consignment();
@@ -305,4 +309,35 @@ class IdentifiersRepositoryTest {
         assertEquals(2, foundConsignments.size());
         assertTrue(CollectionUtils.isEqualCollection(foundConsignments, List.of(firstConsignment, secondConsignment)));
     }
+
+    @Test
+    void shouldFindWhetherResultsFollowAConsignment() {
+        final SearchWithIdentifiersRequestDto request = SearchWithIdentifiersRequestDto.builder()
+                .identifier("ASB-123")
+                .registrationCountryCode("FI")
+                .build();
+
+        assertEquals(List.of(fourthConsignment, fifthConsignment, sixthConsignment), identifiersRepository.searchByCriteria(request));
+        assertTrue(identifiersRepository.hasResultsAfter(request, fifthConsignment.getId()));
+        assertFalse(identifiersRepository.hasResultsAfter(request, sixthConsignment.getId()));
+    }
+
+    @Test
+    void shouldFetchGraphsOfFoundConsignments() {
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Consignment> foundConsignments = identifiersRepository.searchByCriteria(SearchWithIdentifiersRequestDto.builder()
+                .identifier("54321")
+                .identifierType(List.of("equipment"))
+                .build());
+
+        assertEquals(List.of(firstConsignment.getId(), secondConsignment.getId(), thirdConsignment.getId(), fourthConsignment.getId(), fifthConsignment.getId()),
+                foundConsignments.stream().map(Consignment::getId).toList());
+        final Consignment consignment = foundConsignments.get(0);
+        assertEquals(1, consignment.getMainCarriageTransportMovements().size());
+        assertEquals("FMC888", consignment.getMainCarriageTransportMovements().get(0).getUsedTransportMeansId());
+        assertEquals(1, consignment.getUsedTransportEquipments().size());
+        assertEquals("54321", consignment.getUsedTransportEquipments().get(0).getEquipmentId());
+    }
 }
@@ -16,12 +16,18 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -158,8 +164,44 @@ class IdentifiersServiceTest extends AbstractServiceTest {
     @Test
     void shouldSearch() {
         final SearchWithIdentifiersRequestDto identifiersRequestDto = SearchWithIdentifiersRequestDto.builder().build();
-        service.search(identifiersRequestDto);
+
+        final IdentifiersSearchResult result = service.search(identifiersRequestDto);
+
+        assertFalse(result.truncated());
         verify(repository).searchByCriteria(identifiersRequestDto);
+        verify(repository, never()).hasResultsAfter(any(), anyLong());
+    }
+
+    @Test
+    void shouldFlagSearchAsTruncatedWhenMoreResultsMatch() {
+        final SearchWithIdentifiersRequestDto identifiersRequestDto = SearchWithIdentifiersRequestDto.builder().identifier("AA123").build();
+        final List<Consignment> consignments = LongStream.rangeClosed(1, IdentifiersRepository.MAX_RESULTS).mapToObj(id -> {
+            final Consignment found = new Consignment();
+            found.setId(id);
+            return found;
+        }).toList();
+        when(repository.searchByCriteria(identifiersRequestDto)).thenReturn(consignments);
+        when(repository.hasResultsAfter(identifiersRequestDto, IdentifiersRepository.MAX_RESULTS)).thenReturn(true);
+
+        final IdentifiersSearchResult result = service.search(identifiersRequestDto);
+
+        assertTrue(result.truncated());
+        assertEquals(IdentifiersRepository.MAX_RESULTS, result.consignments().size());
+    }
+
+    @Test
+    void shouldNotFlagSearchAsTruncatedWhenNoMoreResultsMatch() {
+        final SearchWithIdentifiersRequestDto identifiersRequestDto = SearchWithIdentifiersRequestDto.builder().identifier("AA123").build();
+        final List<Consignment> consignments = LongStream.rangeClosed(1, IdentifiersRepository.MAX_RESULTS).mapToObj(id -> {
+            final Consignment found = new Consignment();
+            found.setId(id);
+            return found;
+        }).toList();
+        when(repository.searchByCriteria(identifiersRequestDto)).thenReturn(consignments);
+
+        assertFalse(service.search(identifiersRequestDto).truncated());
+
+        verify(repository).hasResultsAfter(identifiersRequestDto, IdentifiersRepository.MAX_RESULTS);
     }
 
     @AfterEach